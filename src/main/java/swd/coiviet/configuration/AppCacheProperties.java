@@ -0,0 +1,47 @@
+package swd.coiviet.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.cache")
+public class AppCacheProperties {
+    private Duration defaultTtl = Duration.ofMinutes(10);
+    private long defaultMaxSize = 1000;
+    // TTL và số phần tử tối đa theo từng cache, cache không khai báo dùng giá trị mặc định
+    private Map<String, Spec> specs = new LinkedHashMap<>();
+    private L2 l2 = new L2();
+
+    public Duration ttlOf(String cacheName) {
+        Spec spec = specs.get(cacheName);
+        return spec != null && spec.getTtl() != null ? spec.getTtl() : defaultTtl;
+    }
+
+    public long maxSizeOf(String cacheName) {
+        Spec spec = specs.get(cacheName);
+        return spec != null && spec.getMaxSize() != null ? spec.getMaxSize() : defaultMaxSize;
+    }
+
+    @Data
+    public static class Spec {
+        private Duration ttl;
+        private Long maxSize;
+    }
+
+    @Data
+    public static class L2 {
+        // none: chỉ dùng Caffeine; redis: Redis làm L2; local: map trong bộ nhớ thay Redis (dev/test)
+        private String type = "none";
+        private String host = "localhost";
+        private int port = 6379;
+        private String password;
+        private String keyPrefix = "coiviet:";
+        private String evictionChannel = "coiviet:cache-evict";
+    }
+}
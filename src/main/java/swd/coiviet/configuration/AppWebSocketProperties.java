@@ -0,0 +1,33 @@
+package swd.coiviet.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.websocket")
+public class AppWebSocketProperties {
+    // simple: broker trong JVM (một instance); relay: STOMP broker ngoài (RabbitMQ/ActiveMQ);
+    // postgres: broker trong JVM, tin nhắn tới user được phát sang các instance qua LISTEN/NOTIFY
+    private String broker = "simple";
+    private Relay relay = new Relay();
+    private Postgres postgres = new Postgres();
+
+    @Data
+    public static class Relay {
+        private String host = "localhost";
+        private int port = 61613;
+        private String clientLogin = "guest";
+        private String clientPasscode = "guest";
+        private String systemLogin = "guest";
+        private String systemPasscode = "guest";
+        private String virtualHost;
+    }
+
+    @Data
+    public static class Postgres {
+        // Tên channel của LISTEN/NOTIFY, chỉ gồm chữ thường, số và dấu gạch dưới
+        private String channel = "coiviet_stomp";
+    }
+}
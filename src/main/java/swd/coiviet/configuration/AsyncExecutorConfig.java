@@ -0,0 +1,110 @@
+package swd.coiviet.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class AsyncExecutorConfig {
+
+    /**
+     * Pool gửi email cho outbox dispatcher. Queue có giới hạn, khi đầy thì thread dispatcher
+     * tự chạy task (CallerRuns) để tạo backpressure thay vì nhận thêm việc
+     */
+    @Bean(name = "outboxExecutor")
+    public ThreadPoolTaskExecutor outboxExecutor(
+            @Value("${app.outbox.pool-size:4}") int poolSize,
+            @Value("${app.outbox.batch-size:50}") int batchSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(batchSize);
+        executor.setThreadNamePrefix("outbox-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool xử lý song song các chunk của workflow tour ít booking, mỗi chunk một transaction.
+     * Queue có giới hạn, khi đầy thì thread scheduler tự xử lý chunk (CallerRuns)
+     */
+    @Bean(name = "workflowExecutor")
+    public ThreadPoolTaskExecutor workflowExecutor(
+            @Value("${app.workflow.pool-size:4}") int poolSize,
+            @Value("${app.workflow.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("workflow-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool upload ảnh song song lên Cloudinary. Pool và queue nhỏ để số file đang upload (và bộ nhớ
+     * đi kèm) có giới hạn, khi đầy thì request thread tự upload (CallerRuns)
+     */
+    @Bean(name = "mediaUploadExecutor")
+    public ThreadPoolTaskExecutor mediaUploadExecutor(
+            @Value("${app.media.upload-pool-size:3}") int poolSize,
+            @Value("${app.media.upload-queue-capacity:10}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("media-upload-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool chạy media job (upload ảnh/audio/video của ký ức và video). Worker chỉ nhận số job bằng
+     * số thread rảnh nên queue chỉ là dự phòng, khi đầy thì thread scheduler tự chạy (CallerRuns)
+     */
+    @Bean(name = "mediaJobExecutor")
+    public ThreadPoolTaskExecutor mediaJobExecutor(@Value("${app.media.job-pool-size:2}") int poolSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(poolSize);
+        executor.setThreadNamePrefix("media-job-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool giải mã/thu nhỏ ảnh trước khi upload, giới hạn số nhân CPU dùng cho ảnh. Khác các pool khác,
+     * khi đầy thì từ chối (ảnh được upload nguyên bản) để request thread không tự giải mã vượt giới hạn
+     */
+    @Bean(name = "imageProcessingExecutor")
+    public ThreadPoolTaskExecutor imageProcessingExecutor(
+            @Value("${app.media.image-pool-size:2}") int poolSize,
+            @Value("${app.media.image-queue-capacity:16}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("image-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,26 @@
+package swd.coiviet.configuration;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+import java.io.Serializable;
+
+/**
+ * Thông tin người dùng lấy từ JWT đã xác thực, đặt làm principal của SecurityContext
+ * và được inject vào tham số controller kiểu AuthPrincipal
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class AuthPrincipal implements AuthenticatedPrincipal, Serializable {
+    private final Long userId;
+    private final String username;
+    private final String role;
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -0,0 +1,37 @@
+package swd.coiviet.configuration;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import swd.coiviet.exception.AppException;
+import swd.coiviet.exception.ErrorCode;
+
+/**
+ * Inject AuthPrincipal do JwtFilter đặt vào SecurityContext, không parse lại token
+ */
+@Component
+public class AuthPrincipalArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return AuthPrincipal.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthPrincipal principal) {
+            if (principal.getUserId() == null) {
+                throw new AppException(ErrorCode.UNAUTHORIZED, "Token không chứa thông tin user");
+            }
+            return principal;
+        }
+        throw new AppException(ErrorCode.UNAUTHORIZED, "Token không hợp lệ");
+    }
+}
@@ -0,0 +1,118 @@
+package swd.coiviet.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    private static final Logger logger = LoggerFactory.getLogger(CacheConfig.class);
+
+    // Dùng để bỏ qua thông báo evict do chính instance này gửi
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Bean
+    public TwoLevelCacheManager cacheManager(AppCacheProperties properties,
+                                             ObjectProvider<RedisConnectionFactory> redisConnectionFactory,
+                                             ObjectProvider<StringRedisTemplate> redisTemplate) {
+        String type = properties.getL2().getType();
+        Function<String, Cache> l2Factory = null;
+        Consumer<String> evictionPublisher = name -> { };
+        if ("redis".equalsIgnoreCase(type)) {
+            RedisCacheManager redis = redisCacheManager(properties, redisConnectionFactory.getObject());
+            l2Factory = redis::getCache;
+            StringRedisTemplate template = redisTemplate.getObject();
+            String channel = properties.getL2().getEvictionChannel();
+            evictionPublisher = name -> {
+                try {
+                    template.convertAndSend(channel, nodeId + "|" + name);
+                } catch (RuntimeException e) {
+                    logger.warn("Không gửi được thông báo evict cache {}: {}", name, e.getMessage());
+                }
+            };
+        } else if ("local".equalsIgnoreCase(type)) {
+            l2Factory = ConcurrentMapCache::new;
+        }
+        logger.info("Cache L2 mode: {}", type);
+        return new TwoLevelCacheManager(properties, l2Factory, evictionPublisher);
+    }
+
+    @Bean
+    public TwoLevelCacheMeterBinderProvider twoLevelCacheMeterBinderProvider() {
+        return new TwoLevelCacheMeterBinderProvider();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.cache.l2.type", havingValue = "redis")
+    public LettuceConnectionFactory redisConnectionFactory(AppCacheProperties properties) {
+        AppCacheProperties.L2 l2 = properties.getL2();
+        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(l2.getHost(), l2.getPort());
+        if (l2.getPassword() != null && !l2.getPassword().isBlank()) {
+            config.setPassword(l2.getPassword());
+        }
+        return new LettuceConnectionFactory(config);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.cache.l2.type", havingValue = "redis")
+    public StringRedisTemplate stringRedisTemplate(RedisConnectionFactory redisConnectionFactory) {
+        return new StringRedisTemplate(redisConnectionFactory);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.cache.l2.type", havingValue = "redis")
+    public RedisMessageListenerContainer cacheEvictionListener(RedisConnectionFactory redisConnectionFactory,
+                                                               TwoLevelCacheManager cacheManager,
+                                                               AppCacheProperties properties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener((message, pattern) -> {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            int sep = body.indexOf('|');
+            if (sep < 0 || body.substring(0, sep).equals(nodeId)) {
+                return;
+            }
+            cacheManager.clearLocal(body.substring(sep + 1));
+        }, new ChannelTopic(properties.getL2().getEvictionChannel()));
+        return container;
+    }
+
+    private RedisCacheManager redisCacheManager(AppCacheProperties properties, RedisConnectionFactory connectionFactory) {
+        // TwoLevelCache đã mã hóa giá trị bằng CacheValueCodec, Redis chỉ lưu nguyên byte
+        RedisCacheConfiguration defaults = RedisCacheConfiguration.defaultCacheConfig()
+                .prefixCacheNameWith(properties.getL2().getKeyPrefix())
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(RedisSerializer.byteArray()))
+                .entryTtl(properties.getDefaultTtl());
+        RedisCacheManager.RedisCacheManagerBuilder builder = RedisCacheManager
+                .builder(RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory))
+                .cacheDefaults(defaults);
+        properties.getSpecs().keySet().forEach(name ->
+                builder.withCacheConfiguration(name, defaults.entryTtl(properties.ttlOf(name))));
+        RedisCacheManager manager = builder.build();
+        manager.afterPropertiesSet();
+        return manager;
+    }
+}
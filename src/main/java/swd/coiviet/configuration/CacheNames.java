@@ -0,0 +1,18 @@
+package swd.coiviet.configuration;
+
+/**
+ * Tên các cache dùng trong @Cacheable/@CacheEvict, cấu hình TTL và kích thước trong app.cache.specs
+ */
+public final class CacheNames {
+    public static final String PROVINCES = "provinces";
+    public static final String PROVINCE_BY_SLUG = "provinceBySlug";
+    public static final String TOURS = "tours";
+    public static final String ARTISANS = "artisans";
+    public static final String CULTURE_ITEMS = "cultureItems";
+    public static final String CULTURE_ITEM_LISTS = "cultureItemLists";
+    public static final String VOUCHER_BY_CODE = "voucherByCode";
+    public static final String ADMIN_DASHBOARD = "adminDashboard";
+
+    private CacheNames() {
+    }
+}
@@ -0,0 +1,39 @@
+package swd.coiviet.configuration;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+/**
+ * Mã hóa giá trị cache thành JSON (kèm kiểu) để L1 và L2 chỉ giữ byte. Mỗi lần đọc được một bản sao mới,
+ * người gọi sửa entity lấy từ cache không làm hỏng bản dùng chung
+ */
+public class CacheValueCodec {
+    private final GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+
+    public CacheValueCodec() {
+        serializer.configure(mapper -> {
+            mapper.registerModule(new JavaTimeModule());
+            mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+            mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        });
+    }
+
+    /**
+     * null được mã hóa thành mảng rỗng
+     */
+    public byte[] encode(Object value) {
+        return serializer.serialize(value);
+    }
+
+    public Object decode(Object stored) {
+        if (stored == null) {
+            return null;
+        }
+        if (!(stored instanceof byte[] bytes)) {
+            throw new IllegalStateException("Cache value was not stored by value: " + stored.getClass().getName());
+        }
+        return serializer.deserialize(bytes);
+    }
+}
@@ -1,6 +1,5 @@
 package swd.coiviet.configuration;
 
-import io.jsonwebtoken.Claims;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.simp.stomp.StompCommand;
@@ -39,19 +38,15 @@ public class JwtChannelInterceptor implements ChannelInterceptor {
             if (token == null || token.isBlank()) {
                 throw new AppException(ErrorCode.UNAUTHORIZED, "Missing JWT token");
             }
-            if (!jwtUtil.validateToken(token)) {
-                throw new AppException(ErrorCode.TOKEN_INVALID, "Token is invalid or expired");
-            }
-
-            Claims claims = jwtUtil.getClaims(token);
-            Integer userId = claims.get("userId", Integer.class);
-            String role = claims.get("role", String.class);
+            AuthPrincipal principal = jwtUtil.authenticate(token);
+            Long userId = principal.getUserId();
+            String role = principal.getRole();
 
             if (userId == null) {
                 throw new AppException(ErrorCode.UNAUTHORIZED, "Token missing userId");
             }
 
-            swd.coiviet.model.User user = userRepository.findById(userId.longValue())
+            swd.coiviet.model.User user = userRepository.findById(userId)
                     .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND, "User not found"));
             if (user.getStatus() == Status.BANNED) {
                 throw new AppException(ErrorCode.FORBIDDEN, "Account is banned");
@@ -8,14 +8,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import swd.coiviet.repository.UserRepository;
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
+import swd.coiviet.service.UserStatusService;
 import swd.coiviet.enums.Status;
+import swd.coiviet.exception.AppException;
 
 
 import java.io.IOException;
@@ -28,6 +27,8 @@ public class JwtFilter extends OncePerRequestFilter {
     private JwtUtil jwtUtil;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private UserStatusService userStatusService;
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
@@ -38,51 +39,56 @@ public class JwtFilter extends OncePerRequestFilter {
         }
 
         String token = header.substring(7);
+        AuthPrincipal principal;
         try {
-            if (!jwtUtil.validateToken(token)) {
-                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                response.setContentType("application/json");
-                response.getWriter().write("{\"code\": 1020, \"message\": \"Token is invalid or expired\"}");
-                return;
-            }
-            Claims claims = Jwts.parser()
-                    .setSigningKey(java.util.Base64.getEncoder().encodeToString(jwtUtil.getSecret().getBytes()))
-                    .parseClaimsJws(token)
-                    .getBody();
-            String username = claims.getSubject();
-            String role = claims.get("role", String.class);
-            Integer userId = claims.get("userId", Integer.class);
-
-            // Check if user is banned in DB
-            try {
-                if (userId != null) {
-                    swd.coiviet.model.User u = userRepository.findById(Long.valueOf(userId)).orElse(null);
-                    if (u != null && u.getStatus() == Status.BANNED) {
-                        response.setStatus(HttpServletResponse.SC_FORBIDDEN);
-                        response.setContentType("application/json");
-                        response.getWriter().write("{\"code\": 403, \"message\": \"Account is banned\"}");
-                        return;
-                    }
-                }
-            } catch (Exception ex) {
-                // if repo check fails, continue with caution
-            }
-
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                User userDetails = new User(username, "", Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role)));
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        userDetails, token, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-            }
-        } catch (Exception e) {
+            // Xác thực một lần cho cả request; controller nhận AuthPrincipal từ SecurityContext
+            principal = jwtUtil.authenticate(token);
+        } catch (AppException e) {
             SecurityContextHolder.clearContext();
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
             response.setContentType("application/json");
-            response.getWriter().write("{\"code\": 1020, \"message\": \"Invalid token: " + e.getMessage() + "\"}");
+            response.getWriter().write("{\"code\": 1020, \"message\": \"Token is invalid or expired\"}");
+            return;
+        }
+
+        // Kiểm tra user bị khóa/vô hiệu hóa bằng index trong bộ nhớ, không truy vấn DB
+        Status restriction = restrictionOf(principal.getUserId());
+        if (restriction != null) {
+            response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            response.setContentType("application/json");
+            response.getWriter().write(restriction == Status.BANNED
+                    ? "{\"code\": 403, \"message\": \"Account is banned\"}"
+                    : "{\"code\": 403, \"message\": \"Account is inactive\"}");
             return;
         }
 
+        if (principal.getUsername() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                    principal, token, Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + principal.getRole())));
+            authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+        }
+
         chain.doFilter(request, response);
     }
+
+    private Status restrictionOf(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        if (userStatusService.isLoaded()) {
+            return userStatusService.getRestriction(userId);
+        }
+        // Index chưa nạp được (DB lỗi lúc khởi động): tra DB như trước
+        try {
+            swd.coiviet.model.User u = userRepository.findById(userId).orElse(null);
+            if (u == null) {
+                return null;
+            }
+            return u.getStatus() == Status.BANNED || u.getStatus() == Status.INACTIVE ? u.getStatus() : null;
+        } catch (Exception ex) {
+            // if repo check fails, continue with caution
+            return null;
+        }
+    }
 }
@@ -1,14 +1,20 @@
 package swd.coiviet.configuration;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import swd.coiviet.exception.AppException;
 import swd.coiviet.exception.ErrorCode;
 
-import java.util.Base64;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
 import java.util.Date;
 
 @Component
@@ -24,6 +30,57 @@ public class JwtUtil {
     @Value("${jwt.refreshable-duration}")
     private long refreshableDuration;
 
+    @Value("${jwt.cache-size:10000}")
+    private long cacheSize;
+
+    // Khóa và parser dựng một lần; parser chỉ đọc cấu hình khi parse nên dùng chung giữa các thread được
+    private Key signingKey;
+    private JwtParser parser;
+    // Token đã xác thực chữ ký -> principal, request sau với cùng token không cần kiểm tra HMAC lại
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    private record VerifiedToken(AuthPrincipal principal, long expiresAtMillis) {
+    }
+
+    @PostConstruct
+    void init() {
+        // Cùng byte khóa với cách cũ (Base64 của secret rồi jjwt tự decode lại)
+        signingKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), SignatureAlgorithm.HS512.getJcaName());
+        parser = Jwts.parser().setSigningKey(signingKey).setAllowedClockSkewSeconds(60);
+        verifiedTokens = Caffeine.newBuilder().maximumSize(cacheSize).build();
+    }
+
+    /**
+     * Xác thực token và trả về principal; token đã xác thực trước đó được lấy từ cache LRU
+     * @throws AppException TOKEN_INVALID nếu token sai chữ ký, sai định dạng hoặc đã hết hạn
+     */
+    public AuthPrincipal authenticate(String token) {
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = verifiedTokens.getIfPresent(token);
+        if (cached != null) {
+            if (cached.expiresAtMillis() > now) {
+                return cached.principal();
+            }
+            verifiedTokens.invalidate(token);
+            throw new AppException(ErrorCode.TOKEN_INVALID, "Token is expired");
+        }
+
+        Claims claims;
+        try {
+            claims = parser.parseClaimsJws(token).getBody();
+        } catch (Exception e) {
+            throw new AppException(ErrorCode.TOKEN_INVALID, "Token is invalid: " + e.getMessage());
+        }
+        if (claims.getExpiration() == null || isTokenExpired(claims)) {
+            throw new AppException(ErrorCode.TOKEN_INVALID, "Token is expired");
+        }
+        Integer userId = claims.get("userId", Integer.class);
+        AuthPrincipal principal = new AuthPrincipal(userId != null ? Long.valueOf(userId) : null,
+                claims.getSubject(), claims.get("role", String.class));
+        verifiedTokens.put(token, new VerifiedToken(principal, claims.getExpiration().getTime()));
+        return principal;
+    }
+
     public String generateToken(String username, String role, Integer userId) {
         long expirationInMillis = expiration * 1000;
         logger.info("Generating token with expiration: " + expirationInMillis + " ms (" + expiration + " seconds)");
@@ -33,51 +90,29 @@ public class JwtUtil {
                 .claim("userId", userId)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expirationInMillis))
-                .signWith(SignatureAlgorithm.HS512, Base64.getEncoder().encodeToString(secret.getBytes()))
+                .signWith(SignatureAlgorithm.HS512, signingKey)
                 .compact();
     }
 
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(Base64.getEncoder().encodeToString(secret.getBytes()))
-                .setAllowedClockSkewSeconds(60)
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.getSubject();
+        return authenticate(token).getUsername();
     }
 
     public String getRoleFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(Base64.getEncoder().encodeToString(secret.getBytes()))
-                .setAllowedClockSkewSeconds(60)
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.get("role", String.class);
+        return authenticate(token).getRole();
     }
 
     public Integer getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(Base64.getEncoder().encodeToString(secret.getBytes()))
-                .setAllowedClockSkewSeconds(60)
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.get("userId", Integer.class);
+        Long userId = authenticate(token).getUserId();
+        return userId != null ? userId.intValue() : null;
     }
 
     public boolean validateToken(String token) {
         try {
-            Claims claims = Jwts.parser()
-                    .setSigningKey(Base64.getEncoder().encodeToString(secret.getBytes()))
-                    .setAllowedClockSkewSeconds(60)
-                    .parseClaimsJws(token)
-                    .getBody();
-            boolean isExpired = isTokenExpired(claims);
-            if (isExpired) {
-                logger.warn("Token is expired - exp: " + claims.getExpiration() + ", current time: " + new Date());
-            }
-            return !isExpired;
-        } catch (Exception e) {
-            logger.error("Error validating token: " + e.getMessage());
+            authenticate(token);
+            return true;
+        } catch (AppException e) {
+            logger.warn("Error validating token: " + e.getMessage());
             return false;
         }
     }
@@ -88,11 +123,7 @@ public class JwtUtil {
 
     public boolean canRefreshToken(String token) {
         try {
-            Claims claims = Jwts.parser()
-                    .setSigningKey(Base64.getEncoder().encodeToString(secret.getBytes()))
-                    .setAllowedClockSkewSeconds(60)
-                    .parseClaimsJws(token)
-                    .getBody();
+            Claims claims = parser.parseClaimsJws(token).getBody();
             Date issuedAt = claims.getIssuedAt();
             Date refreshableUntil = new Date(issuedAt.getTime() + refreshableDuration);
             return new Date().before(refreshableUntil);
@@ -105,26 +136,16 @@ public class JwtUtil {
         if (!canRefreshToken(token)) {
             throw new AppException(ErrorCode.INVALID_REQUEST, "Token cannot be refreshed");
         }
-        Claims claims = Jwts.parser()
-                .setSigningKey(Base64.getEncoder().encodeToString(secret.getBytes()))
-                .parseClaimsJws(token)
-                .getBody();
+        Claims claims = parser.parseClaimsJws(token).getBody();
         return generateToken(claims.getSubject(), claims.get("role", String.class), claims.get("userId", Integer.class));
     }
 
     public Claims getClaims(String token) {
-        return Jwts.parser()
-                .setSigningKey(Base64.getEncoder().encodeToString(secret.getBytes()))
-                .setAllowedClockSkewSeconds(60)
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
     public long getExpiration() {
         return expiration;
     }
 
-    public String getSecret() {
-        return secret;
-    }
 }
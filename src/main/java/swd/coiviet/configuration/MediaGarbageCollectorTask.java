@@ -0,0 +1,50 @@
+package swd.coiviet.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import swd.coiviet.service.MediaAssetService;
+import swd.coiviet.service.SchedulerLockService;
+
+@Component
+public class MediaGarbageCollectorTask {
+    private static final Logger logger = LoggerFactory.getLogger(MediaGarbageCollectorTask.class);
+
+    private final MediaAssetService mediaAssetService;
+    private final SchedulerLockService schedulerLockService;
+
+    @Value("${app.media.gc-max-batches:20}")
+    private int maxBatches;
+
+    public MediaGarbageCollectorTask(MediaAssetService mediaAssetService,
+                                     SchedulerLockService schedulerLockService) {
+        this.mediaAssetService = mediaAssetService;
+        this.schedulerLockService = schedulerLockService;
+    }
+
+    /**
+     * Xóa trên Cloudinary các media không còn entity nào dùng, mỗi lượt tối đa gc-max-batches lô
+     */
+    @Scheduled(fixedDelayString = "${app.media.gc-interval-ms:300000}")
+    public void collectGarbage() {
+        try {
+            schedulerLockService.runExclusively("media-gc", () -> {
+                int total = 0;
+                for (int i = 0; i < maxBatches; i++) {
+                    int deleted = mediaAssetService.collectGarbage();
+                    if (deleted == 0) {
+                        break;
+                    }
+                    total += deleted;
+                }
+                if (total > 0) {
+                    logger.info("Dọn media không còn dùng: xóa {} asset", total);
+                }
+            });
+        } catch (Exception e) {
+            logger.error("Lỗi khi dọn media không còn dùng: {}", e.getMessage(), e);
+        }
+    }
+}
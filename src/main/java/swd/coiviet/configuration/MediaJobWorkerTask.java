@@ -0,0 +1,97 @@
+package swd.coiviet.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import swd.coiviet.model.MediaJob;
+import swd.coiviet.service.MediaJobService;
+import swd.coiviet.service.SchedulerLockService;
+import swd.coiviet.service.UploadSessionService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Component
+public class MediaJobWorkerTask {
+    private static final Logger logger = LoggerFactory.getLogger(MediaJobWorkerTask.class);
+
+    private final MediaJobService mediaJobService;
+    private final SchedulerLockService schedulerLockService;
+    private final ThreadPoolTaskExecutor mediaJobExecutor;
+    private final UploadSessionService uploadSessionService;
+
+    @Value("${app.media.job-expiry:PT6H}")
+    private Duration jobExpiry;
+
+    @Value("${app.media.job-retention-days:7}")
+    private int retentionDays;
+
+    public MediaJobWorkerTask(MediaJobService mediaJobService,
+                              SchedulerLockService schedulerLockService,
+                              @Qualifier("mediaJobExecutor") ThreadPoolTaskExecutor mediaJobExecutor,
+                              UploadSessionService uploadSessionService) {
+        this.mediaJobService = mediaJobService;
+        this.schedulerLockService = schedulerLockService;
+        this.mediaJobExecutor = mediaJobExecutor;
+        this.uploadSessionService = uploadSessionService;
+    }
+
+    /**
+     * Nhận media job đến hạn của instance này, chỉ lấy đúng số thread đang rảnh để job chờ
+     * nằm trong DB (instance khác không lấy được vì file nằm trên đĩa instance này)
+     */
+    @Scheduled(fixedDelayString = "${app.media.job-poll-interval-ms:1000}")
+    public void dispatch() {
+        int idle = mediaJobExecutor.getMaxPoolSize() - mediaJobExecutor.getActiveCount();
+        if (idle <= 0) {
+            return;
+        }
+        List<MediaJob> jobs;
+        try {
+            jobs = mediaJobService.claimDueJobs(idle);
+        } catch (Exception e) {
+            logger.error("Lỗi khi lấy media jobs: {}", e.getMessage(), e);
+            return;
+        }
+        for (MediaJob job : jobs) {
+            mediaJobExecutor.execute(() -> mediaJobService.process(job));
+        }
+    }
+
+    /**
+     * Lúc 3:45 AM mỗi ngày: chuyển FAILED các job kẹt quá hạn và xóa job đã kết thúc cũ
+     */
+    @Scheduled(cron = "0 45 3 * * ?")
+    public void cleanup() {
+        try {
+            schedulerLockService.runExclusively("media-job-cleanup", () -> {
+                int expired = mediaJobService.expireStaleBefore(LocalDateTime.now().minus(jobExpiry));
+                int deleted = mediaJobService.purgeFinishedBefore(LocalDateTime.now().minusDays(retentionDays));
+                logger.info("Dọn media jobs: {} job quá hạn, xóa {} job cũ", expired, deleted);
+            });
+        } catch (Exception e) {
+            logger.error("Lỗi khi dọn media jobs: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Xóa file tạm của phiên upload nhiều phần bị bỏ dở. Mỗi instance tự dọn phiên của mình
+     * (file nằm trên đĩa instance đó) nên không chạy dưới lease
+     */
+    @Scheduled(fixedDelayString = "${app.media.upload-sweep-interval-ms:3600000}")
+    public void expireUploads() {
+        try {
+            int expired = uploadSessionService.expireBefore(LocalDateTime.now());
+            if (expired > 0) {
+                logger.info("Dọn {} phiên upload quá hạn", expired);
+            }
+        } catch (Exception e) {
+            logger.error("Lỗi khi dọn phiên upload: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package swd.coiviet.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import swd.coiviet.service.NotificationRetentionService;
+import swd.coiviet.service.SchedulerLockService;
+
+@Component
+public class NotificationMaintenanceTask {
+    private static final Logger logger = LoggerFactory.getLogger(NotificationMaintenanceTask.class);
+
+    private final NotificationRetentionService retentionService;
+    private final SchedulerLockService schedulerLockService;
+
+    public NotificationMaintenanceTask(NotificationRetentionService retentionService,
+                                       SchedulerLockService schedulerLockService) {
+        this.retentionService = retentionService;
+        this.schedulerLockService = schedulerLockService;
+    }
+
+    /**
+     * Chạy mỗi ngày lúc 4:00 AM: tạo trước partition cho các tháng tới rồi lưu trữ/xóa thông báo quá hạn
+     */
+    @Scheduled(cron = "0 0 4 * * ?") // 4:00 AM mỗi ngày
+    public void maintainNotifications() {
+        logger.info("Bắt đầu scheduled task: Bảo trì bảng thông báo");
+        try {
+            schedulerLockService.runExclusively("notification-retention", () -> {
+                int created = retentionService.ensurePartitions();
+                int archived = retentionService.archiveExpired();
+                logger.info("Hoàn thành scheduled task: Bảo trì bảng thông báo (tạo {} partition, lưu trữ/xóa {})",
+                        created, archived);
+            });
+        } catch (Exception e) {
+            logger.error("Lỗi khi chạy scheduled task bảo trì bảng thông báo: {}", e.getMessage(), e);
+        }
+    }
+}
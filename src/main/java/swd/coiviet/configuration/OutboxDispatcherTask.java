@@ -0,0 +1,134 @@
+package swd.coiviet.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import swd.coiviet.enums.OutboxEventType;
+import swd.coiviet.model.OutboxEvent;
+import swd.coiviet.service.EmailService;
+import swd.coiviet.service.OutboxService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+@Component
+public class OutboxDispatcherTask {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDispatcherTask.class);
+
+    private final OutboxService outboxService;
+    private final EmailService emailService;
+    private final ThreadPoolTaskExecutor outboxExecutor;
+
+    @Value("${app.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.outbox.retention-days:7}")
+    private int retentionDays;
+
+    public OutboxDispatcherTask(OutboxService outboxService,
+                                EmailService emailService,
+                                @Qualifier("outboxExecutor") ThreadPoolTaskExecutor outboxExecutor) {
+        this.outboxService = outboxService;
+        this.emailService = emailService;
+        this.outboxExecutor = outboxExecutor;
+    }
+
+    /**
+     * Lấy các event đến hạn trong outbox: thông báo được lưu theo lô,
+     * email được gửi song song trên outboxExecutor
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:2000}")
+    public void dispatch() {
+        List<OutboxEvent> events;
+        try {
+            events = outboxService.claimDueEvents(batchSize);
+        } catch (Exception e) {
+            logger.error("Lỗi khi lấy outbox events: {}", e.getMessage(), e);
+            return;
+        }
+        if (events.isEmpty()) {
+            return;
+        }
+
+        List<OutboxEvent> notifications = new ArrayList<>();
+        List<OutboxEvent> emails = new ArrayList<>();
+        for (OutboxEvent event : events) {
+            if (event.getType() == OutboxEventType.NOTIFICATION) {
+                notifications.add(event);
+            } else {
+                emails.add(event);
+            }
+        }
+
+        int delivered = deliverNotifications(notifications);
+
+        ConcurrentLinkedQueue<Long> sent = new ConcurrentLinkedQueue<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>(emails.size());
+        for (OutboxEvent event : emails) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                try {
+                    Map<String, Object> payload = outboxService.readPayload(event);
+                    emailService.deliverEmail(
+                            (String) payload.get("to"),
+                            (String) payload.get("subject"),
+                            (String) payload.get("body"));
+                    sent.add(event.getId());
+                } catch (Exception e) {
+                    outboxService.markFailed(event.getId(), e.getMessage());
+                }
+            }, outboxExecutor));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        outboxService.markSent(new ArrayList<>(sent));
+
+        logger.info("Outbox dispatch: {}/{} thông báo, {}/{} email gửi thành công",
+                delivered, notifications.size(), sent.size(), emails.size());
+    }
+
+    /**
+     * Lưu cả lô trong một transaction; lô lỗi thì lưu lại từng event để một event hỏng
+     * (vd. thông báo cho user đã xóa) không kéo các event hợp lệ sang FAILED
+     */
+    private int deliverNotifications(List<OutboxEvent> notifications) {
+        if (notifications.isEmpty()) {
+            return 0;
+        }
+        try {
+            outboxService.deliverNotifications(notifications);
+            return notifications.size();
+        } catch (Exception e) {
+            if (notifications.size() == 1) {
+                outboxService.markFailed(notifications.get(0).getId(), e.getMessage());
+                return 0;
+            }
+            logger.warn("Lưu lô {} thông báo lỗi, lưu lại từng event: {}", notifications.size(), e.getMessage());
+        }
+        int delivered = 0;
+        for (OutboxEvent event : notifications) {
+            try {
+                outboxService.deliverNotifications(List.of(event));
+                delivered++;
+            } catch (Exception e) {
+                outboxService.markFailed(event.getId(), e.getMessage());
+            }
+        }
+        return delivered;
+    }
+
+    /**
+     * Dọn các event đã gửi cũ lúc 3:30 AM mỗi ngày
+     */
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void purgeSentEvents() {
+        int deleted = outboxService.purgeSentBefore(LocalDateTime.now().minusDays(retentionDays));
+        logger.info("Đã xóa {} outbox events cũ", deleted);
+    }
+}
@@ -6,6 +6,7 @@ import io.swagger.v3.oas.models.info.Info;
 import io.swagger.v3.oas.models.security.SecurityRequirement;
 import io.swagger.v3.oas.models.security.SecurityScheme;
 import io.swagger.v3.oas.models.servers.Server;
+import org.springdoc.core.utils.SpringDocUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -23,6 +24,11 @@ import org.springframework.http.HttpMethod;
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
+    static {
+        // AuthPrincipal do AuthPrincipalArgumentResolver inject, không phải tham số của API
+        SpringDocUtils.getConfig().addRequestWrapperToIgnore(AuthPrincipal.class);
+    }
+
     @Autowired
     private JwtFilter jwtFilter;
 
@@ -54,6 +60,7 @@ public class SecurityConfig {
 
                         // Admin endpoints: chỉ ADMIN
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                        .requestMatchers("/actuator/metrics/**", "/actuator/caches/**").hasRole("ADMIN")
 
                 // Staff endpoints: STAFF hoặc ADMIN
                 .requestMatchers("/api/staff/**", "/api/tours", "/api/tours/**", 
@@ -0,0 +1,92 @@
+package swd.coiviet.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import swd.coiviet.service.ArtisanStatsService;
+import swd.coiviet.service.SchedulerLockService;
+import swd.coiviet.service.TourService;
+
+import java.util.List;
+
+@Component
+public class StatsReconciliationTask {
+    private static final Logger logger = LoggerFactory.getLogger(StatsReconciliationTask.class);
+
+    private static final int TOUR_BATCH_SIZE = 500;
+
+    private final ArtisanStatsService artisanStatsService;
+    private final TourService tourService;
+    private final SchedulerLockService schedulerLockService;
+
+    public StatsReconciliationTask(ArtisanStatsService artisanStatsService, TourService tourService,
+                                   SchedulerLockService schedulerLockService) {
+        this.artisanStatsService = artisanStatsService;
+        this.tourService = tourService;
+        this.schedulerLockService = schedulerLockService;
+    }
+
+    /**
+     * Chạy một lần khi khởi động: tính tổng hợp rating cho các tour có từ trước khi thêm cột (cột còn NULL).
+     * Trong lúc chờ, applyRatingChange bỏ qua delta của các tour này
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillTourAggregates() {
+        try {
+            schedulerLockService.runExclusively("tour-aggregate-backfill", () -> {
+                int updated = 0;
+                List<Long> tourIds;
+                while (!(tourIds = tourService.findIdsWithoutRatingAggregates(TOUR_BATCH_SIZE)).isEmpty()) {
+                    updated += tourService.reconcileAggregates(tourIds);
+                }
+                if (updated > 0) {
+                    logger.info("Đã backfill tổng hợp rating cho {} tour", updated);
+                }
+            });
+        } catch (Exception e) {
+            logger.error("Lỗi khi backfill tổng hợp rating tour: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Chạy mỗi ngày lúc 3:30 AM để tính lại tổng hợp rating và totalBookings của tour từ dữ liệu gốc,
+     * mỗi lô TOUR_BATCH_SIZE tour một transaction
+     */
+    @Scheduled(cron = "0 30 3 * * ?") // 3:30 AM mỗi ngày
+    public void reconcileTourAggregates() {
+        logger.info("Bắt đầu scheduled task: Đối soát rating tour");
+        try {
+            schedulerLockService.runExclusively("tour-aggregate-reconciliation", () -> {
+                List<Long> tourIds = tourService.findAllIds();
+                int updated = 0;
+                for (int from = 0; from < tourIds.size(); from += TOUR_BATCH_SIZE) {
+                    updated += tourService.reconcileAggregates(
+                            tourIds.subList(from, Math.min(from + TOUR_BATCH_SIZE, tourIds.size())));
+                }
+                logger.info("Hoàn thành scheduled task: Đối soát rating {} tour", updated);
+            });
+        } catch (Exception e) {
+            logger.error("Lỗi khi chạy scheduled task đối soát rating tour: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Chạy mỗi ngày lúc 3:00 AM để đối soát bảng rollup artisan_stats với dữ liệu gốc
+     * (bù cho các thay đổi bị lệch, ví dụ tour đổi nghệ nhân hoặc rollup được tạo song song với một cập nhật)
+     */
+    @Scheduled(cron = "0 0 3 * * ?") // 3:00 AM mỗi ngày
+    public void reconcileArtisanStats() {
+        logger.info("Bắt đầu scheduled task: Đối soát thống kê nghệ nhân");
+        try {
+            schedulerLockService.runExclusively("artisan-stats-reconciliation", () -> {
+                int rebuilt = artisanStatsService.rebuildAll();
+                logger.info("Hoàn thành scheduled task: Đối soát thống kê {} nghệ nhân", rebuilt);
+            });
+        } catch (Exception e) {
+            logger.error("Lỗi khi chạy scheduled task đối soát thống kê nghệ nhân: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -4,16 +4,23 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import swd.coiviet.dto.response.TourWorkflowRunResult;
+import swd.coiviet.service.SchedulerLockService;
 import swd.coiviet.service.TourWorkflowService;
 
 @Component
 public class TourSchedulerTask {
     private static final Logger logger = LoggerFactory.getLogger(TourSchedulerTask.class);
+
+    // Cả hai lịch dùng chung một lease để không chạy chồng lên nhau trên các instance
+    private static final String LOCK_NAME = "tour-workflow";
     
     private final TourWorkflowService tourWorkflowService;
+    private final SchedulerLockService schedulerLockService;
 
-    public TourSchedulerTask(TourWorkflowService tourWorkflowService) {
+    public TourSchedulerTask(TourWorkflowService tourWorkflowService, SchedulerLockService schedulerLockService) {
         this.tourWorkflowService = tourWorkflowService;
+        this.schedulerLockService = schedulerLockService;
     }
 
     /**
@@ -24,8 +31,11 @@ public class TourSchedulerTask {
     public void processUpcomingTours() {
         logger.info("Bắt đầu scheduled task: Xử lý các tour sắp tới");
         try {
-            tourWorkflowService.processUpcomingTours();
-            logger.info("Hoàn thành scheduled task: Xử lý các tour sắp tới");
+            schedulerLockService.runExclusively(LOCK_NAME, () -> {
+                TourWorkflowRunResult result = tourWorkflowService.processUpcomingTours();
+                logger.info("Hoàn thành scheduled task: Xử lý các tour sắp tới ({} schedules, {} ms)",
+                        result.getSchedulesProcessed(), result.getDurationMs());
+            });
         } catch (Exception e) {
             logger.error("Lỗi khi chạy scheduled task xử lý tour: {}", e.getMessage(), e);
         }
@@ -38,8 +48,11 @@ public class TourSchedulerTask {
     public void checkUrgentTours() {
         logger.info("Bắt đầu scheduled task: Kiểm tra các tour cần xử lý ngay");
         try {
-            tourWorkflowService.processUpcomingTours();
-            logger.info("Hoàn thành scheduled task: Kiểm tra các tour cần xử lý ngay");
+            schedulerLockService.runExclusively(LOCK_NAME, () -> {
+                TourWorkflowRunResult result = tourWorkflowService.processUpcomingTours();
+                logger.info("Hoàn thành scheduled task: Kiểm tra các tour cần xử lý ngay ({} schedules, {} ms)",
+                        result.getSchedulesProcessed(), result.getDurationMs());
+            });
         } catch (Exception e) {
             logger.error("Lỗi khi chạy scheduled task kiểm tra tour: {}", e.getMessage(), e);
         }
@@ -0,0 +1,184 @@
+package swd.coiviet.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Cache hai tầng: L1 trong process (Caffeine), L2 dùng chung giữa các instance (Redis).
+ * Lỗi ở L2 chỉ được log, request vẫn đi tiếp bằng L1 hoặc database.
+ * Cả hai tầng lưu byte đã mã hóa, mỗi lần đọc giải mã ra bản sao riêng cho người gọi.
+ */
+public class TwoLevelCache implements Cache {
+    private static final Logger logger = LoggerFactory.getLogger(TwoLevelCache.class);
+
+    private final String name;
+    private final Cache l1;
+    private final Cache l2;
+    private final CacheValueCodec codec;
+    // Báo cho các instance khác xóa L1 của cache này sau khi evict/clear
+    private final Consumer<String> evictionPublisher;
+
+    private final LongAdder l1Hits = new LongAdder();
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+
+    public TwoLevelCache(String name, Cache l1, Cache l2, CacheValueCodec codec, Consumer<String> evictionPublisher) {
+        this.name = name;
+        this.l1 = l1;
+        this.l2 = l2;
+        this.codec = codec;
+        this.evictionPublisher = evictionPublisher;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    public Cache getL1() {
+        return l1;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper value = l1.get(key);
+        if (value != null) {
+            l1Hits.increment();
+            return new SimpleValueWrapper(codec.decode(value.get()));
+        }
+        value = l2Get(key);
+        if (value != null) {
+            l2Hits.increment();
+            l1.put(key, value.get());
+            return new SimpleValueWrapper(codec.decode(value.get()));
+        }
+        misses.increment();
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper value = get(key);
+        if (value == null) {
+            return null;
+        }
+        Object stored = value.get();
+        if (stored != null && type != null && !type.isInstance(stored)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + stored);
+        }
+        return (T) stored;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper value = get(key);
+        if (value != null) {
+            return (T) value.get();
+        }
+        T loaded;
+        try {
+            loaded = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, loaded);
+        return loaded;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        byte[] encoded;
+        try {
+            encoded = codec.encode(value);
+        } catch (SerializationException e) {
+            // Giá trị không mã hóa được thì bỏ qua cache, người gọi vẫn có kết quả từ database
+            logger.warn("Cache value not serializable for {}::{}: {}", name, key, e.getMessage());
+            return;
+        }
+        l2Put(key, encoded);
+        l1.put(key, encoded);
+        puts.increment();
+    }
+
+    @Override
+    public void evict(Object key) {
+        l2Evict(key);
+        l1.evict(key);
+        evictionPublisher.accept(name);
+    }
+
+    @Override
+    public void clear() {
+        try {
+            l2.clear();
+        } catch (RuntimeException e) {
+            logger.warn("L2 cache clear failed for {}: {}", name, e.getMessage());
+        }
+        l1.clear();
+        evictionPublisher.accept(name);
+    }
+
+    /**
+     * Xóa L1 khi instance khác báo dữ liệu đã thay đổi
+     */
+    public void clearLocal() {
+        l1.clear();
+    }
+
+    public long getL1Hits() {
+        return l1Hits.sum();
+    }
+
+    public long getL2Hits() {
+        return l2Hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getPuts() {
+        return puts.sum();
+    }
+
+    private ValueWrapper l2Get(Object key) {
+        try {
+            ValueWrapper value = l2.get(key);
+            return value != null ? new SimpleValueWrapper(value.get()) : null;
+        } catch (RuntimeException e) {
+            logger.warn("L2 cache read failed for {}::{}: {}", name, key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void l2Put(Object key, Object value) {
+        try {
+            l2.put(key, value);
+        } catch (RuntimeException e) {
+            logger.warn("L2 cache write failed for {}::{}: {}", name, key, e.getMessage());
+        }
+    }
+
+    private void l2Evict(Object key) {
+        try {
+            l2.evict(key);
+        } catch (RuntimeException e) {
+            logger.warn("L2 cache evict failed for {}::{}: {}", name, key, e.getMessage());
+        }
+    }
+}
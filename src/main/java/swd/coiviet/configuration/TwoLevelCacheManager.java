@@ -0,0 +1,65 @@
+package swd.coiviet.configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.NoOpCache;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Tạo cache theo app.cache.specs: bọc Caffeine + L2 thành TwoLevelCache, L2 là NoOpCache khi không cấu hình.
+ * Put/evict trong transaction được hoãn tới sau commit để không cache lại dữ liệu chưa commit.
+ */
+public class TwoLevelCacheManager extends AbstractTransactionSupportingCacheManager {
+
+    private final AppCacheProperties properties;
+    private final Function<String, Cache> l2Factory;
+    private final Consumer<String> evictionPublisher;
+    private final CacheValueCodec codec = new CacheValueCodec();
+
+    public TwoLevelCacheManager(AppCacheProperties properties, Function<String, Cache> l2Factory,
+                                Consumer<String> evictionPublisher) {
+        this.properties = properties;
+        this.l2Factory = l2Factory;
+        this.evictionPublisher = evictionPublisher;
+        setTransactionAware(true);
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return properties.getSpecs().keySet().stream().map(this::createCache).toList();
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        return createCache(name);
+    }
+
+    /**
+     * Xóa L1 của cache khi nhận thông báo evict từ instance khác
+     */
+    public void clearLocal(String name) {
+        Cache cache = lookupCache(name);
+        if (cache instanceof TransactionAwareCacheDecorator decorator) {
+            cache = decorator.getTargetCache();
+        }
+        if (cache instanceof TwoLevelCache twoLevel) {
+            twoLevel.clearLocal();
+        }
+    }
+
+    private Cache createCache(String name) {
+        CaffeineCache l1 = new CaffeineCache(name, Caffeine.newBuilder()
+                .expireAfterWrite(properties.ttlOf(name))
+                .maximumSize(properties.maxSizeOf(name))
+                .recordStats()
+                .build());
+        Cache l2 = l2Factory != null ? l2Factory.apply(name) : new NoOpCache(name);
+        return new TwoLevelCache(name, l1, l2, codec, evictionPublisher);
+    }
+}
@@ -0,0 +1,76 @@
+package swd.coiviet.configuration;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+/**
+ * Đăng ký metric cache.gets/cache.puts cho TwoLevelCache, kèm cache.level.hits tách theo tầng L1/L2
+ */
+public class TwoLevelCacheMeterBinderProvider implements CacheMeterBinderProvider<TwoLevelCache> {
+
+    @Override
+    public MeterBinder getMeterBinder(TwoLevelCache cache, Iterable<Tag> tags) {
+        return new TwoLevelCacheMetrics(cache, tags);
+    }
+
+    static class TwoLevelCacheMetrics extends CacheMeterBinder<TwoLevelCache> {
+        private final TwoLevelCache cache;
+
+        TwoLevelCacheMetrics(TwoLevelCache cache, Iterable<Tag> tags) {
+            super(cache, cache.getName(), tags);
+            this.cache = cache;
+        }
+
+        @Override
+        protected Long size() {
+            return l1() != null ? l1().getNativeCache().estimatedSize() : null;
+        }
+
+        @Override
+        protected long hitCount() {
+            return cache.getL1Hits() + cache.getL2Hits();
+        }
+
+        @Override
+        protected Long missCount() {
+            return cache.getMisses();
+        }
+
+        @Override
+        protected Long evictionCount() {
+            CaffeineCache l1 = l1();
+            if (l1 == null) {
+                return null;
+            }
+            CacheStats stats = l1.getNativeCache().stats();
+            return stats.evictionCount();
+        }
+
+        @Override
+        protected long putCount() {
+            return cache.getPuts();
+        }
+
+        @Override
+        protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+            FunctionCounter.builder("cache.level.hits", cache, TwoLevelCache::getL1Hits)
+                    .tags(getTagsWithCacheName()).tag("level", "l1")
+                    .description("Số lần đọc trúng cache theo tầng")
+                    .register(registry);
+            FunctionCounter.builder("cache.level.hits", cache, TwoLevelCache::getL2Hits)
+                    .tags(getTagsWithCacheName()).tag("level", "l2")
+                    .description("Số lần đọc trúng cache theo tầng")
+                    .register(registry);
+        }
+
+        private CaffeineCache l1() {
+            return cache.getL1() instanceof CaffeineCache caffeine ? caffeine : null;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package swd.coiviet.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import swd.coiviet.service.MessageFanoutTransport;
+import swd.coiviet.service.UserMessagePublisher;
+import swd.coiviet.service.impl.FanoutUserMessagePublisher;
+import swd.coiviet.service.impl.LocalUserMessagePublisher;
+import swd.coiviet.service.impl.PostgresMessageFanoutTransport;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class UserMessagingConfig {
+
+    /**
+     * Cách gửi tin nhắn STOMP tới user theo app.websocket.broker: simple/relay gửi thẳng qua broker,
+     * postgres gửi cho kết nối trên instance này rồi phát qua LISTEN/NOTIFY cho các instance khác
+     */
+    @Bean
+    public UserMessagePublisher userMessagePublisher(SimpMessagingTemplate messagingTemplate,
+                                                     SimpUserRegistry userRegistry,
+                                                     ObjectProvider<MessageFanoutTransport> fanoutTransport,
+                                                     ObjectMapper objectMapper) {
+        LocalUserMessagePublisher local = new LocalUserMessagePublisher(messagingTemplate);
+        MessageFanoutTransport transport = fanoutTransport.getIfAvailable();
+        if (transport == null) {
+            return local;
+        }
+        return new FanoutUserMessagePublisher(local,
+                userId -> userRegistry.getUser(String.valueOf(userId)) != null,
+                transport, objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.websocket.broker", havingValue = "postgres")
+    public PostgresMessageFanoutTransport postgresMessageFanoutTransport(DataSource dataSource,
+                                                                         AppWebSocketProperties properties) {
+        return new PostgresMessageFanoutTransport(dataSource, properties.getPostgres().getChannel());
+    }
+}
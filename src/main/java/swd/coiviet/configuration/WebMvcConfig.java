@@ -3,16 +3,27 @@ package swd.coiviet.configuration;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.format.FormatterRegistry;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
 
     @Autowired
     private LocalTimeConverter localTimeConverter;
 
+    @Autowired
+    private AuthPrincipalArgumentResolver authPrincipalArgumentResolver;
+
     @Override
     public void addFormatters(FormatterRegistry registry) {
         registry.addConverter(localTimeConverter);
     }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(authPrincipalArgumentResolver);
+    }
 }
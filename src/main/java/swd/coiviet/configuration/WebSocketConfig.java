@@ -1,5 +1,7 @@
 package swd.coiviet.configuration;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
@@ -10,10 +12,14 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+    private static final Logger logger = LoggerFactory.getLogger(WebSocketConfig.class);
+
     private final JwtChannelInterceptor jwtChannelInterceptor;
+    private final AppWebSocketProperties properties;
 
-    public WebSocketConfig(JwtChannelInterceptor jwtChannelInterceptor) {
+    public WebSocketConfig(JwtChannelInterceptor jwtChannelInterceptor, AppWebSocketProperties properties) {
         this.jwtChannelInterceptor = jwtChannelInterceptor;
+        this.properties = properties;
     }
 
     @Override
@@ -31,8 +37,29 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
         registry.setApplicationDestinationPrefixes("/app");
-        registry.enableSimpleBroker("/topic", "/queue");
+        String broker = properties.getBroker();
+        if ("relay".equalsIgnoreCase(broker)) {
+            AppWebSocketProperties.Relay relay = properties.getRelay();
+            registry.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relay.getHost())
+                    .setRelayPort(relay.getPort())
+                    .setClientLogin(relay.getClientLogin())
+                    .setClientPasscode(relay.getClientPasscode())
+                    .setSystemLogin(relay.getSystemLogin())
+                    .setSystemPasscode(relay.getSystemPasscode())
+                    .setVirtualHost(relay.getVirtualHost())
+                    // User destination chưa có session trên instance này được broker phát cho các instance khác
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/simp-user-registry");
+        } else if ("simple".equalsIgnoreCase(broker) || "postgres".equalsIgnoreCase(broker)) {
+            // postgres vẫn dùng broker trong JVM, phát thêm tin nhắn user sang instance khác (UserMessagingConfig)
+            registry.enableSimpleBroker("/topic", "/queue");
+        } else {
+            throw new IllegalStateException("app.websocket.broker không hỗ trợ: " + broker
+                    + " (chỉ simple, relay hoặc postgres)");
+        }
         registry.setUserDestinationPrefix("/user");
+        logger.info("STOMP broker mode: {}", properties.getBroker());
     }
 
     @Override
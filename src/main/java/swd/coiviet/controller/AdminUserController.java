@@ -16,6 +16,7 @@ import swd.coiviet.model.Artisan;
 import swd.coiviet.model.User;
 import swd.coiviet.service.ArtisanService;
 import swd.coiviet.service.UserService;
+import swd.coiviet.service.UserStatusService;
 
 import java.time.LocalDateTime;
 
@@ -25,11 +26,14 @@ public class AdminUserController {
     private final UserService userService;
     private final UserMapper userMapper;
     private final ArtisanService artisanService;
+    private final UserStatusService userStatusService;
 
-    public AdminUserController(UserService userService, UserMapper userMapper, ArtisanService artisanService) {
+    public AdminUserController(UserService userService, UserMapper userMapper, ArtisanService artisanService,
+                               UserStatusService userStatusService) {
         this.userService = userService;
         this.userMapper = userMapper;
         this.artisanService = artisanService;
+        this.userStatusService = userStatusService;
     }
 
     @PutMapping("/{id}/role")
@@ -80,6 +84,7 @@ public class AdminUserController {
         Status newStatus = request.getStatus();
         user.setStatus(newStatus);
         User saved = userService.save(user);
+        userStatusService.statusChanged(saved.getId(), newStatus);
 
         return ResponseEntity.ok(ApiResponse.success(userMapper.toResponse(saved), 
                 "Cập nhật trạng thái thành công: " + getStatusMessage(newStatus)));
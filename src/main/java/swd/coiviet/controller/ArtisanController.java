@@ -19,6 +19,8 @@ import swd.coiviet.service.ArtisanService;
 import swd.coiviet.service.CloudinaryService;
 import swd.coiviet.service.ProvinceService;
 import swd.coiviet.service.UserService;
+import swd.coiviet.dto.response.ArtisanSummaryResponse;
+import swd.coiviet.dto.response.CursorPageResponse;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
@@ -43,12 +45,19 @@ public class ArtisanController {
     @GetMapping("/public")
     @Operation(summary = "Lấy danh sách nghệ nhân", description = "Lấy tất cả nghệ nhân đang hoạt động")
     public ResponseEntity<ApiResponse<List<Artisan>>> getAllArtisans() {
-        List<Artisan> artisans = artisanService.findAll().stream()
-                .filter(a -> a.getIsActive() != null && a.getIsActive())
-                .collect(java.util.stream.Collectors.toList());
+        List<Artisan> artisans = artisanService.findActive();
         return ResponseEntity.ok(ApiResponse.success(artisans));
     }
 
+    @GetMapping("/public/page")
+    @Operation(summary = "Lấy nghệ nhân theo trang", description = "Phân trang theo cursor (id giảm dần), chỉ nghệ nhân đang hoạt động")
+    public ResponseEntity<ApiResponse<CursorPageResponse<ArtisanSummaryResponse>>> getArtisanPage(
+            @Parameter(description = "Cursor từ trang trước (nextCursor)") @RequestParam(required = false) Long cursor,
+            @Parameter(description = "Số phần tử mỗi trang (tối đa 100)") @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Long provinceId) {
+        return ResponseEntity.ok(ApiResponse.success(artisanService.findActivePage(cursor, size, provinceId)));
+    }
+
     @GetMapping("/public/{id}")
     public ResponseEntity<ApiResponse<Artisan>> getArtisanById(@PathVariable Long id) {
         Artisan artisan = artisanService.findById(id)
@@ -154,10 +163,7 @@ public class ArtisanController {
             // Handle profile image
             if (profileImage != null && !profileImage.isEmpty() && profileImage.getSize() > 0) {
                 if (existing.getProfileImageUrl() != null) {
-                    String publicId = cloudinaryService.extractPublicIdFromUrl(existing.getProfileImageUrl());
-                    if (publicId != null) {
-                        cloudinaryService.deleteResource(publicId);
-                    }
+                    cloudinaryService.release(existing.getProfileImageUrl());
                 }
                 String profileImageUrl = cloudinaryService.uploadArtisanProfileImage(profileImage, id);
                 existing.setProfileImageUrl(profileImageUrl);
@@ -16,6 +16,8 @@ import swd.coiviet.model.Province;
 import swd.coiviet.service.BlogPostService;
 import swd.coiviet.service.CloudinaryService;
 import swd.coiviet.service.ProvinceService;
+import swd.coiviet.dto.response.BlogPostSummaryResponse;
+import swd.coiviet.dto.response.CursorPageResponse;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
@@ -38,12 +40,19 @@ public class BlogPostController {
     @GetMapping("/public")
     @Operation(summary = "Lấy danh sách blog posts đã publish", description = "Lấy tất cả blog posts đã được publish")
     public ResponseEntity<ApiResponse<List<BlogPost>>> getPublishedBlogPosts() {
-        List<BlogPost> posts = blogPostService.findAll().stream()
-                .filter(p -> p.getStatus() == PublicationStatus.PUBLISHED)
-                .toList();
+        List<BlogPost> posts = blogPostService.findByStatus(PublicationStatus.PUBLISHED);
         return ResponseEntity.ok(ApiResponse.success(posts));
     }
 
+    @GetMapping("/public/page")
+    @Operation(summary = "Lấy blog posts đã publish theo trang", description = "Phân trang theo cursor (id giảm dần), không trả về nội dung bài viết")
+    public ResponseEntity<ApiResponse<CursorPageResponse<BlogPostSummaryResponse>>> getPublishedBlogPostPage(
+            @Parameter(description = "Cursor từ trang trước (nextCursor)") @RequestParam(required = false) Long cursor,
+            @Parameter(description = "Số phần tử mỗi trang (tối đa 100)") @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Long provinceId) {
+        return ResponseEntity.ok(ApiResponse.success(blogPostService.findPublishedPage(cursor, size, provinceId)));
+    }
+
     @GetMapping("/public/{id}")
     @Operation(summary = "Lấy blog post theo ID", description = "Lấy thông tin chi tiết blog post")
     public ResponseEntity<ApiResponse<BlogPost>> getBlogPostById(@PathVariable Long id) {
@@ -150,10 +159,7 @@ public class BlogPostController {
             // Handle featured image
             if (featuredImage != null && !featuredImage.isEmpty() && featuredImage.getSize() > 0) {
                 if (existing.getFeaturedImageUrl() != null) {
-                    String publicId = cloudinaryService.extractPublicIdFromUrl(existing.getFeaturedImageUrl());
-                    if (publicId != null) {
-                        cloudinaryService.deleteResource(publicId);
-                    }
+                    cloudinaryService.release(existing.getFeaturedImageUrl());
                 }
                 String featuredImageUrl = cloudinaryService.uploadBlogImage(featuredImage, id);
                 existing.setFeaturedImageUrl(featuredImageUrl);
@@ -185,10 +191,7 @@ public class BlogPostController {
         
         // Delete featured image
         if (post.getFeaturedImageUrl() != null) {
-            String publicId = cloudinaryService.extractPublicIdFromUrl(post.getFeaturedImageUrl());
-            if (publicId != null) {
-                cloudinaryService.deleteResource(publicId);
-            }
+            cloudinaryService.release(post.getFeaturedImageUrl());
         }
         
         blogPostService.deleteById(id);
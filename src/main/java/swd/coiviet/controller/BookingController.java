@@ -1,11 +1,9 @@
 package swd.coiviet.controller;
 
-import io.jsonwebtoken.Claims;
-import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
-import swd.coiviet.configuration.JwtUtil;
+import swd.coiviet.configuration.AuthPrincipal;
 import swd.coiviet.dto.request.CancelBookingRequest;
 import swd.coiviet.dto.request.CreateBookingRequest;
 import swd.coiviet.dto.request.SuggestTourRequest;
@@ -27,15 +25,12 @@ public class BookingController {
 
     private final BookingService bookingService;
     private final TourWorkflowService tourWorkflowService;
-    private final JwtUtil jwtUtil;
 
     public BookingController(
             BookingService bookingService,
-            TourWorkflowService tourWorkflowService,
-            JwtUtil jwtUtil) {
+            TourWorkflowService tourWorkflowService) {
         this.bookingService = bookingService;
         this.tourWorkflowService = tourWorkflowService;
-        this.jwtUtil = jwtUtil;
     }
 
     /**
@@ -44,8 +39,8 @@ public class BookingController {
     @PostMapping
     public ResponseEntity<ApiResponse<BookingResponse>> createBooking(
             @Validated @RequestBody CreateBookingRequest request,
-            HttpServletRequest httpRequest) {
-        Long userId = getCurrentUserId(httpRequest);
+            AuthPrincipal principal) {
+        Long userId = principal.getUserId();
         BookingResponse response = bookingService.createBooking(userId, request);
         return ResponseEntity.ok(ApiResponse.success(response, "Đặt tour thành công"));
     }
@@ -54,8 +49,8 @@ public class BookingController {
      * Lấy danh sách booking của user hiện tại
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<BookingResponse>>> getMyBookings(HttpServletRequest httpRequest) {
-        Long userId = getCurrentUserId(httpRequest);
+    public ResponseEntity<ApiResponse<List<BookingResponse>>> getMyBookings(AuthPrincipal principal) {
+        Long userId = principal.getUserId();
         List<Booking> bookings = bookingService.findByUserId(userId);
         List<BookingResponse> responses = bookings.stream()
                 .map(this::mapToResponse)
@@ -69,8 +64,8 @@ public class BookingController {
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<BookingResponse>> getBooking(
             @PathVariable Long id,
-            HttpServletRequest httpRequest) {
-        Long userId = getCurrentUserId(httpRequest);
+            AuthPrincipal principal) {
+        Long userId = principal.getUserId();
         Booking booking = bookingService.findById(id)
                 .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND, "Booking không tồn tại"));
         
@@ -89,8 +84,8 @@ public class BookingController {
     public ResponseEntity<ApiResponse<BookingResponse>> cancelBooking(
             @PathVariable Long id,
             @RequestBody(required = false) CancelBookingRequest request,
-            HttpServletRequest httpRequest) {
-        Long userId = getCurrentUserId(httpRequest);
+            AuthPrincipal principal) {
+        Long userId = principal.getUserId();
         if (request == null) {
             request = new CancelBookingRequest();
         }
@@ -125,8 +120,8 @@ public class BookingController {
     @GetMapping("/{id}/cancellation-fee")
     public ResponseEntity<ApiResponse<java.math.BigDecimal>> getCancellationFee(
             @PathVariable Long id,
-            HttpServletRequest httpRequest) {
-        Long userId = getCurrentUserId(httpRequest);
+            AuthPrincipal principal) {
+        Long userId = principal.getUserId();
         Booking booking = bookingService.findById(id)
                 .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND, "Booking không tồn tại"));
         
@@ -139,32 +134,6 @@ public class BookingController {
         return ResponseEntity.ok(ApiResponse.success(fee));
     }
 
-    /**
-     * Lấy userId từ JWT token
-     */
-    private Long getCurrentUserId(HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new AppException(ErrorCode.UNAUTHORIZED, "Token không hợp lệ");
-        }
-
-        String token = authHeader.substring(7);
-        try {
-            if (!jwtUtil.validateToken(token)) {
-                throw new AppException(ErrorCode.UNAUTHORIZED, "Token không hợp lệ hoặc đã hết hạn");
-            }
-            
-            Claims claims = jwtUtil.getClaims(token);
-            Integer userId = claims.get("userId", Integer.class);
-            if (userId == null) {
-                throw new AppException(ErrorCode.UNAUTHORIZED, "Token không chứa thông tin user");
-            }
-            return Long.valueOf(userId);
-        } catch (Exception e) {
-            throw new AppException(ErrorCode.UNAUTHORIZED, "Token không hợp lệ: " + e.getMessage());
-        }
-    }
-
     private BookingResponse mapToResponse(Booking booking) {
         return BookingResponse.builder()
                 .id(booking.getId())
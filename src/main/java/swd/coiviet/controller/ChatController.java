@@ -1,21 +1,20 @@
 package swd.coiviet.controller;
 
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import swd.coiviet.configuration.AuthPrincipal;
 import swd.coiviet.dto.response.ApiResponse;
-import swd.coiviet.dto.response.ChatConversationResponse;
 import swd.coiviet.dto.response.ChatMessageResponse;
-import swd.coiviet.exception.AppException;
-import swd.coiviet.exception.ErrorCode;
+import swd.coiviet.dto.response.ConversationPageResponse;
+import swd.coiviet.dto.response.CursorPageResponse;
 import swd.coiviet.service.ChatService;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/chats")
 public class ChatController {
@@ -26,25 +25,25 @@ public class ChatController {
     }
 
     @GetMapping("/conversations")
-    public ResponseEntity<ApiResponse<List<ChatConversationResponse>>> listConversations() {
-        String username = getCurrentUsername();
-        List<ChatConversationResponse> conversations = chatService.getConversations(username);
-        return ResponseEntity.ok(ApiResponse.success(conversations));
+    @Operation(summary = "Lấy hộp thư chat", description = "Phân trang theo cursor, hội thoại cập nhật gần nhất trước")
+    public ResponseEntity<ApiResponse<ConversationPageResponse>> listConversations(
+            @Parameter(description = "Cursor từ trang trước (nextCursor), truyền nguyên chuỗi") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Số phần tử mỗi trang (tối đa 100)") @RequestParam(required = false) Integer size,
+            AuthPrincipal principal) {
+        return ResponseEntity.ok(ApiResponse.success(chatService.getConversations(principal.getUserId(), cursor, size)));
     }
 
     @GetMapping("/conversations/{conversationId}/messages")
-    public ResponseEntity<ApiResponse<List<ChatMessageResponse>>> getMessages(
-            @PathVariable Long conversationId) {
-        String username = getCurrentUsername();
-        List<ChatMessageResponse> messages = chatService.getMessages(username, conversationId);
-        return ResponseEntity.ok(ApiResponse.success(messages));
-    }
-
-    private String getCurrentUsername() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || authentication.getName() == null) {
-            throw new AppException(ErrorCode.UNAUTHORIZED, "Unauthorized");
-        }
-        return authentication.getName();
+    @Operation(summary = "Lấy tin nhắn của hội thoại",
+            description = "Không truyền cursor: trang mới nhất. before: tin cũ hơn id đó (mới nhất trước), " +
+                    "after: tin mới hơn id đó (cũ nhất trước). nextCursor dùng tiếp cho cùng tham số")
+    public ResponseEntity<ApiResponse<CursorPageResponse<ChatMessageResponse>>> getMessages(
+            @PathVariable Long conversationId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Số phần tử mỗi trang (tối đa 100)") @RequestParam(required = false) Integer size,
+            AuthPrincipal principal) {
+        return ResponseEntity.ok(ApiResponse.success(
+                chatService.getMessages(principal.getUserId(), conversationId, before, after, size)));
     }
 }
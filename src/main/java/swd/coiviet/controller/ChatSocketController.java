@@ -1,24 +1,24 @@
 package swd.coiviet.controller;
 
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 import swd.coiviet.dto.request.ChatSendRequest;
 import swd.coiviet.dto.response.ChatMessageResponse;
 import swd.coiviet.exception.AppException;
 import swd.coiviet.exception.ErrorCode;
 import swd.coiviet.service.ChatService;
+import swd.coiviet.service.UserMessagePublisher;
 
 import java.security.Principal;
 
 @Controller
 public class ChatSocketController {
     private final ChatService chatService;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final UserMessagePublisher userMessagePublisher;
 
-    public ChatSocketController(ChatService chatService, SimpMessagingTemplate messagingTemplate) {
+    public ChatSocketController(ChatService chatService, UserMessagePublisher userMessagePublisher) {
         this.chatService = chatService;
-        this.messagingTemplate = messagingTemplate;
+        this.userMessagePublisher = userMessagePublisher;
     }
 
     @MessageMapping("/chat.send")
@@ -35,9 +35,7 @@ public class ChatSocketController {
 
         ChatMessageResponse response = chatService.sendMessage(
                 senderId, request.getRecipientId(), request.getContent());
-        messagingTemplate.convertAndSendToUser(
-                String.valueOf(response.getRecipientId()), "/queue/messages", response);
-        messagingTemplate.convertAndSendToUser(
-                String.valueOf(response.getSenderId()), "/queue/messages", response);
+        userMessagePublisher.sendToUser(response.getRecipientId(), "/queue/messages", response);
+        userMessagePublisher.sendToUser(response.getSenderId(), "/queue/messages", response);
     }
 }
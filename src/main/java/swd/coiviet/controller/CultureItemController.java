@@ -17,6 +17,8 @@ import swd.coiviet.model.Province;
 import swd.coiviet.service.CloudinaryService;
 import swd.coiviet.service.CultureItemService;
 import swd.coiviet.service.ProvinceService;
+import swd.coiviet.dto.response.CultureItemSummaryResponse;
+import swd.coiviet.dto.response.CursorPageResponse;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
@@ -61,6 +63,17 @@ public class CultureItemController {
         return ResponseEntity.ok(ApiResponse.success(items));
     }
 
+    @GetMapping("/public/page")
+    @Operation(summary = "Lấy văn hóa đã publish theo trang", description = "Phân trang theo cursor (id giảm dần), có thể lọc theo tỉnh và category")
+    public ResponseEntity<ApiResponse<CursorPageResponse<CultureItemSummaryResponse>>> getCultureItemPage(
+            @Parameter(description = "Cursor từ trang trước (nextCursor)") @RequestParam(required = false) Long cursor,
+            @Parameter(description = "Số phần tử mỗi trang (tối đa 100)") @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Long provinceId,
+            @RequestParam(required = false) swd.coiviet.enums.CultureCategory category) {
+        return ResponseEntity.ok(ApiResponse.success(
+                cultureItemService.findPublishedPage(cursor, size, provinceId, category)));
+    }
+
     @GetMapping("/public/{id}")
     public ResponseEntity<ApiResponse<CultureItem>> getCultureItemById(@PathVariable Long id) {
         CultureItem item = cultureItemService.findById(id)
@@ -173,10 +186,7 @@ public class CultureItemController {
             // Handle thumbnail
             if (thumbnail != null && !thumbnail.isEmpty() && thumbnail.getSize() > 0) {
                 if (existing.getThumbnailUrl() != null) {
-                    String publicId = cloudinaryService.extractPublicIdFromUrl(existing.getThumbnailUrl());
-                    if (publicId != null) {
-                        cloudinaryService.deleteResource(publicId);
-                    }
+                    cloudinaryService.release(existing.getThumbnailUrl());
                 }
                 String thumbnailUrl = cloudinaryService.uploadCultureItemThumbnail(thumbnail, id);
                 existing.setThumbnailUrl(thumbnailUrl);
@@ -191,13 +201,7 @@ public class CultureItemController {
                 
                 if (!validImages.isEmpty()) {
                     if (existing.getImages() != null && !existing.getImages().isEmpty()) {
-                        String[] oldImageUrls = existing.getImages().split(",");
-                        for (String oldUrl : oldImageUrls) {
-                            String publicId = cloudinaryService.extractPublicIdFromUrl(oldUrl.trim());
-                            if (publicId != null) {
-                                cloudinaryService.deleteResource(publicId);
-                            }
-                        }
+                        cloudinaryService.release(existing.getImages().split(","));
                     }
                     MultipartFile[] validImagesArray = validImages.toArray(new MultipartFile[0]);
                     List<String> imageUrls = cloudinaryService.uploadCultureItemImages(validImagesArray, id);
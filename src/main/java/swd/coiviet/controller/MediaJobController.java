@@ -0,0 +1,36 @@
+package swd.coiviet.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import swd.coiviet.configuration.AuthPrincipal;
+import swd.coiviet.dto.response.ApiResponse;
+import swd.coiviet.dto.response.MediaJobResponse;
+import swd.coiviet.exception.AppException;
+import swd.coiviet.exception.ErrorCode;
+import swd.coiviet.model.MediaJob;
+import swd.coiviet.service.MediaJobService;
+
+@RestController
+@RequestMapping("/api/media-jobs")
+public class MediaJobController {
+
+    private final MediaJobService mediaJobService;
+
+    public MediaJobController(MediaJobService mediaJobService) {
+        this.mediaJobService = mediaJobService;
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Lấy trạng thái media job", description = "Poll trạng thái upload media. " +
+            "Khi job kết thúc, trạng thái cũng được đẩy qua STOMP tới /user/queue/media-jobs")
+    public ResponseEntity<ApiResponse<MediaJobResponse>> getJob(@PathVariable Long id, AuthPrincipal principal) {
+        MediaJob job = mediaJobService.findById(id)
+                .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND, "Media job không tồn tại"));
+        boolean staff = "STAFF".equals(principal.getRole()) || "ADMIN".equals(principal.getRole());
+        if (!staff && !principal.getUserId().equals(job.getOwnerId())) {
+            throw new AppException(ErrorCode.FORBIDDEN, "Bạn không có quyền xem media job này");
+        }
+        return ResponseEntity.ok(ApiResponse.success(MediaJobResponse.from(job)));
+    }
+}
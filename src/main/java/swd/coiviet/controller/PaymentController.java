@@ -6,7 +6,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
-import swd.coiviet.configuration.JwtUtil;
+import swd.coiviet.configuration.AuthPrincipal;
 import swd.coiviet.configuration.VnPayConfiguration;
 import swd.coiviet.dto.request.CreatePaymentRequest;
 import swd.coiviet.dto.response.ApiResponse;
@@ -34,24 +34,22 @@ public class PaymentController {
     private final PaymentGatewayService paymentGatewayService;
     private final BookingService bookingService;
     private final NotificationService notificationService;
-    private final JwtUtil jwtUtil;
 
     public PaymentController(PaymentService paymentService, PaymentGatewayService paymentGatewayService,
-                            BookingService bookingService, NotificationService notificationService,
-                            JwtUtil jwtUtil) {
+                            BookingService bookingService, NotificationService notificationService) {
         this.paymentService = paymentService;
         this.paymentGatewayService = paymentGatewayService;
         this.bookingService = bookingService;
         this.notificationService = notificationService;
-        this.jwtUtil = jwtUtil;
     }
 
     @PostMapping("/create")
     @Operation(summary = "Tạo payment và lấy payment URL", description = "Tạo payment record và lấy URL thanh toán từ MoMo/VNPay")
     public ResponseEntity<ApiResponse<PaymentResponse>> createPayment(
             @Validated @RequestBody CreatePaymentRequest request,
+            AuthPrincipal principal,
             HttpServletRequest httpRequest) {
-        Long userId = getCurrentUserId(httpRequest);
+        Long userId = principal.getUserId();
         
         // Get booking
         Booking booking = bookingService.findById(request.getBookingId())
@@ -116,8 +114,8 @@ public class PaymentController {
 
     @GetMapping("/{id}")
     @Operation(summary = "Lấy thông tin payment", description = "Lấy thông tin chi tiết của một payment")
-    public ResponseEntity<ApiResponse<PaymentResponse>> getPayment(@PathVariable Long id, HttpServletRequest httpRequest) {
-        Long userId = getCurrentUserId(httpRequest);
+    public ResponseEntity<ApiResponse<PaymentResponse>> getPayment(@PathVariable Long id, AuthPrincipal principal) {
+        Long userId = principal.getUserId();
         Payment payment = paymentService.findById(id)
                 .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND, "Payment không tồn tại"));
         
@@ -131,6 +129,7 @@ public class PaymentController {
 
     @PostMapping("/momo/notify")
     @Operation(summary = "MoMo payment callback", description = "Webhook callback từ MoMo sau khi thanh toán")
+    @Transactional
     public ResponseEntity<String> momoNotify(@RequestBody Map<String, Object> requestBody) {
         try {
             String partnerRefId = (String) requestBody.get("partnerRefId");
@@ -260,27 +259,4 @@ public class PaymentController {
         url.append(contextPath);
         return url.toString();
     }
-
-    private Long getCurrentUserId(HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new AppException(ErrorCode.UNAUTHORIZED, "Token không hợp lệ");
-        }
-
-        String token = authHeader.substring(7);
-        try {
-            if (!jwtUtil.validateToken(token)) {
-                throw new AppException(ErrorCode.UNAUTHORIZED, "Token không hợp lệ hoặc đã hết hạn");
-            }
-            
-            io.jsonwebtoken.Claims claims = jwtUtil.getClaims(token);
-            Integer userId = claims.get("userId", Integer.class);
-            if (userId == null) {
-                throw new AppException(ErrorCode.UNAUTHORIZED, "Token không chứa thông tin user");
-            }
-            return Long.valueOf(userId);
-        } catch (Exception e) {
-            throw new AppException(ErrorCode.UNAUTHORIZED, "Token không hợp lệ: " + e.getMessage());
-        }
-    }
 }
@@ -13,6 +13,8 @@ import swd.coiviet.exception.ErrorCode;
 import swd.coiviet.model.Province;
 import swd.coiviet.service.CloudinaryService;
 import swd.coiviet.service.ProvinceService;
+import swd.coiviet.dto.response.CursorPageResponse;
+import swd.coiviet.dto.response.ProvinceSummaryResponse;
 
 import java.io.IOException;
 import java.util.List;
@@ -35,6 +37,15 @@ public class ProvinceController {
         return ResponseEntity.ok(ApiResponse.success(provinces));
     }
 
+    @GetMapping("/public/page")
+    @Operation(summary = "Lấy danh sách tỉnh thành theo trang", description = "Phân trang theo cursor (id giảm dần), có thể lọc theo vùng miền")
+    public ResponseEntity<ApiResponse<CursorPageResponse<ProvinceSummaryResponse>>> getProvincePage(
+            @Parameter(description = "Cursor từ trang trước (nextCursor)") @RequestParam(required = false) Long cursor,
+            @Parameter(description = "Số phần tử mỗi trang (tối đa 100)") @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String region) {
+        return ResponseEntity.ok(ApiResponse.success(provinceService.findPage(cursor, size, region)));
+    }
+
     @GetMapping("/public/{id}")
     public ResponseEntity<ApiResponse<Province>> getProvinceById(@PathVariable Long id) {
         Province province = provinceService.findById(id)
@@ -147,10 +158,7 @@ public class ProvinceController {
             if (thumbnail != null && !thumbnail.isEmpty() && thumbnail.getSize() > 0) {
                 // Delete old thumbnail
                 if (existing.getThumbnailUrl() != null) {
-                    String publicId = cloudinaryService.extractPublicIdFromUrl(existing.getThumbnailUrl());
-                    if (publicId != null) {
-                        cloudinaryService.deleteResource(publicId);
-                    }
+                    cloudinaryService.release(existing.getThumbnailUrl());
                 }
                 String thumbnailUrl = cloudinaryService.uploadProvinceThumbnail(thumbnail, id);
                 existing.setThumbnailUrl(thumbnailUrl);
@@ -4,14 +4,13 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Schema;
-import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import swd.coiviet.configuration.JwtUtil;
+import swd.coiviet.configuration.AuthPrincipal;
 import swd.coiviet.dto.response.ApiResponse;
 import swd.coiviet.dto.response.ReviewResponse;
 import swd.coiviet.enums.ReviewStatus;
@@ -35,17 +34,12 @@ public class ReviewController {
     private final ReviewService reviewService;
     private final BookingService bookingService;
     private final CloudinaryService cloudinaryService;
-    private final JwtUtil jwtUtil;
-    private final swd.coiviet.service.TourService tourService;
 
     public ReviewController(ReviewService reviewService, BookingService bookingService, 
-                           CloudinaryService cloudinaryService, JwtUtil jwtUtil,
-                           swd.coiviet.service.TourService tourService) {
+                           CloudinaryService cloudinaryService) {
         this.reviewService = reviewService;
         this.bookingService = bookingService;
         this.cloudinaryService = cloudinaryService;
-        this.jwtUtil = jwtUtil;
-        this.tourService = tourService;
     }
 
     @PostMapping(consumes = {"multipart/form-data"})
@@ -62,8 +56,8 @@ public class ReviewController {
             @Parameter(description = "Danh sách ảnh (tối đa 3 ảnh, có thể chọn nhiều ảnh)", 
                     array = @ArraySchema(schema = @Schema(type = "string", format = "binary")))
             @RequestPart(value = "images", required = false) MultipartFile[] images,
-            HttpServletRequest httpRequest) {
-        Long userId = getCurrentUserId(httpRequest);
+            AuthPrincipal principal) {
+        Long userId = principal.getUserId();
         
         // Validate booking
         Booking booking = bookingService.findById(bookingId)
@@ -120,11 +114,9 @@ public class ReviewController {
                 .createdAt(LocalDateTime.now())
                 .build();
         
+        // Tổng hợp rating của tour được cập nhật trong reviewService.save
         review = reviewService.save(review);
         
-        // Update tour average rating
-        updateTourRating(booking.getTour().getId());
-        
         return ResponseEntity.ok(ApiResponse.success(mapToResponse(review), "Tạo review thành công"));
     }
 
@@ -140,8 +132,8 @@ public class ReviewController {
 
     @GetMapping("/my-reviews")
     @Operation(summary = "Lấy danh sách review của user", description = "Lấy tất cả review của user hiện tại")
-    public ResponseEntity<ApiResponse<List<ReviewResponse>>> getMyReviews(HttpServletRequest httpRequest) {
-        Long userId = getCurrentUserId(httpRequest);
+    public ResponseEntity<ApiResponse<List<ReviewResponse>>> getMyReviews(AuthPrincipal principal) {
+        Long userId = principal.getUserId();
         List<Review> reviews = reviewService.findByUserId(userId);
         List<ReviewResponse> responses = reviews.stream()
                 .map(this::mapToResponse)
@@ -159,8 +151,8 @@ public class ReviewController {
 
     @DeleteMapping("/{id}")
     @Operation(summary = "Xóa review", description = "Xóa review của user")
-    public ResponseEntity<ApiResponse<Void>> deleteReview(@PathVariable Long id, HttpServletRequest httpRequest) {
-        Long userId = getCurrentUserId(httpRequest);
+    public ResponseEntity<ApiResponse<Void>> deleteReview(@PathVariable Long id, AuthPrincipal principal) {
+        Long userId = principal.getUserId();
         Review review = reviewService.findById(id)
                 .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND, "Review không tồn tại"));
         
@@ -171,27 +163,14 @@ public class ReviewController {
         
         // Delete images from Cloudinary
         if (review.getImages() != null && !review.getImages().isEmpty()) {
-            String[] imageUrls = review.getImages().split(",");
-            for (String url : imageUrls) {
-                String publicId = cloudinaryService.extractPublicIdFromUrl(url.trim());
-                if (publicId != null) {
-                    cloudinaryService.deleteResource(publicId);
-                }
-            }
+            cloudinaryService.release(review.getImages().split(","));
         }
         
         reviewService.deleteById(id);
         
-        // Update tour rating
-        updateTourRating(review.getTour().getId());
-        
         return ResponseEntity.ok(ApiResponse.success(null, "Xóa review thành công"));
     }
 
-    private void updateTourRating(Long tourId) {
-        tourService.updateTourRating(tourId);
-    }
-
     private ReviewResponse mapToResponse(Review review) {
         List<String> imageList = null;
         if (review.getImages() != null && !review.getImages().isEmpty()) {
@@ -213,27 +192,4 @@ public class ReviewController {
                 .createdAt(review.getCreatedAt())
                 .build();
     }
-
-    private Long getCurrentUserId(HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new AppException(ErrorCode.UNAUTHORIZED, "Token không hợp lệ");
-        }
-
-        String token = authHeader.substring(7);
-        try {
-            if (!jwtUtil.validateToken(token)) {
-                throw new AppException(ErrorCode.UNAUTHORIZED, "Token không hợp lệ hoặc đã hết hạn");
-            }
-            
-            io.jsonwebtoken.Claims claims = jwtUtil.getClaims(token);
-            Integer userId = claims.get("userId", Integer.class);
-            if (userId == null) {
-                throw new AppException(ErrorCode.UNAUTHORIZED, "Token không chứa thông tin user");
-            }
-            return Long.valueOf(userId);
-        } catch (Exception e) {
-            throw new AppException(ErrorCode.UNAUTHORIZED, "Token không hợp lệ: " + e.getMessage());
-        }
-    }
 }
@@ -0,0 +1,36 @@
+package swd.coiviet.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import swd.coiviet.dto.response.ApiResponse;
+import swd.coiviet.dto.response.SearchResponse;
+import swd.coiviet.enums.SearchDocumentType;
+import swd.coiviet.service.SearchService;
+
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/public/search")
+public class SearchController {
+
+    private final SearchService searchService;
+
+    public SearchController(SearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    @GetMapping
+    @Operation(summary = "Tìm kiếm toàn văn", description = "Tìm không phân biệt dấu trên tour, văn hóa, blog và ký ức đã công khai, " +
+            "kết quả xếp hạng theo độ liên quan (BM25)")
+    public ResponseEntity<ApiResponse<SearchResponse>> search(
+            @Parameter(description = "Từ khóa, có hoặc không dấu", required = true) @RequestParam String q,
+            @Parameter(description = "Lọc theo loại, bỏ trống là tất cả") @RequestParam(required = false) Set<SearchDocumentType> types,
+            @Parameter(description = "Số kết quả (tối đa 50)") @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(ApiResponse.success(searchService.search(q, types, limit)));
+    }
+}
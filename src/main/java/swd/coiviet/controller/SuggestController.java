@@ -0,0 +1,34 @@
+package swd.coiviet.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import swd.coiviet.dto.response.ApiResponse;
+import swd.coiviet.dto.response.SuggestionResponse;
+import swd.coiviet.service.SuggestService;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/public/suggest")
+public class SuggestController {
+
+    private final SuggestService suggestService;
+
+    public SuggestController(SuggestService suggestService) {
+        this.suggestService = suggestService;
+    }
+
+    @GetMapping
+    @Operation(summary = "Gợi ý khi gõ", description = "Gợi ý tỉnh, tour, nghệ nhân, văn hóa theo tiền tố không phân biệt dấu, " +
+            "phổ biến (lượt đặt, đánh giá) xếp trước")
+    public ResponseEntity<ApiResponse<List<SuggestionResponse>>> suggest(
+            @Parameter(description = "Tiền tố đang gõ, có hoặc không dấu", required = true) @RequestParam String q,
+            @Parameter(description = "Số gợi ý (tối đa 10)") @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(ApiResponse.success(suggestService.suggest(q, limit)));
+    }
+}
@@ -19,6 +19,9 @@ import swd.coiviet.service.ArtisanService;
 import swd.coiviet.service.CloudinaryService;
 import swd.coiviet.service.ProvinceService;
 import swd.coiviet.service.TourService;
+import swd.coiviet.dto.response.CursorPageResponse;
+import swd.coiviet.dto.response.TourSummaryResponse;
+import swd.coiviet.enums.Status;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
@@ -47,6 +50,17 @@ public class TourController {
         return ResponseEntity.ok(ApiResponse.success(tours));
     }
 
+    @GetMapping("/public/page")
+    @Operation(summary = "Lấy danh sách tour theo trang", description = "Phân trang theo cursor (id giảm dần), chỉ trả về các trường hiển thị trên danh sách")
+    public ResponseEntity<ApiResponse<CursorPageResponse<TourSummaryResponse>>> getTourPage(
+            @Parameter(description = "Cursor từ trang trước (nextCursor)") @RequestParam(required = false) Long cursor,
+            @Parameter(description = "Số phần tử mỗi trang (tối đa 100)") @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Long provinceId,
+            @RequestParam(required = false) Long artisanId,
+            @RequestParam(required = false) Status status) {
+        return ResponseEntity.ok(ApiResponse.success(tourService.findPage(cursor, size, provinceId, artisanId, status)));
+    }
+
     @GetMapping("/public/{id}")
     public ResponseEntity<ApiResponse<Tour>> getTourById(@PathVariable Long id) {
         Tour tour = tourService.findById(id)
@@ -197,10 +211,7 @@ public class TourController {
             if (thumbnail != null && !thumbnail.isEmpty() && thumbnail.getSize() > 0) {
                 // Delete old thumbnail if exists
                 if (existing.getThumbnailUrl() != null) {
-                    String publicId = cloudinaryService.extractPublicIdFromUrl(existing.getThumbnailUrl());
-                    if (publicId != null) {
-                        cloudinaryService.deleteResource(publicId);
-                    }
+                    cloudinaryService.release(existing.getThumbnailUrl());
                 }
                 String thumbnailUrl = cloudinaryService.uploadTourThumbnail(thumbnail, id);
                 existing.setThumbnailUrl(thumbnailUrl);
@@ -216,13 +227,7 @@ public class TourController {
                 if (!validImages.isEmpty()) {
                     // Delete old images if exists
                     if (existing.getImages() != null && !existing.getImages().isEmpty()) {
-                        String[] oldImageUrls = existing.getImages().split(",");
-                        for (String oldUrl : oldImageUrls) {
-                            String publicId = cloudinaryService.extractPublicIdFromUrl(oldUrl.trim());
-                            if (publicId != null) {
-                                cloudinaryService.deleteResource(publicId);
-                            }
-                        }
+                        cloudinaryService.release(existing.getImages().split(","));
                     }
                     MultipartFile[] validImagesArray = validImages.toArray(new MultipartFile[0]);
                     List<String> imageUrls = cloudinaryService.uploadTourImages(validImagesArray, id);
@@ -234,7 +234,7 @@ public class UploadController {
     }
 
     /**
-     * Delete image from Cloudinary
+     * Delete image from Cloudinary (GC xóa khi không còn entity nào dùng ảnh)
      */
     @DeleteMapping("/delete")
     public ResponseEntity<ApiResponse<Void>> deleteImage(@RequestParam("url") String url) {
@@ -242,11 +242,7 @@ public class UploadController {
         if (publicId == null) {
             throw new AppException(ErrorCode.INVALID_REQUEST, "URL không hợp lệ");
         }
-        boolean deleted = cloudinaryService.deleteResource(publicId);
-        if (deleted) {
-            return ResponseEntity.ok(ApiResponse.success(null, "Xóa ảnh thành công"));
-        } else {
-            throw new AppException(ErrorCode.INTERNAL_SERVER_ERROR, "Không thể xóa ảnh");
-        }
+        cloudinaryService.release(url);
+        return ResponseEntity.ok(ApiResponse.success(null, "Xóa ảnh thành công"));
     }
 }
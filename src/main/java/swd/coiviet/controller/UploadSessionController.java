@@ -0,0 +1,82 @@
+package swd.coiviet.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import swd.coiviet.configuration.AuthPrincipal;
+import swd.coiviet.dto.request.CreateUploadSessionRequest;
+import swd.coiviet.dto.response.ApiResponse;
+import swd.coiviet.dto.response.MediaJobResponse;
+import swd.coiviet.dto.response.UploadSessionResponse;
+import swd.coiviet.model.MediaJob;
+import swd.coiviet.model.UploadSession;
+import swd.coiviet.service.UploadSessionService;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/user-memories")
+public class UploadSessionController {
+
+    private final UploadSessionService uploadSessionService;
+
+    public UploadSessionController(UploadSessionService uploadSessionService) {
+        this.uploadSessionService = uploadSessionService;
+    }
+
+    @PostMapping("/{id}/uploads")
+    @Operation(summary = "Mở phiên upload nhiều phần", description = "Dùng cho audio/video lớn của ký ức: gửi từng chunk bằng " +
+            "PUT /api/user-memories/uploads/{sessionId}?offset=..., mất mạng thì GET phiên để lấy offset và gửi tiếp, đủ byte thì gọi complete")
+    public ResponseEntity<ApiResponse<UploadSessionResponse>> createSession(@PathVariable Long id,
+                                                                            @Valid @RequestBody CreateUploadSessionRequest request,
+                                                                            AuthPrincipal principal) {
+        UploadSession session = uploadSessionService.create(principal.getUserId(), id, request);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(new ApiResponse<>(HttpStatus.CREATED.value(), "Tạo phiên upload thành công", response(session)));
+    }
+
+    @GetMapping("/uploads/{sessionId}")
+    @Operation(summary = "Lấy trạng thái phiên upload", description = "offset là số byte server đã nhận, chunk tiếp theo bắt đầu tại đây")
+    public ResponseEntity<ApiResponse<UploadSessionResponse>> getSession(@PathVariable Long sessionId, AuthPrincipal principal) {
+        return ResponseEntity.ok(ApiResponse.success(response(uploadSessionService.get(principal.getUserId(), sessionId))));
+    }
+
+    @PutMapping(value = "/uploads/{sessionId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(summary = "Gửi một chunk", description = "Body là byte thô của chunk, tối đa chunkSize. Offset sai hoặc chunk khác " +
+            "đang được ghi thì trả về 409 kèm offset hiện tại")
+    public ResponseEntity<ApiResponse<UploadSessionResponse>> appendChunk(
+            @PathVariable Long sessionId,
+            @Parameter(description = "Vị trí byte đầu tiên của chunk trong file", required = true) @RequestParam long offset,
+            HttpServletRequest request,
+            AuthPrincipal principal) throws IOException {
+        UploadSession session = uploadSessionService.appendChunk(principal.getUserId(), sessionId, offset,
+                request.getInputStream(), request.getContentLengthLong());
+        return ResponseEntity.ok(ApiResponse.success(response(session)));
+    }
+
+    @PostMapping("/uploads/{sessionId}/complete")
+    @Operation(summary = "Hoàn tất phiên upload", description = "Trả về 202 kèm media job, file được upload nền và gắn vào ký ức " +
+            "khi job xong (poll /api/media-jobs/{id} hoặc nghe /user/queue/media-jobs)")
+    public ResponseEntity<ApiResponse<MediaJobResponse>> complete(@PathVariable Long sessionId, AuthPrincipal principal) {
+        MediaJob job = uploadSessionService.complete(principal.getUserId(), sessionId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(new ApiResponse<>(HttpStatus.ACCEPTED.value(), "Upload hoàn tất, media đang được xử lý",
+                        MediaJobResponse.from(job)));
+    }
+
+    @DeleteMapping("/uploads/{sessionId}")
+    @Operation(summary = "Hủy phiên upload", description = "Xóa phiên và phần file đã nhận")
+    public ResponseEntity<ApiResponse<Void>> abort(@PathVariable Long sessionId, AuthPrincipal principal) {
+        uploadSessionService.abort(principal.getUserId(), sessionId);
+        return ResponseEntity.ok(ApiResponse.success(null, "Hủy phiên upload thành công"));
+    }
+
+    private UploadSessionResponse response(UploadSession session) {
+        return UploadSessionResponse.from(session, uploadSessionService.getChunkSize());
+    }
+}
@@ -1,11 +1,10 @@
 package swd.coiviet.controller;
 
-import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
-import swd.coiviet.configuration.JwtUtil;
+import swd.coiviet.configuration.AuthPrincipal;
 import swd.coiviet.dto.request.ChangePasswordRequest;
 import swd.coiviet.dto.request.CreateUserRequest;
 import swd.coiviet.dto.request.UpdateUserRequest;
@@ -27,13 +26,11 @@ public class UserController {
     private final UserService userService;
     private final PasswordEncoder passwordEncoder;
     private final UserMapper userMapper;
-    private final JwtUtil jwtUtil;
 
-    public UserController(UserService userService, PasswordEncoder passwordEncoder, UserMapper userMapper, JwtUtil jwtUtil) {
+    public UserController(UserService userService, PasswordEncoder passwordEncoder, UserMapper userMapper) {
         this.userService = userService;
         this.passwordEncoder = passwordEncoder;
         this.userMapper = userMapper;
-        this.jwtUtil = jwtUtil;
     }
 
     @PostMapping
@@ -88,8 +85,8 @@ public class UserController {
     @PostMapping("/change-password")
     public ResponseEntity<ApiResponse<Void>> changePassword(
             @Validated @RequestBody ChangePasswordRequest request,
-            HttpServletRequest httpRequest) {
-        Long userId = getCurrentUserId(httpRequest);
+            AuthPrincipal principal) {
+        Long userId = principal.getUserId();
         User user = userService.findById(userId)
                 .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND, "User not found"));
 
@@ -104,27 +101,4 @@ public class UserController {
 
         return ResponseEntity.ok(ApiResponse.success(null, "Đổi mật khẩu thành công"));
     }
-
-    private Long getCurrentUserId(HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new AppException(ErrorCode.UNAUTHORIZED, "Token không hợp lệ");
-        }
-
-        String token = authHeader.substring(7);
-        try {
-            if (!jwtUtil.validateToken(token)) {
-                throw new AppException(ErrorCode.UNAUTHORIZED, "Token không hợp lệ hoặc đã hết hạn");
-            }
-            
-            io.jsonwebtoken.Claims claims = jwtUtil.getClaims(token);
-            Integer userId = claims.get("userId", Integer.class);
-            if (userId == null) {
-                throw new AppException(ErrorCode.UNAUTHORIZED, "Token không chứa thông tin user");
-            }
-            return Long.valueOf(userId);
-        } catch (Exception e) {
-            throw new AppException(ErrorCode.UNAUTHORIZED, "Token không hợp lệ: " + e.getMessage());
-        }
-    }
 }
@@ -4,22 +4,29 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotBlank;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import swd.coiviet.configuration.AuthPrincipal;
 import swd.coiviet.dto.response.ApiResponse;
+import swd.coiviet.dto.response.MediaJobResponse;
+import swd.coiviet.dto.response.MediaSubmissionResponse;
 import swd.coiviet.enums.PublicationStatus;
 import swd.coiviet.exception.AppException;
 import swd.coiviet.exception.ErrorCode;
 import swd.coiviet.model.CultureItem;
+import swd.coiviet.model.MediaJob;
 import swd.coiviet.model.Province;
 import swd.coiviet.model.Video;
 import swd.coiviet.service.CloudinaryService;
 import swd.coiviet.service.CultureItemService;
+import swd.coiviet.service.MediaJobService;
 import swd.coiviet.service.ProvinceService;
 import swd.coiviet.service.VideoService;
+import swd.coiviet.dto.response.CursorPageResponse;
+import swd.coiviet.dto.response.VideoSummaryResponse;
 
-import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -31,13 +38,16 @@ public class VideoController {
     private final CloudinaryService cloudinaryService;
     private final ProvinceService provinceService;
     private final CultureItemService cultureItemService;
+    private final MediaJobService mediaJobService;
 
     public VideoController(VideoService videoService, CloudinaryService cloudinaryService,
-                          ProvinceService provinceService, CultureItemService cultureItemService) {
+                          ProvinceService provinceService, CultureItemService cultureItemService,
+                          MediaJobService mediaJobService) {
         this.videoService = videoService;
         this.cloudinaryService = cloudinaryService;
         this.provinceService = provinceService;
         this.cultureItemService = cultureItemService;
+        this.mediaJobService = mediaJobService;
     }
 
     @GetMapping("/public")
@@ -47,6 +57,15 @@ public class VideoController {
         return ResponseEntity.ok(ApiResponse.success(videos));
     }
 
+    @GetMapping("/public/page")
+    @Operation(summary = "Lấy videos đã publish theo trang", description = "Phân trang theo cursor (id giảm dần), có thể lọc theo tỉnh")
+    public ResponseEntity<ApiResponse<CursorPageResponse<VideoSummaryResponse>>> getPublishedVideoPage(
+            @Parameter(description = "Cursor từ trang trước (nextCursor)") @RequestParam(required = false) Long cursor,
+            @Parameter(description = "Số phần tử mỗi trang (tối đa 100)") @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Long provinceId) {
+        return ResponseEntity.ok(ApiResponse.success(videoService.findPublishedPage(cursor, size, provinceId)));
+    }
+
     @GetMapping("/public/{id}")
     @Operation(summary = "Lấy video theo ID", description = "Lấy thông tin chi tiết video")
     public ResponseEntity<ApiResponse<Video>> getVideoById(@PathVariable Long id) {
@@ -63,8 +82,9 @@ public class VideoController {
     }
 
     @PostMapping(consumes = {"multipart/form-data"})
-    @Operation(summary = "Tạo video mới", description = "Tạo video với thumbnail")
-    public ResponseEntity<ApiResponse<Video>> createVideo(
+    @Operation(summary = "Tạo video mới", description = "Tạo video với thumbnail. Có thumbnail thì trả về 202 kèm media job, " +
+            "thumbnail được upload nền (poll /api/media-jobs/{id} hoặc nghe /user/queue/media-jobs)")
+    public ResponseEntity<ApiResponse<MediaSubmissionResponse<Video>>> createVideo(
             @Parameter(description = "Tiêu đề video", required = true)
             @RequestParam @NotBlank(message = "Tiêu đề không được để trống") String title,
             @Parameter(description = "Video URL", required = true)
@@ -74,45 +94,37 @@ public class VideoController {
             @Parameter(description = "ID văn hóa", required = false)
             @RequestParam(required = false) Long cultureItemId,
             @Parameter(description = "Thumbnail image", schema = @Schema(type = "string", format = "binary"))
-            @RequestPart(value = "thumbnail", required = false) MultipartFile thumbnail) {
-        try {
-            Video video = Video.builder()
-                    .title(title)
-                    .videoUrl(videoUrl)
-                    .status(PublicationStatus.DRAFT)
-                    .createdAt(LocalDateTime.now())
-                    .build();
-            
-            if (provinceId != null) {
-                Province province = provinceService.findById(provinceId)
-                        .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND, "Tỉnh thành không tồn tại"));
-                video.setProvince(province);
-            }
-            
-            if (cultureItemId != null) {
-                CultureItem cultureItem = cultureItemService.findById(cultureItemId)
-                        .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND, "Văn hóa không tồn tại"));
-                video.setCultureItem(cultureItem);
-            }
-            
-            Video saved = videoService.save(video);
-            
-            // Upload thumbnail if provided
-            if (thumbnail != null && !thumbnail.isEmpty() && thumbnail.getSize() > 0) {
-                String thumbnailUrl = cloudinaryService.uploadVideoThumbnail(thumbnail, saved.getId());
-                saved.setThumbnailUrl(thumbnailUrl);
-                saved = videoService.save(saved);
-            }
-            
-            return ResponseEntity.ok(ApiResponse.success(saved, "Tạo video thành công"));
-        } catch (IOException e) {
-            throw new AppException(ErrorCode.INTERNAL_SERVER_ERROR, "Lỗi khi upload ảnh: " + e.getMessage());
+            @RequestPart(value = "thumbnail", required = false) MultipartFile thumbnail,
+            AuthPrincipal principal) {
+        Video video = Video.builder()
+                .title(title)
+                .videoUrl(videoUrl)
+                .status(PublicationStatus.DRAFT)
+                .createdAt(LocalDateTime.now())
+                .build();
+        
+        if (provinceId != null) {
+            Province province = provinceService.findById(provinceId)
+                    .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND, "Tỉnh thành không tồn tại"));
+            video.setProvince(province);
         }
+        
+        if (cultureItemId != null) {
+            CultureItem cultureItem = cultureItemService.findById(cultureItemId)
+                    .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND, "Văn hóa không tồn tại"));
+            video.setCultureItem(cultureItem);
+        }
+        
+        Video saved = videoService.save(video);
+        
+        MediaJob job = mediaJobService.submitVideoThumbnail(principal.getUserId(), saved.getId(), thumbnail);
+        return submissionResponse(saved, job, "Tạo video thành công");
     }
 
     @PutMapping(value = "/{id}", consumes = {"multipart/form-data"})
-    @Operation(summary = "Cập nhật video", description = "Cập nhật thông tin video và thumbnail")
-    public ResponseEntity<ApiResponse<Video>> updateVideo(
+    @Operation(summary = "Cập nhật video", description = "Cập nhật thông tin video và thumbnail. Có thumbnail mới thì trả về 202 kèm media job, " +
+            "thumbnail cũ chỉ bị thay khi job upload xong")
+    public ResponseEntity<ApiResponse<MediaSubmissionResponse<Video>>> updateVideo(
             @PathVariable Long id,
             @Parameter(description = "Tiêu đề video", required = false)
             @RequestParam(required = false) String title,
@@ -123,42 +135,29 @@ public class VideoController {
             @Parameter(description = "ID văn hóa", required = false)
             @RequestParam(required = false) Long cultureItemId,
             @Parameter(description = "Thumbnail mới (nếu có)", schema = @Schema(type = "string", format = "binary"))
-            @RequestPart(value = "thumbnail", required = false) MultipartFile thumbnail) {
+            @RequestPart(value = "thumbnail", required = false) MultipartFile thumbnail,
+            AuthPrincipal principal) {
         Video existing = videoService.findById(id)
                 .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND, "Video không tồn tại"));
         
-        try {
-            // Update fields
-            if (title != null) existing.setTitle(title);
-            if (videoUrl != null) existing.setVideoUrl(videoUrl);
-            if (provinceId != null) {
-                Province province = provinceService.findById(provinceId)
-                        .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND, "Tỉnh thành không tồn tại"));
-                existing.setProvince(province);
-            }
-            if (cultureItemId != null) {
-                CultureItem cultureItem = cultureItemService.findById(cultureItemId)
-                        .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND, "Văn hóa không tồn tại"));
-                existing.setCultureItem(cultureItem);
-            }
-            
-            // Handle thumbnail
-            if (thumbnail != null && !thumbnail.isEmpty() && thumbnail.getSize() > 0) {
-                if (existing.getThumbnailUrl() != null) {
-                    String publicId = cloudinaryService.extractPublicIdFromUrl(existing.getThumbnailUrl());
-                    if (publicId != null) {
-                        cloudinaryService.deleteResource(publicId);
-                    }
-                }
-                String thumbnailUrl = cloudinaryService.uploadVideoThumbnail(thumbnail, id);
-                existing.setThumbnailUrl(thumbnailUrl);
-            }
-            
-            Video updated = videoService.save(existing);
-            return ResponseEntity.ok(ApiResponse.success(updated, "Cập nhật video thành công"));
-        } catch (IOException e) {
-            throw new AppException(ErrorCode.INTERNAL_SERVER_ERROR, "Lỗi khi upload ảnh: " + e.getMessage());
+        // Update fields
+        if (title != null) existing.setTitle(title);
+        if (videoUrl != null) existing.setVideoUrl(videoUrl);
+        if (provinceId != null) {
+            Province province = provinceService.findById(provinceId)
+                    .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND, "Tỉnh thành không tồn tại"));
+            existing.setProvince(province);
         }
+        if (cultureItemId != null) {
+            CultureItem cultureItem = cultureItemService.findById(cultureItemId)
+                    .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND, "Văn hóa không tồn tại"));
+            existing.setCultureItem(cultureItem);
+        }
+        
+        Video updated = videoService.save(existing);
+        
+        MediaJob job = mediaJobService.submitVideoThumbnail(principal.getUserId(), id, thumbnail);
+        return submissionResponse(updated, job, "Cập nhật video thành công");
     }
 
     @PutMapping("/{id}/publish")
@@ -179,13 +178,20 @@ public class VideoController {
         
         // Delete thumbnail
         if (video.getThumbnailUrl() != null) {
-            String publicId = cloudinaryService.extractPublicIdFromUrl(video.getThumbnailUrl());
-            if (publicId != null) {
-                cloudinaryService.deleteResource(publicId);
-            }
+            cloudinaryService.release(video.getThumbnailUrl());
         }
         
         videoService.deleteById(id);
         return ResponseEntity.ok(ApiResponse.success(null, "Xóa video thành công"));
     }
+
+    private ResponseEntity<ApiResponse<MediaSubmissionResponse<Video>>> submissionResponse(
+            Video video, MediaJob job, String message) {
+        if (job == null) {
+            return ResponseEntity.ok(ApiResponse.success(new MediaSubmissionResponse<>(video, null), message));
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(new ApiResponse<>(HttpStatus.ACCEPTED.value(), message + ", thumbnail đang được xử lý",
+                        new MediaSubmissionResponse<>(video, MediaJobResponse.from(job))));
+    }
 }
@@ -2,6 +2,7 @@ package swd.coiviet.dto.request;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 
 @Data
@@ -10,5 +11,6 @@ public class ChatSendRequest {
     private Long recipientId;
 
     @NotBlank(message = "Nội dung tin nhắn không được để trống")
+    @Size(max = 2000, message = "Nội dung tin nhắn tối đa 2000 ký tự")
     private String content;
 }
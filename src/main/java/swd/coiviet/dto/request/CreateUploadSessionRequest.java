@@ -0,0 +1,23 @@
+package swd.coiviet.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import swd.coiviet.enums.MediaField;
+
+@Data
+public class CreateUploadSessionRequest {
+    @NotNull(message = "Loại media không được để trống")
+    private MediaField field; // AUDIO hoặc VIDEO
+
+    @NotBlank(message = "Tên file không được để trống")
+    private String fileName;
+
+    @NotBlank(message = "Content type không được để trống")
+    private String contentType;
+
+    @NotNull(message = "Kích thước file không được để trống")
+    @Positive(message = "Kích thước file phải lớn hơn 0")
+    private Long size;
+}
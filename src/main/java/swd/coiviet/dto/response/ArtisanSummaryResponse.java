@@ -0,0 +1,23 @@
+package swd.coiviet.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArtisanSummaryResponse {
+    private Long id;
+    private String fullName;
+    private String specialization;
+    private String profileImageUrl;
+    private BigDecimal averageRating;
+    private Integer totalTours;
+    private Long provinceId;
+    private String provinceName;
+}
@@ -0,0 +1,23 @@
+package swd.coiviet.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BlogPostSummaryResponse {
+    private Long id;
+    private String title;
+    private String slug;
+    private String featuredImageUrl;
+    private Long provinceId;
+    private String provinceName;
+    private LocalDateTime publishedAt;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,23 @@
+package swd.coiviet.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Trang hộp thư chat. Khác CursorPageResponse: cursor gồm cả (updatedAt, id) của hội thoại cuối trang
+ * vì hội thoại đó có thể nhận tin mới và nhảy lên đầu trước khi client lấy trang sau
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversationPageResponse {
+    private List<ChatConversationResponse> items;
+    private String nextCursor; // Chuỗi mờ, truyền nguyên vào tham số cursor để lấy trang tiếp theo
+    private boolean hasMore;
+    private int size;
+}
@@ -0,0 +1,23 @@
+package swd.coiviet.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import swd.coiviet.enums.CultureCategory;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CultureItemSummaryResponse {
+    private Long id;
+    private String title;
+    private CultureCategory category;
+    private String thumbnailUrl;
+    private Long provinceId;
+    private String provinceName;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,45 @@
+package swd.coiviet.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    private List<T> items;
+    private Long nextCursor; // Truyền vào tham số cursor để lấy trang tiếp theo
+    private boolean hasMore;
+    private int size;
+
+    public static int normalizeSize(Integer size) {
+        if (size == null || size <= 0) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+
+    /**
+     * Tạo trang từ kết quả đã lấy dư một phần tử (size + 1) để biết còn trang sau hay không
+     */
+    public static <T> CursorPageResponse<T> of(List<T> rows, int size, Function<T, Long> idGetter) {
+        boolean hasMore = rows.size() > size;
+        List<T> items = hasMore ? rows.subList(0, size) : rows;
+        Long nextCursor = hasMore ? idGetter.apply(items.get(items.size() - 1)) : null;
+        return CursorPageResponse.<T>builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .size(items.size())
+                .build();
+    }
+}
@@ -0,0 +1,18 @@
+package swd.coiviet.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * Response trang chủ đã serialize sẵn, phục vụ trực tiếp từ bộ nhớ
+ */
+@Getter
+@AllArgsConstructor
+public class HomePageSnapshot {
+    private final byte[] body;
+    private final String etag;
+    private final Instant builtAt;
+    private final long generation;
+}
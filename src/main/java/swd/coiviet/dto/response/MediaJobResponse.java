@@ -0,0 +1,48 @@
+package swd.coiviet.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import swd.coiviet.enums.MediaJobStatus;
+import swd.coiviet.enums.MediaJobTarget;
+import swd.coiviet.model.MediaJob;
+
+import java.time.LocalDateTime;
+
+/**
+ * Trạng thái media job: trả về khi poll và push qua STOMP tới /user/queue/media-jobs khi job kết thúc
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MediaJobResponse {
+    private Long id;
+    private MediaJobTarget targetType;
+    private Long targetId;
+    private MediaJobStatus status;
+    private int attempts;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private Long queueMillis;
+    private Long processMillis;
+
+    public static MediaJobResponse from(MediaJob job) {
+        return MediaJobResponse.builder()
+                .id(job.getId())
+                .targetType(job.getTargetType())
+                .targetId(job.getTargetId())
+                .status(job.getStatus())
+                .attempts(job.getAttempts() != null ? job.getAttempts() : 0)
+                .lastError(job.getLastError())
+                .createdAt(job.getCreatedAt())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .queueMillis(job.getQueueMillis())
+                .processMillis(job.getProcessMillis())
+                .build();
+    }
+}
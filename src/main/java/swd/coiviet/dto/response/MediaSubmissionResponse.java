@@ -0,0 +1,16 @@
+package swd.coiviet.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Kết quả tạo/cập nhật có kèm media: resource đã lưu và media job đang upload (null nếu không có file)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MediaSubmissionResponse<T> {
+    private T resource;
+    private MediaJobResponse job;
+}
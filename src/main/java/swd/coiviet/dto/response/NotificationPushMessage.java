@@ -0,0 +1,18 @@
+package swd.coiviet.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Gửi qua STOMP tới /user/queue/notifications khi có thông báo mới
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationPushMessage {
+    private NotificationResponse notification;
+    private long unreadCount;
+}
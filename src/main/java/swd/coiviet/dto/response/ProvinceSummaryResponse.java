@@ -0,0 +1,22 @@
+package swd.coiviet.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProvinceSummaryResponse {
+    private Long id;
+    private String name;
+    private String slug;
+    private String region;
+    private BigDecimal latitude;
+    private BigDecimal longitude;
+    private String thumbnailUrl;
+}
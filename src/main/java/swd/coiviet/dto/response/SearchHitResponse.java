@@ -0,0 +1,16 @@
+package swd.coiviet.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import swd.coiviet.enums.SearchDocumentType;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchHitResponse {
+    private SearchDocumentType type;
+    private Long id;
+    private String title;
+    private float score;
+}
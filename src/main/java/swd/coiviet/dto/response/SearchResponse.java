@@ -0,0 +1,19 @@
+package swd.coiviet.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Kết quả tìm kiếm đã xếp hạng; client lấy chi tiết theo type và id qua API của từng loại
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResponse {
+    private String query;
+    private List<SearchHitResponse> hits;
+    private double tookMs;
+}
@@ -0,0 +1,15 @@
+package swd.coiviet.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import swd.coiviet.enums.SuggestionType;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionResponse {
+    private SuggestionType type;
+    private Long id;
+    private String label;
+}
@@ -0,0 +1,29 @@
+package swd.coiviet.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import swd.coiviet.enums.Status;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TourSummaryResponse {
+    private Long id;
+    private String title;
+    private String slug;
+    private String thumbnailUrl;
+    private BigDecimal price;
+    private BigDecimal durationHours;
+    private BigDecimal averageRating;
+    private Integer totalBookings;
+    private Status status;
+    private Long provinceId;
+    private String provinceName;
+    private Long artisanId;
+    private String artisanName;
+}
@@ -0,0 +1,40 @@
+package swd.coiviet.dto.response;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Kết quả một lần chạy (hoặc một chunk) của workflow xử lý tour ít booking
+ */
+@Data
+@NoArgsConstructor
+public class TourWorkflowRunResult {
+    private int candidates;
+    private int chunks;
+    private int failedChunks;
+    private int schedulesProcessed;
+    // Schedule đã được xử lý ở giai đoạn này trong lần chạy trước
+    private int alreadyProcessed;
+    private int promoted;
+    private int alerted;
+    private int cancelled;
+    private int surcharged;
+    private int vouchersCreated;
+    private int notificationsCreated;
+    private int emailsQueued;
+    private long durationMs;
+
+    public void merge(TourWorkflowRunResult other) {
+        chunks += other.chunks;
+        failedChunks += other.failedChunks;
+        schedulesProcessed += other.schedulesProcessed;
+        alreadyProcessed += other.alreadyProcessed;
+        promoted += other.promoted;
+        alerted += other.alerted;
+        cancelled += other.cancelled;
+        surcharged += other.surcharged;
+        vouchersCreated += other.vouchersCreated;
+        notificationsCreated += other.notificationsCreated;
+        emailsQueued += other.emailsQueued;
+    }
+}
@@ -0,0 +1,46 @@
+package swd.coiviet.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import swd.coiviet.enums.MediaField;
+import swd.coiviet.enums.UploadSessionStatus;
+import swd.coiviet.model.UploadSession;
+
+import java.time.LocalDateTime;
+
+/**
+ * Trạng thái phiên upload: client gửi chunk tiếp theo tại offset, mỗi chunk tối đa chunkSize byte
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionResponse {
+    private Long id;
+    private Long memoryId;
+    private MediaField field;
+    private String fileName;
+    private long size;
+    private long offset;
+    private long chunkSize;
+    private UploadSessionStatus status;
+    private Long jobId;
+    private LocalDateTime expiresAt;
+
+    public static UploadSessionResponse from(UploadSession session, long chunkSize) {
+        return UploadSessionResponse.builder()
+                .id(session.getId())
+                .memoryId(session.getTargetId())
+                .field(session.getField())
+                .fileName(session.getOriginalName())
+                .size(session.getTotalSize())
+                .offset(session.getReceivedBytes())
+                .chunkSize(chunkSize)
+                .status(session.getStatus())
+                .jobId(session.getJobId())
+                .expiresAt(session.getExpiresAt())
+                .build();
+    }
+}
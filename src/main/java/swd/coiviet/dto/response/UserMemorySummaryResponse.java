@@ -0,0 +1,23 @@
+package swd.coiviet.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserMemorySummaryResponse {
+    private Long id;
+    private String title;
+    private String images;
+    private Long provinceId;
+    private String provinceName;
+    private Long userId;
+    private String userFullName;
+    private LocalDateTime createdAt;
+}
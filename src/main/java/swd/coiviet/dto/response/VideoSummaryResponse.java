@@ -0,0 +1,22 @@
+package swd.coiviet.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VideoSummaryResponse {
+    private Long id;
+    private String title;
+    private String videoUrl;
+    private String thumbnailUrl;
+    private Long provinceId;
+    private String provinceName;
+    private LocalDateTime createdAt;
+}
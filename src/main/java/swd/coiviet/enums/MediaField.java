@@ -0,0 +1,5 @@
+package swd.coiviet.enums;
+
+public enum MediaField {
+    IMAGES, AUDIO, VIDEO, THUMBNAIL
+}
@@ -0,0 +1,5 @@
+package swd.coiviet.enums;
+
+public enum MediaJobStatus {
+    PENDING, PROCESSING, SUCCEEDED, FAILED
+}
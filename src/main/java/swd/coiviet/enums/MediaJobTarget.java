@@ -0,0 +1,5 @@
+package swd.coiviet.enums;
+
+public enum MediaJobTarget {
+    USER_MEMORY, VIDEO
+}
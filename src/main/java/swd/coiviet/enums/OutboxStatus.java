@@ -0,0 +1,5 @@
+package swd.coiviet.enums;
+
+public enum OutboxStatus {
+    PENDING, PROCESSING, SENT, FAILED
+}
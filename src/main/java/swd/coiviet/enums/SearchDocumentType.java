@@ -0,0 +1,5 @@
+package swd.coiviet.enums;
+
+public enum SearchDocumentType {
+    TOUR, CULTURE_ITEM, BLOG_POST, USER_MEMORY
+}
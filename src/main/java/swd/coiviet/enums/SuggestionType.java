@@ -0,0 +1,5 @@
+package swd.coiviet.enums;
+
+public enum SuggestionType {
+    PROVINCE, TOUR, ARTISAN, CULTURE_ITEM
+}
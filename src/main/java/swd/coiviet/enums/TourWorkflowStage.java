@@ -0,0 +1,5 @@
+package swd.coiviet.enums;
+
+public enum TourWorkflowStage {
+    PROMOTE, ALERT, CANCEL, SURCHARGE
+}
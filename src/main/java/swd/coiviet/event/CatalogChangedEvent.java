@@ -0,0 +1,16 @@
+package swd.coiviet.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Phát ra khi dữ liệu catalog công khai (tour, tỉnh, blog, video, nghệ nhân, văn hóa, ký ức) thay đổi
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class CatalogChangedEvent {
+    private final Class<?> entityType;
+    private final Long entityId;
+}
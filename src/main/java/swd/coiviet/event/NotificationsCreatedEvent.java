@@ -0,0 +1,18 @@
+package swd.coiviet.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import swd.coiviet.model.Notification;
+
+import java.util.List;
+
+/**
+ * Phát ra sau khi thông báo đã được ghi (đã có id), dùng để đẩy realtime và cập nhật bộ đếm chưa đọc
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class NotificationsCreatedEvent {
+    private final List<Notification> notifications;
+}
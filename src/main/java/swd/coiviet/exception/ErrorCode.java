@@ -49,7 +49,10 @@ public enum ErrorCode {
     INVALID_EMAIL(400, "Invalid email format"),
     INVALID_PHONE(400, "Invalid phone number"),
     PASSWORD_TOO_SHORT(400, "Password is too short"),
-    REQUIRED_FIELD_MISSING(400, "Required field is missing");
+    REQUIRED_FIELD_MISSING(400, "Required field is missing"),
+
+    // Upload errors
+    UPLOAD_OFFSET_MISMATCH(409, "Upload offset does not match");
 
     private final int code;
     private final String message;
@@ -59,6 +62,7 @@ public enum ErrorCode {
             case UNAUTHORIZED -> HttpStatus.UNAUTHORIZED;
             case FORBIDDEN -> HttpStatus.FORBIDDEN;
             case NOT_FOUND -> HttpStatus.NOT_FOUND;
+            case UPLOAD_OFFSET_MISMATCH -> HttpStatus.CONFLICT;
             case INTERNAL_SERVER_ERROR -> HttpStatus.INTERNAL_SERVER_ERROR;
             case SERVICE_UNAVAILABLE -> HttpStatus.SERVICE_UNAVAILABLE;
             case GATEWAY_TIMEOUT -> HttpStatus.GATEWAY_TIMEOUT;
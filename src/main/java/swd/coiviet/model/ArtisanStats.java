@@ -0,0 +1,52 @@
+package swd.coiviet.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Bảng rollup số liệu dashboard của nghệ nhân, cập nhật tăng dần khi booking/payment/review thay đổi
+ */
+@Entity
+@Table(name = "artisan_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArtisanStats {
+    @Id
+    private Long artisanId;
+
+    @Builder.Default
+    private Long bookingsTotal = 0L;
+    @Builder.Default
+    private Long bookingsPending = 0L;
+    @Builder.Default
+    private Long bookingsConfirmed = 0L;
+    @Builder.Default
+    private Long bookingsCancelled = 0L;
+    @Builder.Default
+    private Long bookingsCompleted = 0L;
+
+    @Builder.Default
+    private BigDecimal paidRevenue = BigDecimal.ZERO;
+
+    // Chỉ tính review VISIBLE có rating
+    @Builder.Default
+    private Long reviewCount = 0L;
+    @Builder.Default
+    private Long ratingSum = 0L;
+    @Builder.Default
+    private Long oneStar = 0L;
+    @Builder.Default
+    private Long twoStar = 0L;
+    @Builder.Default
+    private Long threeStar = 0L;
+    @Builder.Default
+    private Long fourStar = 0L;
+    @Builder.Default
+    private Long fiveStar = 0L;
+
+    private LocalDateTime rebuiltAt;
+}
@@ -8,7 +8,9 @@ import swd.coiviet.enums.PaymentStatus;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+        @Index(name = "idx_bookings_tour_created_at", columnList = "tour_id, created_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
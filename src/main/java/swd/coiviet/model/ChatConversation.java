@@ -10,7 +10,11 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "chat_conversations",
-        uniqueConstraints = @UniqueConstraint(columnNames = {"customer_id", "artisan_id"}))
+        uniqueConstraints = @UniqueConstraint(columnNames = {"customer_id", "artisan_id"}),
+        indexes = {
+                @Index(name = "idx_chat_conversations_customer_updated", columnList = "customer_id, updated_at"),
+                @Index(name = "idx_chat_conversations_artisan_updated", columnList = "artisan_id, updated_at")
+        })
 @Data
 @Builder
 @NoArgsConstructor
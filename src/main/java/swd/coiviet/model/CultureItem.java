@@ -7,7 +7,9 @@ import swd.coiviet.enums.CultureCategory;
 import swd.coiviet.enums.PublicationStatus;
 
 @Entity
-@Table(name = "culture_items")
+@Table(name = "culture_items", indexes = {
+        @Index(name = "idx_culture_items_status_id", columnList = "status, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
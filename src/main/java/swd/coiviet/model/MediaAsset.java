@@ -0,0 +1,50 @@
+package swd.coiviet.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "media_assets", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_media_assets_hash_variant", columnNames = {"content_hash", "variant"}),
+        @UniqueConstraint(name = "uk_media_assets_url", columnNames = {"url"})
+}, indexes = {
+        @Index(name = "idx_media_assets_ref_count_orphaned_at", columnList = "ref_count, orphaned_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MediaAsset {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // SHA-256 của nội dung file; null với URL cũ chưa qua registry hoặc bản upload trùng bị bỏ
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // Loại resource + transformation: cùng nội dung nhưng preset khác là asset khác
+    @Column(nullable = false)
+    private String variant;
+
+    @Column(nullable = false, length = 1024)
+    private String url;
+
+    @Column(name = "public_id", nullable = false)
+    private String publicId;
+
+    @Column(name = "resource_type", nullable = false)
+    private String resourceType;
+
+    private Long bytes;
+
+    // Số lần URL đang được entity sử dụng; về 0 thì chờ GC xóa trên Cloudinary
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+
+    private LocalDateTime createdAt;
+
+    @Column(name = "orphaned_at")
+    private LocalDateTime orphanedAt;
+}
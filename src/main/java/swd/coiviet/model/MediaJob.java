@@ -0,0 +1,57 @@
+package swd.coiviet.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import swd.coiviet.enums.MediaJobStatus;
+import swd.coiviet.enums.MediaJobTarget;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "media_jobs", indexes = {
+        @Index(name = "idx_media_jobs_instance_status_next_attempt", columnList = "instance_id, status, next_attempt_at"),
+        @Index(name = "idx_media_jobs_target", columnList = "target_type, target_id, status")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MediaJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long ownerId; // User gửi request, nhận push khi job xong
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private MediaJobTarget targetType;
+
+    @Column(nullable = false)
+    private Long targetId;
+
+    @Column(columnDefinition = "text", nullable = false)
+    private String parts; // JSON danh sách MediaJobPart
+
+    // File gốc nằm trên đĩa của instance nhận request, chỉ instance đó xử lý job
+    @Column(name = "instance_id", nullable = false)
+    private String instanceId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private MediaJobStatus status;
+
+    private Integer attempts;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(columnDefinition = "text")
+    private String lastError;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    private Long queueMillis;   // Từ lúc nhận request tới lần xử lý đầu tiên
+    private Long processMillis; // Tổng thời gian các lần xử lý
+}
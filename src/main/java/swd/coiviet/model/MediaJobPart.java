@@ -0,0 +1,21 @@
+package swd.coiviet.model;
+
+import lombok.*;
+import swd.coiviet.enums.MediaField;
+
+/**
+ * Một file của media job, lưu dạng JSON trong media_jobs.parts.
+ * url có giá trị khi file đã upload xong, lần thử lại sẽ bỏ qua file này
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MediaJobPart {
+    private MediaField field;
+    private String path;
+    private String originalName;
+    private String contentType;
+    private long size;
+    private String url;
+}
@@ -6,7 +6,9 @@ import swd.coiviet.enums.ReviewStatus;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reviews")
+@Table(name = "reviews", indexes = {
+        @Index(name = "idx_reviews_tour_status", columnList = "tour_id, status")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -6,7 +6,10 @@ import java.time.LocalDateTime;
 import swd.coiviet.enums.Status;
 
 @Entity
-@Table(name = "tours")
+@Table(name = "tours", indexes = {
+        @Index(name = "idx_tours_province_id", columnList = "province_id, id"),
+        @Index(name = "idx_tours_artisan_id", columnList = "artisan_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -47,10 +50,41 @@ public class Tour {
 
     private Integer totalBookings;
 
+    // Tổng hợp rating của review VISIBLE: chỉ ghi lúc tạo tour, sau đó chỉ qua UPDATE delta/đối soát trong TourRepository.
+    // updatable = false để save() cả entity (sửa tour) không ghi đè delta vừa cộng bằng giá trị đã tải từ trước
+    @Column(updatable = false)
     private java.math.BigDecimal averageRating;
+    @Column(updatable = false)
+    private Integer ratingCount;
+    @Column(updatable = false)
+    private Integer ratingSum;
+    @Column(updatable = false)
+    private Integer oneStarCount;
+    @Column(updatable = false)
+    private Integer twoStarCount;
+    @Column(updatable = false)
+    private Integer threeStarCount;
+    @Column(updatable = false)
+    private Integer fourStarCount;
+    @Column(updatable = false)
+    private Integer fiveStarCount;
 
     @Enumerated(EnumType.STRING)
     private Status status;
 
     private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        // Tour mới chưa có review nên tổng hợp bắt đầu từ 0, không cần backfill
+        if (ratingCount == null) {
+            ratingCount = 0;
+            ratingSum = 0;
+            oneStarCount = 0;
+            twoStarCount = 0;
+            threeStarCount = 0;
+            fourStarCount = 0;
+            fiveStarCount = 0;
+        }
+    }
 }
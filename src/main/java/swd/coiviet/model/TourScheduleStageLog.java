@@ -0,0 +1,34 @@
+package swd.coiviet.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import swd.coiviet.enums.TourWorkflowStage;
+import java.time.LocalDateTime;
+
+/**
+ * Sổ ghi các giai đoạn workflow đã xử lý cho mỗi tour schedule, để mỗi giai đoạn chỉ chạy một lần
+ */
+@Entity
+@Table(name = "tour_schedule_stage_log", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_stage_log_schedule_stage", columnNames = {"tour_schedule_id", "stage"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TourScheduleStageLog {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tour_schedule_id", nullable = false)
+    private Long scheduleId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TourWorkflowStage stage;
+
+    private String processedBy;
+
+    private LocalDateTime processedAt;
+}
@@ -0,0 +1,65 @@
+package swd.coiviet.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import swd.coiviet.enums.MediaField;
+import swd.coiviet.enums.MediaJobTarget;
+import swd.coiviet.enums.UploadSessionStatus;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "upload_sessions", indexes = {
+        @Index(name = "idx_upload_sessions_instance_status_expires_at", columnList = "instance_id, status, expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UploadSession {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long ownerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private MediaJobTarget targetType;
+
+    @Column(nullable = false)
+    private Long targetId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private MediaField field;
+
+    private String originalName;
+    private String contentType;
+
+    @Column(nullable = false)
+    private Long totalSize;
+
+    // Số byte đã ghi liên tục từ đầu file: chunk tiếp theo phải bắt đầu đúng tại đây
+    @Column(nullable = false)
+    private Long receivedBytes;
+
+    // File tạm nằm trên đĩa của instance tạo phiên, chunk phải tới đúng instance đó
+    @Column(nullable = false)
+    private String path;
+
+    @Column(name = "instance_id", nullable = false)
+    private String instanceId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private UploadSessionStatus status;
+
+    private Long jobId; // Media job nhận file khi hoàn tất
+
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt; // Gia hạn sau mỗi chunk, quá hạn thì file tạm bị xóa
+}
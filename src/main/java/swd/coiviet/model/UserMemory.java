@@ -6,7 +6,9 @@ import swd.coiviet.enums.PublicationStatus;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "user_memories")
+@Table(name = "user_memories", indexes = {
+        @Index(name = "idx_user_memories_status_id", columnList = "status, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
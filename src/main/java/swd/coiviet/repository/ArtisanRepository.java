@@ -1,12 +1,37 @@
 package swd.coiviet.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import swd.coiviet.dto.response.ArtisanSummaryResponse;
+import swd.coiviet.enums.Status;
 import swd.coiviet.model.Artisan;
+import swd.coiviet.repository.projection.SuggestionSource;
 
 import java.util.List;
 import java.util.Optional;
 
-public interface ArtisanRepository extends JpaRepository<Artisan, Long> {
+public interface ArtisanRepository extends JpaRepository<Artisan, Long>, KeysetPageRepository {
     List<Artisan> findByProvinceId(Long provinceId);
+    List<Artisan> findByIsActiveTrue();
     Optional<Artisan> findByUserId(Long userId);
+    default List<ArtisanSummaryResponse> findActiveSummaryPage(Long cursor, Long provinceId, Limit limit) {
+        return findKeysetPage(KeysetQuery.select(ArtisanSummaryResponse.class,
+                        "SELECT new swd.coiviet.dto.response.ArtisanSummaryResponse(a.id, a.fullName, a.specialization, " +
+                                "a.profileImageUrl, a.averageRating, a.totalTours, p.id, p.name) FROM Artisan a LEFT JOIN a.province p", "a.id")
+                .where("a.isActive = :active", "active", true)
+                .whereIfPresent("p.id = :provinceId", "provinceId", provinceId)
+                .after(cursor), limit);
+    }
+    @Query("SELECT a FROM Artisan a WHERE a.isActive = true ORDER BY COALESCE(a.averageRating, 0) DESC, a.id DESC")
+    List<Artisan> findTopRatedActive(Limit limit);
+    @Query("SELECT a.id FROM Artisan a ORDER BY a.id")
+    List<Long> findAllIds();
+    @Query("SELECT a.id AS id, a.fullName AS label, " +
+            "(SELECT COALESCE(SUM(t.totalBookings), 0) FROM Tour t WHERE t.artisan = a AND t.status = :tourStatus) AS bookings, " +
+            "a.averageRating AS rating " +
+            "FROM Artisan a WHERE a.isActive = true AND a.id > :after ORDER BY a.id")
+    List<SuggestionSource> findSuggestionSources(@Param("tourStatus") Status tourStatus, @Param("after") Long after,
+                                                 Limit limit);
 }
@@ -0,0 +1,45 @@
+package swd.coiviet.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import swd.coiviet.model.ArtisanStats;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+public interface ArtisanStatsRepository extends JpaRepository<ArtisanStats, Long> {
+    // SELECT ... FOR UPDATE: dựng lại rollup và cập nhật delta xếp hàng trên cùng một dòng
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ArtisanStats s WHERE s.artisanId = :artisanId")
+    Optional<ArtisanStats> findLockedById(@Param("artisanId") Long artisanId);
+
+    @Modifying
+    @Query("UPDATE ArtisanStats s SET s.bookingsTotal = s.bookingsTotal + :total, " +
+            "s.bookingsPending = s.bookingsPending + :pending, " +
+            "s.bookingsConfirmed = s.bookingsConfirmed + :confirmed, " +
+            "s.bookingsCancelled = s.bookingsCancelled + :cancelled, " +
+            "s.bookingsCompleted = s.bookingsCompleted + :completed " +
+            "WHERE s.artisanId = :artisanId")
+    int addBookingDelta(@Param("artisanId") Long artisanId, @Param("total") long total,
+                        @Param("pending") long pending, @Param("confirmed") long confirmed,
+                        @Param("cancelled") long cancelled, @Param("completed") long completed);
+
+    @Modifying
+    @Query("UPDATE ArtisanStats s SET s.paidRevenue = s.paidRevenue + :amount WHERE s.artisanId = :artisanId")
+    int addRevenueDelta(@Param("artisanId") Long artisanId, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query("UPDATE ArtisanStats s SET s.reviewCount = s.reviewCount + :count, " +
+            "s.ratingSum = s.ratingSum + :ratingSum, " +
+            "s.oneStar = s.oneStar + :oneStar, s.twoStar = s.twoStar + :twoStar, " +
+            "s.threeStar = s.threeStar + :threeStar, s.fourStar = s.fourStar + :fourStar, " +
+            "s.fiveStar = s.fiveStar + :fiveStar " +
+            "WHERE s.artisanId = :artisanId")
+    int addReviewDelta(@Param("artisanId") Long artisanId, @Param("count") long count, @Param("ratingSum") long ratingSum,
+                       @Param("oneStar") long oneStar, @Param("twoStar") long twoStar, @Param("threeStar") long threeStar,
+                       @Param("fourStar") long fourStar, @Param("fiveStar") long fiveStar);
+}
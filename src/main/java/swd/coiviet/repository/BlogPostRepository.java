@@ -1,14 +1,42 @@
 package swd.coiviet.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import swd.coiviet.dto.response.BlogPostSummaryResponse;
 import swd.coiviet.enums.PublicationStatus;
 import swd.coiviet.model.BlogPost;
+import swd.coiviet.repository.projection.DashboardAggregates;
+import swd.coiviet.repository.projection.SearchDocument;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
-public interface BlogPostRepository extends JpaRepository<BlogPost, Long> {
+public interface BlogPostRepository extends JpaRepository<BlogPost, Long>, KeysetPageRepository {
     Optional<BlogPost> findBySlug(String slug);
     long countByStatus(PublicationStatus status);
     long countByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
+    List<BlogPost> findByStatus(PublicationStatus status);
+    default List<BlogPostSummaryResponse> findSummaryPage(PublicationStatus status, Long cursor, Long provinceId, Limit limit) {
+        return findKeysetPage(KeysetQuery.select(BlogPostSummaryResponse.class,
+                        "SELECT new swd.coiviet.dto.response.BlogPostSummaryResponse(b.id, b.title, b.slug, b.featuredImageUrl, " +
+                                "p.id, p.name, b.publishedAt, b.createdAt) FROM BlogPost b LEFT JOIN b.province p", "b.id")
+                .where("b.status = :status", "status", status)
+                .whereIfPresent("p.id = :provinceId", "provinceId", provinceId)
+                .after(cursor), limit);
+    }
+    @Query("SELECT b FROM BlogPost b WHERE b.status = :status ORDER BY b.publishedAt DESC NULLS LAST, b.id DESC")
+    List<BlogPost> findLatest(@Param("status") PublicationStatus status, Limit limit);
+    @Query("SELECT b.status AS status, COUNT(b) AS total FROM BlogPost b GROUP BY b.status")
+    List<DashboardAggregates.StatusCount> countGroupedByStatus();
+    String SEARCH_DOCUMENT_SELECT = "SELECT b.id AS id, b.title AS title, b.content AS body, p.name AS provinceName " +
+            "FROM BlogPost b LEFT JOIN b.province p WHERE b.status = :status ";
+    // Dựng lại chỉ mục: keyset theo id
+    @Query(SEARCH_DOCUMENT_SELECT + "AND b.id > :after ORDER BY b.id")
+    List<SearchDocument> findSearchDocuments(@Param("status") PublicationStatus status, @Param("after") Long after, Limit limit);
+    // Cập nhật chỉ mục khi một bản ghi đổi: tra thẳng theo khóa chính
+    @Query(SEARCH_DOCUMENT_SELECT + "AND b.id = :id")
+    Optional<SearchDocument> findSearchDocument(@Param("status") PublicationStatus status, @Param("id") Long id);
 }
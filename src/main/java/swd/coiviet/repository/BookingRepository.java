@@ -1,12 +1,18 @@
 package swd.coiviet.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import swd.coiviet.enums.BookingStatus;
 import swd.coiviet.model.Booking;
+import swd.coiviet.repository.projection.BookingRecipient;
+import swd.coiviet.repository.projection.DashboardAggregates;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
@@ -25,4 +31,24 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     long countByArtisanIdAndCreatedAtBetween(@Param("artisanId") Long artisanId, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
     @Query("SELECT b FROM Booking b WHERE b.tour.artisan.id = :artisanId")
     List<Booking> findByArtisanId(@Param("artisanId") Long artisanId);
+    @Query("SELECT b.status AS status, COUNT(b) AS total, " +
+            "SUM(CASE WHEN b.createdAt BETWEEN :start AND :end THEN 1 ELSE 0 END) AS inRange " +
+            "FROM Booking b GROUP BY b.status")
+    List<DashboardAggregates.StatusRangeCount> countGroupedByStatus(@Param("start") LocalDateTime start,
+                                                                      @Param("end") LocalDateTime end);
+    @Query("SELECT b.status AS status, COUNT(b) AS total FROM Booking b WHERE b.tour.artisan.id = :artisanId GROUP BY b.status")
+    List<DashboardAggregates.StatusCount> countByArtisanIdGroupedByStatus(@Param("artisanId") Long artisanId);
+    @Query("SELECT b.tour.id AS tourId, COUNT(b) AS total FROM Booking b " +
+            "WHERE b.tour.id IN :tourIds AND (b.status IS NULL OR b.status <> :excluded) GROUP BY b.tour.id")
+    List<DashboardAggregates.TourCount> countByTourIdsExcludingStatus(@Param("tourIds") List<Long> tourIds,
+                                                                      @Param("excluded") BookingStatus excluded);
+    @Query("SELECT b.id AS bookingId, b.bookingCode AS bookingCode, b.tourSchedule.id AS scheduleId, " +
+            "b.user.id AS userId, b.contactEmail AS contactEmail, b.numParticipants AS numParticipants " +
+            "FROM Booking b WHERE b.tourSchedule.id IN :scheduleIds AND b.status = :status ORDER BY b.id")
+    List<BookingRecipient> findRecipientsByScheduleIds(@Param("scheduleIds") Collection<Long> scheduleIds,
+                                                       @Param("status") BookingStatus status);
+    // Đọc trạng thái đang lưu trong DB, không flush thay đổi chưa ghi của entity trong persistence context
+    @Query("SELECT b.status FROM Booking b WHERE b.id = :id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    Optional<BookingStatus> findStoredStatusById(@Param("id") Long id);
 }
@@ -1,13 +1,36 @@
 package swd.coiviet.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import swd.coiviet.dto.response.ChatConversationResponse;
 import swd.coiviet.model.ChatConversation;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 public interface ChatConversationRepository extends JpaRepository<ChatConversation, Long> {
     Optional<ChatConversation> findByCustomerIdAndArtisanId(Long customerId, Long artisanId);
 
-    List<ChatConversation> findByCustomerIdOrArtisanIdOrderByUpdatedAtDesc(Long customerId, Long artisanId);
+    String INBOX_SELECT = "SELECT new swd.coiviet.dto.response.ChatConversationResponse(c.id, p.id, " +
+            "COALESCE(p.fullName, p.username), p.avatarUrl, c.lastMessage, c.lastMessageAt, c.updatedAt) " +
+            "FROM ChatConversation c " +
+            "JOIN User p ON p.id = CASE WHEN c.customer.id = :userId THEN c.artisan.id ELSE c.customer.id END " +
+            "WHERE (c.customer.id = :userId OR c.artisan.id = :userId) ";
+
+    /**
+     * Trang đầu hộp thư sắp theo (updatedAt, id) giảm dần, thông tin người đối diện lấy trong cùng một join
+     */
+    @Query(INBOX_SELECT + "ORDER BY c.updatedAt DESC, c.id DESC")
+    List<ChatConversationResponse> findInboxFirstPage(@Param("userId") Long userId, Limit limit);
+
+    /**
+     * Trang sau vị trí (cursorAt, cursor) của hội thoại cuối trang trước, lấy từ cursor chứ không đọc lại từ DB
+     */
+    @Query(INBOX_SELECT + "AND (c.updatedAt < :cursorAt OR (c.updatedAt = :cursorAt AND c.id < :cursor)) " +
+            "ORDER BY c.updatedAt DESC, c.id DESC")
+    List<ChatConversationResponse> findInboxPageAfter(@Param("userId") Long userId, @Param("cursorAt") LocalDateTime cursorAt,
+                                                      @Param("cursor") Long cursor, Limit limit);
 }
@@ -1,10 +1,30 @@
 package swd.coiviet.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import swd.coiviet.dto.response.ChatMessageResponse;
 import swd.coiviet.model.ChatMessage;
 
 import java.util.List;
 
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
-    List<ChatMessage> findByConversationIdOrderByCreatedAtAsc(Long conversationId);
+    // Đọc thẳng khóa ngoại, không khởi tạo proxy sender/recipient/conversation
+    @Query("SELECT new swd.coiviet.dto.response.ChatMessageResponse(m.id, m.conversation.id, m.sender.id, " +
+            "m.recipient.id, m.content, m.createdAt) FROM ChatMessage m " +
+            "WHERE m.conversation.id = :conversationId ORDER BY m.id DESC")
+    List<ChatMessageResponse> findLatestPage(@Param("conversationId") Long conversationId, Limit limit);
+
+    @Query("SELECT new swd.coiviet.dto.response.ChatMessageResponse(m.id, m.conversation.id, m.sender.id, " +
+            "m.recipient.id, m.content, m.createdAt) FROM ChatMessage m " +
+            "WHERE m.conversation.id = :conversationId AND m.id < :before ORDER BY m.id DESC")
+    List<ChatMessageResponse> findPageBefore(@Param("conversationId") Long conversationId, @Param("before") Long before,
+                                             Limit limit);
+
+    @Query("SELECT new swd.coiviet.dto.response.ChatMessageResponse(m.id, m.conversation.id, m.sender.id, " +
+            "m.recipient.id, m.content, m.createdAt) FROM ChatMessage m " +
+            "WHERE m.conversation.id = :conversationId AND m.id > :after ORDER BY m.id ASC")
+    List<ChatMessageResponse> findPageAfter(@Param("conversationId") Long conversationId, @Param("after") Long after,
+                                            Limit limit);
 }
@@ -1,14 +1,22 @@
 package swd.coiviet.repository;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import swd.coiviet.dto.response.CultureItemSummaryResponse;
 import swd.coiviet.enums.CultureCategory;
 import swd.coiviet.enums.PublicationStatus;
-import org.springframework.data.jpa.repository.JpaRepository;
 import swd.coiviet.model.CultureItem;
+import swd.coiviet.repository.projection.DashboardAggregates;
+import swd.coiviet.repository.projection.SearchDocument;
+import swd.coiviet.repository.projection.SuggestionSource;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
-public interface CultureItemRepository extends JpaRepository<CultureItem, Long> {
+public interface CultureItemRepository extends JpaRepository<CultureItem, Long>, KeysetPageRepository {
     List<CultureItem> findByProvinceId(Long provinceId);
     List<CultureItem> findByCategory(CultureCategory category);
     List<CultureItem> findByProvinceIdAndCategory(Long provinceId, CultureCategory category);
@@ -16,4 +24,30 @@ public interface CultureItemRepository extends JpaRepository<CultureItem, Long>
     List<CultureItem> findByProvinceIdAndStatus(Long provinceId, PublicationStatus status);
     long countByStatus(PublicationStatus status);
     long countByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
+    default List<CultureItemSummaryResponse> findSummaryPage(PublicationStatus status, Long cursor, Long provinceId,
+                                                             CultureCategory category, Limit limit) {
+        return findKeysetPage(KeysetQuery.select(CultureItemSummaryResponse.class,
+                        "SELECT new swd.coiviet.dto.response.CultureItemSummaryResponse(c.id, c.title, c.category, c.thumbnailUrl, " +
+                                "p.id, p.name, c.createdAt) FROM CultureItem c LEFT JOIN c.province p", "c.id")
+                .where("c.status = :status", "status", status)
+                .whereIfPresent("p.id = :provinceId", "provinceId", provinceId)
+                .whereIfPresent("c.category = :category", "category", category)
+                .after(cursor), limit);
+    }
+    @Query("SELECT c FROM CultureItem c WHERE c.status = :status ORDER BY c.createdAt DESC NULLS LAST, c.id DESC")
+    List<CultureItem> findLatest(@Param("status") PublicationStatus status, Limit limit);
+    @Query("SELECT c.status AS status, COUNT(c) AS total FROM CultureItem c GROUP BY c.status")
+    List<DashboardAggregates.StatusCount> countGroupedByStatus();
+    String SEARCH_DOCUMENT_SELECT = "SELECT c.id AS id, c.title AS title, c.description AS body, p.name AS provinceName " +
+            "FROM CultureItem c LEFT JOIN c.province p WHERE c.status = :status ";
+    // Dựng lại chỉ mục: keyset theo id
+    @Query(SEARCH_DOCUMENT_SELECT + "AND c.id > :after ORDER BY c.id")
+    List<SearchDocument> findSearchDocuments(@Param("status") PublicationStatus status, @Param("after") Long after, Limit limit);
+    // Cập nhật chỉ mục khi một bản ghi đổi: tra thẳng theo khóa chính
+    @Query(SEARCH_DOCUMENT_SELECT + "AND c.id = :id")
+    Optional<SearchDocument> findSearchDocument(@Param("status") PublicationStatus status, @Param("id") Long id);
+    @Query("SELECT c.id AS id, c.title AS label, 0 AS bookings, 0 AS rating " +
+            "FROM CultureItem c WHERE c.status = :status AND c.id > :after ORDER BY c.id")
+    List<SuggestionSource> findSuggestionSources(@Param("status") PublicationStatus status, @Param("after") Long after,
+                                                 Limit limit);
 }
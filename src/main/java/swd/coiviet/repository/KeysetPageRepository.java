@@ -0,0 +1,12 @@
+package swd.coiviet.repository;
+
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+
+/**
+ * Fragment dùng chung cho các repository có API phân trang cursor
+ */
+public interface KeysetPageRepository {
+    <R> List<R> findKeysetPage(KeysetQuery<R> query, Limit limit);
+}
@@ -0,0 +1,25 @@
+package swd.coiviet.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+
+public class KeysetPageRepositoryImpl implements KeysetPageRepository {
+    private final EntityManager entityManager;
+
+    public KeysetPageRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public <R> List<R> findKeysetPage(KeysetQuery<R> query, Limit limit) {
+        TypedQuery<R> typed = entityManager.createQuery(query.toJpql(), query.getResultType());
+        query.getParameters().forEach(typed::setParameter);
+        if (limit.isLimited()) {
+            typed.setMaxResults(limit.max());
+        }
+        return typed.getResultList();
+    }
+}
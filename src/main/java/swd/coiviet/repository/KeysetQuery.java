@@ -0,0 +1,73 @@
+package swd.coiviet.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Truy vấn một trang keyset theo khóa giảm dần. Chỉ ghép các điều kiện có giá trị: trang đầu không có "key < :cursor",
+ * bộ lọc null bị bỏ hẳn thay vì viết "(:p IS NULL OR ...)". Mỗi tổ hợp bộ lọc là một câu SQL riêng
+ * nên generic plan của Postgres vẫn dùng được index (key) hoặc (cột lọc, key)
+ */
+public final class KeysetQuery<R> {
+    private final Class<R> resultType;
+    private final String select;
+    private final String key;
+    private final List<String> conditions = new ArrayList<>();
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+
+    private KeysetQuery(Class<R> resultType, String select, String key) {
+        this.resultType = resultType;
+        this.select = select;
+        this.key = key;
+    }
+
+    /**
+     * @param select phần SELECT ... FROM ... JOIN ... của JPQL, chưa có WHERE/ORDER BY
+     * @param key biểu thức khóa sắp xếp, ví dụ "t.id"
+     */
+    public static <R> KeysetQuery<R> select(Class<R> resultType, String select, String key) {
+        return new KeysetQuery<>(resultType, select, key);
+    }
+
+    /**
+     * Điều kiện luôn áp dụng
+     */
+    public KeysetQuery<R> where(String condition, String parameter, Object value) {
+        conditions.add(condition);
+        parameters.put(parameter, value);
+        return this;
+    }
+
+    /**
+     * Điều kiện chỉ áp dụng khi value khác null
+     */
+    public KeysetQuery<R> whereIfPresent(String condition, String parameter, Object value) {
+        return value == null ? this : where(condition, parameter, value);
+    }
+
+    /**
+     * Lấy các dòng sau cursor (khóa nhỏ hơn), null là trang đầu
+     */
+    public KeysetQuery<R> after(Long cursor) {
+        return whereIfPresent(key + " < :cursor", "cursor", cursor);
+    }
+
+    public Class<R> getResultType() {
+        return resultType;
+    }
+
+    public Map<String, Object> getParameters() {
+        return Collections.unmodifiableMap(parameters);
+    }
+
+    public String toJpql() {
+        StringBuilder jpql = new StringBuilder(select);
+        for (int i = 0; i < conditions.size(); i++) {
+            jpql.append(i == 0 ? " WHERE " : " AND ").append(conditions.get(i));
+        }
+        return jpql.append(" ORDER BY ").append(key).append(" DESC").toString();
+    }
+}
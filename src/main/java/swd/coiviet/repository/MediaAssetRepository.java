@@ -0,0 +1,32 @@
+package swd.coiviet.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import swd.coiviet.model.MediaAsset;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface MediaAssetRepository extends JpaRepository<MediaAsset, Long> {
+    Optional<MediaAsset> findByContentHashAndVariant(String contentHash, String variant);
+    Optional<MediaAsset> findByUrl(String url);
+    long countByRefCount(int refCount);
+    @Modifying
+    @Query("UPDATE MediaAsset a SET a.refCount = a.refCount + 1, a.orphanedAt = NULL " +
+            "WHERE a.contentHash = :hash AND a.variant = :variant")
+    int acquire(@Param("hash") String contentHash, @Param("variant") String variant);
+    @Modifying
+    @Query("UPDATE MediaAsset a SET a.refCount = CASE WHEN a.refCount > :count THEN a.refCount - :count ELSE 0 END, " +
+            "a.orphanedAt = CASE WHEN a.refCount > :count THEN a.orphanedAt ELSE :now END " +
+            "WHERE a.url IN :urls AND a.refCount > 0")
+    int release(@Param("urls") Collection<String> urls, @Param("count") int count, @Param("now") LocalDateTime now);
+    @Query("SELECT a.url FROM MediaAsset a WHERE a.url IN :urls")
+    List<String> findUrlsIn(@Param("urls") Collection<String> urls);
+    @Query(value = "SELECT * FROM media_assets WHERE ref_count = 0 AND orphaned_at <= :before " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<MediaAsset> lockOrphansBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
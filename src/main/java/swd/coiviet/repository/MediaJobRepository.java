@@ -0,0 +1,42 @@
+package swd.coiviet.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import swd.coiviet.enums.MediaJobStatus;
+import swd.coiviet.model.MediaJob;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface MediaJobRepository extends JpaRepository<MediaJob, Long> {
+    long countByStatus(MediaJobStatus status);
+    // Job của cùng một entity chạy lần lượt theo id: còn job cũ hơn chưa xong thì job sau chưa được nhận,
+    // tránh job cũ xong sau ghi đè URL mới rồi bỏ tham chiếu media của job mới
+    @Query(value = "SELECT j.* FROM media_jobs j WHERE j.instance_id = :instanceId AND j.status IN ('PENDING', 'PROCESSING') " +
+            "AND j.next_attempt_at <= :now AND NOT EXISTS (SELECT 1 FROM media_jobs o WHERE o.target_type = j.target_type " +
+            "AND o.target_id = j.target_id AND o.status IN ('PENDING', 'PROCESSING') AND o.id < j.id) " +
+            "ORDER BY j.id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<MediaJob> lockDueJobs(@Param("instanceId") String instanceId, @Param("now") LocalDateTime now, @Param("limit") int limit);
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT j FROM MediaJob j WHERE j.id = :id")
+    Optional<MediaJob> findLockedById(@Param("id") Long id);
+    @Query("SELECT j.parts FROM MediaJob j WHERE j.id = :id")
+    String findPartsById(@Param("id") Long id);
+    // Lưu tiến độ kèm gia hạn lease để job đang chạy không bị nhận lại giữa chừng
+    @Modifying
+    @Query("UPDATE MediaJob j SET j.parts = :parts, j.nextAttemptAt = :leaseUntil WHERE j.id = :id")
+    int updateParts(@Param("id") Long id, @Param("parts") String parts, @Param("leaseUntil") LocalDateTime leaseUntil);
+    @Modifying
+    @Query("UPDATE MediaJob j SET j.status = swd.coiviet.enums.MediaJobStatus.FAILED, j.finishedAt = :now, j.lastError = :reason " +
+            "WHERE j.status IN (swd.coiviet.enums.MediaJobStatus.PENDING, swd.coiviet.enums.MediaJobStatus.PROCESSING) AND j.createdAt < :before")
+    int expireUnfinishedBefore(@Param("before") LocalDateTime before, @Param("now") LocalDateTime now, @Param("reason") String reason);
+    @Modifying
+    @Query("DELETE FROM MediaJob j WHERE j.status IN (swd.coiviet.enums.MediaJobStatus.SUCCEEDED, swd.coiviet.enums.MediaJobStatus.FAILED) " +
+            "AND j.finishedAt < :before")
+    int deleteFinishedBefore(@Param("before") LocalDateTime before);
+}
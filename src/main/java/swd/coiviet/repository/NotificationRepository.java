@@ -1,16 +1,47 @@
 package swd.coiviet.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import swd.coiviet.model.Notification;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import swd.coiviet.repository.projection.DashboardAggregates;
+import swd.coiviet.repository.projection.UserUnreadCount;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
-public interface NotificationRepository extends JpaRepository<Notification, Long> {
+public interface NotificationRepository extends JpaRepository<Notification, Long>, NotificationRepositoryCustom {
     List<Notification> findByUserId(Long userId);
     List<Notification> findByUserIdOrderByCreatedAtDesc(Long userId);
     List<Notification> findByUserIdAndIsReadFalse(Long userId);
     Long countByUserIdAndIsReadFalse(Long userId);
     long countByIsReadFalse();
+    @Query("SELECT n.user.id AS userId, COUNT(n) AS total FROM Notification n " +
+            "WHERE n.isRead = false AND n.user.id IN :userIds GROUP BY n.user.id")
+    List<UserUnreadCount> countUnreadByUserIds(@Param("userIds") Collection<Long> userIds);
+    @Transactional
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.id = :id AND n.isRead = false")
+    int markRead(@Param("id") Long id);
+    @Transactional
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.user.id = :userId AND n.isRead = false")
+    int markAllRead(@Param("userId") Long userId);
+    @Query("SELECT DISTINCT n.user.id FROM Notification n WHERE n.isRead = false AND n.id IN :ids")
+    List<Long> findUnreadUserIdsByIdIn(@Param("ids") Collection<Long> ids);
+    @Query("SELECT n.id FROM Notification n WHERE n.createdAt < :cutoff ORDER BY n.id")
+    List<Long> findIdsCreatedBefore(@Param("cutoff") LocalDateTime cutoff, Limit limit);
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
     long countByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
+    @Query("SELECT COUNT(n) AS total, " +
+            "COALESCE(SUM(CASE WHEN n.createdAt BETWEEN :start AND :end THEN 1 ELSE 0 END), 0) AS inRange, " +
+            "COALESCE(SUM(CASE WHEN n.isRead = false THEN 1 ELSE 0 END), 0) AS unread FROM Notification n")
+    DashboardAggregates.NotificationTotals totals(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 }
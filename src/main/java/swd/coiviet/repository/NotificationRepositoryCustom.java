@@ -0,0 +1,14 @@
+package swd.coiviet.repository;
+
+import swd.coiviet.model.Notification;
+
+import java.util.List;
+
+public interface NotificationRepositoryCustom {
+    /**
+     * Ghi nhiều thông báo bằng một JDBC batch insert (id IDENTITY khiến saveAll của Hibernate không batch được),
+     * id sinh ra được gán lại vào từng thông báo
+     * @return số dòng đã ghi
+     */
+    int insertAll(List<Notification> notifications);
+}
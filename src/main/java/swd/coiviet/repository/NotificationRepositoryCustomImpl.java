@@ -0,0 +1,65 @@
+package swd.coiviet.repository;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import swd.coiviet.model.Notification;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public class NotificationRepositoryCustomImpl implements NotificationRepositoryCustom {
+    private static final String INSERT_SQL = "INSERT INTO notifications (user_id, type, title, message, related_id, is_read, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public NotificationRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int insertAll(List<Notification> notifications) {
+        int inserted = 0;
+        for (int from = 0; from < notifications.size(); from += BATCH_SIZE) {
+            List<Notification> batch = notifications.subList(from, Math.min(from + BATCH_SIZE, notifications.size()));
+            KeyHolder keys = new GeneratedKeyHolder();
+            int[] counts = jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            Notification n = batch.get(i);
+                            ps.setObject(1, n.getUser() != null ? n.getUser().getId() : null, Types.BIGINT);
+                            ps.setString(2, n.getType());
+                            ps.setString(3, n.getTitle());
+                            ps.setString(4, n.getMessage());
+                            ps.setObject(5, n.getRelatedId(), Types.BIGINT);
+                            ps.setBoolean(6, n.getIsRead() != null && n.getIsRead());
+                            ps.setTimestamp(7, Timestamp.valueOf(n.getCreatedAt() != null ? n.getCreatedAt() : LocalDateTime.now()));
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return batch.size();
+                        }
+                    }, keys);
+            // Gán id sinh ra để thông báo đẩy realtime có thể đánh dấu đã đọc
+            List<Map<String, Object>> keyList = keys.getKeyList();
+            for (int i = 0; i < keyList.size() && i < batch.size(); i++) {
+                batch.get(i).setId(((Number) keyList.get(i).values().iterator().next()).longValue());
+            }
+            for (int count : counts) {
+                // Một số driver trả SUCCESS_NO_INFO (-2) cho batch
+                inserted += count >= 0 ? count : 1;
+            }
+        }
+        return inserted;
+    }
+}
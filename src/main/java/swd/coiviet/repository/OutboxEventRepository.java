@@ -0,0 +1,25 @@
+package swd.coiviet.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import swd.coiviet.enums.OutboxStatus;
+import swd.coiviet.model.OutboxEvent;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    long countByStatus(OutboxStatus status);
+    @Query(value = "SELECT * FROM outbox_events WHERE status IN ('PENDING', 'PROCESSING') AND next_attempt_at <= :now " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEvent> lockDueEvents(@Param("now") LocalDateTime now, @Param("limit") int limit);
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = swd.coiviet.enums.OutboxStatus.SENT, e.processedAt = :now, e.lastError = NULL WHERE e.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = swd.coiviet.enums.OutboxStatus.SENT AND e.processedAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
@@ -1,10 +1,14 @@
 package swd.coiviet.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import swd.coiviet.enums.PaymentStatus;
 import swd.coiviet.model.Payment;
+import swd.coiviet.repository.projection.DashboardAggregates;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -27,4 +31,15 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     @Query("SELECT COALESCE(SUM(p.amount), 0) FROM Payment p WHERE p.booking.tour.artisan.id = :artisanId AND p.status = :status AND p.paidAt BETWEEN :start AND :end")
     BigDecimal sumAmountByArtisanIdAndStatusAndPaidAtBetween(@Param("artisanId") Long artisanId, @Param("status") PaymentStatus status,
                                                               @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+    @Query("SELECT p.status AS status, COUNT(p) AS total, " +
+            "SUM(CASE WHEN p.createdAt BETWEEN :start AND :end THEN 1 ELSE 0 END) AS inRange, " +
+            "COALESCE(SUM(p.amount), 0) AS amount, " +
+            "COALESCE(SUM(CASE WHEN p.paidAt BETWEEN :start AND :end THEN p.amount ELSE 0 END), 0) AS amountInRange " +
+            "FROM Payment p GROUP BY p.status")
+    List<DashboardAggregates.PaymentStatusTotals> sumGroupedByStatus(@Param("start") LocalDateTime start,
+                                                                      @Param("end") LocalDateTime end);
+    // Số tiền đang lưu trong DB nếu payment ở trạng thái status, không flush thay đổi chưa ghi
+    @Query("SELECT p.amount FROM Payment p WHERE p.id = :id AND p.status = :status")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    Optional<BigDecimal> findStoredAmountByIdAndStatus(@Param("id") Long id, @Param("status") PaymentStatus status);
 }
@@ -1,10 +1,30 @@
 package swd.coiviet.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import swd.coiviet.dto.response.ProvinceSummaryResponse;
+import swd.coiviet.enums.Status;
 import swd.coiviet.model.Province;
+import swd.coiviet.repository.projection.SuggestionSource;
 
+import java.util.List;
 import java.util.Optional;
 
-public interface ProvinceRepository extends JpaRepository<Province, Long> {
+public interface ProvinceRepository extends JpaRepository<Province, Long>, KeysetPageRepository {
     Optional<Province> findBySlug(String slug);
+    default List<ProvinceSummaryResponse> findSummaryPage(Long cursor, String region, Limit limit) {
+        return findKeysetPage(KeysetQuery.select(ProvinceSummaryResponse.class,
+                        "SELECT new swd.coiviet.dto.response.ProvinceSummaryResponse(p.id, p.name, p.slug, p.region, p.latitude, " +
+                                "p.longitude, p.thumbnailUrl) FROM Province p", "p.id")
+                .whereIfPresent("p.region = :region", "region", region)
+                .after(cursor), limit);
+    }
+    @Query("SELECT p.id AS id, p.name AS label, " +
+            "(SELECT COALESCE(SUM(t.totalBookings), 0) FROM Tour t WHERE t.province = p AND t.status = :tourStatus) AS bookings, " +
+            "(SELECT AVG(t.averageRating) FROM Tour t WHERE t.province = p AND t.status = :tourStatus) AS rating " +
+            "FROM Province p WHERE COALESCE(p.isActive, true) = true AND p.id > :after ORDER BY p.id")
+    List<SuggestionSource> findSuggestionSources(@Param("tourStatus") Status tourStatus, @Param("after") Long after,
+                                                 Limit limit);
 }
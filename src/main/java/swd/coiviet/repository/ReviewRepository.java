@@ -1,10 +1,14 @@
 package swd.coiviet.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import swd.coiviet.enums.ReviewStatus;
 import swd.coiviet.model.Review;
+import swd.coiviet.repository.projection.DashboardAggregates;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -20,4 +24,22 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     long countByStatus(ReviewStatus status);
     @Query("SELECT AVG(r.rating) FROM Review r WHERE r.status = :status")
     Double averageRatingByStatus(@Param("status") ReviewStatus status);
+    @Query("SELECT r.status AS status, COUNT(r) AS total, " +
+            "SUM(CASE WHEN r.createdAt BETWEEN :start AND :end THEN 1 ELSE 0 END) AS inRange, " +
+            "SUM(r.rating) AS ratingSum, COUNT(r.rating) AS ratedCount " +
+            "FROM Review r GROUP BY r.status")
+    List<DashboardAggregates.ReviewStatusTotals> sumGroupedByStatus(@Param("start") LocalDateTime start,
+                                                                     @Param("end") LocalDateTime end);
+    @Query("SELECT r.rating AS rating, COUNT(r) AS total FROM Review r " +
+            "WHERE r.tour.artisan.id = :artisanId AND r.status = :status AND r.rating IS NOT NULL GROUP BY r.rating")
+    List<DashboardAggregates.RatingCount> countRatingsByArtisanId(@Param("artisanId") Long artisanId,
+                                                                  @Param("status") ReviewStatus status);
+    @Query("SELECT r.tour.id AS tourId, r.rating AS rating, COUNT(r) AS total FROM Review r " +
+            "WHERE r.tour.id IN :tourIds AND r.status = :status AND r.rating IS NOT NULL GROUP BY r.tour.id, r.rating")
+    List<DashboardAggregates.TourRatingCount> countRatingsByTourIds(@Param("tourIds") List<Long> tourIds,
+                                                                    @Param("status") ReviewStatus status);
+    // Rating đang lưu trong DB nếu review ở trạng thái status, không flush thay đổi chưa ghi
+    @Query("SELECT r.rating FROM Review r WHERE r.id = :id AND r.status = :status")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    Optional<Integer> findStoredRatingByIdAndStatus(@Param("id") Long id, @Param("status") ReviewStatus status);
 }
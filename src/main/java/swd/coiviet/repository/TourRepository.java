@@ -1,15 +1,95 @@
 package swd.coiviet.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import swd.coiviet.dto.response.TourSummaryResponse;
 import swd.coiviet.enums.Status;
 import swd.coiviet.model.Tour;
+import swd.coiviet.repository.projection.DashboardAggregates;
+import swd.coiviet.repository.projection.SearchDocument;
+import swd.coiviet.repository.projection.SuggestionSource;
+import swd.coiviet.repository.projection.TourRef;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface TourRepository extends JpaRepository<Tour, Long> {
+public interface TourRepository extends JpaRepository<Tour, Long>, KeysetPageRepository {
     List<Tour> findByProvinceId(Long provinceId);
     List<Tour> findByArtisanId(Long artisanId);
     long countByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
     long countByStatus(Status status);
+    default List<TourSummaryResponse> findSummaryPage(Long cursor, Long provinceId, Long artisanId, Status status, Limit limit) {
+        return findKeysetPage(KeysetQuery.select(TourSummaryResponse.class,
+                        "SELECT new swd.coiviet.dto.response.TourSummaryResponse(t.id, t.title, t.slug, t.thumbnailUrl, t.price, " +
+                                "t.durationHours, t.averageRating, t.totalBookings, t.status, p.id, p.name, a.id, a.fullName) " +
+                                "FROM Tour t LEFT JOIN t.province p LEFT JOIN t.artisan a", "t.id")
+                .whereIfPresent("p.id = :provinceId", "provinceId", provinceId)
+                .whereIfPresent("a.id = :artisanId", "artisanId", artisanId)
+                .whereIfPresent("t.status = :status", "status", status)
+                .after(cursor), limit);
+    }
+    @Query("SELECT t FROM Tour t WHERE t.status = :status " +
+            "ORDER BY COALESCE(t.averageRating, 0) DESC, COALESCE(t.totalBookings, 0) DESC, t.id DESC")
+    List<Tour> findFeatured(@Param("status") Status status, Limit limit);
+    @Query("SELECT t.status AS status, COUNT(t) AS total, " +
+            "SUM(CASE WHEN t.createdAt BETWEEN :start AND :end THEN 1 ELSE 0 END) AS inRange " +
+            "FROM Tour t GROUP BY t.status")
+    List<DashboardAggregates.StatusRangeCount> countGroupedByStatus(@Param("start") LocalDateTime start,
+                                                                      @Param("end") LocalDateTime end);
+    @Query("SELECT t.status AS status, COUNT(t) AS total FROM Tour t WHERE t.artisan.id = :artisanId GROUP BY t.status")
+    List<DashboardAggregates.StatusCount> countByArtisanIdGroupedByStatus(@Param("artisanId") Long artisanId);
+    @Query("SELECT t.id AS id, t.title AS title, t.province.id AS provinceId FROM Tour t " +
+            "WHERE t.province.id IN :provinceIds ORDER BY t.id")
+    List<TourRef> findRefsByProvinceIds(@Param("provinceIds") Collection<Long> provinceIds);
+    @Query("SELECT t.id FROM Tour t ORDER BY t.id")
+    List<Long> findAllIds();
+    @Query("SELECT t.id FROM Tour t WHERE t.ratingCount IS NULL ORDER BY t.id")
+    List<Long> findIdsWithoutRatingAggregates(Limit limit);
+    // Khóa dòng tour theo thứ tự id để đối soát không chen giữa với cập nhật delta
+    @Query(value = "SELECT id FROM tours WHERE id IN (:tourIds) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Long> lockByIds(@Param("tourIds") Collection<Long> tourIds);
+    // Tour chưa backfill (cột NULL) vẫn bị UPDATE khóa dòng nhưng giữ nguyên NULL: NULL + delta = NULL
+    @Modifying
+    @Query("UPDATE Tour t SET t.ratingCount = t.ratingCount + :count, " +
+            "t.ratingSum = t.ratingSum + :ratingSum, " +
+            "t.oneStarCount = t.oneStarCount + :oneStar, " +
+            "t.twoStarCount = t.twoStarCount + :twoStar, " +
+            "t.threeStarCount = t.threeStarCount + :threeStar, " +
+            "t.fourStarCount = t.fourStarCount + :fourStar, " +
+            "t.fiveStarCount = t.fiveStarCount + :fiveStar " +
+            "WHERE t.id = :tourId")
+    int addRatingDelta(@Param("tourId") Long tourId, @Param("count") int count, @Param("ratingSum") int ratingSum,
+                       @Param("oneStar") int oneStar, @Param("twoStar") int twoStar, @Param("threeStar") int threeStar,
+                       @Param("fourStar") int fourStar, @Param("fiveStar") int fiveStar);
+    @Query("SELECT t.ratingCount AS ratingCount, t.ratingSum AS ratingSum FROM Tour t WHERE t.id = :tourId")
+    Optional<DashboardAggregates.RatingTotals> findRatingTotals(@Param("tourId") Long tourId);
+    @Modifying
+    @Query("UPDATE Tour t SET t.averageRating = :averageRating WHERE t.id = :tourId")
+    int updateAverageRating(@Param("tourId") Long tourId, @Param("averageRating") BigDecimal averageRating);
+    @Modifying
+    @Query("UPDATE Tour t SET t.ratingCount = :count, t.ratingSum = :ratingSum, " +
+            "t.oneStarCount = :oneStar, t.twoStarCount = :twoStar, t.threeStarCount = :threeStar, " +
+            "t.fourStarCount = :fourStar, t.fiveStarCount = :fiveStar, " +
+            "t.averageRating = :averageRating, t.totalBookings = :totalBookings WHERE t.id = :tourId")
+    int overwriteAggregates(@Param("tourId") Long tourId, @Param("count") int count, @Param("ratingSum") int ratingSum,
+                            @Param("oneStar") int oneStar, @Param("twoStar") int twoStar, @Param("threeStar") int threeStar,
+                            @Param("fourStar") int fourStar, @Param("fiveStar") int fiveStar,
+                            @Param("averageRating") BigDecimal averageRating, @Param("totalBookings") int totalBookings);
+    String SEARCH_DOCUMENT_SELECT = "SELECT t.id AS id, t.title AS title, t.description AS body, p.name AS provinceName " +
+            "FROM Tour t LEFT JOIN t.province p WHERE t.status = :status ";
+    // Dựng lại chỉ mục: keyset theo id
+    @Query(SEARCH_DOCUMENT_SELECT + "AND t.id > :after ORDER BY t.id")
+    List<SearchDocument> findSearchDocuments(@Param("status") Status status, @Param("after") Long after, Limit limit);
+    // Cập nhật chỉ mục khi một bản ghi đổi: tra thẳng theo khóa chính
+    @Query(SEARCH_DOCUMENT_SELECT + "AND t.id = :id")
+    Optional<SearchDocument> findSearchDocument(@Param("status") Status status, @Param("id") Long id);
+    @Query("SELECT t.id AS id, t.title AS label, COALESCE(t.totalBookings, 0) AS bookings, t.averageRating AS rating " +
+            "FROM Tour t WHERE t.status = :status AND t.id > :after ORDER BY t.id")
+    List<SuggestionSource> findSuggestionSources(@Param("status") Status status, @Param("after") Long after, Limit limit);
 }
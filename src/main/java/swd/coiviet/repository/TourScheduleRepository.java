@@ -1,13 +1,17 @@
 package swd.coiviet.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import swd.coiviet.enums.TourScheduleStatus;
 import swd.coiviet.model.TourSchedule;
+import swd.coiviet.repository.projection.DashboardAggregates;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,8 +24,42 @@ public interface TourScheduleRepository extends JpaRepository<TourSchedule, Long
     long countByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
     @Query("SELECT ts FROM TourSchedule ts WHERE ts.tourDate >= :fromDate AND ts.tourDate <= :toDate AND ts.status = :status")
     List<TourSchedule> findUpcomingSchedules(@Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate, @Param("status") TourScheduleStatus status);
+    // (booked + 1) * 2 <= max tương đương booked < floor(max / 2) mà không phụ thuộc phép chia số nguyên của DB
+    @Query("SELECT ts.id FROM TourSchedule ts WHERE ts.tourDate >= :fromDate AND ts.tourDate <= :toDate " +
+            "AND ts.status = :status AND (COALESCE(ts.bookedSlots, 0) + 1) * 2 <= COALESCE(ts.maxSlots, 0) ORDER BY ts.id")
+    List<Long> findLowBookingCandidateIds(@Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate,
+                                          @Param("status") TourScheduleStatus status);
+    @Query("SELECT ts FROM TourSchedule ts JOIN FETCH ts.tour t LEFT JOIN FETCH t.province " +
+            "WHERE ts.id IN :ids AND ts.status = :status ORDER BY ts.id")
+    List<TourSchedule> findWithTourByIdInAndStatus(@Param("ids") Collection<Long> ids, @Param("status") TourScheduleStatus status);
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE TourSchedule ts SET ts.status = swd.coiviet.enums.TourScheduleStatus.CANCELLED " +
+            "WHERE ts.id IN :ids AND ts.status = swd.coiviet.enums.TourScheduleStatus.SCHEDULED")
+    int cancelScheduled(@Param("ids") Collection<Long> ids);
+    @Modifying
+    @Query("UPDATE TourSchedule ts SET ts.currentPrice = :price WHERE ts.id = :id")
+    int updateCurrentPrice(@Param("id") Long id, @Param("price") BigDecimal price);
     @Query("SELECT ts FROM TourSchedule ts WHERE ts.tour.province.id = :provinceId AND ts.tourDate >= :date AND ts.status = :status ORDER BY ts.tourDate ASC")
     List<TourSchedule> findAvailableSchedulesByProvince(@Param("provinceId") Long provinceId, @Param("date") LocalDate date, @Param("status") TourScheduleStatus status);
     @Query("SELECT ts FROM TourSchedule ts WHERE ts.tour.id = :tourId AND ts.tourDate > :date AND ts.status = :status ORDER BY ts.tourDate ASC")
     Optional<TourSchedule> findFirstAvailableByTourId(@Param("tourId") Long tourId, @Param("date") LocalDate date, @Param("status") TourScheduleStatus status);
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE TourSchedule ts SET ts.bookedSlots = COALESCE(ts.bookedSlots, 0) + :seats, " +
+            "ts.status = CASE WHEN COALESCE(ts.bookedSlots, 0) + :seats >= ts.maxSlots " +
+            "THEN swd.coiviet.enums.TourScheduleStatus.FULL ELSE ts.status END " +
+            "WHERE ts.id = :scheduleId AND ts.status = swd.coiviet.enums.TourScheduleStatus.SCHEDULED " +
+            "AND (ts.tourDate IS NULL OR ts.tourDate >= :today) " +
+            "AND COALESCE(ts.bookedSlots, 0) + :seats <= COALESCE(ts.maxSlots, 0)")
+    int reserveSlots(@Param("scheduleId") Long scheduleId, @Param("seats") int seats, @Param("today") LocalDate today);
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE TourSchedule ts SET ts.bookedSlots = CASE WHEN COALESCE(ts.bookedSlots, 0) > :seats " +
+            "THEN ts.bookedSlots - :seats ELSE 0 END, " +
+            "ts.status = CASE WHEN ts.status = swd.coiviet.enums.TourScheduleStatus.FULL " +
+            "THEN swd.coiviet.enums.TourScheduleStatus.SCHEDULED ELSE ts.status END " +
+            "WHERE ts.id = :scheduleId")
+    int releaseSlots(@Param("scheduleId") Long scheduleId, @Param("seats") int seats);
+    @Query("SELECT ts.status AS status, COUNT(ts) AS total, " +
+            "SUM(CASE WHEN ts.tourDate >= :today THEN 1 ELSE 0 END) AS upcoming " +
+            "FROM TourSchedule ts GROUP BY ts.status")
+    List<DashboardAggregates.ScheduleStatusCount> countGroupedByStatus(@Param("today") LocalDate today);
 }
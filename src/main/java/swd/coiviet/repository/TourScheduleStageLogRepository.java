@@ -0,0 +1,11 @@
+package swd.coiviet.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import swd.coiviet.model.TourScheduleStageLog;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface TourScheduleStageLogRepository extends JpaRepository<TourScheduleStageLog, Long> {
+    List<TourScheduleStageLog> findByScheduleIdIn(Collection<Long> scheduleIds);
+}
@@ -0,0 +1,30 @@
+package swd.coiviet.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import swd.coiviet.enums.UploadSessionStatus;
+import swd.coiviet.model.UploadSession;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, Long> {
+    List<UploadSession> findByInstanceIdAndStatusAndExpiresAtBefore(String instanceId, UploadSessionStatus status, LocalDateTime now);
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.receivedBytes = :received, s.updatedAt = :now, s.expiresAt = :expiresAt " +
+            "WHERE s.id = :id AND s.status = swd.coiviet.enums.UploadSessionStatus.OPEN AND s.receivedBytes = :offset")
+    int advance(@Param("id") Long id, @Param("offset") long offset, @Param("received") long received,
+                @Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt);
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.status = swd.coiviet.enums.UploadSessionStatus.COMPLETED, s.updatedAt = :now " +
+            "WHERE s.id = :id AND s.status = swd.coiviet.enums.UploadSessionStatus.OPEN AND s.receivedBytes = s.totalSize")
+    int markCompleted(@Param("id") Long id, @Param("now") LocalDateTime now);
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.jobId = :jobId WHERE s.id = :id")
+    int updateJobId(@Param("id") Long id, @Param("jobId") Long jobId);
+    @Modifying
+    @Query("DELETE FROM UploadSession s WHERE s.status = swd.coiviet.enums.UploadSessionStatus.COMPLETED AND s.updatedAt < :before")
+    int deleteCompletedBefore(@Param("before") LocalDateTime before);
+}
@@ -1,13 +1,20 @@
 package swd.coiviet.repository;
 
-import swd.coiviet.enums.PublicationStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import swd.coiviet.dto.response.UserMemorySummaryResponse;
+import swd.coiviet.enums.PublicationStatus;
 import swd.coiviet.model.UserMemory;
+import swd.coiviet.repository.projection.DashboardAggregates;
+import swd.coiviet.repository.projection.SearchDocument;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
-public interface UserMemoryRepository extends JpaRepository<UserMemory, Long> {
+public interface UserMemoryRepository extends JpaRepository<UserMemory, Long>, KeysetPageRepository {
     List<UserMemory> findByUserId(Long userId);
     List<UserMemory> findByProvinceId(Long provinceId);
     List<UserMemory> findByStatus(PublicationStatus status);
@@ -15,4 +22,22 @@ public interface UserMemoryRepository extends JpaRepository<UserMemory, Long> {
     List<UserMemory> findByUserIdAndStatus(Long userId, PublicationStatus status);
     long countByStatus(PublicationStatus status);
     long countByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
+    default List<UserMemorySummaryResponse> findSummaryPage(PublicationStatus status, Long cursor, Long provinceId, Limit limit) {
+        return findKeysetPage(KeysetQuery.select(UserMemorySummaryResponse.class,
+                        "SELECT new swd.coiviet.dto.response.UserMemorySummaryResponse(m.id, m.title, m.images, p.id, p.name, " +
+                                "u.id, u.fullName, m.createdAt) FROM UserMemory m JOIN m.user u LEFT JOIN m.province p", "m.id")
+                .where("m.status = :status", "status", status)
+                .whereIfPresent("p.id = :provinceId", "provinceId", provinceId)
+                .after(cursor), limit);
+    }
+    @Query("SELECT m.status AS status, COUNT(m) AS total FROM UserMemory m GROUP BY m.status")
+    List<DashboardAggregates.StatusCount> countGroupedByStatus();
+    String SEARCH_DOCUMENT_SELECT = "SELECT m.id AS id, m.title AS title, m.description AS body, p.name AS provinceName " +
+            "FROM UserMemory m LEFT JOIN m.province p WHERE m.status = :status ";
+    // Dựng lại chỉ mục: keyset theo id
+    @Query(SEARCH_DOCUMENT_SELECT + "AND m.id > :after ORDER BY m.id")
+    List<SearchDocument> findSearchDocuments(@Param("status") PublicationStatus status, @Param("after") Long after, Limit limit);
+    // Cập nhật chỉ mục khi một bản ghi đổi: tra thẳng theo khóa chính
+    @Query(SEARCH_DOCUMENT_SELECT + "AND m.id = :id")
+    Optional<SearchDocument> findSearchDocument(@Param("status") PublicationStatus status, @Param("id") Long id);
 }
@@ -3,14 +3,24 @@ package swd.coiviet.repository;
 import org.springframework.data.jpa.repository.JpaRepository;
 import swd.coiviet.enums.Status;
 import swd.coiviet.model.User;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import swd.coiviet.repository.projection.DashboardAggregates;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.List;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     Optional<User> findByUsername(String username);
     long countByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
     long countByStatus(Status status);
-
+    @Query("SELECT u.id FROM User u WHERE u.status = :status")
+    List<Long> findIdsByStatus(@Param("status") Status status);
+    @Query("SELECT u.status AS status, COUNT(u) AS total, " +
+            "SUM(CASE WHEN u.createdAt BETWEEN :start AND :end THEN 1 ELSE 0 END) AS inRange " +
+            "FROM User u GROUP BY u.status")
+    List<DashboardAggregates.StatusRangeCount> countGroupedByStatus(@Param("start") LocalDateTime start,
+                                                                      @Param("end") LocalDateTime end);
 }
@@ -1,16 +1,33 @@
 package swd.coiviet.repository;
 
-import swd.coiviet.enums.PublicationStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import swd.coiviet.dto.response.VideoSummaryResponse;
+import swd.coiviet.enums.PublicationStatus;
 import swd.coiviet.model.Video;
+import swd.coiviet.repository.projection.DashboardAggregates;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
-public interface VideoRepository extends JpaRepository<Video, Long> {
+public interface VideoRepository extends JpaRepository<Video, Long>, KeysetPageRepository {
     List<Video> findByProvinceId(Long provinceId);
     List<Video> findByStatus(PublicationStatus status);
     List<Video> findByProvinceIdAndStatus(Long provinceId, PublicationStatus status);
     long countByStatus(PublicationStatus status);
     long countByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
+    default List<VideoSummaryResponse> findSummaryPage(PublicationStatus status, Long cursor, Long provinceId, Limit limit) {
+        return findKeysetPage(KeysetQuery.select(VideoSummaryResponse.class,
+                        "SELECT new swd.coiviet.dto.response.VideoSummaryResponse(v.id, v.title, v.videoUrl, v.thumbnailUrl, " +
+                                "p.id, p.name, v.createdAt) FROM Video v LEFT JOIN v.province p", "v.id")
+                .where("v.status = :status", "status", status)
+                .whereIfPresent("p.id = :provinceId", "provinceId", provinceId)
+                .after(cursor), limit);
+    }
+    @Query("SELECT v FROM Video v WHERE v.status = :status ORDER BY v.createdAt DESC NULLS LAST, v.id DESC")
+    List<Video> findLatest(@Param("status") PublicationStatus status, Limit limit);
+    @Query("SELECT v.status AS status, COUNT(v) AS total FROM Video v GROUP BY v.status")
+    List<DashboardAggregates.StatusCount> countGroupedByStatus();
 }
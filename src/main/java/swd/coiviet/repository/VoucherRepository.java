@@ -1,10 +1,18 @@
 package swd.coiviet.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import swd.coiviet.model.Voucher;
 
 import java.util.Optional;
 
 public interface VoucherRepository extends JpaRepository<Voucher, Long> {
     Optional<Voucher> findByCode(String code);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Voucher v SET v.currentUsage = COALESCE(v.currentUsage, 0) + 1 " +
+            "WHERE v.id = :id AND (v.maxUsage IS NULL OR COALESCE(v.currentUsage, 0) < v.maxUsage)")
+    int incrementUsage(@Param("id") Long id);
 }
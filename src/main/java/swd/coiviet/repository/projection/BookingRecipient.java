@@ -0,0 +1,13 @@
+package swd.coiviet.repository.projection;
+
+/**
+ * Thông tin tối thiểu của booking để gửi email/thông báo theo lô
+ */
+public interface BookingRecipient {
+    Long getBookingId();
+    String getBookingCode();
+    Long getScheduleId();
+    Long getUserId();
+    String getContactEmail();
+    Integer getNumParticipants();
+}
@@ -0,0 +1,60 @@
+package swd.coiviet.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection cho các truy vấn GROUP BY tổng hợp số liệu (dashboard, rollup rating/booking)
+ */
+public final class DashboardAggregates {
+
+    private DashboardAggregates() {
+    }
+
+    public interface StatusCount {
+        Enum<?> getStatus();
+        Long getTotal();
+    }
+
+    public interface StatusRangeCount extends StatusCount {
+        Long getInRange();
+    }
+
+    public interface ScheduleStatusCount extends StatusCount {
+        Long getUpcoming();
+    }
+
+    public interface PaymentStatusTotals extends StatusRangeCount {
+        BigDecimal getAmount();
+        BigDecimal getAmountInRange();
+    }
+
+    public interface ReviewStatusTotals extends StatusRangeCount {
+        Long getRatingSum();
+        Long getRatedCount();
+    }
+
+    public interface RatingCount {
+        Integer getRating();
+        Long getTotal();
+    }
+
+    public interface TourRatingCount extends RatingCount {
+        Long getTourId();
+    }
+
+    public interface TourCount {
+        Long getTourId();
+        Long getTotal();
+    }
+
+    public interface RatingTotals {
+        Integer getRatingCount();
+        Integer getRatingSum();
+    }
+
+    public interface NotificationTotals {
+        Long getTotal();
+        Long getInRange();
+        Long getUnread();
+    }
+}
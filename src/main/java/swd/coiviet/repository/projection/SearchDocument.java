@@ -0,0 +1,11 @@
+package swd.coiviet.repository.projection;
+
+/**
+ * Nội dung được đánh chỉ mục tìm kiếm của tour, văn hóa, blog, ký ức
+ */
+public interface SearchDocument {
+    Long getId();
+    String getTitle();
+    String getBody();
+    String getProvinceName();
+}
@@ -0,0 +1,11 @@
+package swd.coiviet.repository.projection;
+
+/**
+ * Tên hiển thị và độ phổ biến dùng cho gợi ý tìm kiếm
+ */
+public interface SuggestionSource {
+    Long getId();
+    String getLabel();
+    Long getBookings();
+    Double getRating();
+}
@@ -0,0 +1,7 @@
+package swd.coiviet.repository.projection;
+
+public interface TourRef {
+    Long getId();
+    String getTitle();
+    Long getProvinceId();
+}
@@ -0,0 +1,6 @@
+package swd.coiviet.repository.projection;
+
+public interface UserUnreadCount {
+    Long getUserId();
+    Long getTotal();
+}
@@ -0,0 +1,12 @@
+package swd.coiviet.service;
+
+import swd.coiviet.dto.response.AdminDashboardResponse;
+
+import java.time.LocalDate;
+
+public interface AdminDashboardService {
+    /**
+     * Tổng hợp số liệu dashboard admin trong khoảng [fromDate, toDate], kết quả được cache ngắn hạn theo khoảng ngày
+     */
+    AdminDashboardResponse getSummary(LocalDate fromDate, LocalDate toDate);
+}
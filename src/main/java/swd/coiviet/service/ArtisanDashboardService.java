@@ -0,0 +1,12 @@
+package swd.coiviet.service;
+
+import swd.coiviet.dto.response.ArtisanDashboardResponse;
+
+import java.time.LocalDate;
+
+public interface ArtisanDashboardService {
+    /**
+     * Số liệu dashboard của nghệ nhân trong khoảng [fromDate, toDate], số liệu tổng đọc từ bảng rollup artisan_stats
+     */
+    ArtisanDashboardResponse getDashboard(Long artisanId, LocalDate fromDate, LocalDate toDate);
+}
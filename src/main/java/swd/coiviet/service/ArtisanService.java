@@ -1,6 +1,8 @@
 package swd.coiviet.service;
 
 import swd.coiviet.model.Artisan;
+import swd.coiviet.dto.response.ArtisanSummaryResponse;
+import swd.coiviet.dto.response.CursorPageResponse;
 
 import java.util.List;
 import java.util.Optional;
@@ -10,6 +12,8 @@ public interface ArtisanService {
     Optional<Artisan> findById(Long id);
     List<Artisan> findAll();
     List<Artisan> findByProvinceId(Long provinceId);
+    List<Artisan> findActive();
     Optional<Artisan> findByUserId(Long userId);
     void deleteById(Long id);
+    CursorPageResponse<ArtisanSummaryResponse> findActivePage(Long cursor, Integer size, Long provinceId);
 }
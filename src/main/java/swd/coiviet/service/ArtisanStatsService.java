@@ -0,0 +1,45 @@
+package swd.coiviet.service;
+
+import swd.coiviet.enums.BookingStatus;
+import swd.coiviet.model.ArtisanStats;
+
+import java.math.BigDecimal;
+
+public interface ArtisanStatsService {
+    /**
+     * Lấy rollup của nghệ nhân, nếu chưa có thì dựng lại từ dữ liệu gốc
+     */
+    ArtisanStats getStats(Long artisanId);
+
+    /**
+     * Dựng lại rollup từ dữ liệu gốc bằng các truy vấn GROUP BY trong lúc khóa dòng rollup
+     * (dùng khi chưa có rollup hoặc đối soát định kỳ)
+     */
+    ArtisanStats rebuild(Long artisanId);
+
+    /**
+     * Đối soát lại rollup của tất cả nghệ nhân
+     * @return số nghệ nhân đã dựng lại
+     */
+    int rebuildAll();
+
+    /**
+     * Ghi nhận booking được tạo (created = true) hoặc đổi trạng thái từ previous sang current
+     */
+    void bookingSaved(Long artisanId, boolean created, BookingStatus previous, BookingStatus current);
+
+    /**
+     * Ghi nhận booking bị xóa
+     */
+    void bookingDeleted(Long artisanId, BookingStatus previous);
+
+    /**
+     * Ghi nhận thay đổi doanh thu: previousPaid/currentPaid là số tiền PAID trước và sau khi lưu payment (null nếu không PAID)
+     */
+    void revenueChanged(Long artisanId, BigDecimal previousPaid, BigDecimal currentPaid);
+
+    /**
+     * Ghi nhận thay đổi rating: previousRating/currentRating là rating của review VISIBLE trước và sau khi lưu (null nếu không tính)
+     */
+    void ratingChanged(Long artisanId, Integer previousRating, Integer currentRating);
+}
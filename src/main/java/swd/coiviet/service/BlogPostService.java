@@ -1,6 +1,9 @@
 package swd.coiviet.service;
 
 import swd.coiviet.model.BlogPost;
+import swd.coiviet.dto.response.BlogPostSummaryResponse;
+import swd.coiviet.dto.response.CursorPageResponse;
+import swd.coiviet.enums.PublicationStatus;
 
 import java.util.List;
 import java.util.Optional;
@@ -11,4 +14,6 @@ public interface BlogPostService {
     Optional<BlogPost> findBySlug(String slug);
     List<BlogPost> findAll();
     void deleteById(Long id);
+    List<BlogPost> findByStatus(PublicationStatus status);
+    CursorPageResponse<BlogPostSummaryResponse> findPublishedPage(Long cursor, Integer size, Long provinceId);
 }
@@ -0,0 +1,22 @@
+package swd.coiviet.service;
+
+import swd.coiviet.dto.response.ChatMessageResponse;
+
+public interface ChatMessageWriter {
+    /**
+     * Cấp id cho tin nhắn trước khi ghi để gửi cho người nhận ngay
+     */
+    Long nextMessageId();
+
+    /**
+     * Đưa tin nhắn vào hàng đợi ghi DB, queue đầy thì ghi ngay trên thread gọi
+     */
+    void enqueue(ChatMessageResponse message);
+
+    /**
+     * Ghi hết tin nhắn đang chờ, trả về số tin đã ghi
+     */
+    int flush();
+
+    int pending();
+}
@@ -1,14 +1,13 @@
 package swd.coiviet.service;
 
-import swd.coiviet.dto.response.ChatConversationResponse;
 import swd.coiviet.dto.response.ChatMessageResponse;
-
-import java.util.List;
+import swd.coiviet.dto.response.ConversationPageResponse;
+import swd.coiviet.dto.response.CursorPageResponse;
 
 public interface ChatService {
     ChatMessageResponse sendMessage(Long senderId, Long recipientId, String content);
 
-    List<ChatConversationResponse> getConversations(String username);
+    ConversationPageResponse getConversations(Long userId, String cursor, Integer size);
 
-    List<ChatMessageResponse> getMessages(String username, Long conversationId);
+    CursorPageResponse<ChatMessageResponse> getMessages(Long userId, Long conversationId, Long before, Long after, Integer size);
 }
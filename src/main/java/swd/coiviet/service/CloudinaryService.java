@@ -1,29 +1,45 @@
 package swd.coiviet.service;
 
-import com.cloudinary.Cloudinary;
-import com.cloudinary.utils.ObjectUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import swd.coiviet.exception.AppException;
 import swd.coiviet.exception.ErrorCode;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class CloudinaryService {
     private static final Logger logger = LoggerFactory.getLogger(CloudinaryService.class);
 
-    @Autowired
-    private Cloudinary cloudinary;
+    private final MediaStore mediaStore;
+    private final ThreadPoolTaskExecutor uploadExecutor;
+    private final MeterRegistry meterRegistry;
+    private final Duration uploadTimeout;
+    private final MediaAssetService mediaAssetService;
+    private final ImageProcessingService imageProcessingService;
 
-    private final ExecutorService executorService = Executors.newFixedThreadPool(5);
+    // Số file và tổng dung lượng đang upload, để theo dõi áp lực bộ nhớ/đĩa trên instance nhỏ
+    private final AtomicInteger inFlightUploads = new AtomicInteger();
+    private final AtomicLong inFlightBytes = new AtomicLong();
 
     private static final Map<String, String> PRESETS = Map.of(
             "user", "w_300,h_300,c_fill,g_face,q_auto,f_jpg",
@@ -37,72 +53,179 @@ public class CloudinaryService {
             "raw", "q_auto,f_auto"
     );
 
+    public CloudinaryService(MediaStore mediaStore,
+                             @Qualifier("mediaUploadExecutor") ThreadPoolTaskExecutor uploadExecutor,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.media.upload-timeout:PT60S}") Duration uploadTimeout,
+                             MediaAssetService mediaAssetService,
+                             ImageProcessingService imageProcessingService) {
+        this.mediaStore = mediaStore;
+        this.uploadExecutor = uploadExecutor;
+        this.meterRegistry = meterRegistry;
+        this.uploadTimeout = uploadTimeout;
+        this.mediaAssetService = mediaAssetService;
+        this.imageProcessingService = imageProcessingService;
+        meterRegistry.gauge("media.upload.inflight", inFlightUploads);
+        meterRegistry.gauge("media.upload.inflight.bytes", inFlightBytes);
+    }
+
     public String uploadImage(MultipartFile file, String folder, String preset) throws IOException {
         logger.info("Uploading image - File: {}, Size: {}, ContentType: {}, Folder: {}, Preset: {}", 
                 file.getOriginalFilename(), file.getSize(), file.getContentType(), folder, preset);
         validateFile(file);
-        String transformation = PRESETS.getOrDefault(preset, PRESETS.get("raw"));
+        String url = upload(file, "image", "image", folder, transformationOf(preset));
+        logger.info("Image uploaded successfully: {}", url);
+        return url;
+    }
+
+    /**
+     * Upload ảnh đã lưu sẵn trên đĩa (media job). File đã được kiểm tra lúc nhận request và không bị xóa ở đây
+     */
+    public String uploadImage(Path file, String folder, String preset) {
+        String url = upload(file, "image", "image", folder, transformationOf(preset));
+        logger.info("Image uploaded successfully: {}", url);
+        return url;
+    }
+
+    public String uploadRawImage(MultipartFile file, String folder) throws IOException {
+        validateFile(file);
+        String url = upload(file, "image", "image", folder, "q_auto");
+        logger.info("Raw image uploaded successfully: {}", url);
+        return url;
+    }
+
+    public List<String> uploadMultipleImagesAsync(MultipartFile[] files, String folder, String preset) {
+        if (files == null || files.length == 0) {
+            return List.of();
+        }
+        // File cuối do chính request thread upload trong lúc pool xử lý các file còn lại
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < files.length - 1; i++) {
+            MultipartFile file = files[i];
+            futures.add(CompletableFuture.supplyAsync(() -> uploadQuietly(file, folder, preset), uploadExecutor));
+        }
+        String last = uploadQuietly(files[files.length - 1], folder, preset);
+
+        List<String> urls = new ArrayList<>();
+        long deadline = System.nanoTime() + uploadTimeout.toNanos();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                String url = futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (url != null) {
+                    urls.add(url);
+                }
+            } catch (TimeoutException e) {
+                futures.get(i).cancel(false);
+                logger.error("Upload timed out after {}: {}", uploadTimeout, files[i].getOriginalFilename());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.subList(i, futures.size()).forEach(f -> f.cancel(false));
+                break;
+            } catch (Exception e) {
+                logger.error("Failed to upload file: {}", files[i].getOriginalFilename(), e);
+            }
+        }
+        if (last != null) {
+            urls.add(last);
+        }
+        return urls;
+    }
+
+    private String uploadQuietly(MultipartFile file, String folder, String preset) {
         try {
-            byte[] fileBytes = file.getBytes();
-            logger.info("File bytes read: {} bytes", fileBytes.length);
-            Map<String, Object> uploadResult = cloudinary.uploader().upload(
-                    fileBytes,
-                    ObjectUtils.asMap(
-                            "folder", folder,
-                            "resource_type", "image",
-                            "transformation", transformation,
-                            "use_filename", true,
-                            "unique_filename", true
-                    )
-            );
-            String url = Objects.toString(uploadResult.get("secure_url"), null);
-            logger.info("Image uploaded successfully: {}", url);
-            return url;
+            return uploadImage(file, folder, preset);
         } catch (Exception e) {
-            logger.error("Failed to upload image: {}", e.getMessage(), e);
-            throw new AppException(ErrorCode.INTERNAL_SERVER_ERROR, "Failed to upload image: " + e.getMessage());
+            logger.error("Failed to upload file: {}", file == null ? "<null>" : file.getOriginalFilename(), e);
+            return null;
         }
     }
 
-    public String uploadRawImage(MultipartFile file, String folder) throws IOException {
-        validateFile(file);
+    /**
+     * Upload từ file tạm trên đĩa thay vì file.getBytes(): Cloudinary client stream file theo từng đoạn,
+     * heap không phải giữ toàn bộ nội dung. Với Tomcat, transferTo chỉ đổi tên file tạm của multipart
+     */
+    private String upload(MultipartFile file, String type, String resourceType, String folder, String transformation) {
+        Path spooled = null;
+        try {
+            spooled = Files.createTempFile("coiviet-upload-", ".tmp");
+            file.transferTo(spooled.toFile());
+            return upload(spooled, type, resourceType, folder, transformation);
+        } catch (IOException e) {
+            logger.error("Failed to spool {}: {}", type, e.getMessage(), e);
+            throw new AppException(ErrorCode.INTERNAL_SERVER_ERROR, "Failed to upload " + type + ": " + e.getMessage());
+        } finally {
+            deleteQuietly(spooled);
+        }
+    }
+
+    /**
+     * File trùng nội dung (SHA-256) và cùng biến thể với asset đã có thì dùng lại URL, không upload lần nữa.
+     * Ảnh được thu nhỏ về kích thước preset cần trước khi gửi đi
+     */
+    private String upload(Path file, String type, String resourceType, String folder, String transformation) {
+        // Cùng nội dung nhưng khác resource type hoặc transformation cho ra file khác
+        String variant = transformation == null ? resourceType : resourceType + ":" + transformation;
+        String contentHash = sha256(file);
+        String existing = mediaAssetService.acquire(contentHash, variant);
+        if (existing != null) {
+            logger.info("Reusing {} with identical content: {}", type, existing);
+            return existing;
+        }
+        Path downscaled = "image".equals(type) ? imageProcessingService.downscale(file, transformation) : null;
+        Path payload = downscaled != null ? downscaled : file;
+        long size = payload.toFile().length();
+        inFlightUploads.incrementAndGet();
+        inFlightBytes.addAndGet(size);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
         try {
-            Map<String, Object> uploadResult = cloudinary.uploader().upload(
-                    file.getBytes(),
-                    ObjectUtils.asMap(
-                            "folder", folder,
-                            "resource_type", "image",
-                            "quality", "auto",
-                            "use_filename", true,
-                            "unique_filename", true
-                    )
-            );
-            String url = Objects.toString(uploadResult.get("secure_url"), null);
-            logger.info("Raw image uploaded successfully: {}", url);
-            return url;
+            MediaStore.StoredMedia stored = mediaStore.upload(payload, resourceType, folder, transformation);
+            if (stored.url() == null || contentHash == null) {
+                return stored.url();
+            }
+            return mediaAssetService.register(contentHash, variant, stored.url(), stored.publicId(), stored.resourceType(), size);
         } catch (Exception e) {
-            logger.error("Failed to upload raw image: {}", e.getMessage(), e);
-            throw new AppException(ErrorCode.INTERNAL_SERVER_ERROR, "Failed to upload raw image: " + e.getMessage());
+            outcome = "failure";
+            logger.error("Failed to upload {}: {}", type, e.getMessage(), e);
+            throw new AppException(ErrorCode.INTERNAL_SERVER_ERROR, "Failed to upload " + type + ": " + e.getMessage());
+        } finally {
+            inFlightUploads.decrementAndGet();
+            inFlightBytes.addAndGet(-size);
+            sample.stop(meterRegistry.timer("media.upload", "type", type, "outcome", outcome));
+            meterRegistry.summary("media.upload.size", "type", type).record(size);
+            deleteQuietly(downscaled);
         }
     }
 
-    public List<String> uploadMultipleImagesAsync(MultipartFile[] files, String folder, String preset) {
-        List<CompletableFuture<String>> futures = new ArrayList<>();
-        for (MultipartFile file : files) {
-            CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> {
-                try {
-                    return uploadImage(file, folder, preset);
-                } catch (IOException e) {
-                    logger.error("Failed to upload file: {}", file == null ? "<null>" : file.getOriginalFilename(), e);
-                    return null;
-                }
-            }, executorService);
-            futures.add(future);
+    private String sha256(Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            // Không băm được thì upload bình thường, chỉ mất khả năng dùng lại
+            logger.warn("Could not hash {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private static String transformationOf(String preset) {
+        return PRESETS.getOrDefault(preset, PRESETS.get("raw"));
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Could not delete spooled upload {}: {}", path, e.getMessage());
         }
-        return futures.stream()
-                .map(CompletableFuture::join)
-                .filter(Objects::nonNull)
-                .toList();
     }
 
     public String uploadUserAvatar(MultipartFile file, Long userId) throws IOException {
@@ -157,102 +280,46 @@ public class CloudinaryService {
 
     public String uploadAudio(MultipartFile file, String folder) throws IOException {
         validateAudioFile(file);
-        try {
-            Map<String, Object> uploadResult = cloudinary.uploader().upload(
-                    file.getBytes(),
-                    ObjectUtils.asMap(
-                            "folder", folder,
-                            "resource_type", "video", // Cloudinary treats audio as video
-                            "use_filename", true,
-                            "unique_filename", true
-                    )
-            );
-            String url = Objects.toString(uploadResult.get("secure_url"), null);
-            logger.info("Audio uploaded successfully: {}", url);
-            return url;
-        } catch (Exception e) {
-            logger.error("Failed to upload audio: {}", e.getMessage(), e);
-            throw new AppException(ErrorCode.INTERNAL_SERVER_ERROR, "Failed to upload audio: " + e.getMessage());
-        }
+        // Cloudinary xử lý audio như video
+        String url = upload(file, "audio", "video", folder, null);
+        logger.info("Audio uploaded successfully: {}", url);
+        return url;
+    }
+
+    public String uploadAudio(Path file, String folder) {
+        String url = upload(file, "audio", "video", folder, null);
+        logger.info("Audio uploaded successfully: {}", url);
+        return url;
     }
 
     public String uploadVideo(MultipartFile file, String folder) throws IOException {
         validateVideoFile(file);
-        try {
-            Map<String, Object> uploadResult = cloudinary.uploader().upload(
-                    file.getBytes(),
-                    ObjectUtils.asMap(
-                            "folder", folder,
-                            "resource_type", "video",
-                            "use_filename", true,
-                            "unique_filename", true
-                    )
-            );
-            String url = Objects.toString(uploadResult.get("secure_url"), null);
-            logger.info("Video uploaded successfully: {}", url);
-            return url;
-        } catch (Exception e) {
-            logger.error("Failed to upload video: {}", e.getMessage(), e);
-            throw new AppException(ErrorCode.INTERNAL_SERVER_ERROR, "Failed to upload video: " + e.getMessage());
-        }
+        String url = upload(file, "video", "video", folder, null);
+        logger.info("Video uploaded successfully: {}", url);
+        return url;
     }
 
-    public boolean deleteResource(String publicId) {
-        try {
-            Map result = cloudinary.uploader().destroy(publicId, ObjectUtils.asMap("resource_type", "image"));
-            boolean success = "ok".equals(result.get("result"));
-            if (success) {
-                logger.info("Resource deleted successfully: {}", publicId);
-            } else {
-                logger.warn("Failed to delete resource: {}", publicId);
-            }
-            return success;
-        } catch (Exception e) {
-            logger.error("Error deleting resource: {}", publicId, e);
-            return false;
-        }
+    public String uploadVideo(Path file, String folder) {
+        String url = upload(file, "video", "video", folder, null);
+        logger.info("Video uploaded successfully: {}", url);
+        return url;
     }
 
-    public boolean deleteResource(String publicId, String resourceType) {
-        try {
-            Map result = cloudinary.uploader().destroy(publicId, ObjectUtils.asMap("resource_type", resourceType));
-            boolean success = "ok".equals(result.get("result"));
-            if (success) {
-                logger.info("Resource deleted successfully: {} (type: {})", publicId, resourceType);
-            } else {
-                logger.warn("Failed to delete resource: {} (type: {})", publicId, resourceType);
-            }
-            return success;
-        } catch (Exception e) {
-            logger.error("Error deleting resource: {} (type: {})", publicId, resourceType, e);
-            return false;
+    /**
+     * Bỏ tham chiếu tới các URL (entity bị xóa hoặc đổi ảnh). Resource chỉ bị xóa khi không còn entity nào
+     * dùng, do GC chạy nền gom thành bulk delete
+     */
+    public void release(String... urls) {
+        if (urls != null && urls.length > 0) {
+            mediaAssetService.release(Arrays.asList(urls));
         }
     }
 
     public String extractPublicIdFromUrl(String url) {
-        try {
-            if (url == null || !url.contains("cloudinary.com")) {
-                return null;
-            }
-            int uploadIndex = url.indexOf("/upload/");
-            if (uploadIndex == -1) return null;
-            String afterUpload = url.substring(uploadIndex + 8);
-            if (afterUpload.startsWith("v") && afterUpload.contains("/")) {
-                int slashIndex = afterUpload.indexOf('/');
-                afterUpload = afterUpload.substring(slashIndex + 1);
-            }
-            int dotIndex = afterUpload.lastIndexOf('.');
-            if (dotIndex != -1) {
-                afterUpload = afterUpload.substring(0, dotIndex);
-            }
-            return afterUpload;
-        } catch (Exception e) {
-            logger.error("Error extracting public ID from URL: {}", url, e);
-            return null;
-        }
+        return mediaStore.publicIdOf(url);
     }
 
-    private void validateFile(MultipartFile file) {
+    public void validateFile(MultipartFile file) {
         logger.info("Validating file - Name: {}, Size: {}, ContentType: {}, Empty: {}", 
                 file != null ? file.getOriginalFilename() : "null",
                 file != null ? file.getSize() : "null",
@@ -279,7 +346,7 @@ public class CloudinaryService {
         logger.info("File validation passed");
     }
 
-    private void validateAudioFile(MultipartFile file) {
+    public void validateAudioFile(MultipartFile file) {
         if (file == null || file.isEmpty()) {
             throw new AppException(ErrorCode.INVALID_REQUEST, "File cannot be null or empty");
         }
@@ -292,7 +359,7 @@ public class CloudinaryService {
         }
     }
 
-    private void validateVideoFile(MultipartFile file) {
+    public void validateVideoFile(MultipartFile file) {
         if (file == null || file.isEmpty()) {
             throw new AppException(ErrorCode.INVALID_REQUEST, "File cannot be null or empty");
         }
@@ -304,8 +371,4 @@ public class CloudinaryService {
             throw new AppException(ErrorCode.INVALID_REQUEST, "Invalid file type. Only video files are allowed");
         }
     }
-
-    public void shutdown() {
-        executorService.shutdown();
-    }
 }
@@ -3,6 +3,8 @@ package swd.coiviet.service;
 import swd.coiviet.model.CultureItem;
 import swd.coiviet.enums.CultureCategory;
 import swd.coiviet.enums.PublicationStatus;
+import swd.coiviet.dto.response.CultureItemSummaryResponse;
+import swd.coiviet.dto.response.CursorPageResponse;
 
 import java.util.List;
 import java.util.Optional;
@@ -17,4 +19,5 @@ public interface CultureItemService {
     List<CultureItem> findByStatus(PublicationStatus status);
     List<CultureItem> findByProvinceIdAndStatus(Long provinceId, PublicationStatus status);
     void deleteById(Long id);
+    CursorPageResponse<CultureItemSummaryResponse> findPublishedPage(Long cursor, Integer size, Long provinceId, CultureCategory category);
 }
@@ -1,7 +1,14 @@
 package swd.coiviet.service;
 
 public interface EmailService {
+    /**
+     * Ghi email vào outbox, email được gửi bất đồng bộ sau khi transaction commit
+     */
     void sendEmail(String to, String subject, String body);
+    /**
+     * Gửi email qua SMTP ngay lập tức (dùng bởi outbox dispatcher), ném exception nếu gửi lỗi
+     */
+    void deliverEmail(String to, String subject, String body) throws jakarta.mail.MessagingException;
     void sendBookingConfirmation(String to, String bookingCode, String tourTitle, String tourDate);
     void sendBookingCancellation(String to, String bookingCode, String reason, java.math.BigDecimal refundAmount);
     void sendTourLowBookingAlert(String to, String tourTitle, String tourDate, String voucherCode, Integer discountPercent);
@@ -0,0 +1,15 @@
+package swd.coiviet.service;
+
+import swd.coiviet.dto.response.HomePageSnapshot;
+
+public interface HomePageSnapshotService {
+    /**
+     * Lấy snapshot trang chủ cho limit, build lại khi hết TTL hoặc catalog đã thay đổi
+     */
+    HomePageSnapshot getSnapshot(int limit);
+
+    /**
+     * Đánh dấu tất cả snapshot là cũ, lần đọc tiếp theo sẽ build lại
+     */
+    void invalidate();
+}
@@ -0,0 +1,11 @@
+package swd.coiviet.service;
+
+import java.nio.file.Path;
+
+public interface ImageProcessingService {
+    /**
+     * Thu nhỏ ảnh về kích thước lớn nhất mà transformation cần (chưa cắt) và mã hóa lại trước khi upload
+     * @return file tạm mới (người gọi xóa), null nếu nên upload nguyên file gốc
+     */
+    Path downscale(Path source, String transformation);
+}
@@ -0,0 +1,17 @@
+package swd.coiviet.service;
+
+import swd.coiviet.dto.response.TourWorkflowRunResult;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface LowBookingWorkflowService {
+    /**
+     * Xử lý một chunk tour schedule ít booking trong một transaction riêng:
+     * đọc booking của cả chunk bằng một truy vấn, tạo voucher và thông báo theo lô, email đi qua outbox
+     * - Còn >7 ngày: voucher 20% + thông báo khuyến mãi
+     * - Còn 3-5 ngày: voucher 30% + đề xuất tour dự phòng
+     * - Còn <3 ngày: hủy nếu dưới 30% chỗ, ngược lại phụ thu 20%
+     */
+    TourWorkflowRunResult processChunk(List<Long> scheduleIds, LocalDate today);
+}
@@ -0,0 +1,30 @@
+package swd.coiviet.service;
+
+import java.util.Collection;
+
+public interface MediaAssetService {
+    /**
+     * Tăng số tham chiếu của asset cùng nội dung và biến thể nếu đã có
+     * @return URL của asset đã có, null nếu chưa có (cần upload)
+     */
+    String acquire(String contentHash, String variant);
+
+    /**
+     * Ghi nhận asset vừa upload với 1 tham chiếu. Nếu request khác upload cùng nội dung trước,
+     * dùng asset của request đó và đưa bản vừa upload vào hàng chờ xóa
+     * @return URL mà entity nên lưu
+     */
+    String register(String contentHash, String variant, String url, String publicId, String resourceType, long bytes);
+
+    /**
+     * Bỏ một tham chiếu cho mỗi URL. Asset hết tham chiếu (hoặc URL cũ chưa có trong registry)
+     * được GC xóa sau thời gian chờ
+     */
+    void release(Collection<String> urls);
+
+    /**
+     * Một lượt GC: xóa trên media store bằng bulk delete theo lô các asset hết tham chiếu trước mốc chờ
+     * @return số asset đã xóa
+     */
+    int collectGarbage();
+}
@@ -0,0 +1,44 @@
+package swd.coiviet.service;
+
+import org.springframework.web.multipart.MultipartFile;
+import swd.coiviet.enums.MediaJobTarget;
+import swd.coiviet.model.MediaJob;
+import swd.coiviet.model.MediaJobPart;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface MediaJobService {
+    /**
+     * Kiểm tra và lưu file của ký ức xuống đĩa, tạo job upload chạy nền
+     * @return job vừa tạo, null nếu request không có file nào
+     */
+    MediaJob submitMemoryMedia(Long ownerId, Long memoryId, MultipartFile[] images, MultipartFile audio, MultipartFile video);
+
+    MediaJob submitVideoThumbnail(Long ownerId, Long videoId, MultipartFile thumbnail);
+
+    /**
+     * Tạo job cho file đã nằm sẵn trên đĩa instance này (upload nhiều phần), job sở hữu và xóa file khi xong
+     */
+    MediaJob submitSpooled(Long ownerId, MediaJobTarget targetType, Long targetId, MediaJobPart part);
+
+    Optional<MediaJob> findById(Long id);
+
+    /**
+     * Nhận các job đến hạn của instance này (file gốc nằm trên đĩa của instance nhận request)
+     */
+    List<MediaJob> claimDueJobs(int batchSize);
+
+    /**
+     * Upload các file chưa upload, cập nhật entity đích. Lỗi thì hẹn thử lại, quá số lần thì chuyển FAILED
+     */
+    MediaJob process(MediaJob job);
+
+    /**
+     * Chuyển FAILED các job chưa xong tạo trước mốc (instance giữ file đã mất hoặc bị kẹt)
+     */
+    int expireStaleBefore(LocalDateTime before);
+
+    int purgeFinishedBefore(LocalDateTime before);
+}
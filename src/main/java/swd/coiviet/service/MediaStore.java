@@ -0,0 +1,34 @@
+package swd.coiviet.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Nơi lưu file media. Chọn bằng app.media.store: cloudinary (mặc định) hoặc local (dev, CI, đo throughput)
+ */
+public interface MediaStore {
+    /**
+     * Lưu file và áp transformation dạng Cloudinary (w_1200,c_scale,q_auto,f_jpg), null nếu giữ nguyên
+     * @param resourceType image hoặc video (audio cũng là video như Cloudinary)
+     */
+    StoredMedia upload(Path file, String resourceType, String folder, String transformation) throws IOException;
+
+    /**
+     * Xóa theo lô, tối đa maxDeleteBatch() public id mỗi lần gọi
+     * @return các public id xóa lỗi, cần thử lại
+     */
+    List<String> delete(String resourceType, List<String> publicIds);
+
+    int maxDeleteBatch();
+
+    /**
+     * @return public id của URL do store này cấp, null nếu URL không thuộc store
+     */
+    String publicIdOf(String url);
+
+    String resourceTypeOf(String url);
+
+    record StoredMedia(String url, String publicId, String resourceType) {
+    }
+}
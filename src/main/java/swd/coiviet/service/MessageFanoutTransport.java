@@ -0,0 +1,17 @@
+package swd.coiviet.service;
+
+import java.util.function.Consumer;
+
+/**
+ * Kênh phát chuỗi tới tất cả instance (kể cả instance gửi), dùng cho chế độ broker postgres
+ */
+public interface MessageFanoutTransport {
+    void publish(String payload);
+
+    void subscribe(Consumer<String> listener);
+
+    /**
+     * Kích thước payload tối đa (byte UTF-8) mà kênh chấp nhận
+     */
+    int maxPayloadBytes();
+}
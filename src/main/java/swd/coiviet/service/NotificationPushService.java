@@ -0,0 +1,24 @@
+package swd.coiviet.service;
+
+import java.util.Collection;
+
+public interface NotificationPushService {
+    /**
+     * Số thông báo chưa đọc lấy từ bộ đếm trong bộ nhớ, lần đầu mới đếm trong DB
+     */
+    long unreadCount(Long userId);
+
+    void markedRead(Long userId, long count);
+
+    void allRead(Long userId);
+
+    /**
+     * Bỏ bộ đếm của các user có thông báo chưa đọc bị xóa/lưu trữ, lần đọc sau đếm lại trong DB
+     */
+    void invalidate(Collection<Long> userIds);
+
+    /**
+     * Đếm lại từ DB cho các user đang được theo dõi, sửa sai lệch do instance khác ghi
+     */
+    int reconcile();
+}
@@ -0,0 +1,16 @@
+package swd.coiviet.service;
+
+public interface NotificationRetentionService {
+    /**
+     * Tạo trước partition theo tháng cho các tháng sắp tới (chỉ khi bảng notifications đã được phân vùng)
+     * @return số partition mới tạo
+     */
+    int ensurePartitions();
+
+    /**
+     * Tách partition quá hạn giữ khỏi bảng chính (lưu trữ) và xóa bảng lưu trữ quá hạn.
+     * Bảng chưa phân vùng thì xóa theo lô các dòng quá hạn
+     * @return số partition đã tách hoặc số dòng đã xóa
+     */
+    int archiveExpired();
+}
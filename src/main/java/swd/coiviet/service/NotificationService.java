@@ -15,14 +15,20 @@ public interface NotificationService {
     void markAsRead(Long notificationId);
     void markAllAsRead(Long userId);
     void deleteById(Long id);
+
+    /**
+     * Ghi cùng lúc nhiều thông báo (gửi hàng loạt) bằng JDBC batch, đẩy realtime sau commit
+     * @return số thông báo đã ghi
+     */
+    int createAll(List<Notification> notifications);
     
-    // Helper methods for creating notifications
-    Notification createBookingConfirmationNotification(Long userId, Long bookingId, String bookingCode);
-    Notification createBookingCancellationNotification(Long userId, Long bookingId, String bookingCode);
-    Notification createPaymentSuccessNotification(Long userId, Long bookingId, String amount);
-    Notification createTourLowBookingNotification(Long userId, Long tourScheduleId, String tourTitle);
-    Notification createTourCancellationNotification(Long userId, Long tourScheduleId, String tourTitle);
-    Notification createTourSurchargeNotification(Long userId, Long tourScheduleId, String tourTitle, String surchargeAmount);
-    Notification createAlternativeTourSuggestionNotification(Long userId, Long alternativeTourId, String tourTitle);
-    Notification createVoucherNotification(Long userId, String voucherCode, String discountInfo);
+    // Helper methods for creating notifications (written to the outbox, persisted asynchronously)
+    void createBookingConfirmationNotification(Long userId, Long bookingId, String bookingCode);
+    void createBookingCancellationNotification(Long userId, Long bookingId, String bookingCode);
+    void createPaymentSuccessNotification(Long userId, Long bookingId, String amount);
+    void createTourLowBookingNotification(Long userId, Long tourScheduleId, String tourTitle);
+    void createTourCancellationNotification(Long userId, Long tourScheduleId, String tourTitle);
+    void createTourSurchargeNotification(Long userId, Long tourScheduleId, String tourTitle, String surchargeAmount);
+    void createAlternativeTourSuggestionNotification(Long userId, Long alternativeTourId, String tourTitle);
+    void createVoucherNotification(Long userId, String voucherCode, String discountInfo);
 }
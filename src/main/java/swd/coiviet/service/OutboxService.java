@@ -0,0 +1,36 @@
+package swd.coiviet.service;
+
+import swd.coiviet.model.Notification;
+import swd.coiviet.model.OutboxEvent;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface OutboxService {
+    /**
+     * Ghi email vào outbox trong transaction hiện tại, dispatcher sẽ gửi sau khi commit
+     */
+    void enqueueEmail(String to, String subject, String body);
+
+    /**
+     * Ghi thông báo vào outbox trong transaction hiện tại, dispatcher sẽ lưu theo lô
+     */
+    void enqueueNotification(Notification notification);
+
+    /**
+     * Nhận một lô event đến hạn xử lý (khóa bằng SKIP LOCKED nên an toàn khi chạy nhiều instance)
+     */
+    List<OutboxEvent> claimDueEvents(int batchSize);
+
+    /**
+     * Lưu các thông báo của lô event và đánh dấu đã gửi trong cùng một transaction
+     */
+    void deliverNotifications(List<OutboxEvent> events);
+
+    Map<String, Object> readPayload(OutboxEvent event);
+    void markSent(Collection<Long> eventIds);
+    void markFailed(Long eventId, String error);
+    int purgeSentBefore(LocalDateTime before);
+}
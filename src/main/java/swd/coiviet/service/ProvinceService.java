@@ -1,6 +1,8 @@
 package swd.coiviet.service;
 
 import swd.coiviet.model.Province;
+import swd.coiviet.dto.response.CursorPageResponse;
+import swd.coiviet.dto.response.ProvinceSummaryResponse;
 
 import java.util.List;
 import java.util.Optional;
@@ -11,4 +13,5 @@ public interface ProvinceService {
     Optional<Province> findBySlug(String slug);
     List<Province> findAll();
     void deleteById(Long id);
+    CursorPageResponse<ProvinceSummaryResponse> findPage(Long cursor, Integer size, String region);
 }
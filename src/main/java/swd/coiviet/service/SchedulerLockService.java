@@ -0,0 +1,15 @@
+package swd.coiviet.service;
+
+public interface SchedulerLockService {
+    /**
+     * Chạy task nếu lấy được lease tên name trong bảng scheduler_locks; instance khác đang giữ lease thì bỏ qua
+     * @return true nếu task đã được chạy trên instance này
+     */
+    boolean runExclusively(String name, Runnable task);
+
+    /**
+     * Định danh của instance hiện tại, ghi vào lease và sổ giai đoạn workflow.
+     * Không đổi khi khởi động lại nên media job và upload session gắn với instance không bị bỏ rơi
+     */
+    String getInstanceId();
+}
@@ -0,0 +1,26 @@
+package swd.coiviet.service;
+
+import swd.coiviet.dto.response.SearchResponse;
+import swd.coiviet.enums.SearchDocumentType;
+
+import java.util.Set;
+
+public interface SearchService {
+    /**
+     * Tìm không phân biệt dấu ("hue" khớp "Huế") trên tour, văn hóa, blog, ký ức đang công khai, xếp hạng BM25
+     * @param types loại cần tìm, rỗng hoặc null là tất cả
+     */
+    SearchResponse search(String query, Set<SearchDocumentType> types, Integer limit);
+
+    /**
+     * Cập nhật một document sau khi entity được lưu hoặc xóa (không còn công khai thì bị gỡ khỏi chỉ mục)
+     */
+    void refresh(SearchDocumentType type, Long id);
+
+    /**
+     * Dựng lại toàn bộ chỉ mục từ DB rồi thay bản đang dùng
+     */
+    void reindex();
+
+    boolean isLoaded();
+}
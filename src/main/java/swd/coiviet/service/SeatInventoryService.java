@@ -0,0 +1,14 @@
+package swd.coiviet.service;
+
+public interface SeatInventoryService {
+    /**
+     * Giữ chỗ nguyên tử cho tour schedule: chỉ thành công khi schedule còn mở và đủ chỗ trống
+     * @return true nếu giữ chỗ thành công, false nếu không đủ chỗ hoặc schedule không khả dụng
+     */
+    boolean reserveSeats(Long tourScheduleId, int seats);
+
+    /**
+     * Trả lại chỗ đã giữ (khi hủy booking)
+     */
+    void releaseSeats(Long tourScheduleId, int seats);
+}
@@ -0,0 +1,19 @@
+package swd.coiviet.service;
+
+import swd.coiviet.dto.response.SuggestionResponse;
+
+import java.util.List;
+
+public interface SuggestService {
+    /**
+     * Gợi ý theo tiền tố không phân biệt dấu trên tỉnh, tour, nghệ nhân, văn hóa, phổ biến trước
+     */
+    List<SuggestionResponse> suggest(String prefix, Integer limit);
+
+    /**
+     * Dựng lại cây gợi ý từ DB rồi thay bản đang dùng
+     */
+    void rebuild();
+
+    boolean isLoaded();
+}
@@ -1,6 +1,9 @@
 package swd.coiviet.service;
 
 import swd.coiviet.model.Tour;
+import swd.coiviet.dto.response.CursorPageResponse;
+import swd.coiviet.dto.response.TourSummaryResponse;
+import swd.coiviet.enums.Status;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,5 +15,20 @@ public interface TourService {
     List<Tour> findByArtisanId(Long artisanId);
     List<Tour> findAll();
     void deleteById(Long id);
-    void updateTourRating(Long tourId);
+    /**
+     * Cập nhật tổng hợp rating của tour bằng delta khi rating của một review VISIBLE đổi từ previousRating sang currentRating
+     * (null nghĩa là review không được tính), chi phí không phụ thuộc số review của tour
+     */
+    void applyRatingChange(Long tourId, Integer previousRating, Integer currentRating);
+    /**
+     * Tính lại từ đầu tổng hợp rating và totalBookings cho danh sách tour (job đối soát)
+     * @return số tour đã cập nhật
+     */
+    int reconcileAggregates(List<Long> tourIds);
+    List<Long> findAllIds();
+    /**
+     * Tour có cột tổng hợp rating còn NULL (dữ liệu trước khi có cột), cần backfill bằng reconcileAggregates
+     */
+    List<Long> findIdsWithoutRatingAggregates(int limit);
+    CursorPageResponse<TourSummaryResponse> findPage(Long cursor, Integer size, Long provinceId, Long artisanId, Status status);
 }
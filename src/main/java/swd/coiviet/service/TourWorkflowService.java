@@ -2,6 +2,7 @@ package swd.coiviet.service;
 
 import swd.coiviet.dto.request.SuggestTourRequest;
 import swd.coiviet.dto.response.TourSuggestionResponse;
+import swd.coiviet.dto.response.TourWorkflowRunResult;
 import swd.coiviet.model.TourSchedule;
 
 import java.util.List;
@@ -26,9 +27,11 @@ public interface TourWorkflowService {
     List<TourSuggestionResponse> suggestTours(SuggestTourRequest request);
     
     /**
-     * Tự động kiểm tra và xử lý các tour schedules sắp tới
+     * Tự động kiểm tra và xử lý các tour schedules sắp tới: chọn ứng viên bằng một truy vấn,
+     * chia chunk và xử lý song song, mỗi chunk một transaction
+     * @return thống kê của lần chạy
      */
-    void processUpcomingTours();
+    TourWorkflowRunResult processUpcomingTours();
     
     /**
      * Tạo voucher giảm giá cho tour schedule
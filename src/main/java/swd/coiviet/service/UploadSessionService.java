@@ -0,0 +1,37 @@
+package swd.coiviet.service;
+
+import swd.coiviet.dto.request.CreateUploadSessionRequest;
+import swd.coiviet.model.MediaJob;
+import swd.coiviet.model.UploadSession;
+
+import java.io.InputStream;
+import java.time.LocalDateTime;
+
+public interface UploadSessionService {
+    /**
+     * Mở phiên upload nhiều phần cho audio/video của ký ức, tạo file tạm rỗng trên đĩa instance này
+     */
+    UploadSession create(Long ownerId, Long memoryId, CreateUploadSessionRequest request);
+
+    UploadSession get(Long ownerId, Long sessionId);
+
+    /**
+     * Ghi một chunk vào file tạm tại offset, đọc theo luồng từ body nên request chỉ giữ buffer nhỏ.
+     * Client ngắt giữa chừng thì phần đã nhận vẫn được giữ, lần sau gửi tiếp từ offset mới
+     */
+    UploadSession appendChunk(Long ownerId, Long sessionId, long offset, InputStream body, long contentLength);
+
+    /**
+     * Đủ byte thì giao file cho media job (không copy lại), trả về job upload nền
+     */
+    MediaJob complete(Long ownerId, Long sessionId);
+
+    void abort(Long ownerId, Long sessionId);
+
+    /**
+     * Xóa file tạm của các phiên quá hạn trên instance này và các phiên đã hoàn tất cũ
+     */
+    int expireBefore(LocalDateTime now);
+
+    long getChunkSize();
+}
@@ -2,6 +2,8 @@ package swd.coiviet.service;
 
 import swd.coiviet.model.UserMemory;
 import swd.coiviet.enums.PublicationStatus;
+import swd.coiviet.dto.response.CursorPageResponse;
+import swd.coiviet.dto.response.UserMemorySummaryResponse;
 
 import java.util.List;
 import java.util.Optional;
@@ -16,4 +18,5 @@ public interface UserMemoryService {
     List<UserMemory> findByProvinceIdAndStatus(Long provinceId, PublicationStatus status);
     List<UserMemory> findByUserIdAndStatus(Long userId, PublicationStatus status);
     void deleteById(Long id);
+    CursorPageResponse<UserMemorySummaryResponse> findPublishedPage(Long cursor, Integer size, Long provinceId);
 }
@@ -0,0 +1,8 @@
+package swd.coiviet.service;
+
+public interface UserMessagePublisher {
+    /**
+     * Gửi payload tới destination riêng của user (ví dụ /queue/messages) trên mọi instance đang giữ kết nối của user
+     */
+    void sendToUser(Long userId, String destination, Object payload);
+}
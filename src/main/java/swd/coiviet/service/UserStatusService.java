@@ -0,0 +1,25 @@
+package swd.coiviet.service;
+
+import swd.coiviet.enums.Status;
+
+public interface UserStatusService {
+    /**
+     * Trạng thái hạn chế của user theo index trong bộ nhớ: BANNED, INACTIVE hoặc null nếu được phép truy cập
+     */
+    Status getRestriction(Long userId);
+
+    /**
+     * Cập nhật index sau khi trạng thái user đã được lưu và phát thông báo cho các instance khác
+     */
+    void statusChanged(Long userId, Status status);
+
+    /**
+     * Index đã được nạp từ DB ít nhất một lần
+     */
+    boolean isLoaded();
+
+    /**
+     * Nạp lại toàn bộ index từ DB
+     */
+    void reload();
+}
@@ -2,6 +2,8 @@ package swd.coiviet.service;
 
 import swd.coiviet.model.Video;
 import swd.coiviet.enums.PublicationStatus;
+import swd.coiviet.dto.response.CursorPageResponse;
+import swd.coiviet.dto.response.VideoSummaryResponse;
 
 import java.util.List;
 import java.util.Optional;
@@ -14,4 +16,5 @@ public interface VideoService {
     List<Video> findByStatus(PublicationStatus status);
     List<Video> findByProvinceIdAndStatus(Long provinceId, PublicationStatus status);
     void deleteById(Long id);
+    CursorPageResponse<VideoSummaryResponse> findPublishedPage(Long cursor, Integer size, Long provinceId);
 }
@@ -10,4 +10,8 @@ public interface VoucherService {
     Optional<Voucher> findByCode(String code);
     java.util.List<Voucher> findAll();
     void deleteById(Long id);
+    /**
+     * Tăng lượt sử dụng nếu voucher chưa hết lượt, trả về false khi đã đạt maxUsage
+     */
+    boolean redeem(Long voucherId);
 }
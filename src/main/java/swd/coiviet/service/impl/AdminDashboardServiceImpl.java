@@ -0,0 +1,219 @@
+package swd.coiviet.service.impl;
+
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import swd.coiviet.configuration.CacheNames;
+import swd.coiviet.dto.response.AdminDashboardResponse;
+import swd.coiviet.enums.*;
+import swd.coiviet.repository.*;
+import swd.coiviet.repository.projection.DashboardAggregates;
+import swd.coiviet.service.AdminDashboardService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class AdminDashboardServiceImpl implements AdminDashboardService {
+    private final UserRepository userRepository;
+    private final TourRepository tourRepository;
+    private final TourScheduleRepository tourScheduleRepository;
+    private final BookingRepository bookingRepository;
+    private final PaymentRepository paymentRepository;
+    private final ReviewRepository reviewRepository;
+    private final BlogPostRepository blogPostRepository;
+    private final VideoRepository videoRepository;
+    private final CultureItemRepository cultureItemRepository;
+    private final UserMemoryRepository userMemoryRepository;
+    private final NotificationRepository notificationRepository;
+
+    public AdminDashboardServiceImpl(UserRepository userRepository,
+                                     TourRepository tourRepository,
+                                     TourScheduleRepository tourScheduleRepository,
+                                     BookingRepository bookingRepository,
+                                     PaymentRepository paymentRepository,
+                                     ReviewRepository reviewRepository,
+                                     BlogPostRepository blogPostRepository,
+                                     VideoRepository videoRepository,
+                                     CultureItemRepository cultureItemRepository,
+                                     UserMemoryRepository userMemoryRepository,
+                                     NotificationRepository notificationRepository) {
+        this.userRepository = userRepository;
+        this.tourRepository = tourRepository;
+        this.tourScheduleRepository = tourScheduleRepository;
+        this.bookingRepository = bookingRepository;
+        this.paymentRepository = paymentRepository;
+        this.reviewRepository = reviewRepository;
+        this.blogPostRepository = blogPostRepository;
+        this.videoRepository = videoRepository;
+        this.cultureItemRepository = cultureItemRepository;
+        this.userMemoryRepository = userMemoryRepository;
+        this.notificationRepository = notificationRepository;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheNames.ADMIN_DASHBOARD, key = "#fromDate + ':' + #toDate")
+    public AdminDashboardResponse getSummary(LocalDate fromDate, LocalDate toDate) {
+        LocalDateTime start = fromDate.atStartOfDay();
+        LocalDateTime end = toDate.atTime(LocalTime.MAX);
+
+        // Mỗi domain một truy vấn GROUP BY status thay vì một countByStatus cho từng giá trị enum
+        return AdminDashboardResponse.builder()
+                .fromDate(fromDate)
+                .toDate(toDate)
+                .users(buildUserStats(start, end))
+                .tours(buildTourStats(start, end))
+                .tourSchedules(buildTourScheduleStats())
+                .bookings(buildBookingStats(start, end))
+                .payments(buildPaymentStats(start, end))
+                .reviews(buildReviewStats(start, end))
+                .content(buildContentStats())
+                .notifications(buildNotificationStats(start, end))
+                .build();
+    }
+
+    private AdminDashboardResponse.UserStats buildUserStats(LocalDateTime start, LocalDateTime end) {
+        List<DashboardAggregates.StatusRangeCount> rows = userRepository.countGroupedByStatus(start, end);
+        return AdminDashboardResponse.UserStats.builder()
+                .total(sumTotal(rows))
+                .newInRange(sumInRange(rows))
+                .byStatus(histogram(Status.values(), rows))
+                .build();
+    }
+
+    private AdminDashboardResponse.TourStats buildTourStats(LocalDateTime start, LocalDateTime end) {
+        List<DashboardAggregates.StatusRangeCount> rows = tourRepository.countGroupedByStatus(start, end);
+        return AdminDashboardResponse.TourStats.builder()
+                .total(sumTotal(rows))
+                .newInRange(sumInRange(rows))
+                .byStatus(histogram(Status.values(), rows))
+                .build();
+    }
+
+    private AdminDashboardResponse.TourScheduleStats buildTourScheduleStats() {
+        List<DashboardAggregates.ScheduleStatusCount> rows = tourScheduleRepository.countGroupedByStatus(LocalDate.now());
+        long upcoming = 0;
+        for (DashboardAggregates.ScheduleStatusCount row : rows) {
+            upcoming += nullToZero(row.getUpcoming());
+        }
+        return AdminDashboardResponse.TourScheduleStats.builder()
+                .total(sumTotal(rows))
+                .upcoming(upcoming)
+                .byStatus(histogram(TourScheduleStatus.values(), rows))
+                .build();
+    }
+
+    private AdminDashboardResponse.BookingStats buildBookingStats(LocalDateTime start, LocalDateTime end) {
+        List<DashboardAggregates.StatusRangeCount> rows = bookingRepository.countGroupedByStatus(start, end);
+        return AdminDashboardResponse.BookingStats.builder()
+                .total(sumTotal(rows))
+                .newInRange(sumInRange(rows))
+                .byStatus(histogram(BookingStatus.values(), rows))
+                .build();
+    }
+
+    private AdminDashboardResponse.PaymentStats buildPaymentStats(LocalDateTime start, LocalDateTime end) {
+        List<DashboardAggregates.PaymentStatusTotals> rows = paymentRepository.sumGroupedByStatus(start, end);
+        BigDecimal totalRevenue = BigDecimal.ZERO;
+        BigDecimal revenueInRange = BigDecimal.ZERO;
+        for (DashboardAggregates.PaymentStatusTotals row : rows) {
+            if (row.getStatus() == PaymentStatus.PAID) {
+                totalRevenue = safeMoney(row.getAmount());
+                revenueInRange = safeMoney(row.getAmountInRange());
+            }
+        }
+        return AdminDashboardResponse.PaymentStats.builder()
+                .total(sumTotal(rows))
+                .newInRange(sumInRange(rows))
+                .byStatus(histogram(PaymentStatus.values(), rows))
+                .totalRevenue(totalRevenue)
+                .revenueInRange(revenueInRange)
+                .build();
+    }
+
+    private AdminDashboardResponse.ReviewStats buildReviewStats(LocalDateTime start, LocalDateTime end) {
+        List<DashboardAggregates.ReviewStatusTotals> rows = reviewRepository.sumGroupedByStatus(start, end);
+        double averageRating = 0.0;
+        for (DashboardAggregates.ReviewStatusTotals row : rows) {
+            if (row.getStatus() == ReviewStatus.VISIBLE && nullToZero(row.getRatedCount()) > 0) {
+                averageRating = (double) nullToZero(row.getRatingSum()) / row.getRatedCount();
+            }
+        }
+        return AdminDashboardResponse.ReviewStats.builder()
+                .total(sumTotal(rows))
+                .newInRange(sumInRange(rows))
+                .byStatus(histogram(ReviewStatus.values(), rows))
+                .averageRating(averageRating)
+                .build();
+    }
+
+    private AdminDashboardResponse.ContentStats buildContentStats() {
+        List<DashboardAggregates.StatusCount> blogPosts = blogPostRepository.countGroupedByStatus();
+        List<DashboardAggregates.StatusCount> videos = videoRepository.countGroupedByStatus();
+        List<DashboardAggregates.StatusCount> cultureItems = cultureItemRepository.countGroupedByStatus();
+        List<DashboardAggregates.StatusCount> userMemories = userMemoryRepository.countGroupedByStatus();
+        return AdminDashboardResponse.ContentStats.builder()
+                .blogPostsTotal(sumTotal(blogPosts))
+                .blogPostsByStatus(histogram(PublicationStatus.values(), blogPosts))
+                .videosTotal(sumTotal(videos))
+                .videosByStatus(histogram(PublicationStatus.values(), videos))
+                .cultureItemsTotal(sumTotal(cultureItems))
+                .cultureItemsByStatus(histogram(PublicationStatus.values(), cultureItems))
+                .userMemoriesTotal(sumTotal(userMemories))
+                .userMemoriesByStatus(histogram(PublicationStatus.values(), userMemories))
+                .build();
+    }
+
+    private AdminDashboardResponse.NotificationStats buildNotificationStats(LocalDateTime start, LocalDateTime end) {
+        DashboardAggregates.NotificationTotals totals = notificationRepository.totals(start, end);
+        return AdminDashboardResponse.NotificationStats.builder()
+                .total(nullToZero(totals.getTotal()))
+                .newInRange(nullToZero(totals.getInRange()))
+                .unread(nullToZero(totals.getUnread()))
+                .build();
+    }
+
+    // Giữ đủ các giá trị enum (kể cả 0) như trước; dòng status null chỉ được tính vào total
+    private <E extends Enum<E>> Map<String, Long> histogram(E[] values, List<? extends DashboardAggregates.StatusCount> rows) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (E value : values) {
+            result.put(value.name(), 0L);
+        }
+        for (DashboardAggregates.StatusCount row : rows) {
+            if (row.getStatus() != null) {
+                result.put(row.getStatus().name(), nullToZero(row.getTotal()));
+            }
+        }
+        return result;
+    }
+
+    private long sumTotal(List<? extends DashboardAggregates.StatusCount> rows) {
+        long total = 0;
+        for (DashboardAggregates.StatusCount row : rows) {
+            total += nullToZero(row.getTotal());
+        }
+        return total;
+    }
+
+    private long sumInRange(List<? extends DashboardAggregates.StatusRangeCount> rows) {
+        long total = 0;
+        for (DashboardAggregates.StatusRangeCount row : rows) {
+            total += nullToZero(row.getInRange());
+        }
+        return total;
+    }
+
+    private long nullToZero(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    private BigDecimal safeMoney(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
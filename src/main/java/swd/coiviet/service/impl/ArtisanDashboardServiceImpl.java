@@ -0,0 +1,128 @@
+package swd.coiviet.service.impl;
+
+import org.springframework.stereotype.Service;
+import swd.coiviet.dto.response.ArtisanDashboardResponse;
+import swd.coiviet.enums.PaymentStatus;
+import swd.coiviet.enums.Status;
+import swd.coiviet.exception.AppException;
+import swd.coiviet.exception.ErrorCode;
+import swd.coiviet.model.Artisan;
+import swd.coiviet.model.ArtisanStats;
+import swd.coiviet.repository.BookingRepository;
+import swd.coiviet.repository.PaymentRepository;
+import swd.coiviet.repository.TourRepository;
+import swd.coiviet.repository.projection.DashboardAggregates;
+import swd.coiviet.service.ArtisanDashboardService;
+import swd.coiviet.service.ArtisanService;
+import swd.coiviet.service.ArtisanStatsService;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+@Service
+public class ArtisanDashboardServiceImpl implements ArtisanDashboardService {
+    private final ArtisanService artisanService;
+    private final ArtisanStatsService artisanStatsService;
+    private final TourRepository tourRepository;
+    private final BookingRepository bookingRepository;
+    private final PaymentRepository paymentRepository;
+
+    public ArtisanDashboardServiceImpl(ArtisanService artisanService,
+                                       ArtisanStatsService artisanStatsService,
+                                       TourRepository tourRepository,
+                                       BookingRepository bookingRepository,
+                                       PaymentRepository paymentRepository) {
+        this.artisanService = artisanService;
+        this.artisanStatsService = artisanStatsService;
+        this.tourRepository = tourRepository;
+        this.bookingRepository = bookingRepository;
+        this.paymentRepository = paymentRepository;
+    }
+
+    @Override
+    public ArtisanDashboardResponse getDashboard(Long artisanId, LocalDate fromDate, LocalDate toDate) {
+        Artisan artisan = artisanService.findById(artisanId)
+                .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND, "Artisan không tồn tại"));
+
+        LocalDateTime start = fromDate.atStartOfDay();
+        LocalDateTime end = toDate.atTime(LocalTime.MAX);
+
+        // Số liệu tổng đọc từ rollup, chỉ số liệu theo khoảng ngày mới truy vấn bảng gốc
+        ArtisanStats stats = artisanStatsService.getStats(artisanId);
+
+        return ArtisanDashboardResponse.builder()
+                .artisanId(artisan.getId())
+                .artisanName(artisan.getFullName())
+                .fromDate(fromDate)
+                .toDate(toDate)
+                .tours(buildTourStats(artisanId))
+                .bookings(buildBookingStats(artisanId, stats, start, end))
+                .revenue(buildRevenueStats(artisanId, stats, start, end))
+                .ratings(buildRatingStats(stats))
+                .build();
+    }
+
+    private ArtisanDashboardResponse.TourStats buildTourStats(Long artisanId) {
+        long total = 0;
+        long active = 0;
+        for (DashboardAggregates.StatusCount row : tourRepository.countByArtisanIdGroupedByStatus(artisanId)) {
+            long count = row.getTotal() != null ? row.getTotal() : 0L;
+            total += count;
+            if (row.getStatus() == Status.ACTIVE) {
+                active = count;
+            }
+        }
+        return ArtisanDashboardResponse.TourStats.builder()
+                .total(total)
+                .active(active)
+                .build();
+    }
+
+    private ArtisanDashboardResponse.BookingStats buildBookingStats(Long artisanId, ArtisanStats stats,
+                                                                    LocalDateTime start, LocalDateTime end) {
+        return ArtisanDashboardResponse.BookingStats.builder()
+                .total(stats.getBookingsTotal())
+                .newInRange(bookingRepository.countByArtisanIdAndCreatedAtBetween(artisanId, start, end))
+                .completed(stats.getBookingsCompleted())
+                .cancelled(stats.getBookingsCancelled())
+                .build();
+    }
+
+    private ArtisanDashboardResponse.RevenueStats buildRevenueStats(Long artisanId, ArtisanStats stats,
+                                                                    LocalDateTime start, LocalDateTime end) {
+        BigDecimal totalRevenue = safeMoney(stats.getPaidRevenue());
+        BigDecimal revenueInRange = safeMoney(paymentRepository.sumAmountByArtisanIdAndStatusAndPaidAtBetween(
+                artisanId, PaymentStatus.PAID, start, end));
+
+        long completedBookings = stats.getBookingsCompleted();
+        BigDecimal averageRevenuePerBooking = completedBookings > 0
+                ? totalRevenue.divide(BigDecimal.valueOf(completedBookings), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+
+        return ArtisanDashboardResponse.RevenueStats.builder()
+                .totalRevenue(totalRevenue)
+                .revenueInRange(revenueInRange)
+                .averageRevenuePerBooking(averageRevenuePerBooking)
+                .build();
+    }
+
+    private ArtisanDashboardResponse.RatingStats buildRatingStats(ArtisanStats stats) {
+        long totalReviews = stats.getReviewCount();
+        return ArtisanDashboardResponse.RatingStats.builder()
+                .averageRating(totalReviews > 0 ? (double) stats.getRatingSum() / totalReviews : 0.0)
+                .totalReviews(totalReviews)
+                .fiveStar(stats.getFiveStar())
+                .fourStar(stats.getFourStar())
+                .threeStar(stats.getThreeStar())
+                .twoStar(stats.getTwoStar())
+                .oneStar(stats.getOneStar())
+                .build();
+    }
+
+    private BigDecimal safeMoney(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
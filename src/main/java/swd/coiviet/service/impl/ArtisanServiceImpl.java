@@ -4,6 +4,15 @@ import org.springframework.stereotype.Service;
 import swd.coiviet.model.Artisan;
 import swd.coiviet.repository.ArtisanRepository;
 import swd.coiviet.service.ArtisanService;
+import org.springframework.data.domain.Limit;
+import swd.coiviet.dto.response.ArtisanSummaryResponse;
+import swd.coiviet.dto.response.CursorPageResponse;
+import org.springframework.context.ApplicationEventPublisher;
+import swd.coiviet.event.CatalogChangedEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import swd.coiviet.configuration.CacheNames;
 
 import java.util.List;
 import java.util.Optional;
@@ -11,13 +20,27 @@ import java.util.Optional;
 @Service
 public class ArtisanServiceImpl implements ArtisanService {
     private final ArtisanRepository repo;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public ArtisanServiceImpl(ArtisanRepository repo) { this.repo = repo; }
+    public ArtisanServiceImpl(ArtisanRepository repo, ApplicationEventPublisher eventPublisher) {
+        this.repo = repo;
+        this.eventPublisher = eventPublisher;
+    }
 
     @Override
-    public Artisan save(Artisan a) { return repo.save(a); }
+    // Tour trong cache nhúng bản sao nghệ nhân nên cũng phải bỏ
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.ARTISANS, key = "#a.id", condition = "#a.id != null"),
+            @CacheEvict(cacheNames = CacheNames.TOURS, allEntries = true, condition = "#a.id != null")
+    })
+    public Artisan save(Artisan a) {
+        Artisan saved = repo.save(a);
+        eventPublisher.publishEvent(new CatalogChangedEvent(Artisan.class, saved.getId()));
+        return saved;
+    }
 
     @Override
+    @Cacheable(cacheNames = CacheNames.ARTISANS, key = "#id", unless = "#result == null")
     public Optional<Artisan> findById(Long id) { return repo.findById(id); }
 
     @Override
@@ -26,9 +49,26 @@ public class ArtisanServiceImpl implements ArtisanService {
     @Override
     public List<Artisan> findByProvinceId(Long provinceId) { return repo.findByProvinceId(provinceId); }
 
+    @Override
+    public List<Artisan> findActive() { return repo.findByIsActiveTrue(); }
+
     @Override
     public Optional<Artisan> findByUserId(Long userId) { return repo.findByUserId(userId); }
 
     @Override
-    public void deleteById(Long id) { repo.deleteById(id); }
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.ARTISANS, key = "#id"),
+            @CacheEvict(cacheNames = CacheNames.TOURS, allEntries = true)
+    })
+    public void deleteById(Long id) {
+        repo.deleteById(id);
+        eventPublisher.publishEvent(new CatalogChangedEvent(Artisan.class, id));
+    }
+
+    @Override
+    public CursorPageResponse<ArtisanSummaryResponse> findActivePage(Long cursor, Integer size, Long provinceId) {
+        int pageSize = CursorPageResponse.normalizeSize(size);
+        List<ArtisanSummaryResponse> rows = repo.findActiveSummaryPage(cursor, provinceId, Limit.of(pageSize + 1));
+        return CursorPageResponse.of(rows, pageSize, ArtisanSummaryResponse::getId);
+    }
 }
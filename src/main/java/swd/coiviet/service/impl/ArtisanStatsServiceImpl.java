@@ -0,0 +1,201 @@
+package swd.coiviet.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import swd.coiviet.enums.BookingStatus;
+import swd.coiviet.enums.PaymentStatus;
+import swd.coiviet.enums.ReviewStatus;
+import swd.coiviet.model.ArtisanStats;
+import swd.coiviet.repository.ArtisanRepository;
+import swd.coiviet.repository.ArtisanStatsRepository;
+import swd.coiviet.repository.BookingRepository;
+import swd.coiviet.repository.PaymentRepository;
+import swd.coiviet.repository.ReviewRepository;
+import swd.coiviet.repository.projection.DashboardAggregates;
+import swd.coiviet.service.ArtisanStatsService;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Service
+public class ArtisanStatsServiceImpl implements ArtisanStatsService {
+    private static final Logger logger = LoggerFactory.getLogger(ArtisanStatsServiceImpl.class);
+
+    private final ArtisanStatsRepository statsRepository;
+    private final ArtisanRepository artisanRepository;
+    private final BookingRepository bookingRepository;
+    private final PaymentRepository paymentRepository;
+    private final ReviewRepository reviewRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate insertTemplate;
+
+    public ArtisanStatsServiceImpl(ArtisanStatsRepository statsRepository,
+                                   ArtisanRepository artisanRepository,
+                                   BookingRepository bookingRepository,
+                                   PaymentRepository paymentRepository,
+                                   ReviewRepository reviewRepository,
+                                   PlatformTransactionManager transactionManager) {
+        this.statsRepository = statsRepository;
+        this.artisanRepository = artisanRepository;
+        this.bookingRepository = bookingRepository;
+        this.paymentRepository = paymentRepository;
+        this.reviewRepository = reviewRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Dòng rollup phải được tạo trong transaction riêng để lỗi trùng khóa không hủy transaction dựng lại
+        this.insertTemplate = new TransactionTemplate(transactionManager);
+        this.insertTemplate.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public ArtisanStats getStats(Long artisanId) {
+        return statsRepository.findById(artisanId)
+                .filter(stats -> stats.getRebuiltAt() != null)
+                .orElseGet(() -> rebuild(artisanId, true));
+    }
+
+    @Override
+    public ArtisanStats rebuild(Long artisanId) {
+        return rebuild(artisanId, false);
+    }
+
+    /**
+     * Tạo dòng rollup rỗng nếu chưa có, rồi khóa dòng đó trong lúc đếm lại và ghi đè: delta của transaction khác
+     * hoặc đã commit trước khi đếm (nên được đếm), hoặc phải chờ khóa và cộng lên kết quả mới
+     * @param onlyIfMissing bỏ qua nếu request khác đã dựng xong trong lúc chờ khóa (lần đọc đầu tiên chạy song song)
+     */
+    private ArtisanStats rebuild(Long artisanId, boolean onlyIfMissing) {
+        if (!statsRepository.existsById(artisanId)) {
+            try {
+                insertTemplate.executeWithoutResult(status ->
+                        statsRepository.saveAndFlush(ArtisanStats.builder().artisanId(artisanId).build()));
+            } catch (DataIntegrityViolationException e) {
+                // Request khác vừa tạo rollup cho cùng nghệ nhân
+            }
+        }
+        return transactionTemplate.execute(status -> {
+            ArtisanStats stats = statsRepository.findLockedById(artisanId)
+                    .orElseThrow(() -> new IllegalStateException("Rollup của nghệ nhân " + artisanId + " vừa bị xóa"));
+            if (onlyIfMissing && stats.getRebuiltAt() != null) {
+                return stats;
+            }
+            recount(artisanId, stats);
+            return stats;
+        });
+    }
+
+    private void recount(Long artisanId, ArtisanStats stats) {
+        stats.setRebuiltAt(LocalDateTime.now());
+        long[] bookings = new long[BookingStatus.values().length];
+        long bookingsTotal = 0;
+        for (DashboardAggregates.StatusCount row : bookingRepository.countByArtisanIdGroupedByStatus(artisanId)) {
+            long total = row.getTotal() != null ? row.getTotal() : 0L;
+            bookingsTotal += total;
+            if (row.getStatus() instanceof BookingStatus status) {
+                bookings[status.ordinal()] = total;
+            }
+        }
+        stats.setBookingsTotal(bookingsTotal);
+        stats.setBookingsPending(bookings[BookingStatus.PENDING.ordinal()]);
+        stats.setBookingsConfirmed(bookings[BookingStatus.CONFIRMED.ordinal()]);
+        stats.setBookingsCancelled(bookings[BookingStatus.CANCELLED.ordinal()]);
+        stats.setBookingsCompleted(bookings[BookingStatus.COMPLETED.ordinal()]);
+
+        BigDecimal revenue = paymentRepository.sumAmountByArtisanIdAndStatus(artisanId, PaymentStatus.PAID);
+        stats.setPaidRevenue(revenue != null ? revenue : BigDecimal.ZERO);
+
+        long[] stars = new long[6];
+        long reviewCount = 0;
+        long ratingSum = 0;
+        for (DashboardAggregates.RatingCount row : reviewRepository.countRatingsByArtisanId(artisanId, ReviewStatus.VISIBLE)) {
+            long total = row.getTotal() != null ? row.getTotal() : 0L;
+            reviewCount += total;
+            ratingSum += total * row.getRating();
+            // Rating ngoài 1-5 chỉ tính vào tổng và điểm trung bình
+            if (row.getRating() >= 1 && row.getRating() <= 5) {
+                stars[row.getRating()] = total;
+            }
+        }
+        stats.setReviewCount(reviewCount);
+        stats.setRatingSum(ratingSum);
+        stats.setOneStar(stars[1]);
+        stats.setTwoStar(stars[2]);
+        stats.setThreeStar(stars[3]);
+        stats.setFourStar(stars[4]);
+        stats.setFiveStar(stars[5]);
+    }
+
+    @Override
+    public int rebuildAll() {
+        int rebuilt = 0;
+        for (Long artisanId : artisanRepository.findAllIds()) {
+            try {
+                rebuild(artisanId);
+                rebuilt++;
+            } catch (Exception e) {
+                logger.error("Không thể dựng lại thống kê nghệ nhân {}: {}", artisanId, e.getMessage(), e);
+            }
+        }
+        return rebuilt;
+    }
+
+    @Override
+    @Transactional
+    public void bookingSaved(Long artisanId, boolean created, BookingStatus previous, BookingStatus current) {
+        if (artisanId == null || (!created && previous == current)) {
+            return;
+        }
+        long[] delta = new long[BookingStatus.values().length];
+        if (!created && previous != null) delta[previous.ordinal()]--;
+        if (current != null) delta[current.ordinal()]++;
+        applyBookingDelta(artisanId, created ? 1 : 0, delta);
+    }
+
+    @Override
+    @Transactional
+    public void bookingDeleted(Long artisanId, BookingStatus previous) {
+        if (artisanId == null) {
+            return;
+        }
+        long[] delta = new long[BookingStatus.values().length];
+        if (previous != null) delta[previous.ordinal()]--;
+        applyBookingDelta(artisanId, -1, delta);
+    }
+
+    @Override
+    @Transactional
+    public void revenueChanged(Long artisanId, BigDecimal previousPaid, BigDecimal currentPaid) {
+        BigDecimal delta = Objects.requireNonNullElse(currentPaid, BigDecimal.ZERO)
+                .subtract(Objects.requireNonNullElse(previousPaid, BigDecimal.ZERO));
+        if (artisanId == null || delta.signum() == 0) {
+            return;
+        }
+        statsRepository.addRevenueDelta(artisanId, delta);
+    }
+
+    @Override
+    @Transactional
+    public void ratingChanged(Long artisanId, Integer previousRating, Integer currentRating) {
+        if (artisanId == null || Objects.equals(previousRating, currentRating)) {
+            return;
+        }
+        RatingDelta delta = RatingDelta.of(previousRating, currentRating);
+        // Chưa có rollup thì bỏ qua, lần đọc đầu tiên sẽ dựng lại từ dữ liệu gốc
+        statsRepository.addReviewDelta(artisanId, delta.count, delta.ratingSum,
+                delta.stars[1], delta.stars[2], delta.stars[3], delta.stars[4], delta.stars[5]);
+    }
+
+    private void applyBookingDelta(Long artisanId, long total, long[] delta) {
+        // Chưa có rollup thì bỏ qua, lần đọc đầu tiên sẽ dựng lại từ dữ liệu gốc
+        statsRepository.addBookingDelta(artisanId, total,
+                delta[BookingStatus.PENDING.ordinal()],
+                delta[BookingStatus.CONFIRMED.ordinal()],
+                delta[BookingStatus.CANCELLED.ordinal()],
+                delta[BookingStatus.COMPLETED.ordinal()]);
+    }
+}
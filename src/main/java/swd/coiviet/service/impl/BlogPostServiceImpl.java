@@ -4,6 +4,12 @@ import org.springframework.stereotype.Service;
 import swd.coiviet.model.BlogPost;
 import swd.coiviet.repository.BlogPostRepository;
 import swd.coiviet.service.BlogPostService;
+import org.springframework.data.domain.Limit;
+import swd.coiviet.dto.response.BlogPostSummaryResponse;
+import swd.coiviet.dto.response.CursorPageResponse;
+import swd.coiviet.enums.PublicationStatus;
+import org.springframework.context.ApplicationEventPublisher;
+import swd.coiviet.event.CatalogChangedEvent;
 
 import java.util.List;
 import java.util.Optional;
@@ -11,11 +17,19 @@ import java.util.Optional;
 @Service
 public class BlogPostServiceImpl implements BlogPostService {
     private final BlogPostRepository repo;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public BlogPostServiceImpl(BlogPostRepository repo) { this.repo = repo; }
+    public BlogPostServiceImpl(BlogPostRepository repo, ApplicationEventPublisher eventPublisher) {
+        this.repo = repo;
+        this.eventPublisher = eventPublisher;
+    }
 
     @Override
-    public BlogPost save(BlogPost p) { return repo.save(p); }
+    public BlogPost save(BlogPost p) {
+        BlogPost saved = repo.save(p);
+        eventPublisher.publishEvent(new CatalogChangedEvent(BlogPost.class, saved.getId()));
+        return saved;
+    }
 
     @Override
     public Optional<BlogPost> findById(Long id) { return repo.findById(id); }
@@ -27,5 +41,19 @@ public class BlogPostServiceImpl implements BlogPostService {
     public List<BlogPost> findAll() { return repo.findAll(); }
 
     @Override
-    public void deleteById(Long id) { repo.deleteById(id); }
+    public void deleteById(Long id) {
+        repo.deleteById(id);
+        eventPublisher.publishEvent(new CatalogChangedEvent(BlogPost.class, id));
+    }
+
+    @Override
+    public List<BlogPost> findByStatus(PublicationStatus status) { return repo.findByStatus(status); }
+
+    @Override
+    public CursorPageResponse<BlogPostSummaryResponse> findPublishedPage(Long cursor, Integer size, Long provinceId) {
+        int pageSize = CursorPageResponse.normalizeSize(size);
+        List<BlogPostSummaryResponse> rows = repo.findSummaryPage(PublicationStatus.PUBLISHED, cursor, provinceId,
+                Limit.of(pageSize + 1));
+        return CursorPageResponse.of(rows, pageSize, BlogPostSummaryResponse::getId);
+    }
 }
@@ -16,13 +16,14 @@ import swd.coiviet.model.TourSchedule;
 import swd.coiviet.model.User;
 import swd.coiviet.model.Voucher;
 import swd.coiviet.repository.BookingRepository;
+import swd.coiviet.service.ArtisanStatsService;
 import swd.coiviet.service.BookingService;
 import swd.coiviet.service.PaymentService;
+import swd.coiviet.service.SeatInventoryService;
 import swd.coiviet.service.TourScheduleService;
 import swd.coiviet.service.TourService;
 import swd.coiviet.service.UserService;
 import swd.coiviet.service.VoucherService;
-import swd.coiviet.service.TourWorkflowService;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -39,7 +40,8 @@ public class BookingServiceImpl implements BookingService {
     private final UserService userService;
     private final VoucherService voucherService;
     private final PaymentService paymentService;
-    private final TourWorkflowService tourWorkflowService;
+    private final SeatInventoryService seatInventoryService;
+    private final ArtisanStatsService artisanStatsService;
     private final swd.coiviet.service.EmailService emailService;
     private final swd.coiviet.service.NotificationService notificationService;
 
@@ -50,7 +52,8 @@ public class BookingServiceImpl implements BookingService {
             UserService userService,
             VoucherService voucherService,
             PaymentService paymentService,
-            TourWorkflowService tourWorkflowService,
+            SeatInventoryService seatInventoryService,
+            ArtisanStatsService artisanStatsService,
             swd.coiviet.service.EmailService emailService,
             swd.coiviet.service.NotificationService notificationService) {
         this.bookingRepo = bookingRepo;
@@ -59,14 +62,18 @@ public class BookingServiceImpl implements BookingService {
         this.userService = userService;
         this.voucherService = voucherService;
         this.paymentService = paymentService;
-        this.tourWorkflowService = tourWorkflowService;
+        this.seatInventoryService = seatInventoryService;
+        this.artisanStatsService = artisanStatsService;
         this.emailService = emailService;
         this.notificationService = notificationService;
     }
 
     @Override
+    @Transactional
     public Booking save(Booking b) {
-        return bookingRepo.save(b);
+        boolean created = b.getId() == null;
+        BookingStatus previous = created ? null : bookingRepo.findStoredStatusById(b.getId()).orElse(null);
+        return saveAndTrack(b, created, previous);
     }
 
     @Override
@@ -90,8 +97,12 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
+    @Transactional
     public void deleteById(Long id) {
-        bookingRepo.deleteById(id);
+        bookingRepo.findById(id).ifPresent(booking -> {
+            bookingRepo.delete(booking);
+            artisanStatsService.bookingDeleted(artisanIdOf(booking), booking.getStatus());
+        });
     }
 
     @Override
@@ -114,9 +125,9 @@ public class BookingServiceImpl implements BookingService {
             throw new AppException(ErrorCode.INVALID_REQUEST, "Lịch trình không thuộc tour này");
         }
 
-        // Check availability
-        if (!tourWorkflowService.checkTourAvailability(schedule.getId(), request.getNumParticipants())) {
-            throw new AppException(ErrorCode.INVALID_REQUEST, "Tour không còn đủ chỗ");
+        // Reserve seats atomically (rolled back together with the booking if anything below fails)
+        if (!seatInventoryService.reserveSeats(schedule.getId(), request.getNumParticipants())) {
+            throw new AppException(ErrorCode.INSUFFICIENT_SLOTS, "Tour không còn đủ chỗ");
         }
 
         // Calculate price
@@ -151,11 +162,12 @@ public class BookingServiceImpl implements BookingService {
                         discountAmount = finalAmount;
                     }
                     
-                    finalAmount = finalAmount.subtract(discountAmount);
-                    
-                    // Update voucher usage
-                    voucher.setCurrentUsage(voucher.getCurrentUsage() + 1);
-                    voucherService.save(voucher);
+                    // Tăng lượt dùng bằng UPDATE có điều kiện, voucher vừa hết lượt thì không giảm giá
+                    if (voucherService.redeem(voucher.getId())) {
+                        finalAmount = finalAmount.subtract(discountAmount);
+                    } else {
+                        discountAmount = BigDecimal.ZERO;
+                    }
                 }
             }
         }
@@ -181,14 +193,7 @@ public class BookingServiceImpl implements BookingService {
                 .updatedAt(LocalDateTime.now())
                 .build();
 
-        booking = bookingRepo.save(booking);
-
-        // Update tour schedule booked slots
-        schedule.setBookedSlots(schedule.getBookedSlots() + request.getNumParticipants());
-        if (schedule.getBookedSlots() >= schedule.getMaxSlots()) {
-            schedule.setStatus(swd.coiviet.enums.TourScheduleStatus.FULL);
-        }
-        tourScheduleService.save(schedule);
+        booking = saveAndTrack(booking, true, null);
 
         // Create payment record
         Payment payment = Payment.builder()
@@ -246,12 +251,13 @@ public class BookingServiceImpl implements BookingService {
         BigDecimal refundAmount = booking.getFinalAmount().subtract(cancellationFee);
 
         // Update booking
+        BookingStatus previousStatus = booking.getStatus();
         booking.setStatus(BookingStatus.CANCELLED);
         booking.setCancelledAt(LocalDateTime.now());
         booking.setCancellationFee(cancellationFee);
         booking.setRefundAmount(refundAmount);
         booking.setUpdatedAt(LocalDateTime.now());
-        booking = bookingRepo.save(booking);
+        booking = saveAndTrack(booking, false, previousStatus);
 
         // Update payment status
         List<Payment> payments = paymentService.findByBookingId(bookingId);
@@ -264,13 +270,8 @@ public class BookingServiceImpl implements BookingService {
             }
         }
 
-        // Update tour schedule booked slots
-        TourSchedule schedule = booking.getTourSchedule();
-        schedule.setBookedSlots(Math.max(0, schedule.getBookedSlots() - booking.getNumParticipants()));
-        if (schedule.getStatus() == swd.coiviet.enums.TourScheduleStatus.FULL) {
-            schedule.setStatus(swd.coiviet.enums.TourScheduleStatus.SCHEDULED);
-        }
-        tourScheduleService.save(schedule);
+        // Release booked seats
+        seatInventoryService.releaseSeats(booking.getTourSchedule().getId(), booking.getNumParticipants());
 
         // Send cancellation email
         if (booking.getContactEmail() != null) {
@@ -344,4 +345,17 @@ public class BookingServiceImpl implements BookingService {
                 .updatedAt(booking.getUpdatedAt())
                 .build();
     }
+
+    // Lưu booking và cập nhật rollup thống kê nghệ nhân trong cùng transaction
+    private Booking saveAndTrack(Booking booking, boolean created, BookingStatus previous) {
+        Booking saved = bookingRepo.save(booking);
+        artisanStatsService.bookingSaved(artisanIdOf(saved), created, previous, saved.getStatus());
+        return saved;
+    }
+
+    private Long artisanIdOf(Booking booking) {
+        return booking.getTour() != null && booking.getTour().getArtisan() != null
+                ? booking.getTour().getArtisan().getId()
+                : null;
+    }
 }
@@ -1,41 +1,63 @@
 package swd.coiviet.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import swd.coiviet.dto.response.ChatConversationResponse;
 import swd.coiviet.dto.response.ChatMessageResponse;
+import swd.coiviet.dto.response.ConversationPageResponse;
+import swd.coiviet.dto.response.CursorPageResponse;
 import swd.coiviet.enums.Role;
 import swd.coiviet.exception.AppException;
 import swd.coiviet.exception.ErrorCode;
 import swd.coiviet.model.ChatConversation;
-import swd.coiviet.model.ChatMessage;
 import swd.coiviet.model.User;
 import swd.coiviet.repository.ChatConversationRepository;
 import swd.coiviet.repository.ChatMessageRepository;
 import swd.coiviet.repository.UserRepository;
+import swd.coiviet.service.ChatMessageWriter;
 import swd.coiviet.service.ChatService;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 public class ChatServiceImpl implements ChatService {
+    // Quy định sản phẩm, khớp @Size của ChatSendRequest; tin vượt giới hạn NOTIFY vẫn tới instance khác dưới dạng refetch
+    static final int MAX_CONTENT_LENGTH = 2000;
+
     private final ChatConversationRepository conversationRepository;
     private final ChatMessageRepository messageRepository;
     private final UserRepository userRepository;
+    private final ChatMessageWriter messageWriter;
+    // Cặp người gửi/nhận -> hội thoại, tin nhắn sau không phải tra user và hội thoại trong DB
+    private final Cache<Participants, Long> conversationIds;
 
     public ChatServiceImpl(ChatConversationRepository conversationRepository,
                            ChatMessageRepository messageRepository,
-                           UserRepository userRepository) {
+                           UserRepository userRepository,
+                           ChatMessageWriter messageWriter,
+                           @Value("${app.chat.conversation-cache-size:10000}") int conversationCacheSize) {
         this.conversationRepository = conversationRepository;
         this.messageRepository = messageRepository;
         this.userRepository = userRepository;
+        this.messageWriter = messageWriter;
+        this.conversationIds = Caffeine.newBuilder()
+                .maximumSize(conversationCacheSize)
+                .expireAfterAccess(Duration.ofHours(1))
+                .build();
     }
 
     @Override
-    @Transactional
     public ChatMessageResponse sendMessage(Long senderId, Long recipientId, String content) {
         if (senderId == null || recipientId == null) {
             throw new AppException(ErrorCode.INVALID_REQUEST, "Sender/Recipient không hợp lệ");
@@ -43,60 +65,83 @@ public class ChatServiceImpl implements ChatService {
         if (content == null || content.isBlank()) {
             throw new AppException(ErrorCode.INVALID_REQUEST, "Nội dung tin nhắn không được để trống");
         }
+        if (content.length() > MAX_CONTENT_LENGTH) {
+            throw new AppException(ErrorCode.INVALID_REQUEST, "Nội dung tin nhắn tối đa " + MAX_CONTENT_LENGTH + " ký tự");
+        }
 
-        User sender = userRepository.findById(senderId)
-                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND, "Người gửi không tồn tại"));
-        User recipient = userRepository.findById(recipientId)
-                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND, "Người nhận không tồn tại"));
-
-        ChatConversation conversation = resolveConversation(sender, recipient);
+        Long conversationId = conversationIds.get(new Participants(senderId, recipientId),
+                key -> resolveConversation(senderId, recipientId).getId());
 
-        ChatMessage message = ChatMessage.builder()
-                .conversation(conversation)
-                .sender(sender)
-                .recipient(recipient)
+        // Id cấp trước, tin nhắn được gửi ngay còn việc ghi DB chạy nền theo batch
+        ChatMessageResponse message = ChatMessageResponse.builder()
+                .id(messageWriter.nextMessageId())
+                .conversationId(conversationId)
+                .senderId(senderId)
+                .recipientId(recipientId)
                 .content(content.trim())
+                // Độ chính xác của cột timestamp, bản gửi đi và bản đọc lại từ DB giống nhau
+                .createdAt(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS))
                 .build();
-        ChatMessage saved = messageRepository.save(message);
-
-        conversation.setLastMessage(saved.getContent());
-        conversation.setLastMessageAt(saved.getCreatedAt() != null ? saved.getCreatedAt() : LocalDateTime.now());
-        conversationRepository.save(conversation);
-
-        return toMessageResponse(saved);
+        messageWriter.enqueue(message);
+        return message;
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<ChatConversationResponse> getConversations(String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND, "Người dùng không tồn tại"));
-
-        return conversationRepository.findByCustomerIdOrArtisanIdOrderByUpdatedAtDesc(user.getId(), user.getId())
-                .stream()
-                .map(conversation -> toConversationResponse(conversation, user))
-                .collect(Collectors.toList());
+    public ConversationPageResponse getConversations(Long userId, String cursor, Integer size) {
+        int pageSize = CursorPageResponse.normalizeSize(size);
+        List<ChatConversationResponse> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = conversationRepository.findInboxFirstPage(userId, Limit.of(pageSize + 1));
+        } else {
+            InboxCursor position = InboxCursor.decode(cursor);
+            rows = conversationRepository.findInboxPageAfter(userId, position.updatedAt(), position.id(),
+                    Limit.of(pageSize + 1));
+        }
+        boolean hasMore = rows.size() > pageSize;
+        List<ChatConversationResponse> items = hasMore ? rows.subList(0, pageSize) : rows;
+        ChatConversationResponse last = hasMore ? items.get(items.size() - 1) : null;
+        return ConversationPageResponse.builder()
+                .items(items)
+                .nextCursor(last != null ? new InboxCursor(last.getUpdatedAt(), last.getId()).encode() : null)
+                .hasMore(hasMore)
+                .size(items.size())
+                .build();
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<ChatMessageResponse> getMessages(String username, Long conversationId) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND, "Người dùng không tồn tại"));
+    public CursorPageResponse<ChatMessageResponse> getMessages(Long userId, Long conversationId,
+                                                               Long before, Long after, Integer size) {
+        if (before != null && after != null) {
+            throw new AppException(ErrorCode.INVALID_REQUEST, "Chỉ dùng một trong hai tham số before hoặc after");
+        }
         ChatConversation conversation = conversationRepository.findById(conversationId)
                 .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND, "Conversation không tồn tại"));
 
-        if (!isParticipant(conversation, user)) {
+        if (!isParticipant(conversation, userId)) {
             throw new AppException(ErrorCode.FORBIDDEN, "Bạn không có quyền truy cập hội thoại này");
         }
 
-        return messageRepository.findByConversationIdOrderByCreatedAtAsc(conversationId)
-                .stream()
-                .map(this::toMessageResponse)
-                .collect(Collectors.toList());
+        int pageSize = CursorPageResponse.normalizeSize(size);
+        // before: tin cũ hơn, mới nhất trước; after: tin mới hơn, cũ nhất trước
+        List<ChatMessageResponse> rows;
+        if (after != null) {
+            rows = messageRepository.findPageAfter(conversationId, after, Limit.of(pageSize + 1));
+        } else if (before != null) {
+            rows = messageRepository.findPageBefore(conversationId, before, Limit.of(pageSize + 1));
+        } else {
+            rows = messageRepository.findLatestPage(conversationId, Limit.of(pageSize + 1));
+        }
+        return CursorPageResponse.of(rows, pageSize, ChatMessageResponse::getId);
     }
 
-    private ChatConversation resolveConversation(User sender, User recipient) {
+    private ChatConversation resolveConversation(Long senderId, Long recipientId) {
+        User sender = userRepository.findById(senderId)
+                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND, "Người gửi không tồn tại"));
+        User recipient = userRepository.findById(recipientId)
+                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND, "Người nhận không tồn tại"));
+
         User customer;
         User artisan;
 
@@ -112,45 +157,51 @@ public class ChatServiceImpl implements ChatService {
 
         Optional<ChatConversation> existing = conversationRepository.findByCustomerIdAndArtisanId(
                 customer.getId(), artisan.getId());
-        return existing.orElseGet(() -> conversationRepository.save(ChatConversation.builder()
-                .customer(customer)
-                .artisan(artisan)
-                .build()));
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        try {
+            return conversationRepository.saveAndFlush(ChatConversation.builder()
+                    .customer(customer)
+                    .artisan(artisan)
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            // Tin nhắn đầu tiên của cùng cặp vừa được xử lý trên thread/instance khác
+            return conversationRepository.findByCustomerIdAndArtisanId(customer.getId(), artisan.getId())
+                    .orElseThrow(() -> e);
+        }
     }
 
     private boolean isStaffRole(Role role) {
         return role == Role.ARTISAN || role == Role.ADMIN;
     }
 
-    private boolean isParticipant(ChatConversation conversation, User user) {
-        return conversation.getCustomer().getId().equals(user.getId())
-                || conversation.getArtisan().getId().equals(user.getId());
+    private boolean isParticipant(ChatConversation conversation, Long userId) {
+        return conversation.getCustomer().getId().equals(userId)
+                || conversation.getArtisan().getId().equals(userId);
     }
 
-    private ChatMessageResponse toMessageResponse(ChatMessage message) {
-        return ChatMessageResponse.builder()
-                .id(message.getId())
-                .conversationId(message.getConversation().getId())
-                .senderId(message.getSender().getId())
-                .recipientId(message.getRecipient().getId())
-                .content(message.getContent())
-                .createdAt(message.getCreatedAt())
-                .build();
+    private record Participants(Long senderId, Long recipientId) {
     }
 
-    private ChatConversationResponse toConversationResponse(ChatConversation conversation, User currentUser) {
-        User partner = conversation.getCustomer().getId().equals(currentUser.getId())
-                ? conversation.getArtisan()
-                : conversation.getCustomer();
-
-        return ChatConversationResponse.builder()
-                .id(conversation.getId())
-                .partnerId(partner.getId())
-                .partnerName(partner.getFullName() != null ? partner.getFullName() : partner.getUsername())
-                .partnerAvatarUrl(partner.getAvatarUrl())
-                .lastMessage(conversation.getLastMessage())
-                .lastMessageAt(conversation.getLastMessageAt())
-                .updatedAt(conversation.getUpdatedAt())
-                .build();
+    /**
+     * Vị trí (updatedAt, id) của hội thoại cuối trang, mã hóa base64url để client chỉ truyền lại nguyên chuỗi
+     */
+    private record InboxCursor(LocalDateTime updatedAt, Long id) {
+        String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((updatedAt + "_" + id).getBytes(StandardCharsets.UTF_8));
+        }
+
+        static InboxCursor decode(String cursor) {
+            try {
+                String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = value.lastIndexOf('_');
+                return new InboxCursor(LocalDateTime.parse(value.substring(0, separator)),
+                        Long.parseLong(value.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new AppException(ErrorCode.INVALID_REQUEST, "Cursor không hợp lệ");
+            }
+        }
     }
 }
@@ -0,0 +1,104 @@
+package swd.coiviet.service.impl;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.utils.ObjectUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import swd.coiviet.service.MediaStore;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+@Component
+@ConditionalOnProperty(name = "app.media.store", havingValue = "cloudinary", matchIfMissing = true)
+public class CloudinaryMediaStore implements MediaStore {
+    private static final Logger logger = LoggerFactory.getLogger(CloudinaryMediaStore.class);
+
+    // Giới hạn số public id mỗi lần gọi bulk delete của Cloudinary Admin API
+    static final int BULK_DELETE_LIMIT = 100;
+
+    private final Cloudinary cloudinary;
+
+    public CloudinaryMediaStore(Cloudinary cloudinary) {
+        this.cloudinary = cloudinary;
+    }
+
+    @Override
+    public StoredMedia upload(Path file, String resourceType, String folder, String transformation) throws IOException {
+        Map<String, Object> options = ObjectUtils.asMap(
+                "folder", folder,
+                "resource_type", resourceType,
+                "use_filename", true,
+                "unique_filename", true
+        );
+        if (transformation != null) {
+            options.put("transformation", transformation);
+        }
+        Map<?, ?> result = cloudinary.uploader().upload(file.toFile(), options);
+        String url = Objects.toString(result.get("secure_url"), null);
+        return new StoredMedia(url,
+                Objects.toString(result.get("public_id"), publicIdOf(url)),
+                Objects.toString(result.get("resource_type"), resourceType));
+    }
+
+    @Override
+    public List<String> delete(String resourceType, List<String> publicIds) {
+        try {
+            Map<?, ?> result = cloudinary.api().deleteResources(publicIds, ObjectUtils.asMap("resource_type", resourceType));
+            Map<?, ?> statuses = result.get("deleted") instanceof Map<?, ?> map ? map : Map.of();
+            return publicIds.stream()
+                    .filter(id -> !"deleted".equals(statuses.get(id)) && !"not_found".equals(statuses.get(id)))
+                    .toList();
+        } catch (Exception e) {
+            logger.error("Bulk delete {} {} resource thất bại: {}", publicIds.size(), resourceType, e.getMessage(), e);
+            return publicIds;
+        }
+    }
+
+    @Override
+    public int maxDeleteBatch() {
+        return BULK_DELETE_LIMIT;
+    }
+
+    @Override
+    public String publicIdOf(String url) {
+        try {
+            if (url == null || !url.contains("cloudinary.com")) {
+                return null;
+            }
+            int uploadIndex = url.indexOf("/upload/");
+            if (uploadIndex == -1) return null;
+            String afterUpload = url.substring(uploadIndex + 8);
+            if (afterUpload.startsWith("v") && afterUpload.contains("/")) {
+                int slashIndex = afterUpload.indexOf('/');
+                afterUpload = afterUpload.substring(slashIndex + 1);
+            }
+            int dotIndex = afterUpload.lastIndexOf('.');
+            if (dotIndex != -1) {
+                afterUpload = afterUpload.substring(0, dotIndex);
+            }
+            return afterUpload;
+        } catch (Exception e) {
+            logger.error("Error extracting public ID from URL: {}", url, e);
+            return null;
+        }
+    }
+
+    /**
+     * URL Cloudinary có dạng .../{cloud}/{resource_type}/upload/..., mặc định là image
+     */
+    @Override
+    public String resourceTypeOf(String url) {
+        int uploadIndex = url == null ? -1 : url.indexOf("/upload/");
+        if (uploadIndex <= 0) {
+            return "image";
+        }
+        String type = url.substring(url.lastIndexOf('/', uploadIndex - 1) + 1, uploadIndex);
+        return type.equals("video") || type.equals("raw") ? type : "image";
+    }
+}
@@ -6,6 +6,14 @@ import swd.coiviet.repository.CultureItemRepository;
 import swd.coiviet.service.CultureItemService;
 import swd.coiviet.enums.CultureCategory;
 import swd.coiviet.enums.PublicationStatus;
+import org.springframework.data.domain.Limit;
+import swd.coiviet.dto.response.CultureItemSummaryResponse;
+import swd.coiviet.dto.response.CursorPageResponse;
+import org.springframework.context.ApplicationEventPublisher;
+import swd.coiviet.event.CatalogChangedEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import swd.coiviet.configuration.CacheNames;
 
 import java.util.List;
 import java.util.Optional;
@@ -13,37 +21,65 @@ import java.util.Optional;
 @Service
 public class CultureItemServiceImpl implements CultureItemService {
     private final CultureItemRepository repo;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public CultureItemServiceImpl(CultureItemRepository repo) { this.repo = repo; }
+    public CultureItemServiceImpl(CultureItemRepository repo, ApplicationEventPublisher eventPublisher) {
+        this.repo = repo;
+        this.eventPublisher = eventPublisher;
+    }
 
     @Override
-    public CultureItem save(CultureItem item) { return repo.save(item); }
+    @CacheEvict(cacheNames = {CacheNames.CULTURE_ITEMS, CacheNames.CULTURE_ITEM_LISTS}, allEntries = true)
+    public CultureItem save(CultureItem item) {
+        CultureItem saved = repo.save(item);
+        eventPublisher.publishEvent(new CatalogChangedEvent(CultureItem.class, saved.getId()));
+        return saved;
+    }
 
     @Override
+    @Cacheable(cacheNames = CacheNames.CULTURE_ITEMS, key = "#id", unless = "#result == null")
     public Optional<CultureItem> findById(Long id) { return repo.findById(id); }
 
     @Override
     public List<CultureItem> findAll() { return repo.findAll(); }
 
     @Override
+    @Cacheable(cacheNames = CacheNames.CULTURE_ITEM_LISTS, key = "'province:' + #provinceId")
     public List<CultureItem> findAllByProvinceId(Long provinceId) { return repo.findByProvinceId(provinceId); }
 
     @Override
+    @Cacheable(cacheNames = CacheNames.CULTURE_ITEM_LISTS, key = "'category:' + #category")
     public List<CultureItem> findByCategory(CultureCategory category) { return repo.findByCategory(category); }
 
     @Override
+    @Cacheable(cacheNames = CacheNames.CULTURE_ITEM_LISTS, key = "'province:' + #provinceId + ':category:' + #category")
     public List<CultureItem> findByProvinceIdAndCategory(Long provinceId, CultureCategory category) {
         return repo.findByProvinceIdAndCategory(provinceId, category);
     }
 
     @Override
+    @Cacheable(cacheNames = CacheNames.CULTURE_ITEM_LISTS, key = "'status:' + #status")
     public List<CultureItem> findByStatus(PublicationStatus status) { return repo.findByStatus(status); }
 
     @Override
+    @Cacheable(cacheNames = CacheNames.CULTURE_ITEM_LISTS, key = "'province:' + #provinceId + ':status:' + #status")
     public List<CultureItem> findByProvinceIdAndStatus(Long provinceId, PublicationStatus status) {
         return repo.findByProvinceIdAndStatus(provinceId, status);
     }
 
     @Override
-    public void deleteById(Long id) { repo.deleteById(id); }
+    @CacheEvict(cacheNames = {CacheNames.CULTURE_ITEMS, CacheNames.CULTURE_ITEM_LISTS}, allEntries = true)
+    public void deleteById(Long id) {
+        repo.deleteById(id);
+        eventPublisher.publishEvent(new CatalogChangedEvent(CultureItem.class, id));
+    }
+
+    @Override
+    public CursorPageResponse<CultureItemSummaryResponse> findPublishedPage(Long cursor, Integer size, Long provinceId,
+                                                                            CultureCategory category) {
+        int pageSize = CursorPageResponse.normalizeSize(size);
+        List<CultureItemSummaryResponse> rows = repo.findSummaryPage(PublicationStatus.PUBLISHED, cursor, provinceId,
+                category, Limit.of(pageSize + 1));
+        return CursorPageResponse.of(rows, pageSize, CultureItemSummaryResponse::getId);
+    }
 }
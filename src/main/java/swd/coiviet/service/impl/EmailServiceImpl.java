@@ -7,6 +7,7 @@ import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 import swd.coiviet.service.EmailService;
+import swd.coiviet.service.OutboxService;
 
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
@@ -19,28 +20,33 @@ public class EmailServiceImpl implements EmailService {
     @Autowired(required = false)
     private JavaMailSender mailSender;
 
+    private final OutboxService outboxService;
+
+    public EmailServiceImpl(OutboxService outboxService) {
+        this.outboxService = outboxService;
+    }
+
     @Override
     public void sendEmail(String to, String subject, String body) {
+        outboxService.enqueueEmail(to, subject, body);
+    }
+
+    @Override
+    public void deliverEmail(String to, String subject, String body) throws MessagingException {
         if (mailSender == null) {
             logger.warn("JavaMailSender not configured, skipping email to: {}", to);
             return;
         }
 
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(body, true); // HTML content
-            
-            mailSender.send(message);
-            logger.info("Email sent successfully to: {}", to);
-        } catch (MessagingException e) {
-            logger.error("Failed to send email to {}: {}", to, e.getMessage(), e);
-        } catch (Exception e) {
-            logger.error("Unexpected error sending email to {}: {}", to, e.getMessage(), e);
-        }
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+
+        helper.setTo(to);
+        helper.setSubject(subject);
+        helper.setText(body, true); // HTML content
+
+        mailSender.send(message);
+        logger.info("Email sent successfully to: {}", to);
     }
 
     @Override
@@ -0,0 +1,88 @@
+package swd.coiviet.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import swd.coiviet.service.MessageFanoutTransport;
+import swd.coiviet.service.UserMessagePublisher;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Broker trong JVM kèm phát tán giữa các instance: gửi ngay cho kết nối trên instance này,
+ * đồng thời phát qua transport để instance khác gửi cho kết nối của họ.
+ * Payload vượt giới hạn của transport được thay bằng {"refetch": true, "id": ...} trên cùng destination
+ * để client ở instance khác tải lại qua REST thay vì mất tin
+ */
+public class FanoutUserMessagePublisher implements UserMessagePublisher {
+    private static final Logger logger = LoggerFactory.getLogger(FanoutUserMessagePublisher.class);
+
+    private final UserMessagePublisher localPublisher;
+    private final Predicate<Long> connectedLocally;
+    private final MessageFanoutTransport transport;
+    private final ObjectMapper objectMapper;
+    // Dùng để bỏ qua thông báo do chính instance này phát
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public FanoutUserMessagePublisher(UserMessagePublisher localPublisher,
+                                      Predicate<Long> connectedLocally,
+                                      MessageFanoutTransport transport,
+                                      ObjectMapper objectMapper) {
+        this.localPublisher = localPublisher;
+        this.connectedLocally = connectedLocally;
+        this.transport = transport;
+        this.objectMapper = objectMapper;
+        transport.subscribe(this::onMessage);
+    }
+
+    @Override
+    public void sendToUser(Long userId, String destination, Object payload) {
+        if (connectedLocally.test(userId)) {
+            localPublisher.sendToUser(userId, destination, payload);
+        }
+        ObjectNode envelope = objectMapper.createObjectNode();
+        envelope.put("o", nodeId);
+        envelope.put("u", userId);
+        envelope.put("d", destination);
+        JsonNode tree = objectMapper.valueToTree(payload);
+        envelope.set("p", tree);
+        String body = envelope.toString();
+        if (body.getBytes(StandardCharsets.UTF_8).length > transport.maxPayloadBytes()) {
+            logger.debug("Tin nhắn tới user {} vượt {} byte, phát bản refetch sang instance khác",
+                    userId, transport.maxPayloadBytes());
+            envelope.remove("p");
+            envelope.set("r", tree.path("id").isNumber() ? tree.get("id") : NullNode.getInstance());
+            body = envelope.toString();
+        }
+        try {
+            transport.publish(body);
+        } catch (RuntimeException e) {
+            logger.warn("Không phát được tin nhắn tới user {} sang instance khác: {}", userId, e.getMessage());
+        }
+    }
+
+    private void onMessage(String body) {
+        try {
+            JsonNode envelope = objectMapper.readTree(body);
+            if (nodeId.equals(envelope.path("o").asText())) {
+                return;
+            }
+            long userId = envelope.path("u").asLong();
+            if (!connectedLocally.test(userId)) {
+                return;
+            }
+            JsonNode payload = envelope.get("p");
+            if (payload == null && envelope.has("r")) {
+                payload = objectMapper.createObjectNode().put("refetch", true).set("id", envelope.get("r"));
+            }
+            localPublisher.sendToUser(userId, envelope.path("d").asText(), payload);
+        } catch (Exception e) {
+            logger.warn("Bỏ qua thông báo STOMP không hợp lệ: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package swd.coiviet.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+import swd.coiviet.dto.response.ApiResponse;
+import swd.coiviet.dto.response.HomePageResponse;
+import swd.coiviet.dto.response.HomePageSnapshot;
+import swd.coiviet.enums.PublicationStatus;
+import swd.coiviet.enums.Status;
+import swd.coiviet.event.CatalogChangedEvent;
+import swd.coiviet.exception.AppException;
+import swd.coiviet.exception.ErrorCode;
+import swd.coiviet.repository.ArtisanRepository;
+import swd.coiviet.repository.BlogPostRepository;
+import swd.coiviet.repository.CultureItemRepository;
+import swd.coiviet.repository.ProvinceRepository;
+import swd.coiviet.repository.TourRepository;
+import swd.coiviet.repository.VideoRepository;
+import swd.coiviet.service.HomePageSnapshotService;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class HomePageSnapshotServiceImpl implements HomePageSnapshotService {
+    private static final Logger logger = LoggerFactory.getLogger(HomePageSnapshotServiceImpl.class);
+
+    private final ProvinceRepository provinceRepo;
+    private final TourRepository tourRepo;
+    private final BlogPostRepository blogPostRepo;
+    private final VideoRepository videoRepo;
+    private final ArtisanRepository artisanRepo;
+    private final CultureItemRepository cultureItemRepo;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final int maxLimit;
+
+    // Tăng mỗi khi catalog thay đổi; snapshot build ở generation cũ coi như hết hạn
+    private final AtomicLong generation = new AtomicLong();
+    private final ConcurrentHashMap<Integer, HomePageSnapshot> snapshots = new ConcurrentHashMap<>();
+    // Lần build đang chạy của mỗi limit: chỉ một request query DB, không giữ khóa của map trong lúc build
+    private final ConcurrentHashMap<Integer, CompletableFuture<HomePageSnapshot>> builds = new ConcurrentHashMap<>();
+
+    public HomePageSnapshotServiceImpl(ProvinceRepository provinceRepo, TourRepository tourRepo,
+                                       BlogPostRepository blogPostRepo, VideoRepository videoRepo,
+                                       ArtisanRepository artisanRepo, CultureItemRepository cultureItemRepo,
+                                       ObjectMapper objectMapper,
+                                       @Value("${app.home.ttl:PT60S}") Duration ttl,
+                                       @Value("${app.home.max-limit:50}") int maxLimit) {
+        this.provinceRepo = provinceRepo;
+        this.tourRepo = tourRepo;
+        this.blogPostRepo = blogPostRepo;
+        this.videoRepo = videoRepo;
+        this.artisanRepo = artisanRepo;
+        this.cultureItemRepo = cultureItemRepo;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.maxLimit = maxLimit;
+    }
+
+    @Override
+    public HomePageSnapshot getSnapshot(int limit) {
+        int key = Math.max(1, Math.min(limit, maxLimit));
+        HomePageSnapshot current = snapshots.get(key);
+        if (isFresh(current)) {
+            return current;
+        }
+        CompletableFuture<HomePageSnapshot> mine = new CompletableFuture<>();
+        CompletableFuture<HomePageSnapshot> running = builds.putIfAbsent(key, mine);
+        if (running != null) {
+            // Request khác đang build: trả bản cũ nếu có, chỉ chờ khi chưa từng build
+            return current != null ? current : await(running);
+        }
+        try {
+            HomePageSnapshot latest = snapshots.get(key);
+            HomePageSnapshot built = isFresh(latest) ? latest : build(key);
+            snapshots.put(key, built);
+            mine.complete(built);
+            return built;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            builds.remove(key, mine);
+        }
+    }
+
+    @Override
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        invalidate();
+    }
+
+    private static HomePageSnapshot await(CompletableFuture<HomePageSnapshot> build) {
+        try {
+            return build.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private boolean isFresh(HomePageSnapshot snapshot) {
+        return snapshot != null
+                && snapshot.getGeneration() == generation.get()
+                && snapshot.getBuiltAt().plus(ttl).isAfter(Instant.now());
+    }
+
+    private HomePageSnapshot build(int limit) {
+        // Đọc generation trước khi query để thay đổi xảy ra trong lúc build vẫn làm snapshot hết hạn
+        long gen = generation.get();
+        Limit top = Limit.of(limit);
+        HomePageResponse data = HomePageResponse.builder()
+                .provinces(provinceRepo.findAll())
+                .featuredTours(tourRepo.findFeatured(Status.ACTIVE, top))
+                .featuredBlogs(blogPostRepo.findLatest(PublicationStatus.PUBLISHED, top))
+                .featuredVideos(videoRepo.findLatest(PublicationStatus.PUBLISHED, top))
+                .featuredArtisans(artisanRepo.findTopRatedActive(top))
+                .featuredCultureItems(cultureItemRepo.findLatest(PublicationStatus.PUBLISHED, top))
+                .build();
+        try {
+            // ETag tính trên phần data để không đổi khi chỉ có timestamp của ApiResponse thay đổi
+            String etag = "\"" + DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(data)) + "\"";
+            byte[] body = objectMapper.writeValueAsBytes(ApiResponse.success(data));
+            logger.debug("Built home page snapshot limit={} generation={} bytes={}", limit, gen, body.length);
+            return new HomePageSnapshot(body, etag, Instant.now(), gen);
+        } catch (JsonProcessingException e) {
+            throw new AppException(ErrorCode.INTERNAL_SERVER_ERROR, "Không thể tạo dữ liệu trang chủ");
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package swd.coiviet.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.w3c.dom.Node;
+import swd.coiviet.service.ImageProcessingService;
+
+import javax.imageio.IIOException;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+@Service
+public class ImageProcessingServiceImpl implements ImageProcessingService {
+    private static final Logger logger = LoggerFactory.getLogger(ImageProcessingServiceImpl.class);
+
+    // Chất lượng khi mã hóa lại: Cloudinary còn áp q_auto nên giữ cao để không nén hai lần quá tay
+    private static final float QUALITY = 0.9f;
+    private static final String JPEG_METADATA = "javax_imageio_jpeg_image_1.0";
+    private static final int EXIF_MARKER = 0xE1;
+    private static final int ORIENTATION_TAG = 0x0112;
+
+    private final ThreadPoolTaskExecutor imageExecutor;
+    private final MeterRegistry meterRegistry;
+
+    public ImageProcessingServiceImpl(@Qualifier("imageProcessingExecutor") ThreadPoolTaskExecutor imageExecutor,
+                                      MeterRegistry meterRegistry) {
+        this.imageExecutor = imageExecutor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Path downscale(Path source, String transformation) {
+        LocalImagePipeline.Spec spec = LocalImagePipeline.Spec.parse(transformation);
+        if (spec.width() == null && spec.height() == null) {
+            return null;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "skipped";
+        Future<Path> future = null;
+        try {
+            future = imageExecutor.submit(() -> process(source, spec));
+            Path result = future.get();
+            if (result != null) {
+                outcome = "resized";
+                meterRegistry.summary("media.image.bytes.saved").record(Files.size(source) - Files.size(result));
+            }
+            return result;
+        } catch (TaskRejectedException e) {
+            // Pool CPU đã đầy: upload ảnh gốc thay vì để request thread tự giải mã và vượt giới hạn CPU
+            outcome = "rejected";
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            outcome = "failed";
+            return null;
+        } catch (ExecutionException | IOException e) {
+            outcome = "failed";
+            logger.warn("Could not downscale {}: {}", source, e.getMessage());
+            return null;
+        } finally {
+            sample.stop(meterRegistry.timer("media.image.process", "outcome", outcome));
+        }
+    }
+
+    /**
+     * Đọc ảnh theo luồng từ đĩa và chỉ giải mã mỗi n pixel (subsampling) để ảnh 12MP không nằm
+     * nguyên trong heap, rồi thu nhỏ mịn tới kích thước đích
+     */
+    private Path process(Path source, LocalImagePipeline.Spec spec) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                // GIF có thể là ảnh động, để Cloudinary xử lý
+                if ("gif".equalsIgnoreCase(reader.getFormatName())) {
+                    return null;
+                }
+                reader.setInput(in, true, false);
+                int orientation = exifOrientation(reader);
+                // Ảnh lật gương hiếm gặp: giữ nguyên file để Cloudinary tự xoay theo EXIF
+                if (orientation != 1 && orientation != 3 && orientation != 6 && orientation != 8) {
+                    return null;
+                }
+                boolean quarterTurn = orientation == 6 || orientation == 8;
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                int[] target = quarterTurn
+                        ? swap(LocalImagePipeline.targetSize(height, width, spec))
+                        : LocalImagePipeline.targetSize(width, height, spec);
+                if (target[0] >= width) {
+                    return null;
+                }
+                // Giải mã ở khoảng gấp đôi kích thước đích rồi thu nhỏ tiếp cho mịn
+                int subsampling = Math.max(1, Math.min(width / target[0], height / target[1]) / 2);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage image = rotate(reader.read(0, param), orientation);
+                int[] size = quarterTurn ? swap(target) : target;
+                BufferedImage scaled = size[0] < image.getWidth()
+                        ? LocalImagePipeline.scale(image, size[0], size[1])
+                        : image;
+
+                Path output = Files.createTempFile("coiviet-image-", ".tmp");
+                try (OutputStream out = Files.newOutputStream(output)) {
+                    LocalImagePipeline.write(scaled, new LocalImagePipeline.Spec(null, null, false, null, QUALITY), out);
+                }
+                // Ảnh đã nén kỹ sẵn: bản mới không nhỏ hơn thì gửi bản gốc
+                if (Files.size(output) >= Files.size(source)) {
+                    Files.deleteIfExists(output);
+                    return null;
+                }
+                return output;
+            } catch (IIOException e) {
+                // CMYK, JPEG hỏng...: Cloudinary vẫn đọc được
+                logger.debug("ImageIO could not decode {}: {}", source, e.getMessage());
+                return null;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static int[] swap(int[] size) {
+        return new int[]{size[1], size[0]};
+    }
+
+    private static BufferedImage rotate(BufferedImage image, int orientation) {
+        if (orientation == 1) {
+            return image;
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean quarterTurn = orientation == 6 || orientation == 8;
+        AffineTransform transform = new AffineTransform();
+        if (orientation == 3) {
+            transform.translate(width, height);
+            transform.rotate(Math.PI);
+        } else if (orientation == 6) {
+            transform.translate(height, 0);
+            transform.rotate(Math.PI / 2);
+        } else {
+            transform.translate(0, width);
+            transform.rotate(-Math.PI / 2);
+        }
+        BufferedImage rotated = new BufferedImage(quarterTurn ? height : width, quarterTurn ? width : height,
+                image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rotated.createGraphics();
+        g.drawImage(image, transform, null);
+        g.dispose();
+        return rotated;
+    }
+
+    /**
+     * Đọc tag Orientation trong segment EXIF (APP1) của JPEG; ảnh khác hoặc không có EXIF là 1
+     */
+    private static int exifOrientation(ImageReader reader) {
+        try {
+            IIOMetadata metadata = reader.getImageMetadata(0);
+            if (metadata == null || !JPEG_METADATA.equals(metadata.getNativeMetadataFormatName())) {
+                return 1;
+            }
+            Node markers = ((IIOMetadataNode) metadata.getAsTree(JPEG_METADATA)).getElementsByTagName("markerSequence").item(0);
+            for (Node marker = markers == null ? null : markers.getFirstChild(); marker != null; marker = marker.getNextSibling()) {
+                if (marker instanceof IIOMetadataNode node && "unknown".equals(node.getNodeName())
+                        && String.valueOf(EXIF_MARKER).equals(node.getAttribute("MarkerTag"))
+                        && node.getUserObject() instanceof byte[] data) {
+                    return orientation(data);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Could not read EXIF orientation: {}", e.getMessage());
+        }
+        return 1;
+    }
+
+    // "Exif\0\0" + TIFF header + IFD0: mỗi entry 12 byte (tag, type, count, value)
+    private static int orientation(byte[] data) {
+        if (data.length < 14 || data[0] != 'E' || data[1] != 'x' || data[2] != 'i' || data[3] != 'f') {
+            return 1;
+        }
+        ByteBuffer tiff = ByteBuffer.wrap(data, 6, data.length - 6).slice();
+        tiff.order(tiff.get(0) == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        int ifd = tiff.getInt(4);
+        if (ifd < 8 || ifd + 2 > tiff.limit()) {
+            return 1;
+        }
+        int entries = tiff.getShort(ifd) & 0xFFFF;
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > tiff.limit()) {
+                break;
+            }
+            if ((tiff.getShort(entry) & 0xFFFF) == ORIENTATION_TAG) {
+                return tiff.getShort(entry + 8) & 0xFFFF;
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,147 @@
+package swd.coiviet.service.impl;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Áp transformation dạng Cloudinary (PRESETS của CloudinaryService) bằng Java2D/ImageIO.
+ * Hỗ trợ w_, h_, c_scale, c_fill, q_auto và f_jpg/f_png/f_auto; g_face cắt giữa ảnh. Không phóng to ảnh nhỏ
+ */
+final class LocalImagePipeline {
+    // Chất lượng JPEG tương đương q_auto
+    private static final float AUTO_QUALITY = 0.8f;
+
+    private LocalImagePipeline() {
+    }
+
+    record Spec(Integer width, Integer height, boolean fill, String format, Float quality) {
+        static Spec parse(String transformation) {
+            Integer width = null;
+            Integer height = null;
+            boolean fill = false;
+            String format = null;
+            Float quality = null;
+            if (transformation != null) {
+                for (String token : transformation.split(",")) {
+                    String value = token.length() > 2 ? token.substring(2) : "";
+                    if (token.startsWith("w_")) width = Integer.valueOf(value);
+                    else if (token.startsWith("h_")) height = Integer.valueOf(value);
+                    else if (token.equals("c_fill")) fill = true;
+                    else if (token.startsWith("f_")) format = value;
+                    else if (token.startsWith("q_")) quality = value.equals("auto") ? AUTO_QUALITY : Integer.parseInt(value) / 100f;
+                }
+            }
+            return new Spec(width, height, fill, format, quality);
+        }
+    }
+
+    /**
+     * @return ảnh đã giải mã, null nếu ImageIO không đọc được định dạng này
+     */
+    static BufferedImage read(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return ImageIO.read(in);
+        }
+    }
+
+    static BufferedImage resize(BufferedImage image, Spec spec) {
+        int[] size = targetSize(image.getWidth(), image.getHeight(), spec);
+        BufferedImage scaled = size[0] < image.getWidth() ? scale(image, size[0], size[1]) : image;
+        if (!spec.fill() || spec.width() == null || spec.height() == null) {
+            return scaled;
+        }
+        int cropWidth = Math.min(spec.width(), scaled.getWidth());
+        int cropHeight = Math.min(spec.height(), scaled.getHeight());
+        return scaled.getSubimage((scaled.getWidth() - cropWidth) / 2, (scaled.getHeight() - cropHeight) / 2, cropWidth, cropHeight);
+    }
+
+    /**
+     * Kích thước sau khi thu nhỏ, trước khi cắt (c_fill phủ kín khung, c_scale vừa trong khung)
+     * @return {width, height}, bằng kích thước gốc nếu spec không thu nhỏ
+     */
+    static int[] targetSize(int sourceWidth, int sourceHeight, Spec spec) {
+        double scaleX = spec.width() == null ? Double.NaN : spec.width() / (double) sourceWidth;
+        double scaleY = spec.height() == null ? Double.NaN : spec.height() / (double) sourceHeight;
+        double scale;
+        if (Double.isNaN(scaleX) && Double.isNaN(scaleY)) {
+            scale = 1.0;
+        } else if (Double.isNaN(scaleX)) {
+            scale = scaleY;
+        } else if (Double.isNaN(scaleY)) {
+            scale = scaleX;
+        } else {
+            scale = spec.fill() ? Math.max(scaleX, scaleY) : Math.min(scaleX, scaleY);
+        }
+        scale = Math.min(scale, 1.0);
+        return new int[]{
+                Math.max(1, (int) Math.round(sourceWidth * scale)),
+                Math.max(1, (int) Math.round(sourceHeight * scale))
+        };
+    }
+
+    /**
+     * Ghi ảnh theo định dạng của spec
+     * @return phần mở rộng của file đã ghi (jpg hoặc png)
+     */
+    static String write(BufferedImage image, Spec spec, OutputStream out) throws IOException {
+        boolean png = "png".equals(spec.format())
+                || (!"jpg".equals(spec.format()) && image.getColorModel().hasAlpha());
+        if (png) {
+            ImageIO.write(image, "png", out);
+            return "png";
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(spec.quality() == null ? AUTO_QUALITY : spec.quality());
+            writer.write(null, new IIOImage(toRgb(image), null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return "jpg";
+    }
+
+    // Thu nhỏ từng nửa một với bilinear: nhanh hơn bicubic một bước mà không bị răng cưa khi giảm nhiều lần
+    static BufferedImage scale(BufferedImage image, int width, int height) {
+        BufferedImage current = image;
+        int currentWidth = image.getWidth();
+        int currentHeight = image.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight,
+                    image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            g.dispose();
+            current = next;
+        } while (currentWidth != width || currentHeight != height);
+        return current;
+    }
+
+    private static BufferedImage toRgb(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB) {
+            return image;
+        }
+        BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        g.drawImage(image, 0, 0, Color.WHITE, null);
+        g.dispose();
+        return rgb;
+    }
+}
@@ -0,0 +1,179 @@
+package swd.coiviet.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import swd.coiviet.service.MediaStore;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Lưu media trên đĩa local, phục vụ qua LocalMediaController. Dùng cho dev, CI và máy test on-prem
+ * để chạy luồng upload mà không cần Cloudinary
+ */
+@Component
+@ConditionalOnProperty(name = "app.media.store", havingValue = "local")
+public class LocalMediaStore implements MediaStore {
+    private static final Logger logger = LoggerFactory.getLogger(LocalMediaStore.class);
+
+    private static final int DELETE_BATCH = 1000;
+
+    private final Path root;
+    private final String baseUrl;
+
+    public LocalMediaStore(@Value("${app.media.local.root:}") String root,
+                           @Value("${app.media.local.base-url:/api/public/media}") String baseUrl) throws IOException {
+        this.root = (root == null || root.isBlank()
+                ? Paths.get(System.getProperty("java.io.tmpdir"), "coiviet-media")
+                : Paths.get(root)).toAbsolutePath().normalize();
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        Files.createDirectories(this.root);
+        logger.info("Local media store at {}, served from {}", this.root, this.baseUrl);
+    }
+
+    @Override
+    public StoredMedia upload(Path file, String resourceType, String folder, String transformation) throws IOException {
+        String publicId = folder + "/" + UUID.randomUUID().toString().replace("-", "");
+        Path dir = resolve(resourceType, folder);
+        Files.createDirectories(dir);
+        // Ghi vào file tạm cùng thư mục rồi đổi tên: request đọc song song không bao giờ thấy file dở
+        Path partial = Files.createTempFile(dir, ".upload-", ".part");
+        try {
+            String extension = "image".equals(resourceType) ? writeImage(file, transformation, partial) : null;
+            if (extension == null) {
+                copy(file, partial);
+                extension = sniffExtension(partial);
+            }
+            Path target = resolve(resourceType, publicId + "." + extension);
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+            return new StoredMedia(baseUrl + "/" + resourceType + "/" + publicId + "." + extension, publicId, resourceType);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    @Override
+    public List<String> delete(String resourceType, List<String> publicIds) {
+        List<String> failed = new ArrayList<>();
+        for (String publicId : publicIds) {
+            try {
+                Path file = resolve(resourceType, publicId);
+                if (!Files.isDirectory(file.getParent())) {
+                    continue;
+                }
+                try (DirectoryStream<Path> matches = Files.newDirectoryStream(file.getParent(), file.getFileName() + ".*")) {
+                    for (Path match : matches) {
+                        Files.deleteIfExists(match);
+                    }
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                logger.warn("Không thể xóa media {} {}: {}", resourceType, publicId, e.getMessage());
+                failed.add(publicId);
+            }
+        }
+        return failed;
+    }
+
+    @Override
+    public int maxDeleteBatch() {
+        return DELETE_BATCH;
+    }
+
+    @Override
+    public String publicIdOf(String url) {
+        String path = relativePath(url);
+        if (path == null || path.indexOf('/') < 0) {
+            return null;
+        }
+        String publicId = path.substring(path.indexOf('/') + 1);
+        int dot = publicId.lastIndexOf('.');
+        return dot > publicId.lastIndexOf('/') ? publicId.substring(0, dot) : publicId;
+    }
+
+    @Override
+    public String resourceTypeOf(String url) {
+        String path = relativePath(url);
+        return path == null || path.indexOf('/') < 0 ? "image" : path.substring(0, path.indexOf('/'));
+    }
+
+    /**
+     * Đường dẫn trên đĩa của media, không cho thoát ra ngoài thư mục gốc
+     */
+    public Path resolve(String resourceType, String path) {
+        if (!"image".equals(resourceType) && !"video".equals(resourceType)) {
+            throw new IllegalArgumentException("Invalid resource type: " + resourceType);
+        }
+        Path resolved = root.resolve(resourceType).resolve(path).normalize();
+        if (!resolved.startsWith(root.resolve(resourceType))) {
+            throw new IllegalArgumentException("Invalid media path: " + path);
+        }
+        return resolved;
+    }
+
+    private String relativePath(String url) {
+        return url != null && url.startsWith(baseUrl + "/") ? url.substring(baseUrl.length() + 1) : null;
+    }
+
+    /**
+     * @return phần mở rộng, null nếu không giải mã được ảnh (ghi nguyên file)
+     */
+    private String writeImage(Path file, String transformation, Path target) throws IOException {
+        BufferedImage image = LocalImagePipeline.read(file);
+        if (image == null) {
+            return null;
+        }
+        LocalImagePipeline.Spec spec = LocalImagePipeline.Spec.parse(transformation);
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             OutputStream out = Channels.newOutputStream(channel)) {
+            return LocalImagePipeline.write(LocalImagePipeline.resize(image, spec), spec, out);
+        }
+    }
+
+    // Chép giữa hai FileChannel: kernel chép thẳng, không qua buffer trên heap
+    private static void copy(Path source, Path target) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+        }
+    }
+
+    // File spool không còn tên gốc: đoán định dạng từ vài byte đầu như Cloudinary
+    private static String sniffExtension(Path file) throws IOException {
+        byte[] head = new byte[12];
+        int read;
+        try (InputStream in = Files.newInputStream(file)) {
+            read = in.readNBytes(head, 0, head.length);
+        }
+        String ascii = new String(head, 0, read, StandardCharsets.ISO_8859_1);
+        if (read >= 12 && ascii.startsWith("ftyp", 4)) {
+            return ascii.startsWith("M4A", 8) ? "m4a" : ascii.startsWith("qt", 8) ? "mov" : "mp4";
+        }
+        if (ascii.startsWith("ID3") || (read >= 2 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xE0) == 0xE0)) return "mp3";
+        if (ascii.startsWith("RIFF") && ascii.startsWith("WAVE", 8)) return "wav";
+        if (ascii.startsWith("RIFF") && ascii.startsWith("WEBP", 8)) return "webp";
+        if (ascii.startsWith("OggS")) return "ogg";
+        if (read >= 4 && (head[0] & 0xFF) == 0x1A && (head[1] & 0xFF) == 0x45 && (head[2] & 0xFF) == 0xDF && (head[3] & 0xFF) == 0xA3) return "webm";
+        return "bin";
+    }
+}
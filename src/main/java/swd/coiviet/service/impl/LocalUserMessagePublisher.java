@@ -0,0 +1,21 @@
+package swd.coiviet.service.impl;
+
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import swd.coiviet.service.UserMessagePublisher;
+
+/**
+ * Gửi qua broker đã cấu hình: simple broker chỉ tới được kết nối trên JVM này,
+ * broker relay tự chuyển tới instance đang giữ kết nối của user
+ */
+public class LocalUserMessagePublisher implements UserMessagePublisher {
+    private final SimpMessagingTemplate messagingTemplate;
+
+    public LocalUserMessagePublisher(SimpMessagingTemplate messagingTemplate) {
+        this.messagingTemplate = messagingTemplate;
+    }
+
+    @Override
+    public void sendToUser(Long userId, String destination, Object payload) {
+        messagingTemplate.convertAndSendToUser(String.valueOf(userId), destination, payload);
+    }
+}
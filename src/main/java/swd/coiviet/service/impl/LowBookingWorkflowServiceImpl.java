@@ -0,0 +1,319 @@
+package swd.coiviet.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import swd.coiviet.dto.response.TourWorkflowRunResult;
+import swd.coiviet.enums.BookingStatus;
+import swd.coiviet.enums.TourScheduleStatus;
+import swd.coiviet.enums.TourWorkflowStage;
+import swd.coiviet.event.NotificationsCreatedEvent;
+import swd.coiviet.model.Notification;
+import swd.coiviet.model.TourSchedule;
+import swd.coiviet.model.TourScheduleStageLog;
+import swd.coiviet.model.Voucher;
+import swd.coiviet.repository.BookingRepository;
+import swd.coiviet.repository.NotificationRepository;
+import swd.coiviet.repository.TourRepository;
+import swd.coiviet.repository.TourScheduleRepository;
+import swd.coiviet.repository.TourScheduleStageLogRepository;
+import swd.coiviet.repository.VoucherRepository;
+import swd.coiviet.repository.projection.BookingRecipient;
+import swd.coiviet.repository.projection.TourRef;
+import swd.coiviet.service.EmailService;
+import swd.coiviet.service.LowBookingWorkflowService;
+import swd.coiviet.service.SchedulerLockService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Service
+public class LowBookingWorkflowServiceImpl implements LowBookingWorkflowService {
+    private static final Logger logger = LoggerFactory.getLogger(LowBookingWorkflowServiceImpl.class);
+
+    private static final int PROMOTE_DISCOUNT = 20;
+    private static final int ALERT_DISCOUNT = 30;
+    private static final BigDecimal SURCHARGE_RATE = new BigDecimal("0.20");
+
+    private final TourScheduleRepository scheduleRepo;
+    private final BookingRepository bookingRepo;
+    private final TourRepository tourRepo;
+    private final VoucherRepository voucherRepo;
+    private final NotificationRepository notificationRepo;
+    private final EmailService emailService;
+    private final TourScheduleStageLogRepository stageLogRepo;
+    private final SchedulerLockService schedulerLockService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public LowBookingWorkflowServiceImpl(TourScheduleRepository scheduleRepo,
+                                         BookingRepository bookingRepo,
+                                         TourRepository tourRepo,
+                                         VoucherRepository voucherRepo,
+                                         NotificationRepository notificationRepo,
+                                         EmailService emailService,
+                                         TourScheduleStageLogRepository stageLogRepo,
+                                         SchedulerLockService schedulerLockService,
+                                         ApplicationEventPublisher eventPublisher) {
+        this.scheduleRepo = scheduleRepo;
+        this.bookingRepo = bookingRepo;
+        this.tourRepo = tourRepo;
+        this.voucherRepo = voucherRepo;
+        this.notificationRepo = notificationRepo;
+        this.emailService = emailService;
+        this.stageLogRepo = stageLogRepo;
+        this.schedulerLockService = schedulerLockService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    @Transactional
+    public TourWorkflowRunResult processChunk(List<Long> scheduleIds, LocalDate today) {
+        TourWorkflowRunResult result = new TourWorkflowRunResult();
+        result.setChunks(1);
+
+        List<TourSchedule> promote = new ArrayList<>();
+        List<TourSchedule> alert = new ArrayList<>();
+        List<TourSchedule> cancel = new ArrayList<>();
+        List<TourSchedule> surcharge = new ArrayList<>();
+        // Kiểm tra lại trong transaction vì trạng thái có thể đã đổi từ lúc chọn ứng viên
+        for (TourSchedule schedule : scheduleRepo.findWithTourByIdInAndStatus(scheduleIds, TourScheduleStatus.SCHEDULED)) {
+            if (schedule.getTourDate() == null) continue;
+            int bookedSlots = schedule.getBookedSlots() != null ? schedule.getBookedSlots() : 0;
+            int maxSlots = schedule.getMaxSlots() != null ? schedule.getMaxSlots() : 0;
+            if (bookedSlots >= (int) (maxSlots * 0.5)) continue;
+
+            long daysUntilTour = ChronoUnit.DAYS.between(today, schedule.getTourDate());
+            if (daysUntilTour > 7) {
+                promote.add(schedule);
+            } else if (daysUntilTour >= 3 && daysUntilTour <= 5) {
+                alert.add(schedule);
+            } else if (daysUntilTour < 3) {
+                if (bookedSlots < maxSlots * 0.3) {
+                    cancel.add(schedule);
+                } else if (basePrice(schedule) != null) {
+                    surcharge.add(schedule);
+                }
+            }
+        }
+
+        Map<TourWorkflowStage, List<TourSchedule>> stages = new EnumMap<>(TourWorkflowStage.class);
+        stages.put(TourWorkflowStage.PROMOTE, promote);
+        stages.put(TourWorkflowStage.ALERT, alert);
+        stages.put(TourWorkflowStage.CANCEL, cancel);
+        stages.put(TourWorkflowStage.SURCHARGE, surcharge);
+        claimStages(stages, result);
+
+        List<TourSchedule> targets = new ArrayList<>(promote);
+        targets.addAll(alert);
+        targets.addAll(cancel);
+        targets.addAll(surcharge);
+        if (targets.isEmpty()) {
+            return result;
+        }
+
+        // Một truy vấn cho booking của cả chunk thay vì một truy vấn mỗi schedule
+        Map<Long, List<BookingRecipient>> recipients = bookingRepo.findRecipientsByScheduleIds(
+                        targets.stream().map(TourSchedule::getId).toList(), BookingStatus.CONFIRMED)
+                .stream()
+                .collect(Collectors.groupingBy(BookingRecipient::getScheduleId));
+
+        Map<Long, Voucher> vouchers = createVouchers(promote, alert);
+        List<Notification> notifications = new ArrayList<>();
+
+        for (TourSchedule schedule : promote) {
+            Voucher voucher = vouchers.get(schedule.getId());
+            for (BookingRecipient booking : recipientsOf(recipients, schedule)) {
+                sendLowBookingAlert(booking, schedule, voucher, PROMOTE_DISCOUNT, result);
+                notifications.add(NotificationTemplates.tourLowBooking(booking.getUserId(), schedule.getId(), schedule.getTour().getTitle()));
+                notifications.add(NotificationTemplates.voucher(booking.getUserId(), voucher.getCode(), PROMOTE_DISCOUNT + "%"));
+            }
+        }
+
+        Map<Long, List<TourRef>> alternativesByProvince = findAlternatives(alert);
+        for (TourSchedule schedule : alert) {
+            Voucher voucher = vouchers.get(schedule.getId());
+            List<TourRef> alternatives = alternativesByProvince
+                    .getOrDefault(provinceIdOf(schedule), Collections.emptyList()).stream()
+                    .filter(t -> !t.getId().equals(schedule.getTour().getId()))
+                    .limit(3)
+                    .toList();
+            List<String> alternativeTitles = alternatives.stream().map(TourRef::getTitle).toList();
+            for (BookingRecipient booking : recipientsOf(recipients, schedule)) {
+                sendLowBookingAlert(booking, schedule, voucher, ALERT_DISCOUNT, result);
+                if (booking.getContactEmail() != null && !alternativeTitles.isEmpty()) {
+                    emailService.sendAlternativeTourSuggestion(booking.getContactEmail(), schedule.getTour().getTitle(), alternativeTitles);
+                    result.setEmailsQueued(result.getEmailsQueued() + 1);
+                }
+                notifications.add(NotificationTemplates.tourLowBooking(booking.getUserId(), schedule.getId(), schedule.getTour().getTitle()));
+                notifications.add(NotificationTemplates.voucher(booking.getUserId(), voucher.getCode(), ALERT_DISCOUNT + "%"));
+                if (!alternatives.isEmpty()) {
+                    TourRef alternative = alternatives.get(0);
+                    notifications.add(NotificationTemplates.alternativeTourSuggestion(
+                            booking.getUserId(), alternative.getId(), alternative.getTitle()));
+                }
+            }
+        }
+
+        if (!cancel.isEmpty()) {
+            scheduleRepo.cancelScheduled(cancel.stream().map(TourSchedule::getId).toList());
+            for (TourSchedule schedule : cancel) {
+                for (BookingRecipient booking : recipientsOf(recipients, schedule)) {
+                    if (booking.getContactEmail() != null) {
+                        emailService.sendTourCancellationNotice(booking.getContactEmail(), schedule.getTour().getTitle(),
+                                schedule.getTourDate().toString(), "Không đủ số lượng người đăng ký");
+                        result.setEmailsQueued(result.getEmailsQueued() + 1);
+                    }
+                    notifications.add(NotificationTemplates.tourCancellation(booking.getUserId(), schedule.getId(), schedule.getTour().getTitle()));
+                    logger.info("Hủy booking {} do tour bị hủy", booking.getBookingCode());
+                }
+            }
+        }
+
+        for (TourSchedule schedule : surcharge) {
+            BigDecimal oldPrice = basePrice(schedule);
+            BigDecimal newPrice = oldPrice.multiply(BigDecimal.ONE.add(SURCHARGE_RATE));
+            BigDecimal surchargePerPerson = newPrice.subtract(oldPrice);
+            // UPDATE riêng cột giá để không ghi đè bookedSlots đang được giữ chỗ song song
+            scheduleRepo.updateCurrentPrice(schedule.getId(), newPrice);
+            for (BookingRecipient booking : recipientsOf(recipients, schedule)) {
+                BigDecimal amount = surchargePerPerson.multiply(BigDecimal.valueOf(
+                        booking.getNumParticipants() != null ? booking.getNumParticipants() : 0));
+                if (booking.getContactEmail() != null) {
+                    emailService.sendTourSurchargeNotice(booking.getContactEmail(), schedule.getTour().getTitle(),
+                            schedule.getTourDate().toString(), amount);
+                    result.setEmailsQueued(result.getEmailsQueued() + 1);
+                }
+                notifications.add(NotificationTemplates.tourSurcharge(booking.getUserId(), schedule.getId(),
+                        schedule.getTour().getTitle(), amount.toString()));
+            }
+        }
+
+        result.setNotificationsCreated(notificationRepo.insertAll(notifications));
+        eventPublisher.publishEvent(new NotificationsCreatedEvent(notifications));
+        result.setVouchersCreated(vouchers.size());
+        result.setPromoted(promote.size());
+        result.setAlerted(alert.size());
+        result.setCancelled(cancel.size());
+        result.setSurcharged(surcharge.size());
+        result.setSchedulesProcessed(targets.size());
+        return result;
+    }
+
+    /**
+     * Bỏ các schedule đã xử lý ở giai đoạn tương ứng và ghi sổ cho phần còn lại trong cùng transaction.
+     * Hai instance cùng xử lý một schedule thì unique (schedule, stage) làm chunk sau rollback
+     */
+    private void claimStages(Map<TourWorkflowStage, List<TourSchedule>> stages, TourWorkflowRunResult result) {
+        List<Long> scheduleIds = stages.values().stream().flatMap(List::stream).map(TourSchedule::getId).toList();
+        if (scheduleIds.isEmpty()) {
+            return;
+        }
+        Set<String> processed = stageLogRepo.findByScheduleIdIn(scheduleIds).stream()
+                .map(log -> log.getScheduleId() + ":" + log.getStage())
+                .collect(Collectors.toSet());
+
+        LocalDateTime now = LocalDateTime.now();
+        List<TourScheduleStageLog> logs = new ArrayList<>();
+        int skipped = 0;
+        for (Map.Entry<TourWorkflowStage, List<TourSchedule>> entry : stages.entrySet()) {
+            Iterator<TourSchedule> it = entry.getValue().iterator();
+            while (it.hasNext()) {
+                TourSchedule schedule = it.next();
+                if (processed.contains(schedule.getId() + ":" + entry.getKey())) {
+                    it.remove();
+                    skipped++;
+                } else {
+                    logs.add(TourScheduleStageLog.builder()
+                            .scheduleId(schedule.getId())
+                            .stage(entry.getKey())
+                            .processedBy(schedulerLockService.getInstanceId())
+                            .processedAt(now)
+                            .build());
+                }
+            }
+        }
+        result.setAlreadyProcessed(skipped);
+        if (!logs.isEmpty()) {
+            stageLogRepo.saveAllAndFlush(logs);
+        }
+    }
+
+    /**
+     * Voucher giảm giá cho tour schedule, hiệu lực đến hết ngày khởi hành
+     */
+    static Voucher scheduleVoucher(TourSchedule schedule, int discountPercent) {
+        String voucherCode = "TOUR" + schedule.getId() + "-" +
+                UUID.randomUUID().toString().substring(0, 6).toUpperCase();
+        return Voucher.builder()
+                .code(voucherCode)
+                .discountType("PERCENTAGE")
+                .discountValue(BigDecimal.valueOf(discountPercent))
+                .minPurchase(basePrice(schedule))
+                .maxUsage(100)
+                .currentUsage(0)
+                .validFrom(LocalDateTime.now())
+                .validUntil(schedule.getTourDate().atTime(LocalTime.MAX))
+                .isActive(true)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private Map<Long, Voucher> createVouchers(List<TourSchedule> promote, List<TourSchedule> alert) {
+        Map<Long, Voucher> vouchers = new HashMap<>();
+        promote.forEach(schedule -> vouchers.put(schedule.getId(), scheduleVoucher(schedule, PROMOTE_DISCOUNT)));
+        alert.forEach(schedule -> vouchers.put(schedule.getId(), scheduleVoucher(schedule, ALERT_DISCOUNT)));
+        if (!vouchers.isEmpty()) {
+            voucherRepo.saveAll(vouchers.values());
+        }
+        return vouchers;
+    }
+
+    private Map<Long, List<TourRef>> findAlternatives(List<TourSchedule> schedules) {
+        List<Long> provinceIds = schedules.stream()
+                .map(this::provinceIdOf)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (provinceIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return tourRepo.findRefsByProvinceIds(provinceIds).stream()
+                .collect(Collectors.groupingBy(TourRef::getProvinceId));
+    }
+
+    private void sendLowBookingAlert(BookingRecipient booking, TourSchedule schedule, Voucher voucher,
+                                     int discountPercent, TourWorkflowRunResult result) {
+        if (booking.getContactEmail() == null) return;
+        emailService.sendTourLowBookingAlert(booking.getContactEmail(), schedule.getTour().getTitle(),
+                schedule.getTourDate().toString(), voucher.getCode(), discountPercent);
+        result.setEmailsQueued(result.getEmailsQueued() + 1);
+    }
+
+    private List<BookingRecipient> recipientsOf(Map<Long, List<BookingRecipient>> recipients, TourSchedule schedule) {
+        return recipients.getOrDefault(schedule.getId(), Collections.emptyList());
+    }
+
+    private Long provinceIdOf(TourSchedule schedule) {
+        return schedule.getTour().getProvince() != null ? schedule.getTour().getProvince().getId() : null;
+    }
+
+    private static BigDecimal basePrice(TourSchedule schedule) {
+        return schedule.getCurrentPrice() != null ? schedule.getCurrentPrice() : schedule.getTour().getPrice();
+    }
+}
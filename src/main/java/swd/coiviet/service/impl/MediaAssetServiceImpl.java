@@ -0,0 +1,193 @@
+package swd.coiviet.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import swd.coiviet.model.MediaAsset;
+import swd.coiviet.repository.MediaAssetRepository;
+import swd.coiviet.service.MediaAssetService;
+import swd.coiviet.service.MediaStore;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+public class MediaAssetServiceImpl implements MediaAssetService {
+    private static final Logger logger = LoggerFactory.getLogger(MediaAssetServiceImpl.class);
+
+    private final MediaAssetRepository repo;
+    private final MediaStore mediaStore;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.media.gc-grace:PT10M}")
+    private Duration gcGrace;
+
+    @Value("${app.media.gc-batch-size:500}")
+    private int gcBatchSize;
+
+    public MediaAssetServiceImpl(MediaAssetRepository repo,
+                                 MediaStore mediaStore,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry) {
+        this.repo = repo;
+        this.mediaStore = mediaStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public String acquire(String contentHash, String variant) {
+        if (contentHash == null) {
+            return null;
+        }
+        String url = transactionTemplate.execute(status -> repo.acquire(contentHash, variant) > 0
+                ? repo.findByContentHashAndVariant(contentHash, variant).map(MediaAsset::getUrl).orElse(null)
+                : null);
+        meterRegistry.counter("media.asset.lookup", "outcome", url != null ? "hit" : "miss").increment();
+        return url;
+    }
+
+    @Override
+    public String register(String contentHash, String variant, String url, String publicId, String resourceType, long bytes) {
+        MediaAsset asset = MediaAsset.builder()
+                .contentHash(contentHash)
+                .variant(variant)
+                .url(url)
+                .publicId(publicId)
+                .resourceType(resourceType)
+                .bytes(bytes)
+                .refCount(1)
+                .createdAt(LocalDateTime.now())
+                .build();
+        try {
+            transactionTemplate.executeWithoutResult(status -> repo.saveAndFlush(asset));
+            return url;
+        } catch (DataIntegrityViolationException e) {
+            // Request khác vừa upload cùng nội dung: dùng asset đó, bản của mình thành rác
+            String existing = acquire(contentHash, variant);
+            if (existing == null) {
+                logger.warn("Không thể ghi nhận media asset {}: {}", url, e.getMessage());
+                return url;
+            }
+            saveOrphan(url, publicId, resourceType, variant);
+            return existing;
+        }
+    }
+
+    @Override
+    public void release(Collection<String> urls) {
+        if (urls == null || urls.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (String url : urls) {
+            if (url != null && !url.isBlank()) {
+                counts.merge(url.trim(), 1, Integer::sum);
+            }
+        }
+        if (counts.isEmpty()) {
+            return;
+        }
+        // Gom URL theo số lần bị bỏ để mỗi nhóm chỉ cần một câu UPDATE
+        Map<Integer, List<String>> byCount = counts.entrySet().stream().collect(Collectors.groupingBy(
+                Map.Entry::getValue, Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+        LocalDateTime now = LocalDateTime.now();
+        Set<String> known = transactionTemplate.execute(status -> {
+            byCount.forEach((count, group) -> repo.release(group, count, now));
+            return new HashSet<>(repo.findUrlsIn(counts.keySet()));
+        });
+        // URL upload trước khi có registry: trước đây bị xóa ngay, giờ chuyển cho GC
+        List<MediaAsset> legacy = new ArrayList<>();
+        for (String url : counts.keySet()) {
+            String publicId = mediaStore.publicIdOf(url);
+            if (publicId != null && (known == null || !known.contains(url))) {
+                String resourceType = mediaStore.resourceTypeOf(url);
+                legacy.add(orphan(url, publicId, resourceType, resourceType, now));
+            }
+        }
+        if (legacy.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> repo.saveAll(legacy));
+        } catch (DataIntegrityViolationException e) {
+            // Request khác vừa ghi một vài URL trong số này: ghi từng dòng, bỏ qua dòng trùng
+            legacy.forEach(asset -> saveOrphan(asset.getUrl(), asset.getPublicId(), asset.getResourceType(), asset.getVariant(), now));
+        }
+    }
+
+    @Override
+    public int collectGarbage() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(gcGrace);
+        // Xóa dòng trong cùng transaction với khóa: acquire chạy song song chờ khóa rồi thấy asset đã mất, tự upload lại
+        List<MediaAsset> batch = transactionTemplate.execute(status -> {
+            List<MediaAsset> due = repo.lockOrphansBefore(cutoff, gcBatchSize);
+            repo.deleteAllInBatch(due);
+            return due;
+        });
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+        List<MediaAsset> failed = new ArrayList<>();
+        Map<String, List<MediaAsset>> byType = batch.stream()
+                .collect(Collectors.groupingBy(MediaAsset::getResourceType, LinkedHashMap::new, Collectors.toList()));
+        byType.forEach((resourceType, assets) -> {
+            int limit = mediaStore.maxDeleteBatch();
+            for (int from = 0; from < assets.size(); from += limit) {
+                List<MediaAsset> chunk = assets.subList(from, Math.min(from + limit, assets.size()));
+                Set<String> failedIds = new HashSet<>(mediaStore.delete(resourceType,
+                        chunk.stream().map(MediaAsset::getPublicId).toList()));
+                chunk.stream().filter(asset -> failedIds.contains(asset.getPublicId())).forEach(failed::add);
+            }
+        });
+        // Xóa lỗi: ghi lại thành asset rác để lượt sau thử tiếp
+        LocalDateTime now = LocalDateTime.now();
+        for (MediaAsset asset : failed) {
+            saveOrphan(asset.getUrl(), asset.getPublicId(), asset.getResourceType(), asset.getVariant(), now);
+        }
+        int deleted = batch.size() - failed.size();
+        meterRegistry.counter("media.asset.gc", "outcome", "deleted").increment(deleted);
+        meterRegistry.counter("media.asset.gc", "outcome", "failed").increment(failed.size());
+        logger.info("GC media: xóa {} asset, {} lỗi", deleted, failed.size());
+        return deleted;
+    }
+
+    private void saveOrphan(String url, String publicId, String resourceType, String variant) {
+        saveOrphan(url, publicId, resourceType, variant, LocalDateTime.now());
+    }
+
+    private void saveOrphan(String url, String publicId, String resourceType, String variant, LocalDateTime orphanedAt) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> repo.saveAndFlush(orphan(url, publicId, resourceType, variant, orphanedAt)));
+        } catch (DataIntegrityViolationException e) {
+            // Đã nằm trong hàng chờ xóa
+            logger.debug("Media {} đã có trong registry", url);
+        }
+    }
+
+    private static MediaAsset orphan(String url, String publicId, String resourceType, String variant, LocalDateTime orphanedAt) {
+        return MediaAsset.builder()
+                .variant(variant)
+                .url(url)
+                .publicId(publicId)
+                .resourceType(resourceType)
+                .refCount(0)
+                .createdAt(orphanedAt)
+                .orphanedAt(orphanedAt)
+                .build();
+    }
+}
@@ -0,0 +1,470 @@
+package swd.coiviet.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import swd.coiviet.dto.response.MediaJobResponse;
+import swd.coiviet.enums.MediaField;
+import swd.coiviet.enums.MediaJobStatus;
+import swd.coiviet.enums.MediaJobTarget;
+import swd.coiviet.exception.AppException;
+import swd.coiviet.exception.ErrorCode;
+import swd.coiviet.model.MediaJob;
+import swd.coiviet.model.MediaJobPart;
+import swd.coiviet.model.UserMemory;
+import swd.coiviet.model.Video;
+import swd.coiviet.repository.MediaJobRepository;
+import swd.coiviet.service.CloudinaryService;
+import swd.coiviet.service.MediaJobService;
+import swd.coiviet.service.SchedulerLockService;
+import swd.coiviet.service.UserMemoryService;
+import swd.coiviet.service.UserMessagePublisher;
+import swd.coiviet.service.VideoService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Service
+public class MediaJobServiceImpl implements MediaJobService {
+    private static final Logger logger = LoggerFactory.getLogger(MediaJobServiceImpl.class);
+    private static final TypeReference<List<MediaJobPart>> PARTS_TYPE = new TypeReference<>() {};
+
+    public static final String DESTINATION = "/queue/media-jobs";
+
+    private final MediaJobRepository repo;
+    private final UserMemoryService userMemoryService;
+    private final VideoService videoService;
+    private final CloudinaryService cloudinaryService;
+    private final UserMessagePublisher userMessagePublisher;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final String instanceId;
+    private final Path jobDir;
+
+    @Value("${app.media.job-max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.media.job-base-backoff:PT10S}")
+    private Duration baseBackoff;
+
+    @Value("${app.media.job-max-backoff:PT10M}")
+    private Duration maxBackoff;
+
+    @Value("${app.media.job-lease:PT15M}")
+    private Duration lease;
+
+    public MediaJobServiceImpl(MediaJobRepository repo,
+                               UserMemoryService userMemoryService,
+                               VideoService videoService,
+                               CloudinaryService cloudinaryService,
+                               UserMessagePublisher userMessagePublisher,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               SchedulerLockService schedulerLockService,
+                               @Value("${app.media.job-dir:}") String jobDir) throws IOException {
+        this.repo = repo;
+        this.userMemoryService = userMemoryService;
+        this.videoService = videoService;
+        this.cloudinaryService = cloudinaryService;
+        this.userMessagePublisher = userMessagePublisher;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.instanceId = schedulerLockService.getInstanceId();
+        this.jobDir = jobDir.isBlank()
+                ? Paths.get(System.getProperty("java.io.tmpdir"), "coiviet-media-jobs")
+                : Paths.get(jobDir);
+        Files.createDirectories(this.jobDir);
+    }
+
+    @Override
+    public MediaJob submitMemoryMedia(Long ownerId, Long memoryId, MultipartFile[] images, MultipartFile audio, MultipartFile video) {
+        List<MultipartFile> imageFiles = new ArrayList<>();
+        if (images != null) {
+            for (MultipartFile image : images) {
+                if (hasContent(image)) {
+                    cloudinaryService.validateFile(image);
+                    imageFiles.add(image);
+                }
+            }
+        }
+        if (hasContent(audio)) cloudinaryService.validateAudioFile(audio);
+        if (hasContent(video)) cloudinaryService.validateVideoFile(video);
+
+        List<MediaJobPart> parts = new ArrayList<>();
+        try {
+            for (MultipartFile image : imageFiles) {
+                parts.add(spool(MediaField.IMAGES, image));
+            }
+            if (hasContent(audio)) parts.add(spool(MediaField.AUDIO, audio));
+            if (hasContent(video)) parts.add(spool(MediaField.VIDEO, video));
+            return parts.isEmpty() ? null : enqueue(ownerId, MediaJobTarget.USER_MEMORY, memoryId, parts);
+        } catch (RuntimeException e) {
+            deleteSpooled(parts);
+            throw e;
+        }
+    }
+
+    @Override
+    public MediaJob submitVideoThumbnail(Long ownerId, Long videoId, MultipartFile thumbnail) {
+        if (!hasContent(thumbnail)) {
+            return null;
+        }
+        cloudinaryService.validateFile(thumbnail);
+        List<MediaJobPart> parts = new ArrayList<>();
+        try {
+            parts.add(spool(MediaField.THUMBNAIL, thumbnail));
+            return enqueue(ownerId, MediaJobTarget.VIDEO, videoId, parts);
+        } catch (RuntimeException e) {
+            deleteSpooled(parts);
+            throw e;
+        }
+    }
+
+    @Override
+    public MediaJob submitSpooled(Long ownerId, MediaJobTarget targetType, Long targetId, MediaJobPart part) {
+        return enqueue(ownerId, targetType, targetId, List.of(part));
+    }
+
+    @Override
+    public Optional<MediaJob> findById(Long id) {
+        return repo.findById(id);
+    }
+
+    @Override
+    @Transactional
+    public List<MediaJob> claimDueJobs(int batchSize) {
+        LocalDateTime now = LocalDateTime.now();
+        List<MediaJob> jobs = repo.lockDueJobs(instanceId, now, batchSize);
+        for (MediaJob job : jobs) {
+            job.setStatus(MediaJobStatus.PROCESSING);
+            job.setNextAttemptAt(now.plus(lease));
+            if (job.getStartedAt() == null) {
+                job.setStartedAt(now);
+                job.setQueueMillis(Duration.between(job.getCreatedAt(), now).toMillis());
+                meterRegistry.timer("media.job.queue", "target", job.getTargetType().name())
+                        .record(job.getQueueMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+        return jobs;
+    }
+
+    @Override
+    public MediaJob process(MediaJob job) {
+        long t0 = System.nanoTime();
+        List<MediaJobPart> parts = readParts(job);
+        MediaJob finished;
+        // Lần chạy khác đã kết thúc job: không ghi đè kết quả, chỉ bỏ tham chiếu file lần chạy này upload thừa
+        AtomicBoolean finishedElsewhere = new AtomicBoolean();
+        List<String> orphaned = new ArrayList<>();
+        try {
+            // Lưu tiến độ sau mỗi file để lần thử lại không upload lại file đã xong
+            for (int i = 0; i < parts.size(); i++) {
+                MediaJobPart part = parts.get(i);
+                if (part.getUrl() != null) {
+                    continue;
+                }
+                // Job nhận lại sau khi hết lease: lần chạy trước có thể đã upload file này sau lúc job được nhận
+                String uploaded = storedUrl(job.getId(), i);
+                part.setUrl(uploaded != null ? uploaded : upload(job, part));
+                if (uploaded == null) {
+                    String json = writeParts(parts);
+                    LocalDateTime leaseUntil = LocalDateTime.now().plus(lease);
+                    transactionTemplate.executeWithoutResult(status -> repo.updateParts(job.getId(), json, leaseUntil));
+                }
+            }
+            long elapsedMs = elapsedMs(t0);
+            List<String> replaced = new ArrayList<>();
+            finished = transactionTemplate.execute(status -> {
+                MediaJob current = lockUnfinished(job, parts, orphaned);
+                if (current != null) {
+                    finishedElsewhere.set(true);
+                    return current;
+                }
+                applyToTarget(job, parts, replaced);
+                job.setParts(writeParts(parts));
+                job.setStatus(MediaJobStatus.SUCCEEDED);
+                job.setAttempts(attempts(job) + 1);
+                job.setLastError(null);
+                job.setFinishedAt(LocalDateTime.now());
+                job.setProcessMillis(processMillis(job) + elapsedMs);
+                return repo.save(job);
+            });
+            if (!finishedElsewhere.get()) {
+                deleteSpooled(parts);
+                // Media cũ chỉ bị bỏ tham chiếu sau khi entity đã trỏ sang media mới
+                cloudinaryService.release(replaced.toArray(String[]::new));
+                logger.info("Media job {} ({} #{}) xong sau {} ms, {} file",
+                        job.getId(), job.getTargetType(), job.getTargetId(), elapsedMs, parts.size());
+            }
+        } catch (Exception e) {
+            finished = fail(job, parts, e, elapsedMs(t0), finishedElsewhere, orphaned);
+        }
+        if (finishedElsewhere.get()) {
+            // Lần chạy kia đã dọn file tạm, bỏ tham chiếu media cũ và push kết quả
+            cloudinaryService.release(orphaned.toArray(String[]::new));
+            return finished;
+        }
+        meterRegistry.timer("media.job.process", "target", job.getTargetType().name(), "outcome", finished.getStatus().name())
+                .record(elapsedMs(t0), TimeUnit.MILLISECONDS);
+        if (finished.getStatus() == MediaJobStatus.SUCCEEDED || finished.getStatus() == MediaJobStatus.FAILED) {
+            push(finished);
+        }
+        return finished;
+    }
+
+    @Override
+    @Transactional
+    public int expireStaleBefore(LocalDateTime before) {
+        return repo.expireUnfinishedBefore(before, LocalDateTime.now(), "Job quá hạn, file gốc không còn để xử lý");
+    }
+
+    @Override
+    @Transactional
+    public int purgeFinishedBefore(LocalDateTime before) {
+        return repo.deleteFinishedBefore(before);
+    }
+
+    private MediaJob enqueue(Long ownerId, MediaJobTarget targetType, Long targetId, List<MediaJobPart> parts) {
+        LocalDateTime now = LocalDateTime.now();
+        return repo.save(MediaJob.builder()
+                .ownerId(ownerId)
+                .targetType(targetType)
+                .targetId(targetId)
+                .parts(writeParts(parts))
+                .instanceId(instanceId)
+                .status(MediaJobStatus.PENDING)
+                .attempts(0)
+                .processMillis(0L)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+    }
+
+    private MediaJobPart spool(MediaField field, MultipartFile file) {
+        long size = file.getSize();
+        try {
+            Path path = Files.createTempFile(jobDir, "job-", ".part");
+            file.transferTo(path.toFile());
+            return MediaJobPart.builder()
+                    .field(field)
+                    .path(path.toString())
+                    .originalName(file.getOriginalFilename())
+                    .contentType(file.getContentType())
+                    .size(size)
+                    .build();
+        } catch (IOException e) {
+            throw new AppException(ErrorCode.INTERNAL_SERVER_ERROR, "Lỗi khi lưu file: " + e.getMessage());
+        }
+    }
+
+    private String upload(MediaJob job, MediaJobPart part) {
+        Path path = Paths.get(part.getPath());
+        if (!Files.exists(path)) {
+            throw new AppException(ErrorCode.NOT_FOUND, "File gốc không còn: " + part.getOriginalName());
+        }
+        String base = job.getTargetType() == MediaJobTarget.USER_MEMORY
+                ? "memories/" + job.getTargetId()
+                : "videos/" + job.getTargetId();
+        return switch (part.getField()) {
+            case IMAGES -> cloudinaryService.uploadImage(path, base + "/images", "raw");
+            case AUDIO -> cloudinaryService.uploadAudio(path, base + "/audio");
+            case VIDEO -> cloudinaryService.uploadVideo(path, base + "/video");
+            case THUMBNAIL -> cloudinaryService.uploadImage(path, base + "/thumbnail", "video");
+        };
+    }
+
+    /**
+     * Gắn URL mới vào entity đích, ghi lại URL cũ bị thay để bỏ tham chiếu sau khi commit
+     */
+    private void applyToTarget(MediaJob job, List<MediaJobPart> parts, List<String> replaced) {
+        List<String> images = urls(parts, MediaField.IMAGES);
+        List<String> audio = urls(parts, MediaField.AUDIO);
+        List<String> video = urls(parts, MediaField.VIDEO);
+        List<String> thumbnail = urls(parts, MediaField.THUMBNAIL);
+        if (job.getTargetType() == MediaJobTarget.USER_MEMORY) {
+            UserMemory memory = userMemoryService.findById(job.getTargetId())
+                    .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND, "Ký ức không tồn tại"));
+            if (!images.isEmpty()) {
+                if (memory.getImages() != null && !memory.getImages().isEmpty()) {
+                    for (String old : memory.getImages().split(",")) {
+                        replaced.add(old.trim());
+                    }
+                }
+                memory.setImages(String.join(",", images));
+            }
+            if (!audio.isEmpty()) {
+                if (memory.getAudioUrl() != null) replaced.add(memory.getAudioUrl());
+                memory.setAudioUrl(audio.get(0));
+            }
+            if (!video.isEmpty()) {
+                if (memory.getVideoUrl() != null) replaced.add(memory.getVideoUrl());
+                memory.setVideoUrl(video.get(0));
+            }
+            memory.setUpdatedAt(LocalDateTime.now());
+            userMemoryService.save(memory);
+        } else {
+            Video target = videoService.findById(job.getTargetId())
+                    .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND, "Video không tồn tại"));
+            if (!thumbnail.isEmpty()) {
+                if (target.getThumbnailUrl() != null) replaced.add(target.getThumbnailUrl());
+                target.setThumbnailUrl(thumbnail.get(0));
+            }
+            videoService.save(target);
+        }
+    }
+
+    private String storedUrl(Long jobId, int index) {
+        String stored = repo.findPartsById(jobId);
+        if (stored == null) {
+            return null;
+        }
+        List<MediaJobPart> storedParts = readParts(stored);
+        return index < storedParts.size() ? storedParts.get(index).getUrl() : null;
+    }
+
+    /**
+     * Khóa dòng job trước khi ghi kết quả. Lần chạy khác (nhận lại sau khi hết lease) đã kết thúc job thì trả về
+     * bản đã lưu và ghi vào orphaned các URL chỉ lần chạy này upload; null nếu job chưa kết thúc
+     */
+    private MediaJob lockUnfinished(MediaJob job, List<MediaJobPart> parts, List<String> orphaned) {
+        MediaJob current = repo.findLockedById(job.getId())
+                .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND, "Media job không tồn tại"));
+        if (current.getStatus() != MediaJobStatus.SUCCEEDED && current.getStatus() != MediaJobStatus.FAILED) {
+            return null;
+        }
+        List<String> kept = readParts(current.getParts()).stream().map(MediaJobPart::getUrl).filter(Objects::nonNull).toList();
+        parts.stream().map(MediaJobPart::getUrl).filter(url -> url != null && !kept.contains(url)).forEach(orphaned::add);
+        logger.info("Media job {} đã được lần chạy khác kết thúc ({}), bỏ kết quả của lần chạy này",
+                job.getId(), current.getStatus());
+        return current;
+    }
+
+    private MediaJob fail(MediaJob job, List<MediaJobPart> parts, Exception e, long elapsedMs,
+                          AtomicBoolean finishedElsewhere, List<String> orphaned) {
+        int attempts = attempts(job) + 1;
+        // Entity đích đã bị xóa hoặc file gốc đã mất thì thử lại cũng vô ích
+        boolean permanent = e instanceof AppException appException && appException.getErrorCode() == ErrorCode.NOT_FOUND;
+        job.setAttempts(attempts);
+        job.setLastError(e.getMessage());
+        job.setParts(writeParts(parts));
+        job.setProcessMillis(processMillis(job) + elapsedMs);
+        if (permanent || attempts >= maxAttempts) {
+            job.setStatus(MediaJobStatus.FAILED);
+            job.setFinishedAt(LocalDateTime.now());
+            meterRegistry.counter("media.job.dead", "target", job.getTargetType().name()).increment();
+            logger.error("Media job {} ({} #{}) thất bại sau {} lần: {}",
+                    job.getId(), job.getTargetType(), job.getTargetId(), attempts, e.getMessage(), e);
+        } else {
+            job.setStatus(MediaJobStatus.PENDING);
+            job.setNextAttemptAt(LocalDateTime.now().plus(backoff(attempts)));
+            logger.warn("Media job {} ({} #{}) lỗi lần {}, thử lại lúc {}: {}",
+                    job.getId(), job.getTargetType(), job.getTargetId(), attempts, job.getNextAttemptAt(), e.getMessage());
+        }
+        MediaJob saved = transactionTemplate.execute(status -> {
+            MediaJob current = lockUnfinished(job, parts, orphaned);
+            if (current != null) {
+                finishedElsewhere.set(true);
+                return current;
+            }
+            return repo.save(job);
+        });
+        if (finishedElsewhere.get()) {
+            return saved;
+        }
+        if (saved.getStatus() == MediaJobStatus.FAILED) {
+            deleteSpooled(parts);
+            // File đã upload nhưng không gắn được vào entity nào
+            cloudinaryService.release(parts.stream().map(MediaJobPart::getUrl).filter(Objects::nonNull).toArray(String[]::new));
+        }
+        return saved;
+    }
+
+    private void push(MediaJob job) {
+        if (job.getOwnerId() == null) {
+            return;
+        }
+        try {
+            userMessagePublisher.sendToUser(job.getOwnerId(), DESTINATION, MediaJobResponse.from(job));
+        } catch (Exception e) {
+            // Client vẫn poll được trạng thái job
+            logger.warn("Không thể push trạng thái media job {}: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    private void deleteSpooled(List<MediaJobPart> parts) {
+        for (MediaJobPart part : parts) {
+            try {
+                Files.deleteIfExists(Paths.get(part.getPath()));
+            } catch (IOException e) {
+                logger.warn("Không thể xóa file tạm {}: {}", part.getPath(), e.getMessage());
+            }
+        }
+    }
+
+    private List<MediaJobPart> readParts(MediaJob job) {
+        return readParts(job.getParts());
+    }
+
+    private List<MediaJobPart> readParts(String json) {
+        try {
+            return objectMapper.readValue(json, PARTS_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new AppException(ErrorCode.INTERNAL_SERVER_ERROR, "Media job không hợp lệ: " + e.getMessage());
+        }
+    }
+
+    private String writeParts(List<MediaJobPart> parts) {
+        try {
+            return objectMapper.writeValueAsString(parts);
+        } catch (JsonProcessingException e) {
+            throw new AppException(ErrorCode.INTERNAL_SERVER_ERROR, "Không thể ghi media job: " + e.getMessage());
+        }
+    }
+
+    private static List<String> urls(List<MediaJobPart> parts, MediaField field) {
+        return parts.stream().filter(p -> p.getField() == field).map(MediaJobPart::getUrl).toList();
+    }
+
+    private static boolean hasContent(MultipartFile file) {
+        return file != null && !file.isEmpty() && file.getSize() > 0;
+    }
+
+    private static int attempts(MediaJob job) {
+        return job.getAttempts() != null ? job.getAttempts() : 0;
+    }
+
+    private static long processMillis(MediaJob job) {
+        return job.getProcessMillis() != null ? job.getProcessMillis() : 0L;
+    }
+
+    private static long elapsedMs(long t0) {
+        return (System.nanoTime() - t0) / 1_000_000;
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = baseBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+}
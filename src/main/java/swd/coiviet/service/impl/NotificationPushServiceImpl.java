@@ -0,0 +1,164 @@
+package swd.coiviet.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import swd.coiviet.dto.response.NotificationPushMessage;
+import swd.coiviet.dto.response.NotificationResponse;
+import swd.coiviet.event.NotificationsCreatedEvent;
+import swd.coiviet.model.Notification;
+import swd.coiviet.repository.NotificationRepository;
+import swd.coiviet.repository.projection.UserUnreadCount;
+import swd.coiviet.service.NotificationPushService;
+import swd.coiviet.service.UserMessagePublisher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class NotificationPushServiceImpl implements NotificationPushService {
+    private static final Logger logger = LoggerFactory.getLogger(NotificationPushServiceImpl.class);
+
+    public static final String DESTINATION = "/queue/notifications";
+    private static final int RECONCILE_CHUNK = 1000;
+
+    private final NotificationRepository repo;
+    private final UserMessagePublisher userMessagePublisher;
+    // Bộ đếm theo user, Caffeine chia khóa theo bucket nên các user khác nhau không tranh chấp
+    private final Cache<Long, AtomicLong> unreadCounts;
+
+    public NotificationPushServiceImpl(NotificationRepository repo,
+                                       UserMessagePublisher userMessagePublisher,
+                                       @Value("${app.notification.unread-cache-size:100000}") long cacheSize,
+                                       @Value("${app.notification.unread-idle:PT2H}") Duration idle) {
+        this.repo = repo;
+        this.userMessagePublisher = userMessagePublisher;
+        this.unreadCounts = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterAccess(idle)
+                .build();
+    }
+
+    @Override
+    public long unreadCount(Long userId) {
+        return unreadCounts.get(userId, id -> new AtomicLong(repo.countByUserIdAndIsReadFalse(id))).get();
+    }
+
+    @Override
+    public void markedRead(Long userId, long count) {
+        AtomicLong counter = unreadCounts.getIfPresent(userId);
+        if (counter != null && count > 0) {
+            counter.updateAndGet(current -> Math.max(0, current - count));
+        }
+    }
+
+    @Override
+    public void allRead(Long userId) {
+        AtomicLong counter = unreadCounts.getIfPresent(userId);
+        if (counter != null) {
+            counter.set(0);
+        }
+    }
+
+    @Override
+    public void invalidate(Collection<Long> userIds) {
+        unreadCounts.invalidateAll(userIds);
+    }
+
+    /**
+     * Chạy sau commit: chỉ đẩy thông báo đã thực sự được ghi
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationsCreated(NotificationsCreatedEvent event) {
+        List<Notification> notifications = event.getNotifications().stream()
+                .filter(n -> n.getUser() != null && n.getUser().getId() != null)
+                .toList();
+        // User chưa có bộ đếm: đếm một lần cho cả nhóm, kết quả đã gồm các thông báo vừa commit
+        Set<Long> loaded = new HashSet<>();
+        for (Notification notification : notifications) {
+            Long userId = notification.getUser().getId();
+            if (unreadCounts.getIfPresent(userId) == null) loaded.add(userId);
+        }
+        loadCounts(loaded);
+
+        for (Notification notification : notifications) {
+            Long userId = notification.getUser().getId();
+            AtomicLong counter = unreadCounts.getIfPresent(userId);
+            long unread = counter == null ? 0 : loaded.contains(userId) ? counter.get() : counter.incrementAndGet();
+            try {
+                userMessagePublisher.sendToUser(userId, DESTINATION, NotificationPushMessage.builder()
+                        .notification(NotificationResponse.from(notification))
+                        .unreadCount(unread)
+                        .build());
+            } catch (RuntimeException e) {
+                // Client vẫn thấy thông báo ở lần tải danh sách tiếp theo
+                logger.warn("Không đẩy được thông báo {} tới user {}: {}", notification.getId(), userId, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.notification.reconcile-interval-ms:60000}",
+            initialDelayString = "${app.notification.reconcile-interval-ms:60000}")
+    public int reconcile() {
+        List<Long> userIds = new ArrayList<>(unreadCounts.asMap().keySet());
+        int corrected = 0;
+        for (int from = 0; from < userIds.size(); from += RECONCILE_CHUNK) {
+            List<Long> chunk = userIds.subList(from, Math.min(from + RECONCILE_CHUNK, userIds.size()));
+            // Ghi nhận giá trị trước khi đếm, bộ đếm đổi trong lúc đếm thì để lượt sau sửa
+            Map<Long, Long> before = new HashMap<>();
+            for (Long userId : chunk) {
+                // Đọc "quietly" để đối soát không gia hạn bộ đếm của user đã lâu không dùng
+                AtomicLong counter = unreadCounts.policy().getIfPresentQuietly(userId);
+                if (counter != null) before.put(userId, counter.get());
+            }
+            Map<Long, Long> actual = countUnread(before.keySet());
+            for (Map.Entry<Long, Long> entry : before.entrySet()) {
+                AtomicLong counter = unreadCounts.policy().getIfPresentQuietly(entry.getKey());
+                long expected = actual.getOrDefault(entry.getKey(), 0L);
+                if (counter != null && entry.getValue() != expected && counter.compareAndSet(entry.getValue(), expected)) {
+                    corrected++;
+                }
+            }
+        }
+        if (corrected > 0) {
+            logger.info("Đã sửa bộ đếm thông báo chưa đọc của {}/{} user", corrected, userIds.size());
+        }
+        return corrected;
+    }
+
+    private void loadCounts(Collection<Long> userIds) {
+        List<Long> ids = new ArrayList<>(userIds);
+        for (int from = 0; from < ids.size(); from += RECONCILE_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + RECONCILE_CHUNK, ids.size()));
+            Map<Long, Long> counts = countUnread(chunk);
+            for (Long userId : chunk) {
+                unreadCounts.asMap().putIfAbsent(userId, new AtomicLong(counts.getOrDefault(userId, 0L)));
+            }
+        }
+    }
+
+    // User không có dòng nào trong kết quả GROUP BY là 0 thông báo chưa đọc
+    private Map<Long, Long> countUnread(Collection<Long> userIds) {
+        Map<Long, Long> counts = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return counts;
+        }
+        for (UserUnreadCount row : repo.countUnreadByUserIds(userIds)) {
+            counts.put(row.getUserId(), row.getTotal());
+        }
+        return counts;
+    }
+}
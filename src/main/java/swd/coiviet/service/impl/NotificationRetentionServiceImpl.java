@@ -0,0 +1,159 @@
+package swd.coiviet.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import swd.coiviet.repository.NotificationRepository;
+import swd.coiviet.service.NotificationPushService;
+import swd.coiviet.service.NotificationRetentionService;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Service
+public class NotificationRetentionServiceImpl implements NotificationRetentionService {
+    private static final Logger logger = LoggerFactory.getLogger(NotificationRetentionServiceImpl.class);
+
+    // Partition tháng đặt tên notifications_pYYYYMM (xem db/notifications_partitioning.sql)
+    private static final Pattern PARTITION_NAME = Pattern.compile("notifications_p(\\d{4})(\\d{2})");
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final int DELETE_BATCH_SIZE = 5000;
+
+    private final NotificationRepository repo;
+    private final NotificationPushService pushService;
+    private final JdbcTemplate jdbcTemplate;
+    private final int retentionMonths;
+    private final int archiveRetentionMonths;
+    private final int monthsAhead;
+
+    public NotificationRetentionServiceImpl(NotificationRepository repo,
+                                            NotificationPushService pushService,
+                                            JdbcTemplate jdbcTemplate,
+                                            @Value("${app.notification.retention-months:6}") int retentionMonths,
+                                            @Value("${app.notification.archive-retention-months:12}") int archiveRetentionMonths,
+                                            @Value("${app.notification.partition-months-ahead:2}") int monthsAhead) {
+        this.repo = repo;
+        this.pushService = pushService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.retentionMonths = retentionMonths;
+        this.archiveRetentionMonths = archiveRetentionMonths;
+        this.monthsAhead = monthsAhead;
+    }
+
+    @Override
+    public int ensurePartitions() {
+        if (!isPartitioned()) {
+            return 0;
+        }
+        List<String> attached = attachedPartitions();
+        YearMonth current = YearMonth.now();
+        int created = 0;
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            String name = partitionName(month);
+            if (attached.contains(name)) {
+                continue;
+            }
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF notifications FOR VALUES FROM ('"
+                    + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+            created++;
+        }
+        if (created > 0) {
+            logger.info("Đã tạo {} partition thông báo tới tháng {}", created, current.plusMonths(monthsAhead));
+        }
+        return created;
+    }
+
+    @Override
+    public int archiveExpired() {
+        YearMonth oldestKept = YearMonth.now().minusMonths(retentionMonths);
+        if (!isPartitioned()) {
+            return deleteOlderThan(oldestKept.atDay(1).atStartOfDay());
+        }
+        int detached = 0;
+        for (String name : attachedPartitions()) {
+            YearMonth month = monthOf(name);
+            if (month != null && month.isBefore(oldestKept)) {
+                // Thông báo chưa đọc trong partition cũng rời khỏi bảng: bộ đếm của các user đó phải đếm lại
+                List<Long> affected = jdbcTemplate.queryForList(
+                        "SELECT DISTINCT user_id FROM " + name + " WHERE is_read = false AND user_id IS NOT NULL", Long.class);
+                // Tách partition là thao tác metadata: không quét/xóa từng dòng, bảng tách ra giữ làm lưu trữ
+                jdbcTemplate.execute("ALTER TABLE notifications DETACH PARTITION " + name);
+                pushService.invalidate(affected);
+                detached++;
+            }
+        }
+        YearMonth oldestArchived = YearMonth.now().minusMonths(archiveRetentionMonths);
+        int dropped = 0;
+        for (String name : detachedPartitions()) {
+            YearMonth month = monthOf(name);
+            if (month != null && month.isBefore(oldestArchived)) {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + name);
+                dropped++;
+            }
+        }
+        logger.info("Lưu trữ thông báo: tách {} partition trước {}, xóa {} bảng lưu trữ trước {}",
+                detached, oldestKept, dropped, oldestArchived);
+        return detached;
+    }
+
+    private int deleteOlderThan(LocalDateTime cutoff) {
+        int deleted = 0;
+        List<Long> ids;
+        Set<Long> affected = new HashSet<>();
+        // Mỗi lô một transaction ngắn để không khóa bảng lâu và không phình WAL
+        while (!(ids = repo.findIdsCreatedBefore(cutoff, Limit.of(DELETE_BATCH_SIZE))).isEmpty()) {
+            affected.addAll(repo.findUnreadUserIdsByIdIn(ids));
+            deleted += repo.deleteByIdIn(ids);
+        }
+        // Bỏ bộ đếm sau khi xóa xong để lần đọc sau không đếm lại các dòng sắp xóa
+        pushService.invalidate(affected);
+        if (deleted > 0) {
+            logger.info("Đã xóa {} thông báo tạo trước {}", deleted, cutoff);
+        }
+        return deleted;
+    }
+
+    private boolean isPartitioned() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(product)) {
+            return false;
+        }
+        Boolean partitioned = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM pg_partitioned_table pt " +
+                "JOIN pg_class c ON c.oid = pt.partrelid WHERE c.relname = 'notifications')", Boolean.class);
+        return Boolean.TRUE.equals(partitioned);
+    }
+
+    private List<String> attachedPartitions() {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = 'notifications'", String.class);
+    }
+
+    private List<String> detachedPartitions() {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_class c WHERE c.relkind = 'r' " +
+                "AND c.relname ~ '^notifications_p[0-9]{6}$' AND NOT EXISTS (SELECT 1 FROM pg_inherits i WHERE i.inhrelid = c.oid)",
+                String.class);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return "notifications_p" + LocalDate.of(month.getYear(), month.getMonth(), 1).format(PARTITION_SUFFIX);
+    }
+
+    private static YearMonth monthOf(String partitionName) {
+        Matcher matcher = PARTITION_NAME.matcher(partitionName);
+        return matcher.matches()
+                ? YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)))
+                : null;
+    }
+}
@@ -1,9 +1,14 @@
 package swd.coiviet.service.impl;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import swd.coiviet.event.NotificationsCreatedEvent;
 import swd.coiviet.model.Notification;
 import swd.coiviet.repository.NotificationRepository;
+import swd.coiviet.service.NotificationPushService;
 import swd.coiviet.service.NotificationService;
+import swd.coiviet.service.OutboxService;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -12,9 +17,16 @@ import java.util.Optional;
 @Service
 public class NotificationServiceImpl implements NotificationService {
     private final NotificationRepository repo;
+    private final OutboxService outboxService;
+    private final NotificationPushService pushService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public NotificationServiceImpl(NotificationRepository repo) {
+    public NotificationServiceImpl(NotificationRepository repo, OutboxService outboxService,
+                                   NotificationPushService pushService, ApplicationEventPublisher eventPublisher) {
         this.repo = repo;
+        this.outboxService = outboxService;
+        this.pushService = pushService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -44,31 +56,48 @@ public class NotificationServiceImpl implements NotificationService {
 
     @Override
     public Long countUnreadByUserId(Long userId) {
-        return repo.countByUserIdAndIsReadFalse(userId);
+        return pushService.unreadCount(userId);
     }
 
     @Override
     public void markAsRead(Long notificationId) {
         repo.findById(notificationId).ifPresent(notification -> {
-            notification.setIsRead(true);
-            repo.save(notification);
+            // UPDATE có điều kiện: đọc lại lần hai không trừ bộ đếm thêm lần nữa
+            if (repo.markRead(notificationId) > 0) {
+                pushService.markedRead(notification.getUser().getId(), 1);
+            }
         });
     }
 
     @Override
     public void markAllAsRead(Long userId) {
-        List<Notification> unread = repo.findByUserIdAndIsReadFalse(userId);
-        unread.forEach(notification -> notification.setIsRead(true));
-        repo.saveAll(unread);
+        repo.markAllRead(userId);
+        pushService.allRead(userId);
+    }
+
+    @Override
+    @Transactional
+    public int createAll(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return 0;
+        }
+        int inserted = repo.insertAll(notifications);
+        eventPublisher.publishEvent(new NotificationsCreatedEvent(notifications));
+        return inserted;
     }
 
     @Override
     public void deleteById(Long id) {
-        repo.deleteById(id);
+        repo.findById(id).ifPresent(notification -> {
+            repo.delete(notification);
+            if (!Boolean.TRUE.equals(notification.getIsRead()) && notification.getUser() != null) {
+                pushService.markedRead(notification.getUser().getId(), 1);
+            }
+        });
     }
 
     @Override
-    public Notification createBookingConfirmationNotification(Long userId, Long bookingId, String bookingCode) {
+    public void createBookingConfirmationNotification(Long userId, Long bookingId, String bookingCode) {
         Notification notification = Notification.builder()
                 .user(swd.coiviet.model.User.builder().id(userId).build())
                 .type("BOOKING_CONFIRMED")
@@ -78,11 +107,11 @@ public class NotificationServiceImpl implements NotificationService {
                 .isRead(false)
                 .createdAt(LocalDateTime.now())
                 .build();
-        return save(notification);
+        outboxService.enqueueNotification(notification);
     }
 
     @Override
-    public Notification createBookingCancellationNotification(Long userId, Long bookingId, String bookingCode) {
+    public void createBookingCancellationNotification(Long userId, Long bookingId, String bookingCode) {
         Notification notification = Notification.builder()
                 .user(swd.coiviet.model.User.builder().id(userId).build())
                 .type("BOOKING_CANCELLED")
@@ -92,11 +121,11 @@ public class NotificationServiceImpl implements NotificationService {
                 .isRead(false)
                 .createdAt(LocalDateTime.now())
                 .build();
-        return save(notification);
+        outboxService.enqueueNotification(notification);
     }
 
     @Override
-    public Notification createPaymentSuccessNotification(Long userId, Long bookingId, String amount) {
+    public void createPaymentSuccessNotification(Long userId, Long bookingId, String amount) {
         Notification notification = Notification.builder()
                 .user(swd.coiviet.model.User.builder().id(userId).build())
                 .type("PAYMENT_SUCCESS")
@@ -106,76 +135,31 @@ public class NotificationServiceImpl implements NotificationService {
                 .isRead(false)
                 .createdAt(LocalDateTime.now())
                 .build();
-        return save(notification);
+        outboxService.enqueueNotification(notification);
     }
 
     @Override
-    public Notification createTourLowBookingNotification(Long userId, Long tourScheduleId, String tourTitle) {
-        Notification notification = Notification.builder()
-                .user(swd.coiviet.model.User.builder().id(userId).build())
-                .type("TOUR_LOW_BOOKING")
-                .title("Tour sắp khởi hành")
-                .message(String.format("Tour '%s' sắp khởi hành nhưng chưa đủ số lượng. Chúng tôi đang có chương trình giảm giá đặc biệt!", tourTitle))
-                .relatedId(tourScheduleId)
-                .isRead(false)
-                .createdAt(LocalDateTime.now())
-                .build();
-        return save(notification);
+    public void createTourLowBookingNotification(Long userId, Long tourScheduleId, String tourTitle) {
+        outboxService.enqueueNotification(NotificationTemplates.tourLowBooking(userId, tourScheduleId, tourTitle));
     }
 
     @Override
-    public Notification createTourCancellationNotification(Long userId, Long tourScheduleId, String tourTitle) {
-        Notification notification = Notification.builder()
-                .user(swd.coiviet.model.User.builder().id(userId).build())
-                .type("TOUR_CANCELLED")
-                .title("Tour bị hủy")
-                .message(String.format("Rất tiếc, tour '%s' đã bị hủy do không đủ số lượng. Chúng tôi sẽ liên hệ với bạn để đề xuất tour thay thế.", tourTitle))
-                .relatedId(tourScheduleId)
-                .isRead(false)
-                .createdAt(LocalDateTime.now())
-                .build();
-        return save(notification);
+    public void createTourCancellationNotification(Long userId, Long tourScheduleId, String tourTitle) {
+        outboxService.enqueueNotification(NotificationTemplates.tourCancellation(userId, tourScheduleId, tourTitle));
     }
 
     @Override
-    public Notification createTourSurchargeNotification(Long userId, Long tourScheduleId, String tourTitle, String surchargeAmount) {
-        Notification notification = Notification.builder()
-                .user(swd.coiviet.model.User.builder().id(userId).build())
-                .type("TOUR_SURCHARGE")
-                .title("Phụ thu tour")
-                .message(String.format("Tour '%s' có phụ thu %s do số lượng đăng ký thấp. Vui lòng xác nhận để tiếp tục.", tourTitle, surchargeAmount))
-                .relatedId(tourScheduleId)
-                .isRead(false)
-                .createdAt(LocalDateTime.now())
-                .build();
-        return save(notification);
+    public void createTourSurchargeNotification(Long userId, Long tourScheduleId, String tourTitle, String surchargeAmount) {
+        outboxService.enqueueNotification(NotificationTemplates.tourSurcharge(userId, tourScheduleId, tourTitle, surchargeAmount));
     }
 
     @Override
-    public Notification createAlternativeTourSuggestionNotification(Long userId, Long alternativeTourId, String tourTitle) {
-        Notification notification = Notification.builder()
-                .user(swd.coiviet.model.User.builder().id(userId).build())
-                .type("ALTERNATIVE_TOUR")
-                .title("Đề xuất tour thay thế")
-                .message(String.format("Chúng tôi đề xuất tour '%s' như một lựa chọn thay thế phù hợp với bạn.", tourTitle))
-                .relatedId(alternativeTourId)
-                .isRead(false)
-                .createdAt(LocalDateTime.now())
-                .build();
-        return save(notification);
+    public void createAlternativeTourSuggestionNotification(Long userId, Long alternativeTourId, String tourTitle) {
+        outboxService.enqueueNotification(NotificationTemplates.alternativeTourSuggestion(userId, alternativeTourId, tourTitle));
     }
 
     @Override
-    public Notification createVoucherNotification(Long userId, String voucherCode, String discountInfo) {
-        Notification notification = Notification.builder()
-                .user(swd.coiviet.model.User.builder().id(userId).build())
-                .type("VOUCHER")
-                .title("Nhận voucher giảm giá")
-                .message(String.format("Bạn đã nhận được voucher %s với %s. Sử dụng ngay để được giảm giá!", voucherCode, discountInfo))
-                .relatedId(null)
-                .isRead(false)
-                .createdAt(LocalDateTime.now())
-                .build();
-        return save(notification);
+    public void createVoucherNotification(Long userId, String voucherCode, String discountInfo) {
+        outboxService.enqueueNotification(NotificationTemplates.voucher(userId, voucherCode, discountInfo));
     }
 }
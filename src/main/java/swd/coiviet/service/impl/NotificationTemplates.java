@@ -0,0 +1,58 @@
+package swd.coiviet.service.impl;
+
+import swd.coiviet.model.Notification;
+import swd.coiviet.model.User;
+
+import java.time.LocalDateTime;
+
+/**
+ * Nội dung các thông báo của workflow tour, dùng chung cho NotificationService (từng thông báo qua outbox)
+ * và job xử lý theo lô (batch insert)
+ */
+final class NotificationTemplates {
+
+    private NotificationTemplates() {
+    }
+
+    static Notification tourLowBooking(Long userId, Long tourScheduleId, String tourTitle) {
+        return build(userId, "TOUR_LOW_BOOKING", "Tour sắp khởi hành",
+                String.format("Tour '%s' sắp khởi hành nhưng chưa đủ số lượng. Chúng tôi đang có chương trình giảm giá đặc biệt!", tourTitle),
+                tourScheduleId);
+    }
+
+    static Notification tourCancellation(Long userId, Long tourScheduleId, String tourTitle) {
+        return build(userId, "TOUR_CANCELLED", "Tour bị hủy",
+                String.format("Rất tiếc, tour '%s' đã bị hủy do không đủ số lượng. Chúng tôi sẽ liên hệ với bạn để đề xuất tour thay thế.", tourTitle),
+                tourScheduleId);
+    }
+
+    static Notification tourSurcharge(Long userId, Long tourScheduleId, String tourTitle, String surchargeAmount) {
+        return build(userId, "TOUR_SURCHARGE", "Phụ thu tour",
+                String.format("Tour '%s' có phụ thu %s do số lượng đăng ký thấp. Vui lòng xác nhận để tiếp tục.", tourTitle, surchargeAmount),
+                tourScheduleId);
+    }
+
+    static Notification alternativeTourSuggestion(Long userId, Long alternativeTourId, String tourTitle) {
+        return build(userId, "ALTERNATIVE_TOUR", "Đề xuất tour thay thế",
+                String.format("Chúng tôi đề xuất tour '%s' như một lựa chọn thay thế phù hợp với bạn.", tourTitle),
+                alternativeTourId);
+    }
+
+    static Notification voucher(Long userId, String voucherCode, String discountInfo) {
+        return build(userId, "VOUCHER", "Nhận voucher giảm giá",
+                String.format("Bạn đã nhận được voucher %s với %s. Sử dụng ngay để được giảm giá!", voucherCode, discountInfo),
+                null);
+    }
+
+    private static Notification build(Long userId, String type, String title, String message, Long relatedId) {
+        return Notification.builder()
+                .user(User.builder().id(userId).build())
+                .type(type)
+                .title(title)
+                .message(message)
+                .relatedId(relatedId)
+                .isRead(false)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,189 @@
+package swd.coiviet.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import swd.coiviet.enums.OutboxEventType;
+import swd.coiviet.enums.OutboxStatus;
+import swd.coiviet.event.NotificationsCreatedEvent;
+import swd.coiviet.exception.AppException;
+import swd.coiviet.exception.ErrorCode;
+import swd.coiviet.model.Notification;
+import swd.coiviet.model.OutboxEvent;
+import swd.coiviet.model.User;
+import swd.coiviet.repository.NotificationRepository;
+import swd.coiviet.repository.OutboxEventRepository;
+import swd.coiviet.service.OutboxService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class OutboxServiceImpl implements OutboxService {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxServiceImpl.class);
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<>() {};
+
+    private final OutboxEventRepository repo;
+    private final NotificationRepository notificationRepo;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.outbox.base-backoff:PT10S}")
+    private Duration baseBackoff;
+
+    @Value("${app.outbox.max-backoff:PT1H}")
+    private Duration maxBackoff;
+
+    @Value("${app.outbox.lease:PT5M}")
+    private Duration lease;
+
+    public OutboxServiceImpl(OutboxEventRepository repo,
+                             NotificationRepository notificationRepo,
+                             ObjectMapper objectMapper,
+                             ApplicationEventPublisher eventPublisher) {
+        this.repo = repo;
+        this.notificationRepo = notificationRepo;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    @Transactional
+    public void enqueueEmail(String to, String subject, String body) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("to", to);
+        payload.put("subject", subject);
+        payload.put("body", body);
+        enqueue(OutboxEventType.EMAIL, payload);
+    }
+
+    @Override
+    @Transactional
+    public void enqueueNotification(Notification notification) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("userId", notification.getUser().getId());
+        payload.put("type", notification.getType());
+        payload.put("title", notification.getTitle());
+        payload.put("message", notification.getMessage());
+        payload.put("relatedId", notification.getRelatedId());
+        payload.put("createdAt", notification.getCreatedAt() != null
+                ? notification.getCreatedAt().toString()
+                : LocalDateTime.now().toString());
+        enqueue(OutboxEventType.NOTIFICATION, payload);
+    }
+
+    @Override
+    @Transactional
+    public List<OutboxEvent> claimDueEvents(int batchSize) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> events = repo.lockDueEvents(now, batchSize);
+        LocalDateTime leaseUntil = now.plus(lease);
+        for (OutboxEvent event : events) {
+            event.setStatus(OutboxStatus.PROCESSING);
+            event.setNextAttemptAt(leaseUntil);
+        }
+        return events;
+    }
+
+    @Override
+    @Transactional
+    public void deliverNotifications(List<OutboxEvent> events) {
+        List<Notification> notifications = new ArrayList<>(events.size());
+        List<Long> ids = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            Map<String, Object> payload = readPayload(event);
+            notifications.add(Notification.builder()
+                    .user(User.builder().id(((Number) payload.get("userId")).longValue()).build())
+                    .type((String) payload.get("type"))
+                    .title((String) payload.get("title"))
+                    .message((String) payload.get("message"))
+                    .relatedId(payload.get("relatedId") != null ? ((Number) payload.get("relatedId")).longValue() : null)
+                    .isRead(false)
+                    .createdAt(LocalDateTime.parse((String) payload.get("createdAt")))
+                    .build());
+            ids.add(event.getId());
+        }
+        notificationRepo.insertAll(notifications);
+        repo.markSent(ids, LocalDateTime.now());
+        eventPublisher.publishEvent(new NotificationsCreatedEvent(notifications));
+    }
+
+    @Override
+    public Map<String, Object> readPayload(OutboxEvent event) {
+        try {
+            return objectMapper.readValue(event.getPayload(), PAYLOAD_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new AppException(ErrorCode.INTERNAL_SERVER_ERROR, "Outbox payload không hợp lệ: " + e.getMessage());
+        }
+    }
+
+    @Override
+    @Transactional
+    public void markSent(Collection<Long> eventIds) {
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        repo.markSent(eventIds, LocalDateTime.now());
+    }
+
+    @Override
+    @Transactional
+    public void markFailed(Long eventId, String error) {
+        repo.findById(eventId).ifPresent(event -> {
+            int attempts = (event.getAttempts() != null ? event.getAttempts() : 0) + 1;
+            event.setAttempts(attempts);
+            event.setLastError(error);
+            if (attempts >= maxAttempts) {
+                event.setStatus(OutboxStatus.FAILED);
+                event.setProcessedAt(LocalDateTime.now());
+                logger.error("Outbox event {} ({}) thất bại sau {} lần: {}", eventId, event.getType(), attempts, error);
+            } else {
+                event.setStatus(OutboxStatus.PENDING);
+                event.setNextAttemptAt(LocalDateTime.now().plus(backoff(attempts)));
+                logger.warn("Outbox event {} ({}) lỗi lần {}, thử lại lúc {}: {}",
+                        eventId, event.getType(), attempts, event.getNextAttemptAt(), error);
+            }
+        });
+    }
+
+    @Override
+    @Transactional
+    public int purgeSentBefore(LocalDateTime before) {
+        return repo.deleteSentBefore(before);
+    }
+
+    private void enqueue(OutboxEventType type, Map<String, Object> payload) {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            repo.save(OutboxEvent.builder()
+                    .type(type)
+                    .payload(objectMapper.writeValueAsString(payload))
+                    .status(OutboxStatus.PENDING)
+                    .attempts(0)
+                    .nextAttemptAt(now)
+                    .createdAt(now)
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new AppException(ErrorCode.INTERNAL_SERVER_ERROR, "Không thể ghi outbox: " + e.getMessage());
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = baseBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+}
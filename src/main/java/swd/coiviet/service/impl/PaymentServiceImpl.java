@@ -2,22 +2,36 @@ package swd.coiviet.service.impl;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import swd.coiviet.enums.PaymentStatus;
 import swd.coiviet.model.Payment;
 import swd.coiviet.repository.PaymentRepository;
+import swd.coiviet.service.ArtisanStatsService;
 import swd.coiviet.service.PaymentService;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
 @Service
 public class PaymentServiceImpl implements PaymentService {
     private final PaymentRepository repo;
+    private final ArtisanStatsService artisanStatsService;
 
-    public PaymentServiceImpl(PaymentRepository repo) { this.repo = repo; }
+    public PaymentServiceImpl(PaymentRepository repo, ArtisanStatsService artisanStatsService) {
+        this.repo = repo;
+        this.artisanStatsService = artisanStatsService;
+    }
 
     @Override
     @Transactional
-    public Payment save(Payment p) { return repo.save(p); }
+    public Payment save(Payment p) {
+        BigDecimal previousPaid = p.getId() != null
+                ? repo.findStoredAmountByIdAndStatus(p.getId(), PaymentStatus.PAID).orElse(null)
+                : null;
+        Payment saved = repo.save(p);
+        artisanStatsService.revenueChanged(artisanIdOf(saved), previousPaid, paidAmountOf(saved));
+        return saved;
+    }
 
     @Override
     @Transactional(readOnly = true)
@@ -35,5 +49,21 @@ public class PaymentServiceImpl implements PaymentService {
 
     @Override
     @Transactional
-    public void deleteById(Long id) { repo.deleteById(id); }
+    public void deleteById(Long id) {
+        repo.findById(id).ifPresent(payment -> {
+            repo.delete(payment);
+            artisanStatsService.revenueChanged(artisanIdOf(payment), paidAmountOf(payment), null);
+        });
+    }
+
+    private BigDecimal paidAmountOf(Payment payment) {
+        return payment.getStatus() == PaymentStatus.PAID ? payment.getAmount() : null;
+    }
+
+    private Long artisanIdOf(Payment payment) {
+        return payment.getBooking() != null && payment.getBooking().getTour() != null
+                && payment.getBooking().getTour().getArtisan() != null
+                ? payment.getBooking().getTour().getArtisan().getId()
+                : null;
+    }
 }
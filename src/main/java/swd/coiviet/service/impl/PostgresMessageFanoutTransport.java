@@ -0,0 +1,107 @@
+package swd.coiviet.service.impl;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import swd.coiviet.service.MessageFanoutTransport;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Phát tán qua Postgres LISTEN/NOTIFY: NOTIFY bằng connection thường của pool,
+ * một thread giữ riêng một connection để LISTEN và chuyển thông báo cho các listener
+ */
+public class PostgresMessageFanoutTransport implements MessageFanoutTransport, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(PostgresMessageFanoutTransport.class);
+
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]{0,62}");
+    // Giới hạn payload của NOTIFY là 8000 byte
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final String channel;
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    private final Thread listenerThread;
+    private volatile boolean running = true;
+
+    public PostgresMessageFanoutTransport(DataSource dataSource, String channel) {
+        if (!CHANNEL_NAME.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Tên channel LISTEN/NOTIFY không hợp lệ: " + channel);
+        }
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.channel = channel;
+        this.listenerThread = new Thread(this::listenLoop, "pg-listen-" + channel);
+        this.listenerThread.setDaemon(true);
+        this.listenerThread.start();
+    }
+
+    @Override
+    public void publish(String payload) {
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> { }, channel, payload);
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public int maxPayloadBytes() {
+        return MAX_PAYLOAD_BYTES;
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        listenerThread.interrupt();
+    }
+
+    private void listenLoop() {
+        long backoffMs = 1000;
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                logger.info("Đang LISTEN channel {}", channel);
+                backoffMs = 1000;
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(1000);
+                    if (notifications == null) continue;
+                    for (PGNotification notification : notifications) {
+                        for (Consumer<String> listener : listeners) {
+                            listener.accept(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                // Thông báo phát trong lúc mất kết nối sẽ không nhận được; client tải lại lịch sử khi kết nối lại
+                logger.warn("Mất kết nối LISTEN {}, thử lại sau {} ms: {}", channel, backoffMs, e.getMessage());
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+}
@@ -4,6 +4,14 @@ import org.springframework.stereotype.Service;
 import swd.coiviet.model.Province;
 import swd.coiviet.repository.ProvinceRepository;
 import swd.coiviet.service.ProvinceService;
+import org.springframework.data.domain.Limit;
+import swd.coiviet.dto.response.CursorPageResponse;
+import swd.coiviet.dto.response.ProvinceSummaryResponse;
+import org.springframework.context.ApplicationEventPublisher;
+import swd.coiviet.event.CatalogChangedEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import swd.coiviet.configuration.CacheNames;
 
 import java.util.List;
 import java.util.Optional;
@@ -11,21 +19,47 @@ import java.util.Optional;
 @Service
 public class ProvinceServiceImpl implements ProvinceService {
     private final ProvinceRepository repo;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public ProvinceServiceImpl(ProvinceRepository repo) { this.repo = repo; }
+    public ProvinceServiceImpl(ProvinceRepository repo, ApplicationEventPublisher eventPublisher) {
+        this.repo = repo;
+        this.eventPublisher = eventPublisher;
+    }
 
     @Override
-    public Province save(Province p) { return repo.save(p); }
+    // Tour, nghệ nhân, văn hóa trong cache nhúng bản sao tỉnh nên cũng phải bỏ
+    @CacheEvict(cacheNames = {CacheNames.PROVINCES, CacheNames.PROVINCE_BY_SLUG, CacheNames.TOURS, CacheNames.ARTISANS,
+            CacheNames.CULTURE_ITEMS, CacheNames.CULTURE_ITEM_LISTS}, allEntries = true)
+    public Province save(Province p) {
+        Province saved = repo.save(p);
+        eventPublisher.publishEvent(new CatalogChangedEvent(Province.class, saved.getId()));
+        return saved;
+    }
 
     @Override
+    @Cacheable(cacheNames = CacheNames.PROVINCES, key = "#id", unless = "#result == null")
     public Optional<Province> findById(Long id) { return repo.findById(id); }
 
     @Override
+    @Cacheable(cacheNames = CacheNames.PROVINCE_BY_SLUG, unless = "#result == null")
     public Optional<Province> findBySlug(String slug) { return repo.findBySlug(slug); }
 
     @Override
+    @Cacheable(cacheNames = CacheNames.PROVINCES, key = "'all'")
     public List<Province> findAll() { return repo.findAll(); }
 
     @Override
-    public void deleteById(Long id) { repo.deleteById(id); }
+    @CacheEvict(cacheNames = {CacheNames.PROVINCES, CacheNames.PROVINCE_BY_SLUG, CacheNames.TOURS, CacheNames.ARTISANS,
+            CacheNames.CULTURE_ITEMS, CacheNames.CULTURE_ITEM_LISTS}, allEntries = true)
+    public void deleteById(Long id) {
+        repo.deleteById(id);
+        eventPublisher.publishEvent(new CatalogChangedEvent(Province.class, id));
+    }
+
+    @Override
+    public CursorPageResponse<ProvinceSummaryResponse> findPage(Long cursor, Integer size, String region) {
+        int pageSize = CursorPageResponse.normalizeSize(size);
+        List<ProvinceSummaryResponse> rows = repo.findSummaryPage(cursor, region, Limit.of(pageSize + 1));
+        return CursorPageResponse.of(rows, pageSize, ProvinceSummaryResponse::getId);
+    }
 }
@@ -0,0 +1,32 @@
+package swd.coiviet.service.impl;
+
+/**
+ * Chênh lệch (số lượng, tổng điểm, histogram 1-5 sao) khi rating của một review đổi từ previous sang current,
+ * null nghĩa là review không được tính (không VISIBLE hoặc không tồn tại)
+ */
+final class RatingDelta {
+    final int count;
+    final int ratingSum;
+    final int[] stars = new int[6];
+
+    private RatingDelta(Integer previous, Integer current) {
+        int count = 0;
+        int ratingSum = 0;
+        if (previous != null) {
+            count--;
+            ratingSum -= previous;
+            if (previous >= 1 && previous <= 5) stars[previous]--;
+        }
+        if (current != null) {
+            count++;
+            ratingSum += current;
+            if (current >= 1 && current <= 5) stars[current]++;
+        }
+        this.count = count;
+        this.ratingSum = ratingSum;
+    }
+
+    static RatingDelta of(Integer previous, Integer current) {
+        return new RatingDelta(previous, current);
+    }
+}
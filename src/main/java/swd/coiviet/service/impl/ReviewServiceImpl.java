@@ -1,9 +1,12 @@
 package swd.coiviet.service.impl;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import swd.coiviet.model.Review;
 import swd.coiviet.repository.ReviewRepository;
+import swd.coiviet.service.ArtisanStatsService;
 import swd.coiviet.service.ReviewService;
+import swd.coiviet.service.TourService;
 import swd.coiviet.enums.ReviewStatus;
 
 import java.util.List;
@@ -12,11 +15,25 @@ import java.util.Optional;
 @Service
 public class ReviewServiceImpl implements ReviewService {
     private final ReviewRepository repo;
+    private final TourService tourService;
+    private final ArtisanStatsService artisanStatsService;
 
-    public ReviewServiceImpl(ReviewRepository repo) { this.repo = repo; }
+    public ReviewServiceImpl(ReviewRepository repo, TourService tourService, ArtisanStatsService artisanStatsService) {
+        this.repo = repo;
+        this.tourService = tourService;
+        this.artisanStatsService = artisanStatsService;
+    }
 
     @Override
-    public Review save(Review r) { return repo.save(r); }
+    @Transactional
+    public Review save(Review r) {
+        Integer previousRating = r.getId() != null
+                ? repo.findStoredRatingByIdAndStatus(r.getId(), ReviewStatus.VISIBLE).orElse(null)
+                : null;
+        Review saved = repo.save(r);
+        trackRatingChange(saved, previousRating, visibleRatingOf(saved));
+        return saved;
+    }
 
     @Override
     public Optional<Review> findById(Long id) { return repo.findById(id); }
@@ -39,5 +56,28 @@ public class ReviewServiceImpl implements ReviewService {
     public List<Review> findByStatus(ReviewStatus status) { return repo.findByStatus(status); }
 
     @Override
-    public void deleteById(Long id) { repo.deleteById(id); }
+    @Transactional
+    public void deleteById(Long id) {
+        repo.findById(id).ifPresent(review -> {
+            repo.delete(review);
+            trackRatingChange(review, visibleRatingOf(review), null);
+        });
+    }
+
+    // Cập nhật tổng hợp rating của tour và rollup của nghệ nhân trong cùng transaction với review
+    private void trackRatingChange(Review review, Integer previousRating, Integer currentRating) {
+        if (review.getTour() == null) return;
+        tourService.applyRatingChange(review.getTour().getId(), previousRating, currentRating);
+        artisanStatsService.ratingChanged(artisanIdOf(review), previousRating, currentRating);
+    }
+
+    private Integer visibleRatingOf(Review review) {
+        return review.getStatus() == ReviewStatus.VISIBLE ? review.getRating() : null;
+    }
+
+    private Long artisanIdOf(Review review) {
+        return review.getTour() != null && review.getTour().getArtisan() != null
+                ? review.getTour().getArtisan().getId()
+                : null;
+    }
 }
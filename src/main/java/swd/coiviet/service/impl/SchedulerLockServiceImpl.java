@@ -0,0 +1,131 @@
+package swd.coiviet.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import swd.coiviet.repository.SchedulerLockRepository;
+import swd.coiviet.service.SchedulerLockService;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Service
+public class SchedulerLockServiceImpl implements SchedulerLockService {
+    private static final Logger logger = LoggerFactory.getLogger(SchedulerLockServiceImpl.class);
+
+    private final SchedulerLockRepository lockRepository;
+    private final Duration lease;
+    private final Duration lockAtLeast;
+    private final String instanceId;
+
+    public SchedulerLockServiceImpl(SchedulerLockRepository lockRepository,
+                                    @Value("${app.scheduler.lease:PT30M}") Duration lease,
+                                    @Value("${app.scheduler.lock-at-least:PT1M}") Duration lockAtLeast,
+                                    @Value("${app.scheduler.instance-id:}") String instanceId,
+                                    @Value("${app.scheduler.instance-id-file:}") String instanceIdFile,
+                                    @Value("${server.port:8080}") int serverPort) {
+        this.lockRepository = lockRepository;
+        this.lease = lease;
+        this.lockAtLeast = lockAtLeast;
+        // File mặc định theo cổng: các process trên cùng máy dùng chung java.io.tmpdir nhưng không chung cổng
+        this.instanceId = instanceId.isBlank()
+                ? persistedInstanceId(instanceIdFile.isBlank()
+                        ? Paths.get(System.getProperty("java.io.tmpdir"), "coiviet-instance-id-" + serverPort)
+                        : Paths.get(instanceIdFile), hostname() + "-" + serverPort)
+                : instanceId;
+    }
+
+    @Override
+    public boolean runExclusively(String name, Runnable task) {
+        LocalDateTime now = LocalDateTime.now();
+        if (!tryAcquire(name, now)) {
+            logger.info("Bỏ qua task {}: instance khác đang giữ lease", name);
+            return false;
+        }
+        try {
+            task.run();
+            return true;
+        } finally {
+            // Giữ lease tối thiểu lockAtLeast để instance có đồng hồ lệch vài giây không chạy lại cùng lượt cron
+            LocalDateTime minUntil = now.plus(lockAtLeast);
+            LocalDateTime releaseAt = LocalDateTime.now().isAfter(minUntil) ? LocalDateTime.now() : minUntil;
+            try {
+                lockRepository.release(name, instanceId, releaseAt);
+            } catch (Exception e) {
+                // Lease sẽ tự hết hạn sau thời gian lease
+                logger.warn("Không thể trả lease {}: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    private boolean tryAcquire(String name, LocalDateTime now) {
+        LocalDateTime until = now.plus(lease);
+        if (lockRepository.acquire(name, instanceId, now, until) == 1) {
+            return true;
+        }
+        try {
+            return lockRepository.insert(name, instanceId, now, until) == 1;
+        } catch (DataIntegrityViolationException e) {
+            // Lease đã tồn tại và chưa hết hạn, hoặc instance khác vừa tạo cùng lúc
+            return false;
+        }
+    }
+
+    /**
+     * Id không đổi qua các lần khởi động: media job và upload session gắn với file cục bộ của instance,
+     * nên id được tạo một lần rồi lưu cạnh các file đó (mặc định trong java.io.tmpdir như job-dir và upload-dir).
+     * Không đọc/ghi được file thì dùng fallback (hostname kèm cổng)
+     */
+    static String persistedInstanceId(Path file, String fallback) {
+        try {
+            if (Files.exists(file)) {
+                String stored = Files.readString(file, StandardCharsets.UTF_8).trim();
+                if (!stored.isEmpty()) {
+                    return stored;
+                }
+            }
+            String generated = hostname() + "-" + UUID.randomUUID().toString().substring(0, 8);
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try {
+                Files.writeString(file, generated, StandardCharsets.UTF_8, StandardOpenOption.CREATE_NEW);
+                return generated;
+            } catch (FileAlreadyExistsException e) {
+                // Lần khởi động trước của chính instance này vừa tạo (hai lần chạy chồng nhau khi deploy)
+                String stored = Files.readString(file, StandardCharsets.UTF_8).trim();
+                if (stored.isEmpty()) {
+                    throw new IOException("file instance id đang được ghi");
+                }
+                return stored;
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Không lưu được instance id vào {} ({}), dùng {}", file, e.getMessage(), fallback);
+            return fallback;
+        }
+    }
+
+    private static String hostname() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package swd.coiviet.service.impl;
+
+import swd.coiviet.enums.SearchDocumentType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Chỉ mục ngược trong bộ nhớ, xếp hạng BM25. Tiêu đề được tính nặng hơn nội dung và có thêm cặp âm tiết
+ * liền nhau ("hoi an") để từ ghép tiếng Việt khớp đúng thứ tự được ưu tiên.
+ * Cập nhật chỉ đánh dấu document cũ là đã xóa, posting cũ được dọn khi tỉ lệ xóa vượt ngưỡng
+ */
+final class SearchIndex {
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int TITLE_WEIGHT = 3;
+    private static final double COMPACT_RATIO = 0.25;
+    private static final int COMPACT_MIN_DOCS = 256;
+
+    record Hit(SearchDocumentType type, long id, String title, float score) {
+    }
+
+    private record DocKey(SearchDocumentType type, long id) {
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<DocKey, Integer> docIds = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private SearchDocumentType[] types = new SearchDocumentType[1024];
+    private long[] entityIds = new long[1024];
+    private String[] titles = new String[1024];
+    private int[] lengths = new int[1024];
+    private int maxDoc;
+    private int liveDocs;
+    private long totalLength;
+    // Document đã xóa còn nằm trong posting kể từ lần dọn trước
+    private int staleDocs;
+
+    void upsert(SearchDocumentType type, long id, String title, String... body) {
+        // Tách từ ngoài khóa, chỉ giữ khóa ghi lúc gắn posting
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = addTerms(frequencies, SearchText.tokenize(title), TITLE_WEIGHT, true);
+        for (String text : body) {
+            length += addTerms(frequencies, SearchText.tokenize(text), 1, false);
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(new DocKey(type, id));
+            int doc = maxDoc++;
+            ensureCapacity(doc + 1);
+            types[doc] = type;
+            entityIds[doc] = id;
+            titles[doc] = title;
+            lengths[doc] = length;
+            live.set(doc);
+            liveDocs++;
+            totalLength += length;
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), term -> new Postings()).add(doc, entry.getValue());
+            }
+            docIds.put(new DocKey(type, id), doc);
+            maybeCompact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(SearchDocumentType type, long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(new DocKey(type, id));
+            maybeCompact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    List<Hit> search(String query, Set<SearchDocumentType> filter, int limit) {
+        Map<String, Integer> queryTerms = new LinkedHashMap<>();
+        addTerms(queryTerms, SearchText.tokenize(query), 1, true);
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            if (liveDocs == 0) {
+                return List.of();
+            }
+            float avgLength = (float) totalLength / liveDocs;
+            float[] scores = new float[maxDoc];
+            int[] touched = new int[256];
+            int touchedCount = 0;
+            for (Map.Entry<String, Integer> term : queryTerms.entrySet()) {
+                Postings list = postings.get(term.getKey());
+                if (list == null) {
+                    continue;
+                }
+                // Posting còn chứa document đã xóa chưa dọn nên df có thể lớn hơn số document thật
+                int df = Math.min(list.size, liveDocs);
+                float idf = (float) Math.log(1 + (liveDocs - df + 0.5) / (df + 0.5));
+                float weight = idf * term.getValue();
+                for (int i = 0; i < list.size; i++) {
+                    int doc = list.docs[i];
+                    if (!live.get(doc) || !filter.contains(types[doc])) {
+                        continue;
+                    }
+                    float tf = list.freqs[i];
+                    float norm = K1 * (1 - B + B * lengths[doc] / avgLength);
+                    if (scores[doc] == 0) {
+                        if (touchedCount == touched.length) {
+                            touched = Arrays.copyOf(touched, touchedCount * 2);
+                        }
+                        touched[touchedCount++] = doc;
+                    }
+                    scores[doc] += weight * tf * (K1 + 1) / (tf + norm);
+                }
+            }
+            // Heap nhỏ giữ top-k thay vì sắp xếp toàn bộ document khớp
+            PriorityQueue<Integer> top = new PriorityQueue<>(limit + 1, (a, b) -> Float.compare(scores[a], scores[b]));
+            for (int i = 0; i < touchedCount; i++) {
+                int doc = touched[i];
+                if (top.size() < limit) {
+                    top.add(doc);
+                } else if (scores[doc] > scores[top.peek()]) {
+                    top.poll();
+                    top.add(doc);
+                }
+            }
+            List<Hit> hits = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                int doc = top.poll();
+                hits.add(new Hit(types[doc], entityIds[doc], titles[doc], scores[doc]));
+            }
+            return hits.reversed();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int addTerms(Map<String, Integer> frequencies, List<String> tokens, int weight, boolean bigrams) {
+        for (int i = 0; i < tokens.size(); i++) {
+            frequencies.merge(tokens.get(i), weight, Integer::sum);
+            if (bigrams && i > 0) {
+                frequencies.merge(tokens.get(i - 1) + ' ' + tokens.get(i), weight, Integer::sum);
+            }
+        }
+        return tokens.size() * weight;
+    }
+
+    private void removeLocked(DocKey key) {
+        Integer doc = docIds.remove(key);
+        if (doc == null) {
+            return;
+        }
+        live.clear(doc);
+        liveDocs--;
+        staleDocs++;
+        totalLength -= lengths[doc];
+        titles[doc] = null;
+    }
+
+    private void maybeCompact() {
+        if (staleDocs < COMPACT_MIN_DOCS || staleDocs < COMPACT_RATIO * (liveDocs + staleDocs)) {
+            return;
+        }
+        for (Iterator<Postings> it = postings.values().iterator(); it.hasNext(); ) {
+            Postings list = it.next();
+            list.retain(live);
+            if (list.size == 0) {
+                it.remove();
+            }
+        }
+        staleDocs = 0;
+    }
+
+    private void ensureCapacity(int size) {
+        if (size <= types.length) {
+            return;
+        }
+        int capacity = Math.max(size, types.length + (types.length >> 1));
+        types = Arrays.copyOf(types, capacity);
+        entityIds = Arrays.copyOf(entityIds, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+    }
+
+    private static final class Postings {
+        private int[] docs = new int[2];
+        private int[] freqs = new int[2];
+        private int size;
+
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+
+        void retain(BitSet live) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (live.get(docs[i])) {
+                    docs[kept] = docs[i];
+                    freqs[kept] = freqs[i];
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package swd.coiviet.service.impl;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import swd.coiviet.dto.response.SearchHitResponse;
+import swd.coiviet.dto.response.SearchResponse;
+import swd.coiviet.enums.PublicationStatus;
+import swd.coiviet.enums.SearchDocumentType;
+import swd.coiviet.enums.Status;
+import swd.coiviet.event.CatalogChangedEvent;
+import swd.coiviet.exception.AppException;
+import swd.coiviet.exception.ErrorCode;
+import swd.coiviet.model.BlogPost;
+import swd.coiviet.model.CultureItem;
+import swd.coiviet.model.Tour;
+import swd.coiviet.model.UserMemory;
+import swd.coiviet.repository.BlogPostRepository;
+import swd.coiviet.repository.CultureItemRepository;
+import swd.coiviet.repository.TourRepository;
+import swd.coiviet.repository.UserMemoryRepository;
+import swd.coiviet.repository.projection.SearchDocument;
+import swd.coiviet.service.SearchService;
+
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class SearchServiceImpl implements SearchService {
+    private static final Logger logger = LoggerFactory.getLogger(SearchServiceImpl.class);
+    private static final int MAX_QUERY_LENGTH = 200;
+
+    private record Change(SearchDocumentType type, Long id) {
+    }
+
+    private final TourRepository tourRepo;
+    private final CultureItemRepository cultureItemRepo;
+    private final BlogPostRepository blogPostRepo;
+    private final UserMemoryRepository userMemoryRepo;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.search.default-limit:20}")
+    private int defaultLimit;
+
+    @Value("${app.search.max-limit:50}")
+    private int maxLimit;
+
+    @Value("${app.search.batch-size:1000}")
+    private int batchSize;
+
+    // Thay cả chỉ mục khi dựng lại nên request đang tìm vẫn đọc bản cũ trọn vẹn
+    private volatile SearchIndex index = new SearchIndex();
+    private volatile boolean loaded;
+    // Thay đổi xảy ra trong lúc dựng lại, áp lại lên bản mới để không bị mất
+    private Set<Change> changesDuringReindex;
+
+    public SearchServiceImpl(TourRepository tourRepo,
+                             CultureItemRepository cultureItemRepo,
+                             BlogPostRepository blogPostRepo,
+                             UserMemoryRepository userMemoryRepo,
+                             MeterRegistry meterRegistry) {
+        this.tourRepo = tourRepo;
+        this.cultureItemRepo = cultureItemRepo;
+        this.blogPostRepo = blogPostRepo;
+        this.userMemoryRepo = userMemoryRepo;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("search.index.documents", this, service -> service.index.size()).register(meterRegistry);
+    }
+
+    @Override
+    public SearchResponse search(String query, Set<SearchDocumentType> types, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new AppException(ErrorCode.INVALID_REQUEST, "Từ khóa tìm kiếm không được để trống");
+        }
+        if (query.length() > MAX_QUERY_LENGTH) {
+            throw new AppException(ErrorCode.INVALID_REQUEST, "Từ khóa tìm kiếm tối đa " + MAX_QUERY_LENGTH + " ký tự");
+        }
+        int size = limit == null ? defaultLimit : Math.max(1, Math.min(limit, maxLimit));
+        Set<SearchDocumentType> filter = types == null || types.isEmpty()
+                ? EnumSet.allOf(SearchDocumentType.class)
+                : EnumSet.copyOf(types);
+        long t0 = System.nanoTime();
+        List<SearchHitResponse> hits = index.search(query, filter, size).stream()
+                .map(hit -> new SearchHitResponse(hit.type(), hit.id(), hit.title(), hit.score()))
+                .toList();
+        long elapsed = System.nanoTime() - t0;
+        meterRegistry.timer("search.query").record(elapsed, TimeUnit.NANOSECONDS);
+        return new SearchResponse(query, hits, elapsed / 1e6);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            reindex();
+        } catch (RuntimeException e) {
+            // Chưa dựng được thì tìm kiếm trả rỗng cho tới lần dựng lại định kỳ
+            logger.warn("Không dựng được chỉ mục tìm kiếm: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Mỗi instance giữ chỉ mục riêng nên tự dựng lại, không chạy dưới lease. Dựng lại hằng đêm
+     * để bù thay đổi không đi qua service (import dữ liệu, sửa trực tiếp DB)
+     */
+    @Override
+    @Scheduled(cron = "${app.search.rebuild-cron:0 30 4 * * ?}")
+    public void reindex() {
+        synchronized (this) {
+            changesDuringReindex = new HashSet<>();
+        }
+        long t0 = System.nanoTime();
+        SearchIndex next = new SearchIndex();
+        try {
+            for (SearchDocumentType type : SearchDocumentType.values()) {
+                long after = 0;
+                List<SearchDocument> page;
+                do {
+                    page = fetch(type, after, batchSize);
+                    for (SearchDocument doc : page) {
+                        upsert(next, type, doc);
+                        after = doc.getId();
+                    }
+                } while (page.size() == batchSize);
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                changesDuringReindex = null;
+            }
+            throw e;
+        }
+        Set<Change> changes;
+        synchronized (this) {
+            changes = changesDuringReindex;
+            changesDuringReindex = null;
+            index = next;
+            loaded = true;
+        }
+        changes.forEach(change -> refresh(change.type(), change.id()));
+        logger.info("Đã dựng chỉ mục tìm kiếm: {} document trong {} ms", next.size(), (System.nanoTime() - t0) / 1_000_000);
+    }
+
+    @Override
+    public void refresh(SearchDocumentType type, Long id) {
+        synchronized (this) {
+            if (changesDuringReindex != null) {
+                changesDuringReindex.add(new Change(type, id));
+            }
+        }
+        Optional<SearchDocument> doc = fetchOne(type, id);
+        SearchIndex current = index;
+        if (doc.isEmpty()) {
+            current.remove(type, id);
+        } else {
+            upsert(current, type, doc.get());
+        }
+    }
+
+    @Override
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Sau commit để chỉ mục không thấy dữ liệu bị rollback; một dòng mỗi lần lưu nên chạy ngay trên thread ghi
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        SearchDocumentType type = typeOf(event.getEntityType());
+        if (type == null || event.getEntityId() == null) {
+            return;
+        }
+        try {
+            refresh(type, event.getEntityId());
+        } catch (RuntimeException e) {
+            logger.warn("Không cập nhật được chỉ mục tìm kiếm {} #{}: {}", type, event.getEntityId(), e.getMessage());
+        }
+    }
+
+    private static void upsert(SearchIndex target, SearchDocumentType type, SearchDocument doc) {
+        target.upsert(type, doc.getId(), doc.getTitle(), doc.getBody(), doc.getProvinceName());
+    }
+
+    private List<SearchDocument> fetch(SearchDocumentType type, long after, int limit) {
+        Limit page = Limit.of(limit);
+        return switch (type) {
+            case TOUR -> tourRepo.findSearchDocuments(Status.ACTIVE, after, page);
+            case CULTURE_ITEM -> cultureItemRepo.findSearchDocuments(PublicationStatus.PUBLISHED, after, page);
+            case BLOG_POST -> blogPostRepo.findSearchDocuments(PublicationStatus.PUBLISHED, after, page);
+            case USER_MEMORY -> userMemoryRepo.findSearchDocuments(PublicationStatus.PUBLISHED, after, page);
+        };
+    }
+
+    private Optional<SearchDocument> fetchOne(SearchDocumentType type, Long id) {
+        return switch (type) {
+            case TOUR -> tourRepo.findSearchDocument(Status.ACTIVE, id);
+            case CULTURE_ITEM -> cultureItemRepo.findSearchDocument(PublicationStatus.PUBLISHED, id);
+            case BLOG_POST -> blogPostRepo.findSearchDocument(PublicationStatus.PUBLISHED, id);
+            case USER_MEMORY -> userMemoryRepo.findSearchDocument(PublicationStatus.PUBLISHED, id);
+        };
+    }
+
+    private static SearchDocumentType typeOf(Class<?> entityType) {
+        if (entityType == Tour.class) return SearchDocumentType.TOUR;
+        if (entityType == CultureItem.class) return SearchDocumentType.CULTURE_ITEM;
+        if (entityType == BlogPost.class) return SearchDocumentType.BLOG_POST;
+        if (entityType == UserMemory.class) return SearchDocumentType.USER_MEMORY;
+        return null;
+    }
+}
@@ -0,0 +1,49 @@
+package swd.coiviet.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import swd.coiviet.repository.TourScheduleRepository;
+import swd.coiviet.service.SeatInventoryService;
+
+import java.time.LocalDate;
+
+/**
+ * Quản lý số chỗ của tour schedule bằng một câu UPDATE có điều kiện,
+ * nên kiểm tra chỗ trống và tăng bookedSlots xảy ra trong cùng một bước trên DB.
+ * Các request đồng thời trên cùng schedule được DB tuần tự hóa theo row lock,
+ * không cần đọc - sửa - ghi entity nên không thể bán quá số chỗ.
+ */
+@Service
+public class SeatInventoryServiceImpl implements SeatInventoryService {
+    private static final Logger logger = LoggerFactory.getLogger(SeatInventoryServiceImpl.class);
+
+    private final TourScheduleRepository tourScheduleRepo;
+
+    public SeatInventoryServiceImpl(TourScheduleRepository tourScheduleRepo) {
+        this.tourScheduleRepo = tourScheduleRepo;
+    }
+
+    @Override
+    @Transactional
+    public boolean reserveSeats(Long tourScheduleId, int seats) {
+        if (tourScheduleId == null || seats <= 0) {
+            return false;
+        }
+        boolean reserved = tourScheduleRepo.reserveSlots(tourScheduleId, seats, LocalDate.now()) == 1;
+        if (!reserved) {
+            logger.info("Không đủ chỗ cho tour schedule {} ({} chỗ)", tourScheduleId, seats);
+        }
+        return reserved;
+    }
+
+    @Override
+    @Transactional
+    public void releaseSeats(Long tourScheduleId, int seats) {
+        if (tourScheduleId == null || seats <= 0) {
+            return;
+        }
+        tourScheduleRepo.releaseSlots(tourScheduleId, seats);
+    }
+}
@@ -0,0 +1,292 @@
+package swd.coiviet.service.impl;
+
+import swd.coiviet.enums.SuggestionType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Cây tiền tố nén (radix trie) trên tên đã bỏ dấu, dựng một lần rồi chỉ đọc. Mỗi nút giữ sẵn top-k theo độ phổ biến
+ * nên tra gợi ý chỉ tốn độ dài tiền tố + k, không phụ thuộc số tên khớp.
+ * Ngoài tên đầy đủ còn đánh khóa từ mỗi âm tiết tiếp theo ("Thừa Thiên Huế" khớp cả "hue"), xếp sau khớp từ đầu
+ */
+final class SuggestIndex {
+    static final int MAX_KEY_LENGTH = 64;
+    private static final float INNER_WORD_PENALTY = 1f;
+
+    record Entry(SuggestionType type, long id, String label, float weight) {
+    }
+
+    static final SuggestIndex EMPTY = build(List.of(), 1);
+
+    private final Entry[] entries;
+    private final String[] keys;
+    private final int[] keyEntries;
+    // Nút i ứng với tiền tố keys[nodeKeys[i]][0, nodeTo[i])
+    private final int[] nodeKeys;
+    private final int[] nodeTo;
+    private final int[] childStart;
+    private final int[] childCount;
+    private final char[] childChars;
+    private final int[] children;
+    private final int[] topStart;
+    private final int[] topCount;
+    private final int[] tops;
+    private final int maxLimit;
+
+    private SuggestIndex(Entry[] entries, String[] keys, int[] keyEntries, Builder builder, int maxLimit) {
+        this.entries = entries;
+        this.keys = keys;
+        this.keyEntries = keyEntries;
+        this.nodeKeys = Arrays.copyOf(builder.nodeKeys, builder.nodes);
+        this.nodeTo = Arrays.copyOf(builder.nodeTo, builder.nodes);
+        this.childStart = Arrays.copyOf(builder.childStart, builder.nodes);
+        this.childCount = Arrays.copyOf(builder.childCount, builder.nodes);
+        this.topStart = Arrays.copyOf(builder.topStart, builder.nodes);
+        this.topCount = Arrays.copyOf(builder.topCount, builder.nodes);
+        this.childChars = Arrays.copyOf(builder.childChars, builder.childrenSize);
+        this.children = Arrays.copyOf(builder.children, builder.childrenSize);
+        this.tops = Arrays.copyOf(builder.tops, builder.topsSize);
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * @param maxLimit số gợi ý tối đa mỗi lần tra, quyết định kích thước top-k lưu ở mỗi nút
+     */
+    static SuggestIndex build(List<Entry> source, int maxLimit) {
+        Entry[] entries = source.toArray(Entry[]::new);
+        List<String> keyList = new ArrayList<>();
+        List<Integer> keyEntryList = new ArrayList<>();
+        List<Float> keyWeightList = new ArrayList<>();
+        for (int e = 0; e < entries.length; e++) {
+            List<String> tokens = SearchText.tokenize(entries[e].label());
+            for (int start = 0; start < tokens.size(); start++) {
+                String key = String.join(" ", tokens.subList(start, tokens.size()));
+                keyList.add(key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key);
+                keyEntryList.add(e);
+                keyWeightList.add(start == 0 ? entries[e].weight() : entries[e].weight() - INNER_WORD_PENALTY);
+            }
+        }
+        Integer[] order = new Integer[keyList.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(keyList::get));
+        String[] keys = new String[order.length];
+        int[] keyEntries = new int[order.length];
+        float[] keyWeights = new float[order.length];
+        for (int i = 0; i < order.length; i++) {
+            keys[i] = keyList.get(order[i]);
+            keyEntries[i] = keyEntryList.get(order[i]);
+            keyWeights[i] = keyWeightList.get(order[i]);
+        }
+        Builder builder = new Builder(keys, keyEntries, keyWeights, maxLimit);
+        if (keys.length > 0) {
+            builder.node(0, keys.length);
+        }
+        return new SuggestIndex(entries, keys, keyEntries, builder, maxLimit);
+    }
+
+    List<Entry> suggest(String prefix, int limit) {
+        String query = normalizePrefix(prefix);
+        if (query.isEmpty() || nodeKeys.length == 0 || limit <= 0) {
+            return List.of();
+        }
+        int node = 0;
+        int depth = 0;
+        while (true) {
+            String key = keys[nodeKeys[node]];
+            int to = nodeTo[node];
+            while (depth < to && depth < query.length()) {
+                if (key.charAt(depth) != query.charAt(depth)) {
+                    return List.of();
+                }
+                depth++;
+            }
+            if (depth == query.length()) {
+                break;
+            }
+            node = findChild(node, query.charAt(depth));
+            if (node < 0) {
+                return List.of();
+            }
+        }
+        int count = Math.min(topCount[node], Math.min(limit, maxLimit));
+        List<Entry> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(entries[keyEntries[tops[topStart[node] + i]]]);
+        }
+        return result;
+    }
+
+    int size() {
+        return entries.length;
+    }
+
+    /**
+     * Chuẩn hóa như khóa; giữ dấu cách cuối để "ha " không khớp "hanh"
+     */
+    static String normalizePrefix(String prefix) {
+        List<String> tokens = SearchText.tokenize(prefix);
+        if (tokens.isEmpty()) {
+            return "";
+        }
+        String query = String.join(" ", tokens);
+        char last = prefix.charAt(prefix.length() - 1);
+        if (!Character.isLetterOrDigit(last) && Character.getType(last) != Character.NON_SPACING_MARK) {
+            query += ' ';
+        }
+        return query.length() > MAX_KEY_LENGTH ? query.substring(0, MAX_KEY_LENGTH) : query;
+    }
+
+    private int findChild(int node, char c) {
+        int lo = childStart[node];
+        int hi = lo + childCount[node] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (childChars[mid] < c) {
+                lo = mid + 1;
+            } else if (childChars[mid] > c) {
+                hi = mid - 1;
+            } else {
+                return children[mid];
+            }
+        }
+        return -1;
+    }
+
+    private static final class Builder {
+        private final String[] keys;
+        private final int[] keyEntries;
+        private final float[] keyWeights;
+        private final int maxLimit;
+        private int[] nodeKeys = new int[1024];
+        private int[] nodeTo = new int[1024];
+        private int[] childStart = new int[1024];
+        private int[] childCount = new int[1024];
+        private int[] topStart = new int[1024];
+        private int[] topCount = new int[1024];
+        private int nodes;
+        private char[] childChars = new char[1024];
+        private int[] children = new int[1024];
+        private int childrenSize;
+        private int[] tops = new int[1024];
+        private int topsSize;
+
+        Builder(String[] keys, int[] keyEntries, float[] keyWeights, int maxLimit) {
+            this.keys = keys;
+            this.keyEntries = keyEntries;
+            this.keyWeights = keyWeights;
+            this.maxLimit = maxLimit;
+        }
+
+        /**
+         * Dựng nút cho các khóa [lo, hi) đã sắp xếp, trả về chỉ số nút
+         */
+        int node(int lo, int hi) {
+            // Khóa đã sắp xếp nên tiền tố chung của khóa đầu và cuối là tiền tố chung của cả đoạn
+            int to = commonPrefix(keys[lo], keys[hi - 1]);
+            int node = nodes++;
+            ensureNodeCapacity(nodes);
+            nodeKeys[node] = lo;
+            nodeTo[node] = to;
+
+            List<Integer> candidates = new ArrayList<>();
+            int i = lo;
+            while (i < hi && keys[i].length() == to) {
+                candidates.add(i++);
+            }
+            List<Character> chars = new ArrayList<>();
+            List<Integer> childNodes = new ArrayList<>();
+            while (i < hi) {
+                char c = keys[i].charAt(to);
+                int j = i + 1;
+                while (j < hi && keys[j].charAt(to) == c) {
+                    j++;
+                }
+                int child = node(i, j);
+                chars.add(c);
+                childNodes.add(child);
+                for (int t = 0; t < topCount[child]; t++) {
+                    candidates.add(tops[topStart[child] + t]);
+                }
+                i = j;
+            }
+
+            childStart[node] = childrenSize;
+            childCount[node] = childNodes.size();
+            ensureChildrenCapacity(childrenSize + childNodes.size());
+            for (int c = 0; c < childNodes.size(); c++) {
+                childChars[childrenSize] = chars.get(c);
+                children[childrenSize++] = childNodes.get(c);
+            }
+
+            // Top-k của nút gộp từ khóa kết thúc tại nút và top-k của các nút con, mỗi entry chỉ giữ một lần
+            candidates.sort((a, b) -> {
+                int byWeight = Float.compare(keyWeights[b], keyWeights[a]);
+                return byWeight != 0 ? byWeight : Integer.compare(keys[a].length(), keys[b].length());
+            });
+            topStart[node] = topsSize;
+            ensureTopsCapacity(topsSize + Math.min(maxLimit, candidates.size()));
+            int count = 0;
+            for (int key : candidates) {
+                if (count == maxLimit) {
+                    break;
+                }
+                if (!containsEntry(topsSize - count, topsSize, keyEntries[key])) {
+                    tops[topsSize++] = key;
+                    count++;
+                }
+            }
+            topCount[node] = count;
+            return node;
+        }
+
+        private boolean containsEntry(int from, int to, int entry) {
+            for (int i = from; i < to; i++) {
+                if (keyEntries[tops[i]] == entry) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static int commonPrefix(String a, String b) {
+            int n = Math.min(a.length(), b.length());
+            int i = 0;
+            while (i < n && a.charAt(i) == b.charAt(i)) {
+                i++;
+            }
+            return i;
+        }
+
+        private void ensureNodeCapacity(int size) {
+            if (size <= nodeKeys.length) {
+                return;
+            }
+            int capacity = nodeKeys.length * 2;
+            nodeKeys = Arrays.copyOf(nodeKeys, capacity);
+            nodeTo = Arrays.copyOf(nodeTo, capacity);
+            childStart = Arrays.copyOf(childStart, capacity);
+            childCount = Arrays.copyOf(childCount, capacity);
+            topStart = Arrays.copyOf(topStart, capacity);
+            topCount = Arrays.copyOf(topCount, capacity);
+        }
+
+        private void ensureChildrenCapacity(int size) {
+            if (size > children.length) {
+                int capacity = Math.max(size, children.length * 2);
+                children = Arrays.copyOf(children, capacity);
+                childChars = Arrays.copyOf(childChars, capacity);
+            }
+        }
+
+        private void ensureTopsCapacity(int size) {
+            if (size > tops.length) {
+                tops = Arrays.copyOf(tops, Math.max(size, tops.length * 2));
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package swd.coiviet.service.impl;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import swd.coiviet.dto.response.SuggestionResponse;
+import swd.coiviet.enums.PublicationStatus;
+import swd.coiviet.enums.Status;
+import swd.coiviet.enums.SuggestionType;
+import swd.coiviet.event.CatalogChangedEvent;
+import swd.coiviet.exception.AppException;
+import swd.coiviet.exception.ErrorCode;
+import swd.coiviet.model.Artisan;
+import swd.coiviet.model.CultureItem;
+import swd.coiviet.model.Province;
+import swd.coiviet.model.Tour;
+import swd.coiviet.repository.ArtisanRepository;
+import swd.coiviet.repository.CultureItemRepository;
+import swd.coiviet.repository.ProvinceRepository;
+import swd.coiviet.repository.TourRepository;
+import swd.coiviet.repository.projection.SuggestionSource;
+import swd.coiviet.service.SuggestService;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Service
+public class SuggestServiceImpl implements SuggestService {
+    private static final Logger logger = LoggerFactory.getLogger(SuggestServiceImpl.class);
+    private static final int MAX_PREFIX_LENGTH = 100;
+
+    private final ProvinceRepository provinceRepo;
+    private final TourRepository tourRepo;
+    private final ArtisanRepository artisanRepo;
+    private final CultureItemRepository cultureItemRepo;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.suggest.default-limit:8}")
+    private int defaultLimit;
+
+    @Value("${app.suggest.max-limit:10}")
+    private int maxLimit;
+
+    @Value("${app.suggest.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.suggest.max-age:PT1H}")
+    private Duration maxAge;
+
+    // Cây chỉ đọc, dựng bản mới rồi thay tham chiếu nên request đang tra không bị khóa
+    private volatile SuggestIndex index = SuggestIndex.EMPTY;
+    private volatile long builtAt;
+    private volatile boolean loaded;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    public SuggestServiceImpl(ProvinceRepository provinceRepo,
+                              TourRepository tourRepo,
+                              ArtisanRepository artisanRepo,
+                              CultureItemRepository cultureItemRepo,
+                              MeterRegistry meterRegistry) {
+        this.provinceRepo = provinceRepo;
+        this.tourRepo = tourRepo;
+        this.artisanRepo = artisanRepo;
+        this.cultureItemRepo = cultureItemRepo;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("suggest.index.entries", this, service -> service.index.size()).register(meterRegistry);
+    }
+
+    @Override
+    public List<SuggestionResponse> suggest(String prefix, Integer limit) {
+        if (prefix == null || prefix.isBlank()) {
+            return List.of();
+        }
+        if (prefix.length() > MAX_PREFIX_LENGTH) {
+            throw new AppException(ErrorCode.INVALID_REQUEST, "Từ khóa gợi ý tối đa " + MAX_PREFIX_LENGTH + " ký tự");
+        }
+        int size = limit == null ? defaultLimit : Math.max(1, Math.min(limit, maxLimit));
+        long t0 = System.nanoTime();
+        List<SuggestionResponse> suggestions = index.suggest(prefix, size).stream()
+                .map(entry -> new SuggestionResponse(entry.type(), entry.id(), entry.label()))
+                .toList();
+        meterRegistry.timer("suggest.query").record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+        return suggestions;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            // Chưa dựng được thì gợi ý trả rỗng cho tới lần kiểm tra sau
+            dirty.set(true);
+            logger.warn("Không dựng được cây gợi ý: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Chạy nền: dựng lại khi catalog đổi tên hoặc khi bản hiện tại quá max-age (số lượt đặt tour
+     * thay đổi không phát CatalogChangedEvent). Mỗi instance giữ cây riêng nên không chạy dưới lease
+     */
+    @Scheduled(fixedDelayString = "${app.suggest.refresh-interval-ms:60000}",
+            initialDelayString = "${app.suggest.refresh-interval-ms:60000}")
+    public void rebuildIfStale() {
+        boolean expired = System.currentTimeMillis() - builtAt >= maxAge.toMillis();
+        if (!dirty.get() && !expired) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            dirty.set(true);
+            logger.warn("Không dựng lại được cây gợi ý: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void rebuild() {
+        // Xóa cờ trước khi đọc DB: thay đổi commit trong lúc dựng sẽ bật lại cờ cho lần sau
+        dirty.set(false);
+        long t0 = System.nanoTime();
+        List<SuggestIndex.Entry> entries = new ArrayList<>();
+        load(entries, SuggestionType.PROVINCE);
+        load(entries, SuggestionType.TOUR);
+        load(entries, SuggestionType.ARTISAN);
+        load(entries, SuggestionType.CULTURE_ITEM);
+        SuggestIndex next = SuggestIndex.build(entries, maxLimit);
+        index = next;
+        builtAt = System.currentTimeMillis();
+        loaded = true;
+        logger.info("Đã dựng cây gợi ý: {} mục trong {} ms", next.size(), (System.nanoTime() - t0) / 1_000_000);
+    }
+
+    @Override
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        Class<?> type = event.getEntityType();
+        if (type == Province.class || type == Tour.class || type == Artisan.class || type == CultureItem.class) {
+            dirty.set(true);
+        }
+    }
+
+    private void load(List<SuggestIndex.Entry> entries, SuggestionType type) {
+        long after = 0;
+        List<SuggestionSource> page;
+        do {
+            page = fetch(type, after);
+            for (SuggestionSource source : page) {
+                after = source.getId();
+                if (source.getLabel() != null && !source.getLabel().isBlank()) {
+                    entries.add(new SuggestIndex.Entry(type, source.getId(), source.getLabel(), weight(source)));
+                }
+            }
+        } while (page.size() == batchSize);
+    }
+
+    private List<SuggestionSource> fetch(SuggestionType type, long after) {
+        Limit page = Limit.of(batchSize);
+        return switch (type) {
+            case PROVINCE -> provinceRepo.findSuggestionSources(Status.ACTIVE, after, page);
+            case TOUR -> tourRepo.findSuggestionSources(Status.ACTIVE, after, page);
+            case ARTISAN -> artisanRepo.findSuggestionSources(Status.ACTIVE, after, page);
+            case CULTURE_ITEM -> cultureItemRepo.findSuggestionSources(PublicationStatus.PUBLISHED, after, page);
+        };
+    }
+
+    /**
+     * Log lượt đặt để tour rất đông khách không lấn át hẳn điểm đánh giá (0-5)
+     */
+    private static float weight(SuggestionSource source) {
+        long bookings = source.getBookings() == null ? 0 : source.getBookings();
+        double rating = source.getRating() == null ? 0 : source.getRating();
+        return (float) (Math.log1p(bookings) + rating);
+    }
+}
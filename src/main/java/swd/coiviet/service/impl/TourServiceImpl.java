@@ -1,31 +1,58 @@
 package swd.coiviet.service.impl;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import swd.coiviet.model.Tour;
+import swd.coiviet.repository.BookingRepository;
+import swd.coiviet.repository.ReviewRepository;
 import swd.coiviet.repository.TourRepository;
-import swd.coiviet.service.ReviewService;
+import swd.coiviet.repository.projection.DashboardAggregates;
 import swd.coiviet.service.TourService;
+import swd.coiviet.enums.BookingStatus;
 import swd.coiviet.enums.ReviewStatus;
+import org.springframework.data.domain.Limit;
+import swd.coiviet.dto.response.CursorPageResponse;
+import swd.coiviet.dto.response.TourSummaryResponse;
+import swd.coiviet.enums.Status;
+import org.springframework.context.ApplicationEventPublisher;
+import swd.coiviet.event.CatalogChangedEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import swd.coiviet.configuration.CacheNames;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
 public class TourServiceImpl implements TourService {
     private final TourRepository repo;
-    private final ReviewService reviewService;
+    private final ReviewRepository reviewRepo;
+    private final BookingRepository bookingRepo;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public TourServiceImpl(TourRepository repo, ReviewService reviewService) {
+    public TourServiceImpl(TourRepository repo, ReviewRepository reviewRepo, BookingRepository bookingRepo,
+                           ApplicationEventPublisher eventPublisher) {
         this.repo = repo;
-        this.reviewService = reviewService;
+        this.reviewRepo = reviewRepo;
+        this.bookingRepo = bookingRepo;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
-    public Tour save(Tour t) { return repo.save(t); }
+    @CacheEvict(cacheNames = CacheNames.TOURS, key = "#t.id", condition = "#t.id != null")
+    public Tour save(Tour t) {
+        Tour saved = repo.save(t);
+        eventPublisher.publishEvent(new CatalogChangedEvent(Tour.class, saved.getId()));
+        return saved;
+    }
 
     @Override
+    @Cacheable(cacheNames = CacheNames.TOURS, key = "#id", unless = "#result == null")
     public Optional<Tour> findById(Long id) { return repo.findById(id); }
 
     @Override
@@ -38,25 +65,84 @@ public class TourServiceImpl implements TourService {
     public List<Tour> findAll() { return repo.findAll(); }
 
     @Override
-    public void deleteById(Long id) { repo.deleteById(id); }
-
-    @Override
-    public void updateTourRating(Long tourId) {
-        Optional<Tour> tourOpt = findById(tourId);
-        if (tourOpt.isEmpty()) return;
-        
-        Tour tour = tourOpt.get();
-        List<swd.coiviet.model.Review> reviews = reviewService.findByTourIdAndStatus(tourId, ReviewStatus.VISIBLE);
-        
-        if (!reviews.isEmpty()) {
-            double avgRating = reviews.stream()
-                    .mapToInt(swd.coiviet.model.Review::getRating)
-                    .average()
-                    .orElse(0.0);
-            
-            tour.setAverageRating(BigDecimal.valueOf(avgRating).setScale(2, RoundingMode.HALF_UP));
-            tour.setTotalBookings(reviews.size());
-            save(tour);
+    @CacheEvict(cacheNames = CacheNames.TOURS, key = "#id")
+    public void deleteById(Long id) {
+        repo.deleteById(id);
+        eventPublisher.publishEvent(new CatalogChangedEvent(Tour.class, id));
+    }
+
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheNames.TOURS, key = "#tourId")
+    public void applyRatingChange(Long tourId, Integer previousRating, Integer currentRating) {
+        if (tourId == null || Objects.equals(previousRating, currentRating)) return;
+
+        // UPDATE cộng delta giữ khóa dòng tour đến hết transaction nên đọc lại tổng và tính trung bình là nhất quán
+        RatingDelta delta = RatingDelta.of(previousRating, currentRating);
+        if (repo.addRatingDelta(tourId, delta.count, delta.ratingSum,
+                delta.stars[1], delta.stars[2], delta.stars[3], delta.stars[4], delta.stars[5]) == 0) {
+            return;
+        }
+        // Tour chưa được backfill thì bỏ qua delta: backfill đếm lại từ review, kể cả review này
+        repo.findRatingTotals(tourId)
+                .filter(totals -> totals.getRatingCount() != null)
+                .ifPresent(totals ->
+                        repo.updateAverageRating(tourId, averageOf(totals.getRatingSum(), totals.getRatingCount())));
+        eventPublisher.publishEvent(new CatalogChangedEvent(Tour.class, tourId));
+    }
+
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheNames.TOURS, allEntries = true)
+    public int reconcileAggregates(List<Long> tourIds) {
+        if (tourIds.isEmpty()) return 0;
+
+        // Giữ khóa dòng từ lúc đọc review đến lúc ghi đè: delta đến sau phải chờ và cộng lên kết quả mới
+        repo.lockByIds(tourIds);
+        Map<Long, int[]> stars = new HashMap<>();
+        Map<Long, int[]> totals = new HashMap<>();
+        for (DashboardAggregates.TourRatingCount row : reviewRepo.countRatingsByTourIds(tourIds, ReviewStatus.VISIBLE)) {
+            int count = row.getTotal().intValue();
+            int[] sumCount = totals.computeIfAbsent(row.getTourId(), id -> new int[2]);
+            sumCount[0] += count * row.getRating();
+            sumCount[1] += count;
+            if (row.getRating() >= 1 && row.getRating() <= 5) {
+                stars.computeIfAbsent(row.getTourId(), id -> new int[6])[row.getRating()] = count;
+            }
+        }
+        Map<Long, Integer> bookings = new HashMap<>();
+        for (DashboardAggregates.TourCount row : bookingRepo.countByTourIdsExcludingStatus(tourIds, BookingStatus.CANCELLED)) {
+            bookings.put(row.getTourId(), row.getTotal().intValue());
         }
+
+        int updated = 0;
+        for (Long tourId : tourIds) {
+            int[] sumCount = totals.getOrDefault(tourId, new int[2]);
+            int[] s = stars.getOrDefault(tourId, new int[6]);
+            updated += repo.overwriteAggregates(tourId, sumCount[1], sumCount[0], s[1], s[2], s[3], s[4], s[5],
+                    averageOf(sumCount[0], sumCount[1]), bookings.getOrDefault(tourId, 0));
+        }
+        eventPublisher.publishEvent(new CatalogChangedEvent(Tour.class, null));
+        return updated;
+    }
+
+    @Override
+    public List<Long> findAllIds() { return repo.findAllIds(); }
+
+    @Override
+    public List<Long> findIdsWithoutRatingAggregates(int limit) {
+        return repo.findIdsWithoutRatingAggregates(Limit.of(limit));
+    }
+
+    private BigDecimal averageOf(Integer ratingSum, Integer ratingCount) {
+        if (ratingSum == null || ratingCount == null || ratingCount <= 0) return null;
+        return BigDecimal.valueOf(ratingSum).divide(BigDecimal.valueOf(ratingCount), 2, RoundingMode.HALF_UP);
+    }
+
+    @Override
+    public CursorPageResponse<TourSummaryResponse> findPage(Long cursor, Integer size, Long provinceId, Long artisanId, Status status) {
+        int pageSize = CursorPageResponse.normalizeSize(size);
+        List<TourSummaryResponse> rows = repo.findSummaryPage(cursor, provinceId, artisanId, status, Limit.of(pageSize + 1));
+        return CursorPageResponse.of(rows, pageSize, TourSummaryResponse::getId);
     }
 }
@@ -1,18 +1,22 @@
 package swd.coiviet.service.impl;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import swd.coiviet.dto.request.SuggestTourRequest;
 import swd.coiviet.dto.response.TourSuggestionResponse;
-import swd.coiviet.enums.BookingStatus;
+import swd.coiviet.dto.response.TourWorkflowRunResult;
 import swd.coiviet.enums.TourScheduleStatus;
 import swd.coiviet.model.Tour;
 import swd.coiviet.model.TourSchedule;
 import swd.coiviet.model.Voucher;
-import swd.coiviet.repository.BookingRepository;
 import swd.coiviet.repository.TourScheduleRepository;
+import swd.coiviet.service.LowBookingWorkflowService;
 import swd.coiviet.service.TourService;
 import swd.coiviet.service.TourScheduleService;
 import swd.coiviet.service.TourWorkflowService;
@@ -20,12 +24,11 @@ import swd.coiviet.service.VoucherService;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
@@ -33,28 +36,34 @@ public class TourWorkflowServiceImpl implements TourWorkflowService {
     private static final Logger logger = LoggerFactory.getLogger(TourWorkflowServiceImpl.class);
     
     private final TourScheduleRepository tourScheduleRepo;
-    private final BookingRepository bookingRepo;
     private final TourService tourService;
     private final TourScheduleService tourScheduleService;
     private final VoucherService voucherService;
-    private final swd.coiviet.service.EmailService emailService;
-    private final swd.coiviet.service.NotificationService notificationService;
+    private final LowBookingWorkflowService lowBookingWorkflowService;
+    private final ThreadPoolTaskExecutor workflowExecutor;
+    private final MeterRegistry meterRegistry;
+    private final int horizonDays;
+    private final int chunkSize;
 
     public TourWorkflowServiceImpl(
             TourScheduleRepository tourScheduleRepo,
-            BookingRepository bookingRepo,
             TourService tourService,
             TourScheduleService tourScheduleService,
             VoucherService voucherService,
-            swd.coiviet.service.EmailService emailService,
-            swd.coiviet.service.NotificationService notificationService) {
+            LowBookingWorkflowService lowBookingWorkflowService,
+            @Qualifier("workflowExecutor") ThreadPoolTaskExecutor workflowExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${app.workflow.horizon-days:10}") int horizonDays,
+            @Value("${app.workflow.chunk-size:50}") int chunkSize) {
         this.tourScheduleRepo = tourScheduleRepo;
-        this.bookingRepo = bookingRepo;
         this.tourService = tourService;
         this.tourScheduleService = tourScheduleService;
         this.voucherService = voucherService;
-        this.emailService = emailService;
-        this.notificationService = notificationService;
+        this.lowBookingWorkflowService = lowBookingWorkflowService;
+        this.workflowExecutor = workflowExecutor;
+        this.meterRegistry = meterRegistry;
+        this.horizonDays = horizonDays;
+        this.chunkSize = Math.max(1, chunkSize);
     }
 
     @Override
@@ -85,188 +94,8 @@ public class TourWorkflowServiceImpl implements TourWorkflowService {
     }
 
     @Override
-    @Transactional
     public void handleLowBookingTour(TourSchedule schedule) {
-        if (schedule.getTourDate() == null) {
-            return;
-        }
-
-        LocalDate tourDate = schedule.getTourDate();
-        LocalDate now = LocalDate.now();
-        long daysUntilTour = java.time.temporal.ChronoUnit.DAYS.between(now, tourDate);
-
-        // Count confirmed bookings
-        List<swd.coiviet.model.Booking> bookings = bookingRepo.findByTourScheduleIdAndStatus(
-                schedule.getId(), BookingStatus.CONFIRMED);
-
-        int bookedSlots = schedule.getBookedSlots() != null ? schedule.getBookedSlots() : 0;
-        int maxSlots = schedule.getMaxSlots() != null ? schedule.getMaxSlots() : 0;
-        int minRequired = (int) (maxSlots * 0.5); // Minimum 50% capacity
-
-        // Only process if below minimum requirement
-        if (bookedSlots >= minRequired) {
-            return;
-        }
-
-        if (daysUntilTour > 7) {
-            // Còn >7 ngày: Đẩy ads, telesale, khuyến mãi
-            logger.info("Tour schedule {} còn {} ngày, số lượng booking thấp. Đẩy ads và khuyến mãi", 
-                    schedule.getId(), daysUntilTour);
-            
-            // Create discount voucher
-            Voucher voucher = createDiscountVoucherForSchedule(schedule, 20); // 20% discount
-            
-            // Send email and notification to existing bookings with discount
-            for (swd.coiviet.model.Booking booking : bookings) {
-                if (booking.getContactEmail() != null) {
-                    emailService.sendTourLowBookingAlert(
-                            booking.getContactEmail(),
-                            schedule.getTour().getTitle(),
-                            schedule.getTourDate().toString(),
-                            voucher.getCode(),
-                            20
-                    );
-                }
-                // Send notification
-                notificationService.createTourLowBookingNotification(
-                        booking.getUser().getId(),
-                        schedule.getId(),
-                        schedule.getTour().getTitle()
-                );
-                // Send voucher notification
-                notificationService.createVoucherNotification(
-                        booking.getUser().getId(),
-                        voucher.getCode(),
-                        "20%"
-                );
-            }
-            
-        } else if (daysUntilTour >= 3 && daysUntilTour <= 5) {
-            // Còn 3-5 ngày: Gửi email cho khách, đề xuất tour dự phòng
-            logger.info("Tour schedule {} còn {} ngày, số lượng booking thấp. Gửi email cho khách", 
-                    schedule.getId(), daysUntilTour);
-            
-            // Create higher discount voucher
-            Voucher voucher = createDiscountVoucherForSchedule(schedule, 30); // 30% discount
-            
-            // Get alternative tours
-            List<swd.coiviet.model.Tour> alternativeTours = tourService.findByProvinceId(
-                    schedule.getTour().getProvince().getId());
-            List<String> alternativeTourTitles = alternativeTours.stream()
-                    .filter(t -> !t.getId().equals(schedule.getTour().getId()))
-                    .limit(3)
-                    .map(swd.coiviet.model.Tour::getTitle)
-                    .collect(java.util.stream.Collectors.toList());
-            
-            // Send email and notification to existing bookings with alternative tour suggestions
-            for (swd.coiviet.model.Booking booking : bookings) {
-                if (booking.getContactEmail() != null) {
-                    emailService.sendTourLowBookingAlert(
-                            booking.getContactEmail(),
-                            schedule.getTour().getTitle(),
-                            schedule.getTourDate().toString(),
-                            voucher.getCode(),
-                            30
-                    );
-                    if (!alternativeTourTitles.isEmpty()) {
-                        emailService.sendAlternativeTourSuggestion(
-                                booking.getContactEmail(),
-                                schedule.getTour().getTitle(),
-                                alternativeTourTitles
-                        );
-                    }
-                }
-                // Send notification
-                notificationService.createTourLowBookingNotification(
-                        booking.getUser().getId(),
-                        schedule.getId(),
-                        schedule.getTour().getTitle()
-                );
-                // Send voucher notification
-                notificationService.createVoucherNotification(
-                        booking.getUser().getId(),
-                        voucher.getCode(),
-                        "30%"
-                );
-                // Send alternative tour suggestion notification
-                if (!alternativeTours.isEmpty()) {
-                    swd.coiviet.model.Tour altTour = alternativeTours.stream()
-                            .filter(t -> !t.getId().equals(schedule.getTour().getId()))
-                            .findFirst()
-                            .orElse(null);
-                    if (altTour != null) {
-                        notificationService.createAlternativeTourSuggestionNotification(
-                                booking.getUser().getId(),
-                                altTour.getId(),
-                                altTour.getTitle()
-                        );
-                    }
-                }
-            }
-            
-        } else if (daysUntilTour < 3) {
-            // Còn <3 ngày: Quyết định hủy hoặc phụ thu
-            logger.warn("Tour schedule {} còn {} ngày, số lượng booking thấp. Quyết định hủy hoặc phụ thu", 
-                    schedule.getId(), daysUntilTour);
-            
-            if (bookedSlots < maxSlots * 0.3) { // Less than 30% capacity
-                // Cancel the tour
-                schedule.setStatus(TourScheduleStatus.CANCELLED);
-                tourScheduleService.save(schedule);
-                
-                // Notify and refund bookings
-                for (swd.coiviet.model.Booking booking : bookings) {
-                    if (booking.getContactEmail() != null) {
-                        emailService.sendTourCancellationNotice(
-                                booking.getContactEmail(),
-                                schedule.getTour().getTitle(),
-                                schedule.getTourDate().toString(),
-                                "Không đủ số lượng người đăng ký"
-                        );
-                    }
-                    // Send notification
-                    notificationService.createTourCancellationNotification(
-                            booking.getUser().getId(),
-                            schedule.getId(),
-                            schedule.getTour().getTitle()
-                    );
-                    logger.info("Hủy booking {} do tour bị hủy", booking.getBookingCode());
-                }
-            } else {
-                // Apply surcharge
-                BigDecimal surchargePercent = BigDecimal.valueOf(20); // 20% surcharge
-                BigDecimal newPrice = schedule.getCurrentPrice() != null 
-                        ? schedule.getCurrentPrice() 
-                        : schedule.getTour().getPrice();
-                newPrice = newPrice.multiply(BigDecimal.ONE.add(surchargePercent.divide(BigDecimal.valueOf(100))));
-                schedule.setCurrentPrice(newPrice);
-                tourScheduleService.save(schedule);
-                
-                // Notify bookings about surcharge
-                BigDecimal oldPrice = schedule.getCurrentPrice() != null 
-                        ? schedule.getCurrentPrice() 
-                        : schedule.getTour().getPrice();
-                BigDecimal surchargeAmount = newPrice.subtract(oldPrice);
-                for (swd.coiviet.model.Booking booking : bookings) {
-                    if (booking.getContactEmail() != null) {
-                        emailService.sendTourSurchargeNotice(
-                                booking.getContactEmail(),
-                                schedule.getTour().getTitle(),
-                                schedule.getTourDate().toString(),
-                                surchargeAmount.multiply(BigDecimal.valueOf(booking.getNumParticipants()))
-                        );
-                    }
-                    // Send notification
-                    notificationService.createTourSurchargeNotification(
-                            booking.getUser().getId(),
-                            schedule.getId(),
-                            schedule.getTour().getTitle(),
-                            surchargeAmount.multiply(BigDecimal.valueOf(booking.getNumParticipants())).toString()
-                    );
-                    logger.info("Thông báo phụ thu cho booking {}", booking.getBookingCode());
-                }
-            }
-        }
+        lowBookingWorkflowService.processChunk(List.of(schedule.getId()), LocalDate.now());
     }
 
     @Override
@@ -339,55 +168,65 @@ public class TourWorkflowServiceImpl implements TourWorkflowService {
     }
 
     @Override
-    @Transactional
-    public void processUpcomingTours() {
-        logger.info("Bắt đầu xử lý các tour sắp tới");
-        
-        LocalDate fromDate = LocalDate.now();
-        LocalDate toDate = LocalDate.now().plusDays(10);
-        
-        List<TourSchedule> upcomingSchedules = tourScheduleRepo.findUpcomingSchedules(
-                fromDate, toDate, TourScheduleStatus.SCHEDULED);
-        
-        for (TourSchedule schedule : upcomingSchedules) {
-            try {
-                handleLowBookingTour(schedule);
-            } catch (Exception e) {
-                logger.error("Lỗi khi xử lý tour schedule {}: {}", schedule.getId(), e.getMessage(), e);
-            }
+    public TourWorkflowRunResult processUpcomingTours() {
+        long startNanos = System.nanoTime();
+        LocalDate today = LocalDate.now();
+
+        // Một truy vấn chọn các schedule ít booking, lọc ngay trong DB
+        List<Long> candidateIds = tourScheduleRepo.findLowBookingCandidateIds(
+                today, today.plusDays(horizonDays), TourScheduleStatus.SCHEDULED);
+        logger.info("Bắt đầu xử lý {} tour schedule ít booking", candidateIds.size());
+
+        TourWorkflowRunResult result = new TourWorkflowRunResult();
+        result.setCandidates(candidateIds.size());
+
+        List<CompletableFuture<TourWorkflowRunResult>> futures = new ArrayList<>();
+        for (int from = 0; from < candidateIds.size(); from += chunkSize) {
+            List<Long> chunk = candidateIds.subList(from, Math.min(from + chunkSize, candidateIds.size()));
+            futures.add(CompletableFuture
+                    .supplyAsync(() -> lowBookingWorkflowService.processChunk(chunk, today), workflowExecutor)
+                    .exceptionally(e -> {
+                        logger.error("Lỗi khi xử lý chunk tour schedule {}: {}", chunk, e.getMessage(), e);
+                        TourWorkflowRunResult failed = new TourWorkflowRunResult();
+                        failed.setChunks(1);
+                        failed.setFailedChunks(1);
+                        return failed;
+                    }));
         }
-        
-        logger.info("Hoàn thành xử lý {} tour schedules", upcomingSchedules.size());
+        futures.forEach(future -> result.merge(future.join()));
+
+        long durationNanos = System.nanoTime() - startNanos;
+        result.setDurationMs(TimeUnit.NANOSECONDS.toMillis(durationNanos));
+        recordMetrics(result, durationNanos);
+
+        logger.info("Hoàn thành xử lý {} tour schedules trong {} ms ({} đã xử lý trước đó, {} chunk, {} lỗi; khuyến mãi {}, cảnh báo {}, hủy {}, phụ thu {}; " +
+                        "{} voucher, {} thông báo, {} email)",
+                result.getSchedulesProcessed(), result.getDurationMs(), result.getAlreadyProcessed(), result.getChunks(), result.getFailedChunks(),
+                result.getPromoted(), result.getAlerted(), result.getCancelled(), result.getSurcharged(),
+                result.getVouchersCreated(), result.getNotificationsCreated(), result.getEmailsQueued());
+        return result;
     }
 
     @Override
     @Transactional
     public Voucher createDiscountVoucherForSchedule(TourSchedule schedule, Integer discountPercent) {
-        String voucherCode = "TOUR" + schedule.getId() + "-" + 
-                UUID.randomUUID().toString().substring(0, 6).toUpperCase();
-        
-        BigDecimal minPurchase = schedule.getCurrentPrice() != null 
-                ? schedule.getCurrentPrice() 
-                : schedule.getTour().getPrice();
-        
-        Voucher voucher = Voucher.builder()
-                .code(voucherCode)
-                .discountType("PERCENTAGE")
-                .discountValue(BigDecimal.valueOf(discountPercent))
-                .minPurchase(minPurchase)
-                .maxUsage(100)
-                .currentUsage(0)
-                .validFrom(LocalDateTime.now())
-                .validUntil(schedule.getTourDate().atTime(LocalTime.MAX))
-                .isActive(true)
-                .createdAt(LocalDateTime.now())
-                .build();
-        
-        voucher = voucherService.save(voucher);
-        
-        logger.info("Đã tạo voucher {} giảm {}% cho tour schedule {}", 
-                voucherCode, discountPercent, schedule.getId());
-        
+        Voucher voucher = voucherService.save(LowBookingWorkflowServiceImpl.scheduleVoucher(schedule, discountPercent));
+
+        logger.info("Đã tạo voucher {} giảm {}% cho tour schedule {}",
+                voucher.getCode(), discountPercent, schedule.getId());
+
         return voucher;
     }
+
+    private void recordMetrics(TourWorkflowRunResult result, long durationNanos) {
+        meterRegistry.timer("tour.workflow.duration").record(durationNanos, TimeUnit.NANOSECONDS);
+        meterRegistry.counter("tour.workflow.schedules", "outcome", "processed").increment(result.getSchedulesProcessed());
+        meterRegistry.counter("tour.workflow.schedules", "outcome", "skipped").increment(result.getAlreadyProcessed());
+        meterRegistry.counter("tour.workflow.schedules", "outcome", "cancelled").increment(result.getCancelled());
+        meterRegistry.counter("tour.workflow.schedules", "outcome", "surcharged").increment(result.getSurcharged());
+        meterRegistry.counter("tour.workflow.chunks", "outcome", "failed").increment(result.getFailedChunks());
+        meterRegistry.counter("tour.workflow.notifications").increment(result.getNotificationsCreated());
+        meterRegistry.counter("tour.workflow.vouchers").increment(result.getVouchersCreated());
+        meterRegistry.counter("tour.workflow.emails").increment(result.getEmailsQueued());
+    }
 }
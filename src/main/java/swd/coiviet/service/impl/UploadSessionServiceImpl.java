@@ -0,0 +1,294 @@
+package swd.coiviet.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import swd.coiviet.dto.request.CreateUploadSessionRequest;
+import swd.coiviet.dto.response.UploadSessionResponse;
+import swd.coiviet.enums.MediaField;
+import swd.coiviet.enums.MediaJobTarget;
+import swd.coiviet.enums.UploadSessionStatus;
+import swd.coiviet.exception.AppException;
+import swd.coiviet.exception.ErrorCode;
+import swd.coiviet.model.MediaJob;
+import swd.coiviet.model.MediaJobPart;
+import swd.coiviet.model.UploadSession;
+import swd.coiviet.model.UserMemory;
+import swd.coiviet.repository.UploadSessionRepository;
+import swd.coiviet.service.MediaJobService;
+import swd.coiviet.service.SchedulerLockService;
+import swd.coiviet.service.UploadSessionService;
+import swd.coiviet.service.UserMemoryService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+public class UploadSessionServiceImpl implements UploadSessionService {
+    private static final Logger logger = LoggerFactory.getLogger(UploadSessionServiceImpl.class);
+
+    private final UploadSessionRepository repo;
+    private final UserMemoryService userMemoryService;
+    private final MediaJobService mediaJobService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final String instanceId;
+    private final Path uploadDir;
+
+    @Value("${app.media.upload-chunk-size:8MB}")
+    private DataSize chunkSize;
+
+    @Value("${app.media.upload-max-audio-size:50MB}")
+    private DataSize maxAudioSize;
+
+    @Value("${app.media.upload-max-video-size:100MB}")
+    private DataSize maxVideoSize;
+
+    @Value("${app.media.upload-session-ttl:PT24H}")
+    private Duration sessionTtl;
+
+    public UploadSessionServiceImpl(UploadSessionRepository repo,
+                                    UserMemoryService userMemoryService,
+                                    MediaJobService mediaJobService,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry,
+                                    SchedulerLockService schedulerLockService,
+                                    @Value("${app.media.upload-dir:}") String uploadDir) throws IOException {
+        this.repo = repo;
+        this.userMemoryService = userMemoryService;
+        this.mediaJobService = mediaJobService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.instanceId = schedulerLockService.getInstanceId();
+        this.uploadDir = uploadDir.isBlank()
+                ? Paths.get(System.getProperty("java.io.tmpdir"), "coiviet-uploads")
+                : Paths.get(uploadDir);
+        Files.createDirectories(this.uploadDir);
+    }
+
+    @Override
+    public UploadSession create(Long ownerId, Long memoryId, CreateUploadSessionRequest request) {
+        UserMemory memory = userMemoryService.findById(memoryId)
+                .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND, "Ký ức không tồn tại"));
+        if (!memory.getUser().getId().equals(ownerId)) {
+            throw new AppException(ErrorCode.FORBIDDEN, "Bạn không có quyền cập nhật ký ức này");
+        }
+        validate(request);
+
+        LocalDateTime now = LocalDateTime.now();
+        Path path;
+        try {
+            path = Files.createTempFile(uploadDir, "upload-", ".part");
+        } catch (IOException e) {
+            throw new AppException(ErrorCode.INTERNAL_SERVER_ERROR, "Lỗi khi tạo file tạm: " + e.getMessage());
+        }
+        try {
+            return repo.save(UploadSession.builder()
+                    .ownerId(ownerId)
+                    .targetType(MediaJobTarget.USER_MEMORY)
+                    .targetId(memoryId)
+                    .field(request.getField())
+                    .originalName(request.getFileName())
+                    .contentType(request.getContentType())
+                    .totalSize(request.getSize())
+                    .receivedBytes(0L)
+                    .path(path.toString())
+                    .instanceId(instanceId)
+                    .status(UploadSessionStatus.OPEN)
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .expiresAt(now.plus(sessionTtl))
+                    .build());
+        } catch (RuntimeException e) {
+            deleteQuietly(path);
+            throw e;
+        }
+    }
+
+    @Override
+    public UploadSession get(Long ownerId, Long sessionId) {
+        return owned(ownerId, sessionId);
+    }
+
+    @Override
+    public UploadSession appendChunk(Long ownerId, Long sessionId, long offset, InputStream body, long contentLength) {
+        UploadSession session = open(ownerId, sessionId);
+        if (contentLength > chunkSize.toBytes()) {
+            throw new AppException(ErrorCode.INVALID_REQUEST, "Chunk quá lớn, tối đa " + chunkSize.toBytes() + " byte");
+        }
+        Path path = Paths.get(session.getPath());
+        // Khóa file: hai request cùng phiên (client gửi lại khi timeout) không ghi chồng lên nhau
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE);
+             FileLock lock = tryLock(channel)) {
+            if (lock == null) {
+                throw new AppException(ErrorCode.UPLOAD_OFFSET_MISMATCH, response(session));
+            }
+            // Đọc lại sau khi giữ khóa: chunk trước có thể vừa ghi xong
+            session = repo.findById(sessionId).orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND, "Phiên upload không tồn tại"));
+            if (session.getStatus() != UploadSessionStatus.OPEN || offset != session.getReceivedBytes()) {
+                throw new AppException(ErrorCode.UPLOAD_OFFSET_MISMATCH, response(session));
+            }
+            long limit = Math.min(chunkSize.toBytes(), session.getTotalSize() - offset);
+            // Bỏ phần thừa của lần ghi dở trước đó (server dừng giữa chừng)
+            channel.truncate(offset);
+            long t0 = System.nanoTime();
+            ReadableByteChannel source = Channels.newChannel(body);
+            try {
+                // transferFrom đọc qua buffer nhỏ cố định: chunk không bao giờ nằm nguyên trong heap
+                long written = channel.transferFrom(source, offset, limit);
+                if (written == limit && body.read() != -1) {
+                    channel.truncate(offset);
+                    throw new AppException(ErrorCode.INVALID_REQUEST, "Chunk vượt quá kích thước file đã khai báo");
+                }
+            } catch (IOException e) {
+                // Client mất mạng giữa chunk: giữ phần đã ghi để lần sau gửi tiếp
+                logger.debug("Upload {} bị ngắt tại {}: {}", sessionId, channel.size(), e.getMessage());
+            }
+            long received = channel.size();
+            meterRegistry.timer("media.upload.chunk").record(Duration.ofNanos(System.nanoTime() - t0));
+            meterRegistry.counter("media.upload.bytes").increment(received - offset);
+            LocalDateTime now = LocalDateTime.now();
+            transactionTemplate.executeWithoutResult(status ->
+                    repo.advance(sessionId, offset, received, now, now.plus(sessionTtl)));
+            session.setReceivedBytes(received);
+            session.setUpdatedAt(now);
+            session.setExpiresAt(now.plus(sessionTtl));
+            return session;
+        } catch (IOException e) {
+            throw new AppException(ErrorCode.INTERNAL_SERVER_ERROR, "Lỗi khi ghi chunk: " + e.getMessage());
+        }
+    }
+
+    @Override
+    @Transactional
+    public MediaJob complete(Long ownerId, Long sessionId) {
+        UploadSession session = open(ownerId, sessionId);
+        Path path = Paths.get(session.getPath());
+        long size;
+        try {
+            size = Files.size(path);
+        } catch (IOException e) {
+            throw new AppException(ErrorCode.NOT_FOUND, "File tạm của phiên upload không còn");
+        }
+        // Cập nhật có điều kiện: hai request hoàn tất cùng lúc chỉ một request tạo job
+        if (size != session.getTotalSize() || repo.markCompleted(sessionId, LocalDateTime.now()) == 0) {
+            throw new AppException(ErrorCode.UPLOAD_OFFSET_MISMATCH, response(session));
+        }
+        MediaJob job = mediaJobService.submitSpooled(ownerId, session.getTargetType(), session.getTargetId(),
+                MediaJobPart.builder()
+                        .field(session.getField())
+                        .path(session.getPath())
+                        .originalName(session.getOriginalName())
+                        .contentType(session.getContentType())
+                        .size(size)
+                        .build());
+        repo.updateJobId(sessionId, job.getId());
+        logger.info("Upload {} ({} byte) hoàn tất, giao cho media job {}", sessionId, size, job.getId());
+        return job;
+    }
+
+    @Override
+    public void abort(Long ownerId, Long sessionId) {
+        UploadSession session = open(ownerId, sessionId);
+        repo.delete(session);
+        deleteQuietly(Paths.get(session.getPath()));
+    }
+
+    @Override
+    @Transactional
+    public int expireBefore(LocalDateTime now) {
+        List<UploadSession> expired = repo.findByInstanceIdAndStatusAndExpiresAtBefore(instanceId, UploadSessionStatus.OPEN, now);
+        for (UploadSession session : expired) {
+            deleteQuietly(Paths.get(session.getPath()));
+        }
+        repo.deleteAllInBatch(expired);
+        // Phiên đã hoàn tất chỉ còn để client tra jobId, file đã thuộc về media job
+        repo.deleteCompletedBefore(now.minus(sessionTtl));
+        return expired.size();
+    }
+
+    @Override
+    public long getChunkSize() {
+        return chunkSize.toBytes();
+    }
+
+    private void validate(CreateUploadSessionRequest request) {
+        String contentType = request.getContentType();
+        if (request.getField() == MediaField.AUDIO) {
+            if (request.getSize() > maxAudioSize.toBytes()) {
+                throw new AppException(ErrorCode.INVALID_REQUEST, "File size too large. Maximum " + maxAudioSize.toMegabytes() + "MB allowed");
+            }
+            if (!contentType.startsWith("audio/")) {
+                throw new AppException(ErrorCode.INVALID_REQUEST, "Invalid file type. Only audio files are allowed");
+            }
+        } else if (request.getField() == MediaField.VIDEO) {
+            if (request.getSize() > maxVideoSize.toBytes()) {
+                throw new AppException(ErrorCode.INVALID_REQUEST, "File size too large. Maximum " + maxVideoSize.toMegabytes() + "MB allowed");
+            }
+            if (!contentType.startsWith("video/")) {
+                throw new AppException(ErrorCode.INVALID_REQUEST, "Invalid file type. Only video files are allowed");
+            }
+        } else {
+            throw new AppException(ErrorCode.INVALID_REQUEST, "Upload nhiều phần chỉ dùng cho audio và video");
+        }
+    }
+
+    private UploadSession owned(Long ownerId, Long sessionId) {
+        UploadSession session = repo.findById(sessionId)
+                .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND, "Phiên upload không tồn tại"));
+        if (!session.getOwnerId().equals(ownerId)) {
+            throw new AppException(ErrorCode.FORBIDDEN, "Bạn không có quyền với phiên upload này");
+        }
+        return session;
+    }
+
+    private UploadSession open(Long ownerId, Long sessionId) {
+        UploadSession session = owned(ownerId, sessionId);
+        if (session.getStatus() != UploadSessionStatus.OPEN) {
+            throw new AppException(ErrorCode.UPLOAD_OFFSET_MISMATCH, response(session));
+        }
+        if (!instanceId.equals(session.getInstanceId())) {
+            // File tạm nằm trên đĩa instance khác: load balancer cần giữ phiên (sticky) theo user
+            throw new AppException(ErrorCode.SERVICE_UNAVAILABLE, "Phiên upload thuộc instance khác");
+        }
+        return session;
+    }
+
+    private UploadSessionResponse response(UploadSession session) {
+        return UploadSessionResponse.from(session, chunkSize.toBytes());
+    }
+
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            return null;
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Không thể xóa file tạm {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -5,6 +5,11 @@ import swd.coiviet.model.UserMemory;
 import swd.coiviet.repository.UserMemoryRepository;
 import swd.coiviet.service.UserMemoryService;
 import swd.coiviet.enums.PublicationStatus;
+import org.springframework.data.domain.Limit;
+import swd.coiviet.dto.response.CursorPageResponse;
+import swd.coiviet.dto.response.UserMemorySummaryResponse;
+import org.springframework.context.ApplicationEventPublisher;
+import swd.coiviet.event.CatalogChangedEvent;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,14 +17,18 @@ import java.util.Optional;
 @Service
 public class UserMemoryServiceImpl implements UserMemoryService {
     private final UserMemoryRepository repo;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public UserMemoryServiceImpl(UserMemoryRepository repo) {
+    public UserMemoryServiceImpl(UserMemoryRepository repo, ApplicationEventPublisher eventPublisher) {
         this.repo = repo;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
     public UserMemory save(UserMemory memory) {
-        return repo.save(memory);
+        UserMemory saved = repo.save(memory);
+        eventPublisher.publishEvent(new CatalogChangedEvent(UserMemory.class, saved.getId()));
+        return saved;
     }
 
     @Override
@@ -60,5 +69,14 @@ public class UserMemoryServiceImpl implements UserMemoryService {
     @Override
     public void deleteById(Long id) {
         repo.deleteById(id);
+        eventPublisher.publishEvent(new CatalogChangedEvent(UserMemory.class, id));
+    }
+
+    @Override
+    public CursorPageResponse<UserMemorySummaryResponse> findPublishedPage(Long cursor, Integer size, Long provinceId) {
+        int pageSize = CursorPageResponse.normalizeSize(size);
+        List<UserMemorySummaryResponse> rows = repo.findSummaryPage(PublicationStatus.PUBLISHED, cursor, provinceId,
+                Limit.of(pageSize + 1));
+        return CursorPageResponse.of(rows, pageSize, UserMemorySummaryResponse::getId);
     }
 }
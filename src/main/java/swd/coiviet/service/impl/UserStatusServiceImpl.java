@@ -0,0 +1,172 @@
+package swd.coiviet.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import swd.coiviet.enums.Status;
+import swd.coiviet.repository.UserRepository;
+import swd.coiviet.service.UserStatusService;
+
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Service
+public class UserStatusServiceImpl implements UserStatusService {
+    private static final Logger logger = LoggerFactory.getLogger(UserStatusServiceImpl.class);
+
+    private final UserRepository userRepository;
+    private final ObjectProvider<StringRedisTemplate> redisTemplate;
+    private final ObjectProvider<RedisMessageListenerContainer> listenerContainer;
+    private final String channel;
+    // Dùng để bỏ qua thông báo do chính instance này gửi
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // Bitset theo id user, thay bằng bản sao khi ghi nên thread đọc không cần khóa
+    private volatile BitSet banned = new BitSet();
+    private volatile BitSet inactive = new BitSet();
+    private volatile boolean loaded;
+    // Thay đổi xảy ra trong lúc đang đọc DB để nạp lại, áp lại lên bản mới để không bị mất
+    private Map<Long, Status> changesDuringReload;
+
+    public UserStatusServiceImpl(UserRepository userRepository,
+                                 ObjectProvider<StringRedisTemplate> redisTemplate,
+                                 ObjectProvider<RedisMessageListenerContainer> listenerContainer,
+                                 @Value("${app.user-status.channel:coiviet:user-status}") String channel) {
+        this.userRepository = userRepository;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.channel = channel;
+    }
+
+    @PostConstruct
+    void init() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            // Chưa nạp được thì JwtFilter tra DB như trước cho tới lần nạp lại định kỳ
+            logger.warn("Không nạp được index trạng thái user: {}", e.getMessage());
+        }
+        RedisMessageListenerContainer container = listenerContainer.getIfAvailable();
+        if (container != null) {
+            container.addMessageListener((message, pattern) ->
+                    onRemoteChange(new String(message.getBody(), StandardCharsets.UTF_8)), new ChannelTopic(channel));
+        }
+    }
+
+    @Override
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    @Override
+    public Status getRestriction(Long userId) {
+        if (userId == null || userId < 0 || userId > Integer.MAX_VALUE) {
+            return null;
+        }
+        int index = userId.intValue();
+        if (banned.get(index)) return Status.BANNED;
+        if (inactive.get(index)) return Status.INACTIVE;
+        return null;
+    }
+
+    @Override
+    public void statusChanged(Long userId, Status status) {
+        apply(userId, status);
+        StringRedisTemplate template = redisTemplate.getIfAvailable();
+        if (template != null) {
+            try {
+                template.convertAndSend(channel, nodeId + "|" + userId + "|" + (status != null ? status.name() : ""));
+            } catch (RuntimeException e) {
+                // Instance khác sẽ nhận thay đổi ở lần nạp lại định kỳ
+                logger.warn("Không gửi được thay đổi trạng thái user {}: {}", userId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Nạp lại định kỳ để đồng bộ giữa các instance khi không có Redis và bù thông báo bị mất
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${app.user-status.refresh-interval-ms:60000}",
+            initialDelayString = "${app.user-status.refresh-interval-ms:60000}")
+    public void reload() {
+        synchronized (this) {
+            changesDuringReload = new HashMap<>();
+        }
+        BitSet nextBanned;
+        BitSet nextInactive;
+        try {
+            nextBanned = toBitSet(userRepository.findIdsByStatus(Status.BANNED));
+            nextInactive = toBitSet(userRepository.findIdsByStatus(Status.INACTIVE));
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                changesDuringReload = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            Map<Long, Status> changes = changesDuringReload;
+            changesDuringReload = null;
+            banned = nextBanned;
+            inactive = nextInactive;
+            changes.forEach(this::apply);
+            loaded = true;
+        }
+        logger.debug("Đã nạp index trạng thái user: {} bị khóa, {} vô hiệu hóa",
+                nextBanned.cardinality(), nextInactive.cardinality());
+    }
+
+    private void onRemoteChange(String body) {
+        String[] parts = body.split("\\|", -1);
+        if (parts.length != 3 || parts[0].equals(nodeId)) {
+            return;
+        }
+        try {
+            apply(Long.valueOf(parts[1]), parts[2].isEmpty() ? null : Status.valueOf(parts[2]));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Bỏ qua thông báo trạng thái user không hợp lệ: {}", body);
+        }
+    }
+
+    private synchronized void apply(Long userId, Status status) {
+        if (userId == null || userId < 0 || userId > Integer.MAX_VALUE) {
+            return;
+        }
+        if (changesDuringReload != null) {
+            changesDuringReload.put(userId, status);
+        }
+        int index = userId.intValue();
+        banned = withBit(banned, index, status == Status.BANNED);
+        inactive = withBit(inactive, index, status == Status.INACTIVE);
+    }
+
+    private static BitSet withBit(BitSet current, int index, boolean value) {
+        if (current.get(index) == value) {
+            return current;
+        }
+        BitSet next = (BitSet) current.clone();
+        next.set(index, value);
+        return next;
+    }
+
+    private static BitSet toBitSet(List<Long> ids) {
+        BitSet bits = new BitSet();
+        for (Long id : ids) {
+            if (id != null && id >= 0 && id <= Integer.MAX_VALUE) {
+                bits.set(id.intValue());
+            }
+        }
+        return bits;
+    }
+}
@@ -5,6 +5,11 @@ import swd.coiviet.model.Video;
 import swd.coiviet.repository.VideoRepository;
 import swd.coiviet.service.VideoService;
 import swd.coiviet.enums.PublicationStatus;
+import org.springframework.data.domain.Limit;
+import swd.coiviet.dto.response.CursorPageResponse;
+import swd.coiviet.dto.response.VideoSummaryResponse;
+import org.springframework.context.ApplicationEventPublisher;
+import swd.coiviet.event.CatalogChangedEvent;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,11 +17,19 @@ import java.util.Optional;
 @Service
 public class VideoServiceImpl implements VideoService {
     private final VideoRepository repo;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public VideoServiceImpl(VideoRepository repo) { this.repo = repo; }
+    public VideoServiceImpl(VideoRepository repo, ApplicationEventPublisher eventPublisher) {
+        this.repo = repo;
+        this.eventPublisher = eventPublisher;
+    }
 
     @Override
-    public Video save(Video v) { return repo.save(v); }
+    public Video save(Video v) {
+        Video saved = repo.save(v);
+        eventPublisher.publishEvent(new CatalogChangedEvent(Video.class, saved.getId()));
+        return saved;
+    }
 
     @Override
     public Optional<Video> findById(Long id) { return repo.findById(id); }
@@ -36,5 +49,16 @@ public class VideoServiceImpl implements VideoService {
     }
 
     @Override
-    public void deleteById(Long id) { repo.deleteById(id); }
+    public void deleteById(Long id) {
+        repo.deleteById(id);
+        eventPublisher.publishEvent(new CatalogChangedEvent(Video.class, id));
+    }
+
+    @Override
+    public CursorPageResponse<VideoSummaryResponse> findPublishedPage(Long cursor, Integer size, Long provinceId) {
+        int pageSize = CursorPageResponse.normalizeSize(size);
+        List<VideoSummaryResponse> rows = repo.findSummaryPage(PublicationStatus.PUBLISHED, cursor, provinceId,
+                Limit.of(pageSize + 1));
+        return CursorPageResponse.of(rows, pageSize, VideoSummaryResponse::getId);
+    }
 }
@@ -4,6 +4,10 @@ import org.springframework.stereotype.Service;
 import swd.coiviet.model.Voucher;
 import swd.coiviet.repository.VoucherRepository;
 import swd.coiviet.service.VoucherService;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import swd.coiviet.configuration.CacheNames;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -15,17 +19,27 @@ public class VoucherServiceImpl implements VoucherService {
     public VoucherServiceImpl(VoucherRepository repo) { this.repo = repo; }
 
     @Override
+    @CacheEvict(cacheNames = CacheNames.VOUCHER_BY_CODE, allEntries = true)
     public Voucher save(Voucher v) { return repo.save(v); }
 
     @Override
     public Optional<Voucher> findById(Long id) { return repo.findById(id); }
 
     @Override
+    @Cacheable(cacheNames = CacheNames.VOUCHER_BY_CODE, unless = "#result == null")
     public Optional<Voucher> findByCode(String code) { return repo.findByCode(code); }
 
     @Override
     public List<Voucher> findAll() { return repo.findAll(); }
 
     @Override
+    @CacheEvict(cacheNames = CacheNames.VOUCHER_BY_CODE, allEntries = true)
     public void deleteById(Long id) { repo.deleteById(id); }
+
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheNames.VOUCHER_BY_CODE, allEntries = true)
+    public boolean redeem(Long voucherId) {
+        return repo.incrementUsage(voucherId) > 0;
+    }
 }
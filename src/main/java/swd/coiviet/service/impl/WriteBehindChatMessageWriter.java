@@ -0,0 +1,305 @@
+package swd.coiviet.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionTemplate;
+import swd.coiviet.dto.response.ChatMessageResponse;
+import swd.coiviet.model.ChatMessage;
+import swd.coiviet.service.ChatMessageWriter;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ghi tin nhắn chat sau khi đã gửi: hàng đợi có giới hạn, một thread gom batch để insert bằng JDBC batch
+ * và chỉ cập nhật lastMessage một lần cho mỗi hội thoại trong batch. Khi tắt ứng dụng ghi hết hàng đợi
+ */
+@Service
+public class WriteBehindChatMessageWriter implements ChatMessageWriter, SmartLifecycle {
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindChatMessageWriter.class);
+
+    private static final String INSERT_SQL = "INSERT INTO chat_messages (id, conversation_id, sender_id, recipient_id, content, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+    // Không ghi đè tin mới hơn nếu batch khác (instance khác) đã cập nhật trước
+    private static final String UPDATE_CONVERSATION_SQL = "UPDATE chat_conversations SET last_message = ?, last_message_at = ?, updated_at = ? " +
+            "WHERE id = ? AND (last_message_at IS NULL OR last_message_at <= ?)";
+    private static final long MAX_RETRY_BACKOFF_MS = 30_000;
+    private static final int SHUTDOWN_ATTEMPTS = 3;
+    private static final int ID_BLOCK_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SessionFactoryImplementor sessionFactory;
+    private final IdentifierGenerator idGenerator;
+    private final MeterRegistry meterRegistry;
+    private final BlockingQueue<ChatMessageResponse> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final Duration shutdownTimeout;
+    private final Timer flushTimer;
+    private final ArrayDeque<Long> reservedIds = new ArrayDeque<>(ID_BLOCK_SIZE);
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public WriteBehindChatMessageWriter(JdbcTemplate jdbcTemplate,
+                                        PlatformTransactionManager transactionManager,
+                                        EntityManagerFactory entityManagerFactory,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${app.chat.queue-capacity:10000}") int queueCapacity,
+                                        @Value("${app.chat.batch-size:500}") int batchSize,
+                                        @Value("${app.chat.flush-interval-ms:50}") long flushIntervalMs,
+                                        @Value("${app.chat.shutdown-timeout:PT30S}") Duration shutdownTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        // Dùng chung generator (sequence pooled) với Hibernate để id cấp trước không trùng với save() thông thường
+        this.idGenerator = (IdentifierGenerator) sessionFactory.getMappingMetamodel()
+                .getEntityDescriptor(ChatMessage.class).getGenerator();
+        this.meterRegistry = meterRegistry;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.shutdownTimeout = shutdownTimeout;
+        this.flushTimer = meterRegistry.timer("chat.writebehind.flush");
+        meterRegistry.gauge("chat.writebehind.queue.size", queue, BlockingQueue::size);
+    }
+
+    @Override
+    public synchronized Long nextMessageId() {
+        if (reservedIds.isEmpty()) {
+            // Lấy cả khối trong một session, generator pooled chỉ gọi DB mỗi ID_BLOCK_SIZE id
+            try (StatelessSession session = sessionFactory.openStatelessSession()) {
+                for (int i = 0; i < ID_BLOCK_SIZE; i++) {
+                    reservedIds.add(((Number) idGenerator.generate((SharedSessionContractImplementor) session, null)).longValue());
+                }
+            }
+        }
+        return reservedIds.poll();
+    }
+
+    @Override
+    public void enqueue(ChatMessageResponse message) {
+        if (running && queue.offer(message)) {
+            meterRegistry.counter("chat.writebehind.messages", "outcome", "queued").increment();
+            return;
+        }
+        // Queue đầy hoặc đang tắt: ghi ngay trên thread gọi để tạo backpressure thay vì mất tin nhắn
+        meterRegistry.counter("chat.writebehind.messages", "outcome", "caller_runs").increment();
+        persist(List.of(message));
+    }
+
+    @Override
+    public int flush() {
+        int written = 0;
+        List<ChatMessageResponse> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            persistWithRetry(batch, SHUTDOWN_ATTEMPTS);
+            written += batch.size();
+            batch.clear();
+        }
+        return written;
+    }
+
+    @Override
+    public int pending() {
+        return queue.size();
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        alignSequenceWithExistingRows();
+        running = true;
+        flusher = new Thread(this::runFlusher, "chat-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            flusher.join(shutdownTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (flusher.isAlive()) {
+            logger.error("Thread ghi chat chưa dừng sau {}, còn {} tin nhắn chờ ghi", shutdownTimeout, queue.size());
+            return;
+        }
+        // Tin vào queue ngay trước khi running = false
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Dừng sau web server và broker STOMP để không còn tin nhắn mới khi ghi nốt hàng đợi
+        return 0;
+    }
+
+    private void runFlusher() {
+        List<ChatMessageResponse> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                ChatMessageResponse first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                persistWithRetry(batch, running ? Integer.MAX_VALUE : SHUTDOWN_ATTEMPTS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void persistWithRetry(List<ChatMessageResponse> batch, int maxAttempts) {
+        long backoffMs = Math.max(flushIntervalMs, 100);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                persist(batch);
+                return;
+            } catch (RuntimeException e) {
+                meterRegistry.counter("chat.writebehind.failures").increment();
+                if (!isTransient(e)) {
+                    persistIsolated(batch, e);
+                    return;
+                }
+                if (attempt >= maxAttempts) {
+                    logger.error("Bỏ {} tin nhắn chat sau {} lần ghi lỗi (id {} - {}): {}", batch.size(), attempt,
+                            batch.get(0).getId(), batch.get(batch.size() - 1).getId(), e.getMessage(), e);
+                    meterRegistry.counter("chat.writebehind.messages", "outcome", "dropped").increment(batch.size());
+                    return;
+                }
+                logger.warn("Ghi {} tin nhắn chat lỗi (lần {}), thử lại sau {} ms: {}", batch.size(), attempt, backoffMs, e.getMessage());
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    maxAttempts = attempt + 1;
+                }
+                backoffMs = Math.min(backoffMs * 2, MAX_RETRY_BACKOFF_MS);
+            }
+        }
+    }
+
+    /**
+     * Lỗi không tự hết khi thử lại (vi phạm khóa ngoại do hội thoại/user đã xóa...): ghi lại từng tin để chỉ bỏ
+     * đúng tin hỏng, các tin còn lại của batch vẫn được lưu. Từng tin vẫn được thử lại nếu gặp lỗi kết nối
+     */
+    private void persistIsolated(List<ChatMessageResponse> batch, RuntimeException cause) {
+        if (batch.size() > 1) {
+            logger.warn("Batch {} tin nhắn chat lỗi dữ liệu, ghi lại từng tin: {}", batch.size(), cause.getMessage());
+            for (ChatMessageResponse message : batch) {
+                persistWithRetry(List.of(message), running ? Integer.MAX_VALUE : SHUTDOWN_ATTEMPTS);
+            }
+            return;
+        }
+        ChatMessageResponse message = batch.get(0);
+        if (cause instanceof DuplicateKeyException) {
+            // Lần ghi trước đã commit nhưng mất phản hồi: tin đã có trong DB
+            return;
+        }
+        logger.error("Bỏ tin nhắn chat {} (hội thoại {}, người gửi {}) do lỗi dữ liệu: {}", message.getId(),
+                message.getConversationId(), message.getSenderId(), cause.getMessage());
+        meterRegistry.counter("chat.writebehind.messages", "outcome", "rejected").increment();
+    }
+
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException
+                || e instanceof TransactionSystemException;
+    }
+
+    private void persist(List<ChatMessageResponse> batch) {
+        // Tin mới nhất của mỗi hội thoại trong batch, batch đi theo thứ tự id tăng dần
+        Map<Long, ChatMessageResponse> latest = new LinkedHashMap<>();
+        for (ChatMessageResponse message : batch) {
+            latest.merge(message.getConversationId(), message, (a, b) -> a.getId() > b.getId() ? a : b);
+        }
+        // Cùng múi giờ với hibernate.jdbc.time_zone để đọc lại qua JPA ra đúng giá trị
+        TimeZone jdbcTimeZone = sessionFactory.getSessionFactoryOptions().getJdbcTimeZone();
+        Calendar calendar = jdbcTimeZone != null ? Calendar.getInstance(jdbcTimeZone) : Calendar.getInstance();
+        flushTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batchSize, (ps, m) -> {
+                ps.setLong(1, m.getId());
+                ps.setLong(2, m.getConversationId());
+                ps.setLong(3, m.getSenderId());
+                ps.setLong(4, m.getRecipientId());
+                ps.setString(5, m.getContent());
+                ps.setTimestamp(6, Timestamp.valueOf(m.getCreatedAt()), calendar);
+            });
+            jdbcTemplate.batchUpdate(UPDATE_CONVERSATION_SQL, latest.values(), batchSize, (ps, m) -> {
+                Timestamp at = Timestamp.valueOf(m.getCreatedAt());
+                ps.setString(1, m.getContent());
+                ps.setTimestamp(2, at, calendar);
+                ps.setTimestamp(3, at, calendar);
+                ps.setLong(4, m.getConversationId());
+                ps.setTimestamp(5, at, calendar);
+            });
+        }));
+        meterRegistry.summary("chat.writebehind.batch.size").record(batch.size());
+        meterRegistry.counter("chat.writebehind.messages", "outcome", "persisted").increment(batch.size());
+    }
+
+    /**
+     * Bảng cũ dùng id identity: đẩy sequence vượt id lớn nhất hiện có trước khi cấp id theo sequence
+     */
+    private void alignSequenceWithExistingRows() {
+        if (!(sessionFactory.getJdbcServices().getDialect() instanceof PostgreSQLDialect)) {
+            return;
+        }
+        try {
+            jdbcTemplate.queryForList("SELECT setval('chat_messages_seq', m.max_id) FROM " +
+                    "(SELECT MAX(id) AS max_id FROM chat_messages) m, chat_messages_seq s WHERE m.max_id > s.last_value");
+        } catch (RuntimeException e) {
+            logger.warn("Không đồng bộ được chat_messages_seq với dữ liệu hiện có: {}", e.getMessage());
+        }
+    }
+}
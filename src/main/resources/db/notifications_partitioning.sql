@@ -0,0 +1,57 @@
+-- Chuyển bảng notifications sang phân vùng theo tháng (RANGE trên created_at) - PostgreSQL 12+
+-- Chạy thủ công một lần trong cửa sổ bảo trì (ứng dụng đang dùng ddl-auto: update, Flyway chưa bật).
+-- Sau đó NotificationMaintenanceTask tự tạo partition các tháng tới và tách/xóa partition quá hạn.
+
+BEGIN;
+
+LOCK TABLE notifications IN ACCESS EXCLUSIVE MODE;
+ALTER TABLE notifications RENAME TO notifications_legacy;
+ALTER INDEX IF EXISTS idx_notifications_user_read RENAME TO idx_notifications_legacy_user_read;
+
+-- Cột identity trên bảng phân vùng cần PostgreSQL 17, dùng sequence riêng để chạy được trên bản cũ hơn
+CREATE SEQUENCE IF NOT EXISTS notifications_id_seq_v2;
+
+CREATE TABLE notifications (
+    id          bigint       NOT NULL DEFAULT nextval('notifications_id_seq_v2'),
+    user_id     bigint       REFERENCES users (id),
+    type        varchar(255),
+    title       varchar(255),
+    message     text,
+    related_id  bigint,
+    is_read     boolean,
+    created_at  timestamp(6) NOT NULL,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE notifications_id_seq_v2 OWNED BY notifications.id;
+
+-- Dòng ngoài mọi khoảng tháng (dữ liệu lệch giờ, tháng chưa tạo partition) rơi vào đây thay vì lỗi INSERT
+CREATE TABLE notifications_default PARTITION OF notifications DEFAULT;
+
+-- Một partition cho mỗi tháng đã có dữ liệu, tới tháng hiện tại + 2
+DO $$
+DECLARE
+    m date;
+BEGIN
+    FOR m IN
+        SELECT generate_series(
+                   date_trunc('month', COALESCE((SELECT min(created_at) FROM notifications_legacy), now())),
+                   date_trunc('month', now()) + interval '2 months',
+                   interval '1 month')::date
+    LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF notifications FOR VALUES FROM (%L) TO (%L)',
+                       'notifications_p' || to_char(m, 'YYYYMM'), m, (m + interval '1 month')::date);
+    END LOOP;
+END $$;
+
+CREATE INDEX idx_notifications_user_read ON notifications (user_id, is_read, created_at);
+
+INSERT INTO notifications (id, user_id, type, title, message, related_id, is_read, created_at)
+SELECT id, user_id, type, title, message, related_id, is_read, COALESCE(created_at, now())
+FROM notifications_legacy;
+
+SELECT setval('notifications_id_seq_v2', COALESCE((SELECT max(id) FROM notifications), 0) + 1, false);
+
+DROP TABLE notifications_legacy;
+
+COMMIT;
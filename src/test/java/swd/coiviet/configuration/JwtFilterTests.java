@@ -0,0 +1,72 @@
+package swd.coiviet.configuration;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import swd.coiviet.enums.Status;
+import swd.coiviet.model.User;
+import swd.coiviet.repository.UserRepository;
+import swd.coiviet.service.UserStatusService;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JwtFilterTests {
+
+    private final JwtUtil jwtUtil = mock(JwtUtil.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserStatusService userStatusService = mock(UserStatusService.class);
+    private final JwtFilter filter = new JwtFilter();
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void fallsBackToDatabaseForBannedAndInactiveUsersWhileIndexIsNotLoaded() throws Exception {
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(filter, "userRepository", userRepository);
+        ReflectionTestUtils.setField(filter, "userStatusService", userStatusService);
+        when(userStatusService.isLoaded()).thenReturn(false);
+
+        // Index chưa nạp: cả BANNED lẫn INACTIVE đều bị chặn như khi tra index
+        assertThat(filter(1L, Status.BANNED).getContentAsString()).contains("Account is banned");
+        assertThat(filter(2L, Status.INACTIVE).getContentAsString()).contains("Account is inactive");
+
+        FilterChain chain = mock(FilterChain.class);
+        MockHttpServletResponse active = filter(3L, Status.ACTIVE, chain);
+        assertThat(active.getStatus()).isEqualTo(200);
+        verify(chain).doFilter(any(), any());
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
+    }
+
+    private MockHttpServletResponse filter(Long userId, Status status) throws Exception {
+        FilterChain chain = mock(FilterChain.class);
+        MockHttpServletResponse response = filter(userId, status, chain);
+        assertThat(response.getStatus()).isEqualTo(403);
+        verify(chain, never()).doFilter(any(), any());
+        return response;
+    }
+
+    private MockHttpServletResponse filter(Long userId, Status status, FilterChain chain) throws Exception {
+        String token = "token-" + userId;
+        when(jwtUtil.authenticate(token)).thenReturn(new AuthPrincipal(userId, "user-" + userId, "CUSTOMER"));
+        when(userRepository.findById(userId)).thenReturn(Optional.of(User.builder().id(userId).status(status).build()));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/tours");
+        request.addHeader("Authorization", "Bearer " + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
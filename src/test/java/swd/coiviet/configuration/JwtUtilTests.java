@@ -0,0 +1,59 @@
+package swd.coiviet.configuration;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import swd.coiviet.exception.AppException;
+
+import java.util.Base64;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilTests {
+
+    private static final String SECRET = "coiviet-test-signer-key-coiviet-test-signer-key-coiviet-test-signer-key";
+
+    private JwtUtil newJwtUtil(long cacheSize) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3600L);
+        ReflectionTestUtils.setField(jwtUtil, "refreshableDuration", 86_400_000L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheSize", cacheSize);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    @Test
+    void authenticateParsesOnceAndRejectsForgedOrExpiredTokens() {
+        JwtUtil jwtUtil = newJwtUtil(10_000);
+        String token = jwtUtil.generateToken("khach", "CUSTOMER", 42);
+
+        AuthPrincipal principal = jwtUtil.authenticate(token);
+        assertThat(principal.getUserId()).isEqualTo(42L);
+        assertThat(principal.getUsername()).isEqualTo("khach");
+        assertThat(principal.getRole()).isEqualTo("CUSTOMER");
+        assertThat(jwtUtil.authenticate(token)).isSameAs(principal);
+        // Token ký theo cách cũ (khóa Base64 dạng chuỗi) vẫn hợp lệ
+        assertThat(jwtUtil.authenticate(legacyToken(new Date(System.currentTimeMillis() + 60_000))).getUserId()).isEqualTo(7L);
+
+        String forged = token.substring(0, token.length() - 4) + (token.endsWith("AAAA") ? "BBBB" : "AAAA");
+        assertThatThrownBy(() -> jwtUtil.authenticate(forged)).isInstanceOf(AppException.class);
+        assertThat(jwtUtil.validateToken(legacyToken(new Date(System.currentTimeMillis() - 1_000)))).isFalse();
+
+        // Các getter cũ dùng lại principal đã xác thực thay vì parse lại token
+        assertThat(jwtUtil.getUsernameFromToken(token)).isEqualTo("khach");
+        assertThat(jwtUtil.getRoleFromToken(token)).isEqualTo("CUSTOMER");
+        assertThat(jwtUtil.getUserIdFromToken(token)).isEqualTo(42);
+        assertThat(jwtUtil.authenticate(token)).isSameAs(principal);
+    }
+
+    private String legacyToken(Date expiresAt) {
+        return Jwts.builder().setSubject("cu").claim("role", "CUSTOMER").claim("userId", 7)
+                .setIssuedAt(new Date()).setExpiration(expiresAt)
+                .signWith(SignatureAlgorithm.HS512, Base64.getEncoder().encodeToString(SECRET.getBytes()))
+                .compact();
+    }
+}
@@ -0,0 +1,146 @@
+package swd.coiviet.configuration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import swd.coiviet.enums.OutboxStatus;
+import swd.coiviet.model.Notification;
+import swd.coiviet.model.OutboxEvent;
+import swd.coiviet.model.User;
+import swd.coiviet.repository.NotificationRepository;
+import swd.coiviet.repository.OutboxEventRepository;
+import swd.coiviet.service.EmailService;
+import swd.coiviet.service.OutboxService;
+import swd.coiviet.service.impl.OutboxServiceImpl;
+import swd.coiviet.support.DataJpaServiceTest;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@TestPropertySource(properties = {
+        "app.outbox.max-attempts=3",
+        "app.outbox.base-backoff=PT10S",
+        "app.outbox.lease=PT5M"
+})
+@Import({OutboxDispatcherTask.class, OutboxServiceImpl.class, AsyncExecutorConfig.class, JacksonConfig.class})
+class OutboxDispatcherTaskTests extends DataJpaServiceTest {
+
+    @Autowired private OutboxDispatcherTask dispatcher;
+    @Autowired private OutboxService outboxService;
+    @Autowired private OutboxEventRepository outboxRepo;
+    @Autowired private NotificationRepository notificationRepo;
+    @MockitoBean private EmailService emailService;
+
+    @Test
+    void claimedEventsAreLeasedUntilTheLeaseExpires() {
+        outboxService.enqueueEmail("lease@example.com", "Xác nhận", "Nội dung");
+        OutboxEvent event = newest();
+
+        List<OutboxEvent> claimed = outboxService.claimDueEvents(50);
+        assertThat(claimed).extracting(OutboxEvent::getId).contains(event.getId());
+        OutboxEvent leased = outboxRepo.findById(event.getId()).orElseThrow();
+        assertThat(leased.getStatus()).isEqualTo(OutboxStatus.PROCESSING);
+        assertThat(leased.getNextAttemptAt()).isCloseTo(LocalDateTime.now().plusMinutes(5), within(Duration.ofSeconds(30)));
+        // Instance khác không nhận lại event đang được xử lý
+        assertThat(outboxService.claimDueEvents(50)).extracting(OutboxEvent::getId).doesNotContain(event.getId());
+
+        // Instance xử lý chết giữa chừng: hết lease thì event được nhận lại
+        leased.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        outboxRepo.save(leased);
+        assertThat(outboxService.claimDueEvents(50)).extracting(OutboxEvent::getId).contains(event.getId());
+        outboxService.markSent(List.of(event.getId()));
+    }
+
+    @Test
+    void badNotificationDoesNotFailTheRestOfItsBatch() {
+        User first = saveUser("outbox-a");
+        User second = saveUser("outbox-b");
+        outboxService.enqueueNotification(notification(first.getId(), "Đặt tour thành công"));
+        outboxService.enqueueNotification(notification(Long.MAX_VALUE, "User đã bị xóa"));
+        outboxService.enqueueNotification(notification(second.getId(), "Tour sắp khởi hành"));
+        List<OutboxEvent> events = outboxRepo.findAll().stream()
+                .sorted(Comparator.comparing(OutboxEvent::getId)).toList()
+                .subList((int) outboxRepo.count() - 3, (int) outboxRepo.count());
+
+        dispatcher.dispatch();
+
+        assertThat(status(events.get(0))).isEqualTo(OutboxStatus.SENT);
+        assertThat(status(events.get(2))).isEqualTo(OutboxStatus.SENT);
+        OutboxEvent poison = outboxRepo.findById(events.get(1).getId()).orElseThrow();
+        assertThat(poison.getStatus()).isEqualTo(OutboxStatus.PENDING);
+        assertThat(poison.getAttempts()).isEqualTo(1);
+        assertThat(poison.getLastError()).isNotBlank();
+        assertThat(notificationRepo.findAll()).extracting(Notification::getTitle)
+                .contains("Đặt tour thành công", "Tour sắp khởi hành")
+                .doesNotContain("User đã bị xóa");
+    }
+
+    @Test
+    void failingEmailBacksOffExponentiallyThenEndsFailed() throws Exception {
+        doThrow(new jakarta.mail.MessagingException("SMTP từ chối"))
+                .when(emailService).deliverEmail(eq("bad@example.com"), any(), any());
+        outboxService.enqueueEmail("ok@example.com", "Hóa đơn", "Nội dung");
+        OutboxEvent ok = newest();
+        outboxService.enqueueEmail("bad@example.com", "Hóa đơn", "Nội dung");
+        OutboxEvent bad = newest();
+
+        dispatcher.dispatch();
+        assertThat(status(ok)).isEqualTo(OutboxStatus.SENT);
+        assertRetryScheduled(bad, 1, Duration.ofSeconds(10));
+
+        // Chưa tới hạn thì không gửi lại
+        dispatcher.dispatch();
+        verify(emailService, times(1)).deliverEmail(eq("bad@example.com"), any(), any());
+
+        makeDue(bad);
+        dispatcher.dispatch();
+        assertRetryScheduled(bad, 2, Duration.ofSeconds(20));
+
+        makeDue(bad);
+        dispatcher.dispatch();
+        OutboxEvent failed = outboxRepo.findById(bad.getId()).orElseThrow();
+        assertThat(failed.getStatus()).isEqualTo(OutboxStatus.FAILED);
+        assertThat(failed.getAttempts()).isEqualTo(3);
+        assertThat(failed.getLastError()).contains("SMTP từ chối");
+        verify(emailService, times(3)).deliverEmail(eq("bad@example.com"), any(), any());
+        verify(emailService, times(1)).deliverEmail(eq("ok@example.com"), any(), any());
+    }
+
+    private void assertRetryScheduled(OutboxEvent event, int attempts, Duration backoff) {
+        OutboxEvent reloaded = outboxRepo.findById(event.getId()).orElseThrow();
+        assertThat(reloaded.getStatus()).isEqualTo(OutboxStatus.PENDING);
+        assertThat(reloaded.getAttempts()).isEqualTo(attempts);
+        assertThat(reloaded.getNextAttemptAt()).isCloseTo(LocalDateTime.now().plus(backoff), within(Duration.ofSeconds(5)));
+    }
+
+    private void makeDue(OutboxEvent event) {
+        OutboxEvent reloaded = outboxRepo.findById(event.getId()).orElseThrow();
+        reloaded.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        outboxRepo.save(reloaded);
+    }
+
+    private OutboxStatus status(OutboxEvent event) {
+        return outboxRepo.findById(event.getId()).orElseThrow().getStatus();
+    }
+
+    private OutboxEvent newest() {
+        return outboxRepo.findAll().stream().max(Comparator.comparing(OutboxEvent::getId)).orElseThrow();
+    }
+
+    private static Notification notification(Long userId, String title) {
+        return Notification.builder().user(User.builder().id(userId).build()).type("BOOKING")
+                .title(title).message(title).createdAt(LocalDateTime.now()).build();
+    }
+}
@@ -0,0 +1,118 @@
+package swd.coiviet.configuration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import swd.coiviet.model.Province;
+import swd.coiviet.model.Tour;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TwoLevelCacheManagerTests {
+
+    private final Map<String, Cache> sharedL2 = new HashMap<>();
+    private final List<String> published = new ArrayList<>();
+    private TwoLevelCacheManager nodeA;
+    private TwoLevelCacheManager nodeB;
+
+    @BeforeEach
+    void setUp() {
+        AppCacheProperties properties = new AppCacheProperties();
+        AppCacheProperties.Spec spec = new AppCacheProperties.Spec();
+        spec.setTtl(Duration.ofMinutes(1));
+        spec.setMaxSize(10L);
+        properties.getSpecs().put(CacheNames.TOURS, spec);
+        // Hai "instance" dùng chung một L2 cục bộ thay cho Redis
+        nodeA = new TwoLevelCacheManager(properties, name -> sharedL2.computeIfAbsent(name, ConcurrentMapCache::new), published::add);
+        nodeB = new TwoLevelCacheManager(properties, name -> sharedL2.computeIfAbsent(name, ConcurrentMapCache::new), published::add);
+        nodeA.afterPropertiesSet();
+        nodeB.afterPropertiesSet();
+    }
+
+    @Test
+    void readsFallBackToL2AndPopulateL1() {
+        nodeA.getCache(CacheNames.TOURS).put(1L, "tour-1");
+
+        TwoLevelCache cacheB = twoLevel(nodeB, CacheNames.TOURS);
+        assertThat(cacheB.get(1L).get()).isEqualTo("tour-1");
+        assertThat(cacheB.get(1L).get()).isEqualTo("tour-1");
+        assertThat(cacheB.get(2L)).isNull();
+
+        assertThat(cacheB.getL2Hits()).isEqualTo(1);
+        assertThat(cacheB.getL1Hits()).isEqualTo(1);
+        assertThat(cacheB.getMisses()).isEqualTo(1);
+        assertThat(((CaffeineCache) cacheB.getL1()).getNativeCache().getIfPresent(1L)).isInstanceOf(byte[].class);
+    }
+
+    @Test
+    void evictRemovesSharedEntryAndRemoteNodesDropTheirL1() {
+        nodeA.getCache(CacheNames.TOURS).put(1L, "tour-1");
+        nodeB.getCache(CacheNames.TOURS).get(1L);
+
+        nodeA.getCache(CacheNames.TOURS).evict(1L);
+        assertThat(published).containsExactly(CacheNames.TOURS);
+        // L1 của node B vẫn còn bản cũ cho tới khi nhận thông báo evict
+        assertThat(nodeB.getCache(CacheNames.TOURS).get(1L)).isNotNull();
+
+        nodeB.clearLocal(CacheNames.TOURS);
+        assertThat(nodeB.getCache(CacheNames.TOURS).get(1L)).isNull();
+    }
+
+    @Test
+    void unknownCacheNamesUseDefaultSpec() {
+        assertThat(nodeA.getCache("adhoc")).isNotNull();
+        assertThat(twoLevel(nodeA, "adhoc").get("k", () -> "loaded")).isEqualTo("loaded");
+        assertThat(sharedL2.get("adhoc").get("k").get()).isInstanceOf(byte[].class);
+        assertThat(nodeB.getCache("adhoc").get("k").get()).isEqualTo("loaded");
+    }
+
+    @Test
+    void readersGetTheirOwnCopyOfCachedEntities() {
+        Province province = Province.builder().id(1L).name("Thừa Thiên Huế").slug("hue").build();
+        Tour tour = Tour.builder().id(7L).title("Cố đô").province(province).totalBookings(3).build();
+        nodeA.getCache(CacheNames.TOURS).put(7L, tour);
+        tour.setTitle("sửa sau khi put");
+
+        Tour first = (Tour) nodeA.getCache(CacheNames.TOURS).get(7L).get();
+        first.setTitle("sửa dở");
+        first.getProvince().setName("sửa dở");
+        Tour second = nodeA.getCache(CacheNames.TOURS).get(7L, Tour.class);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getTitle()).isEqualTo("Cố đô");
+        assertThat(second.getProvince().getName()).isEqualTo("Thừa Thiên Huế");
+        assertThat(second.getTotalBookings()).isEqualTo(3);
+        // Node khác đọc từ L2 cũng nhận bản chưa bị sửa
+        assertThat(nodeB.getCache(CacheNames.TOURS).get(7L, Tour.class).getTitle()).isEqualTo("Cố đô");
+    }
+
+    @Test
+    void worksWithoutL2() {
+        AppCacheProperties properties = new AppCacheProperties();
+        TwoLevelCacheManager standalone = new TwoLevelCacheManager(properties, null, published::add);
+        standalone.afterPropertiesSet();
+        Province province = Province.builder().id(2L).name("Đà Nẵng").build();
+        standalone.getCache(CacheNames.PROVINCES).put(2L, province);
+        province.setName("sửa");
+
+        TwoLevelCache cache = twoLevel(standalone, CacheNames.PROVINCES);
+        assertThat(cache.get(2L, Province.class).getName()).isEqualTo("Đà Nẵng");
+        assertThat(cache.getL1Hits()).isEqualTo(1);
+    }
+
+    private static TwoLevelCache twoLevel(TwoLevelCacheManager manager, String name) {
+        Cache cache = manager.getCache(name);
+        if (cache instanceof org.springframework.cache.transaction.TransactionAwareCacheDecorator decorator) {
+            cache = decorator.getTargetCache();
+        }
+        return (TwoLevelCache) cache;
+    }
+}
@@ -0,0 +1,141 @@
+package swd.coiviet.service;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.Uploader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import swd.coiviet.service.impl.CloudinaryMediaStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CloudinaryServiceTests {
+
+    private static final int POOL_SIZE = 2;
+    private static final int REQUESTS = 3;
+    private static final int FILES_PER_REQUEST = 8;
+
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void uploadsStreamFromSpooledFilesWithBoundedConcurrency() throws Exception {
+        executor.setCorePoolSize(POOL_SIZE);
+        executor.setMaxPoolSize(POOL_SIZE);
+        executor.setQueueCapacity(2);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+
+        // Cloudinary giả: ghi nhận file nhận được và số upload chạy đồng thời
+        Cloudinary cloudinary = mock(Cloudinary.class);
+        Uploader uploader = mock(Uploader.class);
+        when(cloudinary.uploader()).thenReturn(uploader);
+        ConcurrentLinkedQueue<File> received = new ConcurrentLinkedQueue<>();
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        when(uploader.upload(any(), anyMap())).thenAnswer(invocation -> {
+            File file = invocation.getArgument(0);
+            assertThat(file).exists().hasSize(1024 * 1024);
+            received.add(file);
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            active.decrementAndGet();
+            return Map.of("secure_url", "https://res.cloudinary.com/demo/" + file.getName());
+        });
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CloudinaryService service = new CloudinaryService(new CloudinaryMediaStore(cloudinary), executor, registry,
+                Duration.ofSeconds(30), noDedupRegistry(), mock(ImageProcessingService.class));
+
+        ExecutorService requests = Executors.newFixedThreadPool(REQUESTS);
+        List<CompletableFuture<List<String>>> results = new ArrayList<>();
+        for (int r = 0; r < REQUESTS; r++) {
+            MultipartFileBatch batch = new MultipartFileBatch(r);
+            results.add(CompletableFuture.supplyAsync(() -> service.uploadMultipleImagesAsync(batch.files, "tours/1/images", "tour"), requests));
+        }
+        for (CompletableFuture<List<String>> result : results) {
+            assertThat(result.get()).hasSize(FILES_PER_REQUEST).doesNotContainNull();
+        }
+        requests.shutdown();
+
+        // Upload nhận file tạm chứ không phải byte[], file tạm bị xóa sau khi upload xong
+        assertThat(received).hasSize(REQUESTS * FILES_PER_REQUEST).allMatch(f -> !f.exists());
+        // Tối đa: các thread của pool cộng các request thread tự upload (file cuối hoặc khi queue đầy)
+        assertThat(maxActive.get()).isLessThanOrEqualTo(POOL_SIZE + REQUESTS);
+        assertThat(registry.get("media.upload").tag("outcome", "success").timer().count())
+                .isEqualTo(REQUESTS * FILES_PER_REQUEST);
+        assertThat(registry.get("media.upload.inflight").gauge().value()).isZero();
+        assertThat(registry.get("media.upload.inflight.bytes").gauge().value()).isZero();
+    }
+
+    @Test
+    void failedUploadsAreDroppedAndCountedWithoutLeakingSpoolFiles() throws Exception {
+        executor.setCorePoolSize(POOL_SIZE);
+        executor.setMaxPoolSize(POOL_SIZE);
+        executor.initialize();
+
+        Cloudinary cloudinary = mock(Cloudinary.class);
+        Uploader uploader = mock(Uploader.class);
+        when(cloudinary.uploader()).thenReturn(uploader);
+        ConcurrentLinkedQueue<File> received = new ConcurrentLinkedQueue<>();
+        AtomicInteger calls = new AtomicInteger();
+        when(uploader.upload(any(), anyMap())).thenAnswer(invocation -> {
+            received.add(invocation.getArgument(0));
+            if (calls.incrementAndGet() % 2 == 0) {
+                throw new IOException("Cloudinary unavailable");
+            }
+            return Map.of("secure_url", "https://res.cloudinary.com/demo/ok");
+        });
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CloudinaryService service = new CloudinaryService(new CloudinaryMediaStore(cloudinary), executor, registry,
+                Duration.ofSeconds(30), noDedupRegistry(), mock(ImageProcessingService.class));
+
+        List<String> urls = service.uploadMultipleImagesAsync(new MultipartFileBatch(0).files, "tours/1/images", "tour");
+        assertThat(urls).hasSize(FILES_PER_REQUEST / 2);
+        assertThat(received).hasSize(FILES_PER_REQUEST).allMatch(f -> !f.exists());
+        assertThat(registry.get("media.upload").tag("outcome", "failure").timer().count()).isEqualTo(FILES_PER_REQUEST / 2);
+    }
+
+    // Registry không bao giờ trùng: mọi file đều thực sự upload
+    private static MediaAssetService noDedupRegistry() {
+        MediaAssetService assets = mock(MediaAssetService.class);
+        when(assets.register(any(), any(), any(), any(), any(), anyLong()))
+                .thenAnswer(invocation -> invocation.getArgument(2));
+        return assets;
+    }
+
+    private static final class MultipartFileBatch {
+        final MockMultipartFile[] files = new MockMultipartFile[FILES_PER_REQUEST];
+
+        MultipartFileBatch(int request) {
+            for (int i = 0; i < FILES_PER_REQUEST; i++) {
+                files[i] = new MockMultipartFile("images", "anh-" + request + "-" + i + ".jpg", "image/jpeg", new byte[1024 * 1024]);
+            }
+        }
+    }
+}
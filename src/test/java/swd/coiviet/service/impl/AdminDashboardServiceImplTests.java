@@ -0,0 +1,116 @@
+package swd.coiviet.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import swd.coiviet.dto.response.AdminDashboardResponse;
+import swd.coiviet.enums.BookingStatus;
+import swd.coiviet.enums.PaymentStatus;
+import swd.coiviet.enums.PublicationStatus;
+import swd.coiviet.enums.ReviewStatus;
+import swd.coiviet.enums.Status;
+import swd.coiviet.model.Booking;
+import swd.coiviet.model.Notification;
+import swd.coiviet.model.Payment;
+import swd.coiviet.model.Review;
+import swd.coiviet.model.User;
+import swd.coiviet.model.Video;
+import swd.coiviet.repository.BookingRepository;
+import swd.coiviet.repository.NotificationRepository;
+import swd.coiviet.repository.PaymentRepository;
+import swd.coiviet.repository.ReviewRepository;
+import swd.coiviet.repository.VideoRepository;
+import swd.coiviet.support.DataJpaServiceTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(AdminDashboardServiceImpl.class)
+class AdminDashboardServiceImplTests extends DataJpaServiceTest {
+
+    @Autowired private AdminDashboardServiceImpl dashboardService;
+    @Autowired private BookingRepository bookingRepository;
+    @Autowired private PaymentRepository paymentRepository;
+    @Autowired private ReviewRepository reviewRepository;
+    @Autowired private VideoRepository videoRepository;
+    @Autowired private NotificationRepository notificationRepository;
+
+    @Test
+    void groupedAggregatesMatchPerStatusCounts() {
+        LocalDateTime now = LocalDateTime.now();
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            users.add(User.builder().username("user" + i).email("user" + i + "@coiviet.vn").passwordHash("x")
+                    .status(i % 10 == 0 ? Status.BANNED : (i % 7 == 0 ? null : Status.ACTIVE))
+                    .createdAt(now.minusDays(i % 60)).build());
+        }
+        userRepository.saveAll(users);
+
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            bookings.add(Booking.builder().bookingCode("BK" + i)
+                    .status(BookingStatus.values()[i % BookingStatus.values().length])
+                    .createdAt(now.minusDays(i % 45)).build());
+        }
+        bookings = bookingRepository.saveAll(bookings);
+
+        List<Payment> payments = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            PaymentStatus status = i % 3 == 0 ? PaymentStatus.UNPAID : PaymentStatus.PAID;
+            payments.add(Payment.builder().booking(bookings.get(i)).amount(BigDecimal.valueOf(100 + i))
+                    .status(status).createdAt(now.minusDays(i % 45))
+                    .paidAt(status == PaymentStatus.PAID ? now.minusDays(i % 45) : null).build());
+        }
+        paymentRepository.saveAll(payments);
+
+        List<Review> reviews = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            reviews.add(Review.builder().rating(1 + i % 5).status(i % 4 == 0 ? ReviewStatus.HIDDEN : ReviewStatus.VISIBLE)
+                    .createdAt(now.minusDays(i % 50)).build());
+        }
+        reviewRepository.saveAll(reviews);
+
+        List<Video> videos = new ArrayList<>();
+        List<Notification> notifications = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            videos.add(Video.builder().title("Video " + i).videoUrl("https://example.com/" + i)
+                    .status(i % 2 == 0 ? PublicationStatus.PUBLISHED : PublicationStatus.DRAFT).build());
+            notifications.add(Notification.builder().title("N" + i).isRead(i % 3 == 0).createdAt(now.minusDays(i % 40)).build());
+        }
+        videoRepository.saveAll(videos);
+        notificationRepository.saveAll(notifications);
+
+        LocalDate to = LocalDate.now();
+        LocalDate from = to.minusDays(30);
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.atTime(23, 59, 59, 999_999_999);
+
+        AdminDashboardResponse summary = dashboardService.getSummary(from, to);
+
+        assertThat(summary.getUsers().getTotal()).isEqualTo(userRepository.count());
+        assertThat(summary.getUsers().getNewInRange()).isEqualTo(userRepository.countByCreatedAtBetween(start, end));
+        for (Status status : Status.values()) {
+            assertThat(summary.getUsers().getByStatus().get(status.name())).isEqualTo(userRepository.countByStatus(status));
+        }
+        for (BookingStatus status : BookingStatus.values()) {
+            assertThat(summary.getBookings().getByStatus().get(status.name())).isEqualTo(bookingRepository.countByStatus(status));
+        }
+        assertThat(summary.getPayments().getTotalRevenue())
+                .isEqualByComparingTo(paymentRepository.sumAmountByStatus(PaymentStatus.PAID));
+        assertThat(summary.getPayments().getRevenueInRange())
+                .isEqualByComparingTo(paymentRepository.sumAmountByStatusAndPaidAtBetween(PaymentStatus.PAID, start, end));
+        assertThat(summary.getReviews().getAverageRating())
+                .isEqualTo(reviewRepository.averageRatingByStatus(ReviewStatus.VISIBLE));
+        assertThat(summary.getContent().getVideosByStatus().get(PublicationStatus.PUBLISHED.name()))
+                .isEqualTo(videoRepository.countByStatus(PublicationStatus.PUBLISHED));
+        assertThat(summary.getContent().getBlogPostsTotal()).isZero();
+        assertThat(summary.getNotifications().getUnread()).isEqualTo(notificationRepository.countByIsReadFalse());
+        assertThat(summary.getNotifications().getNewInRange())
+                .isEqualTo(notificationRepository.countByCreatedAtBetween(start, end));
+    }
+}
@@ -0,0 +1,159 @@
+package swd.coiviet.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import swd.coiviet.enums.BookingStatus;
+import swd.coiviet.enums.PaymentStatus;
+import swd.coiviet.enums.ReviewStatus;
+import swd.coiviet.model.Artisan;
+import swd.coiviet.model.ArtisanStats;
+import swd.coiviet.model.Booking;
+import swd.coiviet.model.Payment;
+import swd.coiviet.model.Review;
+import swd.coiviet.model.Tour;
+import swd.coiviet.repository.ArtisanRepository;
+import swd.coiviet.repository.ArtisanStatsRepository;
+import swd.coiviet.repository.BookingRepository;
+import swd.coiviet.repository.PaymentRepository;
+import swd.coiviet.repository.ReviewRepository;
+import swd.coiviet.repository.TourRepository;
+import swd.coiviet.support.DataJpaServiceTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import({ArtisanStatsServiceImpl.class, PaymentServiceImpl.class, ReviewServiceImpl.class, TourServiceImpl.class})
+class ArtisanStatsServiceImplTests extends DataJpaServiceTest {
+
+    @Autowired private ArtisanStatsServiceImpl statsService;
+    @Autowired private PaymentServiceImpl paymentService;
+    @Autowired private ReviewServiceImpl reviewService;
+    @Autowired private ArtisanRepository artisanRepository;
+    @Autowired private TourRepository tourRepository;
+    @Autowired private BookingRepository bookingRepository;
+    @Autowired private PaymentRepository paymentRepository;
+    @Autowired private ReviewRepository reviewRepository;
+    @Autowired private ArtisanStatsRepository statsRepository;
+
+    @Test
+    void incrementalUpdatesMatchRebuild() {
+        Artisan artisan = artisanRepository.save(Artisan.builder().fullName("Nghệ nhân A").specialization("Dệt thổ cẩm").isActive(true).build());
+        Artisan other = artisanRepository.save(Artisan.builder().fullName("Nghệ nhân B").specialization("Gốm").isActive(true).build());
+        Tour tour = tourRepository.save(Tour.builder().title("Tour A").slug("tour-a").artisan(artisan).build());
+        Tour otherTour = tourRepository.save(Tour.builder().title("Tour B").slug("tour-b").artisan(other).build());
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            bookings.add(Booking.builder().bookingCode("BK" + i).tour(i % 4 == 0 ? otherTour : tour)
+                    .status(BookingStatus.values()[i % BookingStatus.values().length]).createdAt(now).build());
+        }
+        bookings = bookingRepository.saveAll(bookings);
+
+        List<Payment> payments = new ArrayList<>();
+        List<Review> reviews = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            payments.add(Payment.builder().booking(bookings.get(i)).amount(BigDecimal.valueOf(100 + i))
+                    .status(i % 3 == 0 ? PaymentStatus.UNPAID : PaymentStatus.PAID).paidAt(now).createdAt(now).build());
+            reviews.add(Review.builder().booking(bookings.get(i)).tour(bookings.get(i).getTour()).rating(1 + i % 5)
+                    .status(i % 6 == 0 ? ReviewStatus.HIDDEN : ReviewStatus.VISIBLE).createdAt(now).build());
+        }
+        payments = paymentRepository.saveAll(payments);
+        reviews = reviewRepository.saveAll(reviews);
+
+        ArtisanStats initial = statsService.getStats(artisan.getId());
+        assertThat(initial.getBookingsTotal()).isEqualTo(bookingRepository.countByArtisanId(artisan.getId()));
+        assertThat(initial.getReviewCount()).isEqualTo(legacyVisibleReviews(tour.getId()).size());
+
+        // Thay đổi qua service: rollup được cập nhật tăng dần
+        Payment unpaid = payments.get(3);
+        unpaid.setStatus(PaymentStatus.PAID);
+        paymentService.save(unpaid);
+        Payment paid = payments.get(1);
+        paid.setStatus(PaymentStatus.REFUNDED);
+        paymentService.save(paid);
+        paymentService.deleteById(payments.get(2).getId());
+
+        Review hidden = reviews.get(6);
+        hidden.setStatus(ReviewStatus.VISIBLE);
+        reviewService.save(hidden);
+        Review rerated = reviews.get(1);
+        rerated.setRating(5);
+        reviewService.save(rerated);
+        reviewService.deleteById(reviews.get(2).getId());
+        reviewService.save(Review.builder().tour(tour).rating(4).status(ReviewStatus.VISIBLE).createdAt(now).build());
+
+        ArtisanStats incremental = statsService.getStats(artisan.getId());
+        ArtisanStats rebuilt = statsService.rebuild(artisan.getId());
+        assertThat(incremental).usingRecursiveComparison()
+                .ignoringFields("rebuiltAt", "paidRevenue").isEqualTo(rebuilt);
+        assertThat(incremental.getPaidRevenue()).isEqualByComparingTo(rebuilt.getPaidRevenue());
+        assertThat(incremental.getPaidRevenue())
+                .isEqualByComparingTo(paymentRepository.sumAmountByArtisanIdAndStatus(artisan.getId(), PaymentStatus.PAID));
+
+        List<Review> visible = legacyVisibleReviews(tour.getId());
+        assertThat(incremental.getReviewCount()).isEqualTo(visible.size());
+        assertThat(incremental.getFiveStar()).isEqualTo(visible.stream().filter(r -> r.getRating() == 5).count());
+    }
+
+    @Test
+    void concurrentRebuildsAndDeltasDoNotLoseUpdates() throws Exception {
+        Artisan artisan = artisanRepository.save(Artisan.builder().fullName("Nghệ nhân C").specialization("Sơn mài").isActive(true).build());
+        Tour tour = tourRepository.save(Tour.builder().title("Tour C").slug("tour-c").artisan(artisan).build());
+        LocalDateTime now = LocalDateTime.now();
+        List<Review> seeded = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            seeded.add(Review.builder().tour(tour).rating(1 + i % 5).status(ReviewStatus.VISIBLE).createdAt(now).build());
+        }
+        reviewRepository.saveAll(seeded);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            // Nhiều lần đọc đầu tiên cùng lúc: chỉ một dòng rollup, ai cũng thấy số liệu đã dựng
+            List<Future<ArtisanStats>> firstReads = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                firstReads.add(pool.submit(() -> statsService.getStats(artisan.getId())));
+            }
+            for (Future<ArtisanStats> read : firstReads) {
+                assertThat(read.get(30, TimeUnit.SECONDS).getReviewCount()).isEqualTo(50);
+            }
+
+            // Review mới ghi song song với đối soát: delta không bị bản dựng lại ghi đè
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                int rating = 1 + i % 5;
+                tasks.add(pool.submit(() -> reviewService.save(Review.builder().tour(tour).rating(rating)
+                        .status(ReviewStatus.VISIBLE).createdAt(LocalDateTime.now()).build())));
+                if (i % 4 == 0) {
+                    tasks.add(pool.submit(() -> statsService.rebuild(artisan.getId())));
+                }
+            }
+            for (Future<?> task : tasks) {
+                task.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        ArtisanStats incremental = statsRepository.findById(artisan.getId()).orElseThrow();
+        assertThat(incremental.getReviewCount()).isEqualTo(90);
+        assertThat(incremental).usingRecursiveComparison().ignoringFields("rebuiltAt", "paidRevenue")
+                .isEqualTo(statsService.rebuild(artisan.getId()));
+    }
+
+    // Cách cũ của ArtisanDashboardController: đọc toàn bộ bảng reviews rồi lọc trong bộ nhớ
+    private List<Review> legacyVisibleReviews(Long tourId) {
+        return reviewRepository.findAll().stream()
+                .filter(r -> r.getTour() != null && r.getTour().getId().equals(tourId) && r.getStatus() == ReviewStatus.VISIBLE)
+                .toList();
+    }
+}
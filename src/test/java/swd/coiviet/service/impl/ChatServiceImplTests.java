@@ -0,0 +1,227 @@
+package swd.coiviet.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import swd.coiviet.dto.response.ChatConversationResponse;
+import swd.coiviet.dto.response.ChatMessageResponse;
+import swd.coiviet.dto.response.ConversationPageResponse;
+import swd.coiviet.dto.response.CursorPageResponse;
+import swd.coiviet.enums.Role;
+import swd.coiviet.exception.AppException;
+import swd.coiviet.model.ChatConversation;
+import swd.coiviet.model.ChatMessage;
+import swd.coiviet.model.User;
+import swd.coiviet.repository.ChatConversationRepository;
+import swd.coiviet.repository.ChatMessageRepository;
+import swd.coiviet.support.DataJpaServiceTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@TestPropertySource(properties = "app.chat.queue-capacity=25000")
+@Import({ChatServiceImpl.class, WriteBehindChatMessageWriter.class, SimpleMeterRegistry.class})
+class ChatServiceImplTests extends DataJpaServiceTest {
+
+    private static final int HISTORY = 5000;
+    private static final int CUSTOMERS = 45;
+
+    @Autowired private ChatServiceImpl chatService;
+    @Autowired private WriteBehindChatMessageWriter messageWriter;
+    @Autowired private ChatConversationRepository conversationRepository;
+    @Autowired private ChatMessageRepository messageRepository;
+
+    @Test
+    void historyAndInboxPageByKeysetInBothDirections() {
+        User artisan = userRepository.save(User.builder().username("nghenhan").email("nn@example.com")
+                .passwordHash("x").fullName("Nghệ nhân").role(Role.ARTISAN).build());
+        List<User> customers = new ArrayList<>();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            customers.add(user("khach" + i).fullName(i % 2 == 0 ? "Khách " + i : null).role(Role.CUSTOMER).build());
+        }
+        customers = userRepository.saveAll(customers);
+
+        // Nhiều hội thoại cùng updatedAt để kiểm tra id phá hòa trong cursor
+        LocalDateTime base = LocalDateTime.now().minusDays(1).withNano(0);
+        List<ChatConversation> conversations = new ArrayList<>();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            conversations.add(ChatConversation.builder().customer(customers.get(i)).artisan(artisan)
+                    .lastMessage("Tin " + i).createdAt(base.plusMinutes(i / 3)).build());
+        }
+        conversations = conversationRepository.saveAll(conversations);
+        ChatConversation busy = conversations.get(0);
+
+        List<ChatMessage> history = new ArrayList<>();
+        for (int i = 0; i < HISTORY; i++) {
+            boolean fromCustomer = i % 2 == 0;
+            history.add(ChatMessage.builder().conversation(busy)
+                    .sender(fromCustomer ? customers.get(0) : artisan).recipient(fromCustomer ? artisan : customers.get(0))
+                    .content("Tin nhắn " + i).createdAt(base.plusSeconds(i)).build());
+        }
+        messageRepository.saveAll(history);
+
+        // Lùi về quá khứ bằng before rồi tiến lại bằng after: đủ và đúng thứ tự
+        List<Long> backwards = new ArrayList<>();
+        Long before = null;
+        do {
+            CursorPageResponse<ChatMessageResponse> page = chatService.getMessages(artisan.getId(), busy.getId(), before, null, 500);
+            assertThat(page.getItems()).isNotEmpty();
+            page.getItems().forEach(m -> backwards.add(m.getId()));
+            before = page.getNextCursor();
+        } while (before != null);
+        assertThat(backwards).hasSize(HISTORY).isSortedAccordingTo((a, b) -> Long.compare(b, a));
+
+        List<Long> forwards = new ArrayList<>();
+        Long after = backwards.get(backwards.size() - 1) - 1;
+        CursorPageResponse<ChatMessageResponse> page;
+        do {
+            page = chatService.getMessages(customers.get(0).getId(), busy.getId(), null, after, 1000);
+            page.getItems().forEach(m -> forwards.add(m.getId()));
+            after = page.getNextCursor();
+        } while (after != null);
+        assertThat(forwards).hasSize(HISTORY).isSorted();
+        ChatMessageResponse first = chatService.getMessages(artisan.getId(), busy.getId(), null, backwards.get(1), 1).getItems().get(0);
+        assertThat(first.getSenderId()).isEqualTo(artisan.getId());
+        assertThat(first.getRecipientId()).isEqualTo(customers.get(0).getId());
+        assertThat(first.getConversationId()).isEqualTo(busy.getId());
+
+        // Trang bị chặn trần, người ngoài hội thoại bị từ chối
+        assertThat(chatService.getMessages(artisan.getId(), busy.getId(), null, null, 10_000).getSize())
+                .isEqualTo(CursorPageResponse.MAX_SIZE);
+        Long outsider = customers.get(1).getId();
+        assertThatThrownBy(() -> chatService.getMessages(outsider, busy.getId(), null, null, 20))
+                .isInstanceOf(AppException.class);
+
+        // Hộp thư của nghệ nhân: đủ hội thoại, không trùng, tên người đối diện lấy trong cùng truy vấn
+        List<ChatConversationResponse> inbox = new ArrayList<>();
+        String cursor = null;
+        do {
+            ConversationPageResponse inboxPage = chatService.getConversations(artisan.getId(), cursor, 7);
+            inbox.addAll(inboxPage.getItems());
+            cursor = inboxPage.getNextCursor();
+        } while (cursor != null);
+        assertThat(inbox).hasSize(CUSTOMERS).extracting(ChatConversationResponse::getId).doesNotHaveDuplicates();
+        assertThat(inbox).isSortedAccordingTo((a, b) -> {
+            int byTime = b.getUpdatedAt().compareTo(a.getUpdatedAt());
+            return byTime != 0 ? byTime : Long.compare(b.getId(), a.getId());
+        });
+        // Không có fullName thì dùng username
+        assertThat(inbox).allMatch(c -> c.getPartnerName().startsWith("Khách ") || c.getPartnerName().startsWith("khach"));
+        List<ChatConversationResponse> customerInbox = chatService.getConversations(customers.get(3).getId(), null, 20).getItems();
+        assertThat(customerInbox).singleElement()
+                .satisfies(c -> assertThat(c.getPartnerName()).isEqualTo("Nghệ nhân"));
+
+        // Hội thoại cuối trang nhận tin mới trước khi lấy trang sau: trang sau vẫn tiếp đúng chỗ, không lặp lại từ đầu
+        ConversationPageResponse firstPage = chatService.getConversations(artisan.getId(), null, 7);
+        ChatConversation bumped = conversationRepository.findById(firstPage.getItems().get(6).getId()).orElseThrow();
+        bumped.setUpdatedAt(LocalDateTime.now().plusMinutes(5));
+        conversationRepository.save(bumped);
+        List<ChatConversationResponse> secondPage = chatService.getConversations(artisan.getId(), firstPage.getNextCursor(), 7).getItems();
+        assertThat(secondPage).extracting(ChatConversationResponse::getId)
+                .containsExactlyElementsOf(inbox.subList(7, 14).stream().map(ChatConversationResponse::getId).toList());
+        assertThatThrownBy(() -> chatService.getConversations(artisan.getId(), "khong-hop-le", 7))
+                .isInstanceOf(AppException.class);
+    }
+
+    @Test
+    void sendDeliversBeforePersistingAndDrainsQueueOnShutdown() throws Exception {
+        User artisan = userRepository.save(User.builder().username("nghenhan-wb").email("wb@example.com")
+                .passwordHash("x").role(Role.ARTISAN).build());
+        List<User> customers = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            customers.add(user("wb" + i).role(Role.CUSTOMER).build());
+        }
+        List<User> senders = userRepository.saveAll(customers);
+        long messagesBefore = messageRepository.count();
+
+        int threads = 8;
+        int perThread = 2500;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<List<ChatMessageResponse>>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(pool.submit(() -> {
+                List<ChatMessageResponse> sent = new ArrayList<>();
+                for (int i = 0; i < perThread; i++) {
+                    User customer = senders.get((thread * perThread + i) % senders.size());
+                    boolean fromCustomer = i % 3 != 0;
+                    sent.add(chatService.sendMessage(fromCustomer ? customer.getId() : artisan.getId(),
+                            fromCustomer ? artisan.getId() : customer.getId(), "Tin " + thread + "-" + i));
+                }
+                return sent;
+            }));
+        }
+        List<ChatMessageResponse> sent = new ArrayList<>();
+        for (Future<List<ChatMessageResponse>> future : futures) {
+            sent.addAll(future.get());
+        }
+        pool.shutdown();
+
+        // Dừng như khi tắt ứng dụng: hàng đợi phải được ghi hết
+        messageWriter.stop();
+        messageWriter.start();
+
+        int total = threads * perThread;
+        assertThat(sent).extracting(ChatMessageResponse::getId).doesNotHaveDuplicates().doesNotContainNull();
+        assertThat(messageWriter.pending()).isZero();
+        assertThat(messageRepository.count() - messagesBefore).isEqualTo(total);
+
+        // lastMessage được gộp theo hội thoại: luôn là tin có id lớn nhất
+        Map<Long, ChatMessageResponse> latest = new HashMap<>();
+        sent.forEach(m -> latest.merge(m.getConversationId(), m, (a, b) -> a.getId() > b.getId() ? a : b));
+        assertThat(latest).hasSize(senders.size());
+        for (ChatConversation conversation : conversationRepository.findAllById(latest.keySet())) {
+            assertThat(conversation.getLastMessage()).isEqualTo(latest.get(conversation.getId()).getContent());
+        }
+        ChatMessageResponse newest = chatService.getMessages(artisan.getId(), sent.get(0).getConversationId(), null, null, 1)
+                .getItems().get(0);
+        assertThat(newest).isEqualTo(latest.get(sent.get(0).getConversationId()));
+
+        // Sau khi khởi động lại vẫn ghi bình thường, id tiếp tục tăng
+        ChatMessageResponse after = chatService.sendMessage(senders.get(0).getId(), artisan.getId(), "Sau khi khởi động lại");
+        messageWriter.stop();
+        messageWriter.start();
+        assertThat(messageRepository.findById(after.getId())).isPresent();
+        assertThat(after.getId()).isGreaterThan(sent.stream().mapToLong(ChatMessageResponse::getId).max().orElseThrow());
+    }
+
+    @Test
+    void poisonMessageIsRejectedWithoutBlockingTheRestOfItsBatch() {
+        User artisan = userRepository.save(User.builder().username("nghenhan-poison").email("poison@example.com")
+                .passwordHash("x").role(Role.ARTISAN).build());
+        User customer = userRepository.save(user("khach-poison").role(Role.CUSTOMER).build());
+        ChatMessageResponse first = chatService.sendMessage(customer.getId(), artisan.getId(), "Xin chào");
+        messageWriter.stop();
+        messageWriter.start();
+
+        // Tin thứ 3 trỏ tới hội thoại không tồn tại (đã bị xóa): vi phạm khóa ngoại
+        List<ChatMessageResponse> batch = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            batch.add(ChatMessageResponse.builder().id(messageWriter.nextMessageId())
+                    .conversationId(i == 2 ? Long.MAX_VALUE : first.getConversationId())
+                    .senderId(customer.getId()).recipientId(artisan.getId())
+                    .content("Tin " + i).createdAt(LocalDateTime.now()).build());
+        }
+        batch.forEach(messageWriter::enqueue);
+        messageWriter.stop();
+        messageWriter.start();
+
+        assertThat(messageWriter.pending()).isZero();
+        for (int i = 0; i < batch.size(); i++) {
+            assertThat(messageRepository.findById(batch.get(i).getId()).isPresent()).isEqualTo(i != 2);
+        }
+        assertThat(conversationRepository.findById(first.getConversationId()).orElseThrow().getLastMessage())
+                .isEqualTo("Tin 4");
+    }
+}
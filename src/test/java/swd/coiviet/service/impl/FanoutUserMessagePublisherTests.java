@@ -0,0 +1,146 @@
+package swd.coiviet.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import swd.coiviet.dto.response.ChatMessageResponse;
+import swd.coiviet.service.MessageFanoutTransport;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FanoutUserMessagePublisherTests {
+
+    private static final int NODES = 4;
+    private static final int USERS = 400;
+    private static final int MESSAGES = 20_000;
+
+    @Test
+    void messagesReachRecipientsConnectedToOtherInstancesExactlyOnce() throws Exception {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        InMemoryBus bus = new InMemoryBus();
+        Map<Long, AtomicInteger> deliveries = new ConcurrentHashMap<>();
+        AtomicInteger misrouted = new AtomicInteger();
+
+        List<FanoutUserMessagePublisher> nodes = new ArrayList<>();
+        for (int n = 0; n < NODES; n++) {
+            int node = n;
+            // Mỗi user giữ kết nối trên đúng một instance
+            Set<Long> connected = ConcurrentHashMap.newKeySet();
+            for (long user = 0; user < USERS; user++) {
+                if (user % NODES == node) connected.add(user);
+            }
+            nodes.add(new FanoutUserMessagePublisher((userId, destination, payload) -> {
+                if (userId % NODES != node) misrouted.incrementAndGet();
+                long messageId = payload instanceof JsonNode json ? json.get("id").asLong() : ((ChatMessageResponse) payload).getId();
+                deliveries.computeIfAbsent(messageId, id -> new AtomicInteger()).incrementAndGet();
+            }, connected::contains, bus.connect(), objectMapper));
+        }
+
+        ExecutorService senders = Executors.newFixedThreadPool(NODES);
+        List<Future<?>> sent = new ArrayList<>();
+        for (int n = 0; n < NODES; n++) {
+            int node = n;
+            sent.add(senders.submit(() -> {
+                for (long id = node; id < MESSAGES; id += NODES) {
+                    long recipient = (id * 7919) % USERS;
+                    nodes.get(node).sendToUser(recipient, "/queue/messages", ChatMessageResponse.builder()
+                            .id(id).conversationId(1L).senderId(0L).recipientId(recipient)
+                            .content("Xin chào lần " + id).createdAt(LocalDateTime.now()).build());
+                }
+            }));
+        }
+        for (Future<?> future : sent) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        senders.shutdown();
+        bus.drain();
+
+        assertThat(misrouted.get()).isZero();
+        assertThat(deliveries).hasSize(MESSAGES);
+        assertThat(deliveries.values()).allMatch(count -> count.get() == 1);
+    }
+
+    @Test
+    void oversizeMessageReachesOtherInstancesAsRefetch() throws Exception {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        InMemoryBus bus = new InMemoryBus();
+        List<Object> senderNode = new CopyOnWriteArrayList<>();
+        List<String> remoteDestinations = new CopyOnWriteArrayList<>();
+        List<JsonNode> remotePayloads = new CopyOnWriteArrayList<>();
+        FanoutUserMessagePublisher sender = new FanoutUserMessagePublisher(
+                (userId, destination, payload) -> senderNode.add(payload), userId -> false, bus.connect(), objectMapper);
+        new FanoutUserMessagePublisher((userId, destination, payload) -> {
+            remoteDestinations.add(destination);
+            remotePayloads.add((JsonNode) payload);
+        }, userId -> userId == 42L, bus.connect(), objectMapper);
+
+        ChatMessageResponse message = ChatMessageResponse.builder().id(9001L).conversationId(1L).senderId(0L)
+                .recipientId(42L).content("x".repeat(10_000)).createdAt(LocalDateTime.now()).build();
+        sender.sendToUser(42L, "/queue/messages", message);
+        bus.drain();
+
+        // Instance giữ kết nối chỉ nhận id để client tải lại thay vì mất tin
+        assertThat(senderNode).isEmpty();
+        assertThat(remoteDestinations).containsExactly("/queue/messages");
+        assertThat(remotePayloads).hasSize(1);
+        assertThat(remotePayloads.get(0).path("refetch").asBoolean()).isTrue();
+        assertThat(remotePayloads.get(0).path("id").asLong()).isEqualTo(9001L);
+        assertThat(remotePayloads.get(0).has("content")).isFalse();
+    }
+
+    /**
+     * Thay cho Postgres LISTEN/NOTIFY: mỗi instance nhận thông báo trên một thread riêng như thread LISTEN
+     */
+    private static class InMemoryBus {
+        private final List<ExecutorService> listeners = new CopyOnWriteArrayList<>();
+        private final List<Consumer<String>> handlers = new CopyOnWriteArrayList<>();
+
+        MessageFanoutTransport connect() {
+            ExecutorService listener = Executors.newSingleThreadExecutor();
+            listeners.add(listener);
+            int index = listeners.size() - 1;
+            handlers.add(null);
+            return new MessageFanoutTransport() {
+                @Override
+                public void publish(String payload) {
+                    for (int i = 0; i < listeners.size(); i++) {
+                        Consumer<String> handler = handlers.get(i);
+                        listeners.get(i).submit(() -> handler.accept(payload));
+                    }
+                }
+
+                @Override
+                public void subscribe(Consumer<String> handler) {
+                    handlers.set(index, handler);
+                }
+
+                @Override
+                public int maxPayloadBytes() {
+                    return 7900;
+                }
+            };
+        }
+
+        void drain() throws InterruptedException {
+            for (ExecutorService listener : listeners) {
+                listener.shutdown();
+                assertThat(listener.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package swd.coiviet.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import swd.coiviet.configuration.JacksonConfig;
+import swd.coiviet.dto.response.HomePageResponse;
+import swd.coiviet.dto.response.HomePageSnapshot;
+import swd.coiviet.enums.CultureCategory;
+import swd.coiviet.enums.PublicationStatus;
+import swd.coiviet.enums.Status;
+import swd.coiviet.event.CatalogChangedEvent;
+import swd.coiviet.model.Artisan;
+import swd.coiviet.model.BlogPost;
+import swd.coiviet.model.CultureItem;
+import swd.coiviet.model.Province;
+import swd.coiviet.model.Tour;
+import swd.coiviet.model.Video;
+import swd.coiviet.repository.ArtisanRepository;
+import swd.coiviet.repository.BlogPostRepository;
+import swd.coiviet.repository.CultureItemRepository;
+import swd.coiviet.repository.ProvinceRepository;
+import swd.coiviet.repository.TourRepository;
+import swd.coiviet.repository.VideoRepository;
+import swd.coiviet.support.DataJpaServiceTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@Import({JacksonConfig.class, HomePageSnapshotServiceImpl.class})
+class HomePageSnapshotServiceImplTests extends DataJpaServiceTest {
+
+    private static final int LIMIT = 10;
+
+    @Autowired private HomePageSnapshotServiceImpl snapshotService;
+    @Autowired private ApplicationEventPublisher eventPublisher;
+    @Autowired private ObjectMapper objectMapper;
+    @MockitoSpyBean private ProvinceRepository provinceRepo;
+    @Autowired private TourRepository tourRepo;
+    @Autowired private BlogPostRepository blogPostRepo;
+    @Autowired private VideoRepository videoRepo;
+    @Autowired private ArtisanRepository artisanRepo;
+    @Autowired private CultureItemRepository cultureItemRepo;
+
+    @BeforeEach
+    void seedCatalog() {
+        if (provinceRepo.count() > 0) return;
+        List<Province> provinces = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            provinces.add(Province.builder().name("Tỉnh " + i).slug("tinh-" + i).region("Tây Nguyên").build());
+        }
+        provinces = provinceRepo.saveAll(provinces);
+
+        List<Artisan> artisans = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            artisans.add(Artisan.builder().fullName("Nghệ nhân " + i).specialization("Dệt thổ cẩm")
+                    .province(provinces.get(i % provinces.size()))
+                    .averageRating(BigDecimal.valueOf(i % 50, 1)).isActive(i % 4 != 0).build());
+        }
+        artisans = artisanRepo.saveAll(artisans);
+
+        List<Tour> tours = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            tours.add(Tour.builder().title("Tour " + i).slug("tour-" + i)
+                    .province(provinces.get(i % provinces.size())).artisan(artisans.get(i % artisans.size()))
+                    .averageRating(BigDecimal.valueOf(i % 50, 1)).totalBookings(i % 37)
+                    .status(i % 5 == 0 ? Status.INACTIVE : Status.ACTIVE).build());
+        }
+        tourRepo.saveAll(tours);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<BlogPost> posts = new ArrayList<>();
+        List<Video> videos = new ArrayList<>();
+        List<CultureItem> items = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            PublicationStatus status = i % 3 == 0 ? PublicationStatus.DRAFT : PublicationStatus.PUBLISHED;
+            Province province = provinces.get(i % provinces.size());
+            posts.add(BlogPost.builder().title("Blog " + i).slug("blog-" + i).content("Nội dung " + i)
+                    .province(province).status(status).publishedAt(now.minusHours(i)).createdAt(now.minusHours(i)).build());
+            videos.add(Video.builder().title("Video " + i).videoUrl("https://example.com/v/" + i)
+                    .province(province).status(status).createdAt(now.minusHours(i)).build());
+            items.add(CultureItem.builder().title("Văn hóa " + i).category(CultureCategory.values()[i % CultureCategory.values().length])
+                    .province(province).status(status).createdAt(now.minusHours(i)).build());
+        }
+        blogPostRepo.saveAll(posts);
+        videoRepo.saveAll(videos);
+        cultureItemRepo.saveAll(items);
+    }
+
+    @Test
+    void snapshotMatchesLegacyOrdering() throws Exception {
+        HomePageResponse legacy = legacyHomePage(LIMIT);
+        HomePageSnapshot snapshot = snapshotService.getSnapshot(LIMIT);
+        HomePageResponse fromSnapshot = objectMapper.treeToValue(
+                objectMapper.readTree(snapshot.getBody()).get("data"), HomePageResponse.class);
+
+        assertThat(ids(fromSnapshot.getFeaturedTours(), Tour::getId))
+                .isEqualTo(ids(legacy.getFeaturedTours(), Tour::getId));
+        assertThat(ids(fromSnapshot.getFeaturedBlogs(), BlogPost::getId))
+                .isEqualTo(ids(legacy.getFeaturedBlogs(), BlogPost::getId));
+        assertThat(fromSnapshot.getFeaturedArtisans()).hasSize(LIMIT);
+        assertThat(fromSnapshot.getProvinces()).hasSameSizeAs(legacy.getProvinces());
+
+    }
+
+    @Test
+    void catalogChangeInvalidatesSnapshotButKeepsEtagWhenDataIsUnchanged() {
+        HomePageSnapshot first = snapshotService.getSnapshot(LIMIT);
+        assertThat(snapshotService.getSnapshot(LIMIT)).isSameAs(first);
+
+        eventPublisher.publishEvent(new CatalogChangedEvent(Tour.class, null));
+        HomePageSnapshot rebuilt = snapshotService.getSnapshot(LIMIT);
+        assertThat(rebuilt).isNotSameAs(first);
+        assertThat(rebuilt.getEtag()).isEqualTo(first.getEtag());
+
+        Tour top = tourRepo.save(Tour.builder().title("Tour nổi bật").slug("tour-noi-bat")
+                .averageRating(new BigDecimal("5.00")).totalBookings(999).status(Status.ACTIVE).build());
+        eventPublisher.publishEvent(new CatalogChangedEvent(Tour.class, top.getId()));
+        HomePageSnapshot changed = snapshotService.getSnapshot(LIMIT);
+        assertThat(changed.getEtag()).isNotEqualTo(first.getEtag());
+        tourRepo.deleteById(top.getId());
+        snapshotService.invalidate();
+    }
+
+    @Test
+    void rebuildRunsOnceWhileOtherReadersKeepTheStaleSnapshot() throws Exception {
+        int limit = 7;
+        HomePageSnapshot stale = snapshotService.getSnapshot(limit);
+        snapshotService.invalidate();
+        List<Province> provinces = provinceRepo.findAll();
+        clearInvocations(provinceRepo);
+
+        CountDownLatch building = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            building.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return provinces;
+        }).when(provinceRepo).findAll();
+
+        CompletableFuture<HomePageSnapshot> rebuilding = CompletableFuture.supplyAsync(() -> snapshotService.getSnapshot(limit));
+        assertThat(building.await(10, TimeUnit.SECONDS)).isTrue();
+        // Trong lúc build, request khác nhận bản cũ thay vì chờ hoặc build thêm lần nữa
+        assertThat(snapshotService.getSnapshot(limit)).isSameAs(stale);
+        assertThat(snapshotService.getSnapshot(limit)).isSameAs(stale);
+        release.countDown();
+
+        HomePageSnapshot rebuilt = rebuilding.get(10, TimeUnit.SECONDS);
+        assertThat(rebuilt).isNotSameAs(stale);
+        assertThat(snapshotService.getSnapshot(limit)).isSameAs(rebuilt);
+        verify(provinceRepo, times(1)).findAll();
+    }
+
+    // Cách HomeController cũ: findAll toàn bộ catalog rồi lọc/sắp xếp trong bộ nhớ
+    private HomePageResponse legacyHomePage(int limit) {
+        Comparator<BigDecimal> desc = Comparator.reverseOrder();
+        return HomePageResponse.builder()
+                .provinces(provinceRepo.findAll())
+                .featuredTours(tourRepo.findAll().stream()
+                        .filter(t -> t.getStatus() == Status.ACTIVE)
+                        .sorted(Comparator.comparing((Tour t) -> t.getAverageRating() != null ? t.getAverageRating() : BigDecimal.ZERO, desc)
+                                .thenComparing(t -> t.getTotalBookings() != null ? t.getTotalBookings() : 0, Comparator.reverseOrder())
+                                .thenComparing(Tour::getId, Comparator.reverseOrder()))
+                        .limit(limit).toList())
+                .featuredBlogs(blogPostRepo.findAll().stream()
+                        .filter(b -> b.getStatus() == PublicationStatus.PUBLISHED)
+                        .sorted(Comparator.comparing(BlogPost::getPublishedAt, Comparator.nullsLast(Comparator.reverseOrder())))
+                        .limit(limit).toList())
+                .featuredVideos(videoRepo.findByStatus(PublicationStatus.PUBLISHED).stream()
+                        .sorted(Comparator.comparing(Video::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder())))
+                        .limit(limit).toList())
+                .featuredArtisans(artisanRepo.findAll().stream()
+                        .filter(a -> a.getIsActive() != null && a.getIsActive())
+                        .sorted(Comparator.comparing((Artisan a) -> a.getAverageRating() != null ? a.getAverageRating() : BigDecimal.ZERO, desc))
+                        .limit(limit).toList())
+                .featuredCultureItems(cultureItemRepo.findAll().stream()
+                        .filter(c -> c.getStatus() == PublicationStatus.PUBLISHED)
+                        .sorted(Comparator.comparing(CultureItem::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder())))
+                        .limit(limit).toList())
+                .build();
+    }
+
+    private static <T> List<Long> ids(List<T> rows, java.util.function.Function<T, Long> id) {
+        return rows.stream().map(id).toList();
+    }
+}
@@ -0,0 +1,167 @@
+package swd.coiviet.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageProcessingServiceImplTests {
+
+    private static final int PHOTOS = 2;
+    private static final Map<String, String> PRESETS = Map.of(
+            "tour", "w_1200,c_scale,q_auto,f_jpg",
+            "tour-thumbnail", "w_600,h_400,c_fill,q_auto,f_jpg",
+            "user", "w_300,h_300,c_fill,g_face,q_auto,f_jpg"
+    );
+
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+    @TempDir Path tempDir;
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void phonePhotosShrinkToPresetSizeBeforeUpload() throws Exception {
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(16);
+        executor.initialize();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ImageProcessingServiceImpl service = new ImageProcessingServiceImpl(executor, registry);
+
+        // Bộ ảnh mẫu kiểu điện thoại 12MP (4032x3024), JPEG chất lượng cao có nhiễu như ảnh chụp thật
+        List<Path> corpus = new ArrayList<>();
+        for (int i = 0; i < PHOTOS; i++) {
+            Path photo = tempDir.resolve("photo-" + i + ".jpg");
+            Files.write(photo, jpeg(photo(4032, 3024, i), 0.92f));
+            corpus.add(photo);
+        }
+        long originalBytes = 0;
+        for (Path photo : corpus) {
+            originalBytes += Files.size(photo);
+        }
+
+        for (Map.Entry<String, String> preset : PRESETS.entrySet()) {
+            List<CompletableFuture<Path>> futures = new ArrayList<>();
+            for (Path photo : corpus) {
+                futures.add(CompletableFuture.supplyAsync(() -> service.downscale(photo, preset.getValue())));
+            }
+            long resizedBytes = 0;
+            for (CompletableFuture<Path> future : futures) {
+                Path resized = future.get();
+                assertThat(resized).isNotNull();
+                BufferedImage image = ImageIO.read(resized.toFile());
+                // Chưa cắt: c_fill giữ đủ ảnh phủ kín khung để Cloudinary tự cắt theo g_face
+                switch (preset.getKey()) {
+                    case "tour" -> assertThat(new int[]{image.getWidth(), image.getHeight()}).containsExactly(1200, 900);
+                    case "tour-thumbnail" -> assertThat(new int[]{image.getWidth(), image.getHeight()}).containsExactly(600, 450);
+                    default -> assertThat(new int[]{image.getWidth(), image.getHeight()}).containsExactly(400, 300);
+                }
+                resizedBytes += Files.size(resized);
+                Files.delete(resized);
+            }
+            assertThat(originalBytes).isGreaterThan(4 * resizedBytes);
+        }
+        assertThat(registry.get("media.image.process").tag("outcome", "resized").timer().count())
+                .isEqualTo((long) PHOTOS * PRESETS.size());
+
+        // Ảnh dọc chụp xoay (EXIF Orientation 6): điểm ảnh được xoay thật vì bản mã hóa lại không còn EXIF
+        Path rotated = tempDir.resolve("rotated.jpg");
+        Files.write(rotated, withOrientation(jpeg(photo(2000, 1500, 99), 0.92f), 6));
+        Path upright = service.downscale(rotated, PRESETS.get("tour"));
+        BufferedImage portrait = ImageIO.read(upright.toFile());
+        assertThat(portrait.getWidth()).isEqualTo(1200);
+        assertThat(portrait.getHeight()).isEqualTo(1600);
+
+        // Ảnh nhỏ hơn preset, file không phải ảnh: upload nguyên bản
+        Path small = tempDir.resolve("small.jpg");
+        Files.write(small, jpeg(photo(800, 600, 1), 0.8f));
+        assertThat(service.downscale(small, PRESETS.get("tour"))).isNull();
+        Path notImage = tempDir.resolve("video.mp4");
+        Files.write(notImage, new byte[4096]);
+        assertThat(service.downscale(notImage, PRESETS.get("tour"))).isNull();
+        assertThat(service.downscale(corpus.get(0), "q_auto,f_auto")).isNull();
+    }
+
+    private static BufferedImage photo(int width, int height, int seed) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        Random random = new Random(seed);
+        for (int i = 0; i < 60; i++) {
+            g.setColor(new Color(random.nextInt(0xFFFFFF)));
+            g.fillOval(random.nextInt(width), random.nextInt(height), 200 + random.nextInt(1200), 200 + random.nextInt(1200));
+        }
+        g.dispose();
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (int x = 0; x < width; x++) {
+                int noise = random.nextInt(25) - 12;
+                int r = clamp(((row[x] >> 16) & 0xFF) + noise);
+                int gr = clamp(((row[x] >> 8) & 0xFF) + noise);
+                int b = clamp((row[x] & 0xFF) + noise);
+                row[x] = (r << 16) | (gr << 8) | b;
+            }
+            image.setRGB(0, y, width, 1, row, 0, width);
+        }
+        return image;
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+
+    private static byte[] jpeg(BufferedImage image, float quality) throws Exception {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    // Thay segment APP0 (JFIF) bằng APP1 "Exif" chỉ có tag Orientation, giống file từ máy ảnh
+    private static byte[] withOrientation(byte[] jpeg, int orientation) {
+        ByteBuffer exif = ByteBuffer.allocate(2 + 2 + 6 + 8 + 2 + 12 + 4);
+        exif.putShort((short) 0xFFE1).putShort((short) (exif.capacity() - 2));
+        exif.put(new byte[]{'E', 'x', 'i', 'f', 0, 0});
+        exif.put(new byte[]{'M', 'M', 0, 42}).putInt(8);
+        exif.putShort((short) 1);
+        exif.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        exif.putInt(0);
+        int app0End = 4 + (((jpeg[4] & 0xFF) << 8) | (jpeg[5] & 0xFF));
+        ByteBuffer result = ByteBuffer.allocate(jpeg.length - app0End + 2 + exif.capacity());
+        result.put(jpeg, 0, 2).put(exif.array()).put(jpeg, app0End, jpeg.length - app0End);
+        return result.array();
+    }
+}
@@ -0,0 +1,157 @@
+package swd.coiviet.service.impl;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import swd.coiviet.controller.LocalMediaController;
+import swd.coiviet.exception.AppException;
+import swd.coiviet.service.MediaStore;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalMediaStoreTests {
+
+    private static final int VIDEO_FILES = 3;
+    private static final int VIDEO_BYTES = 256 * 1024;
+    private static final String BASE_URL = "/api/public/media";
+
+    @TempDir Path tempDir;
+
+    @Test
+    void imagesFollowPresetsAndFilesAreServedWithRanges() throws Exception {
+        LocalMediaStore store = new LocalMediaStore(tempDir.resolve("store").toString(), BASE_URL);
+        LocalMediaController controller = new LocalMediaController(store);
+
+        // Ảnh điện thoại 3000x2000: preset tour thu về rộng 1200, thumbnail cắt đúng 600x400
+        Path photo = tempDir.resolve("photo.png");
+        BufferedImage source = new BufferedImage(3000, 2000, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = source.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, Color.RED, 3000, 2000, Color.BLUE));
+        g.fillRect(0, 0, 3000, 2000);
+        g.dispose();
+        ImageIO.write(source, "png", photo.toFile());
+
+        MediaStore.StoredMedia tour = store.upload(photo, "image", "tours/1/images", "w_1200,c_scale,q_auto,f_jpg");
+        assertThat(tour.url()).startsWith(BASE_URL + "/image/tours/1/images/").endsWith(".jpg");
+        assertThat(store.publicIdOf(tour.url())).isEqualTo(tour.publicId());
+        assertThat(store.resourceTypeOf(tour.url())).isEqualTo("image");
+        BufferedImage scaled = ImageIO.read(new ByteArrayInputStream(serve(controller, tour.url(), null).getContentAsByteArray()));
+        assertThat(scaled.getWidth()).isEqualTo(1200);
+        assertThat(scaled.getHeight()).isEqualTo(800);
+        MediaStore.StoredMedia thumbnail = store.upload(photo, "image", "tours/1/thumbnail", "w_600,h_400,c_fill,q_auto,f_jpg");
+        BufferedImage cropped = ImageIO.read(store.resolve("image", thumbnail.publicId() + ".jpg").toFile());
+        assertThat(cropped.getWidth()).isEqualTo(600);
+        assertThat(cropped.getHeight()).isEqualTo(400);
+        assertThat(Files.size(store.resolve("image", tour.publicId() + ".jpg"))).isLessThan(Files.size(photo));
+
+        // Video: chép nguyên file bằng FileChannel, nhận dạng mp4 từ header
+        byte[] video = new byte[VIDEO_BYTES];
+        new Random(7).nextBytes(video);
+        System.arraycopy(new byte[]{0, 0, 0, 0x18, 'f', 't', 'y', 'p', 'i', 's', 'o', 'm'}, 0, video, 0, 12);
+        Path spooled = tempDir.resolve("video.part");
+        Files.write(spooled, video);
+        List<MediaStore.StoredMedia> stored = new ArrayList<>();
+        for (int i = 0; i < VIDEO_FILES; i++) {
+            stored.add(store.upload(spooled, "video", "memories/1/video", null));
+        }
+        assertThat(stored).allMatch(m -> m.url().endsWith(".mp4"));
+        assertThat(stored.stream().map(MediaStore.StoredMedia::publicId).distinct()).hasSize(VIDEO_FILES);
+
+        for (MediaStore.StoredMedia media : stored) {
+            MockHttpServletResponse response = serve(controller, media.url(), null);
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(response.getContentType()).isEqualTo("video/mp4");
+            assertThat(response.getContentAsByteArray()).hasSize(VIDEO_BYTES);
+        }
+        assertThat(serve(controller, stored.get(0).url(), null).getContentAsByteArray()).isEqualTo(video);
+
+        // Tua video: chỉ gửi đoạn được yêu cầu
+        MockHttpServletResponse partial = serve(controller, stored.get(0).url(), "bytes=1000-1999");
+        assertThat(partial.getStatus()).isEqualTo(206);
+        assertThat(partial.getHeader("Content-Range")).isEqualTo("bytes 1000-1999/" + VIDEO_BYTES);
+        assertThat(partial.getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(video, 1000, 2000));
+        assertThat(serve(controller, stored.get(0).url(), "bytes=" + VIDEO_BYTES + "-").getStatus()).isEqualTo(416);
+
+        // Tomcat có sendfile: controller chỉ đặt thuộc tính, không tự ghi byte nào
+        MockHttpServletRequest sendfile = request(stored.get(1).url(), "bytes=100-");
+        sendfile.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        MockHttpServletResponse sendfileResponse = new StreamingResponse();
+        controller.serve("video", sendfile, sendfileResponse);
+        assertThat(sendfileResponse.getContentAsByteArray()).isEmpty();
+        assertThat(sendfile.getAttribute("org.apache.tomcat.sendfile.start")).isEqualTo(100L);
+        assertThat(sendfile.getAttribute("org.apache.tomcat.sendfile.end")).isEqualTo((long) VIDEO_BYTES);
+        assertThat(sendfileResponse.getContentLengthLong()).isEqualTo(VIDEO_BYTES - 100L);
+
+        assertThatThrownBy(() -> serve(controller, BASE_URL + "/video/../../../etc/passwd", null)).isInstanceOf(AppException.class);
+        assertThat(store.delete("video", stored.stream().map(MediaStore.StoredMedia::publicId).toList())).isEmpty();
+        assertThat(stored).noneMatch(m -> Files.exists(store.resolve("video", m.publicId() + ".mp4")));
+    }
+
+    private static MockHttpServletResponse serve(LocalMediaController controller, String url, String range) throws Exception {
+        MockHttpServletResponse response = new StreamingResponse();
+        String resourceType = url.substring(BASE_URL.length() + 1, url.indexOf('/', BASE_URL.length() + 1));
+        controller.serve(resourceType, request(url, range), response);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String url, String range) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", url);
+        if (range != null) {
+            request.addHeader("Range", range);
+        }
+        return request;
+    }
+
+    // Output stream của MockHttpServletResponse ghi từng byte; stream này ghi cả mảng như CoyoteOutputStream
+    private static final class StreamingResponse extends MockHttpServletResponse {
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        private final ServletOutputStream outputStream = new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                content.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                content.write(b, off, len);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+            }
+        };
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return outputStream;
+        }
+
+        @Override
+        public byte[] getContentAsByteArray() {
+            return content.toByteArray();
+        }
+    }
+}
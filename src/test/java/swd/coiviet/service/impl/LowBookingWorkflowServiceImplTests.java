@@ -0,0 +1,169 @@
+package swd.coiviet.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import swd.coiviet.dto.response.TourWorkflowRunResult;
+import swd.coiviet.enums.BookingStatus;
+import swd.coiviet.enums.OutboxEventType;
+import swd.coiviet.enums.TourScheduleStatus;
+import swd.coiviet.model.Booking;
+import swd.coiviet.model.Province;
+import swd.coiviet.model.Tour;
+import swd.coiviet.model.TourSchedule;
+import swd.coiviet.model.User;
+import swd.coiviet.repository.BookingRepository;
+import swd.coiviet.repository.NotificationRepository;
+import swd.coiviet.repository.OutboxEventRepository;
+import swd.coiviet.repository.ProvinceRepository;
+import swd.coiviet.repository.SchedulerLockRepository;
+import swd.coiviet.repository.TourRepository;
+import swd.coiviet.repository.TourScheduleRepository;
+import swd.coiviet.repository.VoucherRepository;
+import swd.coiviet.support.DataJpaServiceTest;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({LowBookingWorkflowServiceImpl.class, EmailServiceImpl.class, OutboxServiceImpl.class, SchedulerLockServiceImpl.class})
+class LowBookingWorkflowServiceImplTests extends DataJpaServiceTest {
+
+    private static final int SCHEDULES_PER_BUCKET = 25;
+    private static final int BOOKINGS_PER_SCHEDULE = 4;
+    private static final int CHUNK_SIZE = 10;
+
+    @Autowired private LowBookingWorkflowServiceImpl workflowService;
+    @Autowired private ProvinceRepository provinceRepository;
+    @Autowired private TourRepository tourRepository;
+    @Autowired private TourScheduleRepository scheduleRepository;
+    @Autowired private BookingRepository bookingRepository;
+    @Autowired private VoucherRepository voucherRepository;
+    @Autowired private NotificationRepository notificationRepository;
+    @Autowired private OutboxEventRepository outboxRepository;
+    @Autowired private SchedulerLockRepository lockRepository;
+
+    @Test
+    void chunkedRunHandlesEveryBucketWithSetBasedWrites() throws Exception {
+        LocalDate today = LocalDate.now();
+        Province province = provinceRepository.save(Province.builder().name("Hà Giang").build());
+        User user = saveUser("khach");
+
+        // Ngày khởi hành và số chỗ đã đặt quyết định nhánh xử lý: khuyến mãi, cảnh báo, hủy, phụ thu
+        int[][] buckets = {{9, 10}, {4, 10}, {1, 10}, {2, 40}};
+        List<List<TourSchedule>> schedules = new ArrayList<>();
+        List<Booking> bookings = new ArrayList<>();
+        for (int b = 0; b < buckets.length; b++) {
+            Tour tour = tourRepository.save(Tour.builder().title("Tour " + b).slug("tour-" + b)
+                    .province(province).price(BigDecimal.valueOf(1000)).build());
+            List<TourSchedule> bucket = new ArrayList<>();
+            for (int i = 0; i < SCHEDULES_PER_BUCKET; i++) {
+                bucket.add(TourSchedule.builder().tour(tour).tourDate(today.plusDays(buckets[b][0]))
+                        .maxSlots(100).bookedSlots(buckets[b][1]).status(TourScheduleStatus.SCHEDULED).build());
+            }
+            bucket = scheduleRepository.saveAll(bucket);
+            schedules.add(bucket);
+            for (TourSchedule schedule : bucket) {
+                for (int i = 0; i < BOOKINGS_PER_SCHEDULE; i++) {
+                    bookings.add(Booking.builder().bookingCode("BK" + schedule.getId() + "-" + i).user(user).tour(tour)
+                            .tourSchedule(schedule).numParticipants(2).contactEmail("khach@example.com")
+                            .status(BookingStatus.CONFIRMED).createdAt(LocalDateTime.now()).build());
+                }
+            }
+        }
+        bookingRepository.saveAll(bookings);
+
+        List<Long> candidates = scheduleRepository.findLowBookingCandidateIds(today, today.plusDays(10), TourScheduleStatus.SCHEDULED);
+        assertThat(candidates).hasSize(SCHEDULES_PER_BUCKET * buckets.length);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<CompletableFuture<TourWorkflowRunResult>> futures = new ArrayList<>();
+        for (int from = 0; from < candidates.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = candidates.subList(from, Math.min(from + CHUNK_SIZE, candidates.size()));
+            futures.add(CompletableFuture.supplyAsync(() -> workflowService.processChunk(chunk, today), pool));
+        }
+        TourWorkflowRunResult result = new TourWorkflowRunResult();
+        futures.forEach(f -> result.merge(f.join()));
+        pool.shutdown();
+
+        int perBucket = SCHEDULES_PER_BUCKET * BOOKINGS_PER_SCHEDULE;
+        assertThat(result.getFailedChunks()).isZero();
+        assertThat(result.getPromoted()).isEqualTo(SCHEDULES_PER_BUCKET);
+        assertThat(result.getAlerted()).isEqualTo(SCHEDULES_PER_BUCKET);
+        assertThat(result.getCancelled()).isEqualTo(SCHEDULES_PER_BUCKET);
+        assertThat(result.getSurcharged()).isEqualTo(SCHEDULES_PER_BUCKET);
+        assertThat(result.getVouchersCreated()).isEqualTo(2 * SCHEDULES_PER_BUCKET);
+        assertThat(voucherRepository.count()).isEqualTo(2 * SCHEDULES_PER_BUCKET);
+
+        // Khuyến mãi: 2 thông báo, cảnh báo: 3 (kèm tour thay thế), hủy: 1, phụ thu: 1 cho mỗi booking
+        int expectedNotifications = perBucket * (2 + 3 + 1 + 1);
+        assertThat(result.getNotificationsCreated()).isEqualTo(expectedNotifications);
+        assertThat(notificationRepository.count()).isEqualTo(expectedNotifications);
+        // Khuyến mãi: 1 email, cảnh báo: 2, hủy: 1, phụ thu: 1 cho mỗi booking
+        assertThat(outboxRepository.findAll().stream().filter(e -> e.getType() == OutboxEventType.EMAIL).count())
+                .isEqualTo(result.getEmailsQueued())
+                .isEqualTo(perBucket * 5L);
+
+        assertThat(scheduleRepository.findAllById(ids(schedules.get(2))))
+                .allMatch(s -> s.getStatus() == TourScheduleStatus.CANCELLED);
+        assertThat(scheduleRepository.findAllById(ids(schedules.get(3))))
+                .allMatch(s -> s.getCurrentPrice().compareTo(BigDecimal.valueOf(1200)) == 0 && s.getBookedSlots() == 40);
+        // Phụ thu tính trên giá cũ: 200 x 2 người
+        assertThat(notificationRepository.findAll().stream().filter(n -> "TOUR_SURCHARGE".equals(n.getType())))
+                .hasSize(perBucket)
+                .allMatch(n -> n.getMessage().contains("400"));
+
+        // Chạy lại (lịch 6 giờ hoặc instance khác): sổ giai đoạn chặn voucher, thông báo và phụ thu lặp lại
+        TourWorkflowRunResult rerun = workflowService.processChunk(candidates, today);
+        assertThat(rerun.getSchedulesProcessed()).isZero();
+        assertThat(rerun.getAlreadyProcessed()).isEqualTo(3 * SCHEDULES_PER_BUCKET);
+        assertThat(voucherRepository.count()).isEqualTo(2 * SCHEDULES_PER_BUCKET);
+        assertThat(notificationRepository.count()).isEqualTo(expectedNotifications);
+        assertThat(scheduleRepository.findAllById(ids(schedules.get(3))))
+                .allMatch(s -> s.getCurrentPrice().compareTo(BigDecimal.valueOf(1200)) == 0);
+    }
+
+    @Test
+    void onlyOneInstanceHoldsTheLease() throws Exception {
+        SchedulerLockServiceImpl nodeA = new SchedulerLockServiceImpl(lockRepository, Duration.ofMinutes(30), Duration.ZERO, "node-a", "", 8080);
+        SchedulerLockServiceImpl nodeB = new SchedulerLockServiceImpl(lockRepository, Duration.ofMinutes(30), Duration.ZERO, "node-b", "", 8080);
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+
+        CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> nodeA.runExclusively("test-task", () -> {
+            runs.incrementAndGet();
+            holding.countDown();
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        holding.await();
+        assertThat(nodeB.runExclusively("test-task", runs::incrementAndGet)).isFalse();
+        done.countDown();
+        assertThat(first.get()).isTrue();
+
+        // Lease đã trả thì instance khác chạy được lượt sau
+        assertThat(nodeB.runExclusively("test-task", runs::incrementAndGet)).isTrue();
+        assertThat(runs.get()).isEqualTo(2);
+    }
+
+    private List<Long> ids(List<TourSchedule> schedules) {
+        return schedules.stream().map(TourSchedule::getId).toList();
+    }
+}
@@ -0,0 +1,138 @@
+package swd.coiviet.service.impl;
+
+import com.cloudinary.Api;
+import com.cloudinary.Cloudinary;
+import com.cloudinary.Uploader;
+import com.cloudinary.api.ApiResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import swd.coiviet.model.MediaAsset;
+import swd.coiviet.repository.MediaAssetRepository;
+import swd.coiviet.service.CloudinaryService;
+import swd.coiviet.service.ImageProcessingService;
+import swd.coiviet.service.MediaStore;
+import swd.coiviet.support.DataJpaServiceTest;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@TestPropertySource(properties = "app.media.gc-grace=PT0S")
+@Import({MediaAssetServiceImpl.class, CloudinaryMediaStore.class, SimpleMeterRegistry.class})
+class MediaAssetServiceImplTests extends DataJpaServiceTest {
+
+    private static final int LEGACY_IMAGES = 250;
+    private static final int LEGACY_VIDEOS = 30;
+
+    @MockitoBean private Cloudinary cloudinary;
+    @Autowired private MediaAssetServiceImpl mediaAssetService;
+    @Autowired private MediaStore mediaStore;
+    @Autowired private MediaAssetRepository assetRepository;
+    @Autowired private SimpleMeterRegistry meterRegistry;
+
+    @Test
+    void duplicateUploadsShareOneAssetAndGcDeletesInBulk() throws Exception {
+        Uploader uploader = mock(Uploader.class);
+        when(cloudinary.uploader()).thenReturn(uploader);
+        AtomicInteger uploads = new AtomicInteger();
+        when(uploader.upload(any(File.class), anyMap())).thenAnswer(invocation -> {
+            Map<?, ?> options = invocation.getArgument(1);
+            String publicId = options.get("folder") + "/anh-" + uploads.incrementAndGet();
+            return Map.of("secure_url", "https://res.cloudinary.com/demo/image/upload/v1/" + publicId + ".jpg",
+                    "public_id", publicId, "resource_type", "image");
+        });
+        Api api = mock(Api.class);
+        when(cloudinary.api()).thenReturn(api);
+        List<List<String>> bulkCalls = new CopyOnWriteArrayList<>();
+        AtomicInteger failNext = new AtomicInteger();
+        when(api.deleteResources(any(), anyMap())).thenAnswer(invocation -> {
+            if (failNext.getAndDecrement() > 0) {
+                throw new IOException("Cloudinary unavailable");
+            }
+            List<String> ids = new ArrayList<>();
+            Map<String, String> deleted = new HashMap<>();
+            for (String id : (Iterable<String>) invocation.getArgument(0)) {
+                ids.add(id);
+                deleted.put(id, "deleted");
+            }
+            bulkCalls.add(ids);
+            ApiResponse response = mock(ApiResponse.class);
+            when(response.get("deleted")).thenReturn(deleted);
+            return response;
+        });
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.initialize();
+        CloudinaryService cloudinaryService = new CloudinaryService(mediaStore, executor, meterRegistry,
+                Duration.ofSeconds(30), mediaAssetService, mock(ImageProcessingService.class));
+        byte[] photo = new byte[256 * 1024];
+        photo[0] = 42;
+
+        // Cùng một ảnh cho hai tour: chỉ upload một lần, asset có hai tham chiếu
+        String first = cloudinaryService.uploadImage(image(photo), "tours/1/images", "tour");
+        String second = cloudinaryService.uploadImage(image(photo), "tours/2/images", "tour");
+        assertThat(second).isEqualTo(first);
+        assertThat(uploads.get()).isEqualTo(1);
+        assertThat(assetRepository.findByUrl(first).orElseThrow().getRefCount()).isEqualTo(2);
+        // Cùng nội dung nhưng preset khác là file khác trên Cloudinary
+        String thumbnail = cloudinaryService.uploadImage(image(photo), "tours/1/thumbnail", "tour-thumbnail");
+        assertThat(thumbnail).isNotEqualTo(first);
+        assertThat(uploads.get()).isEqualTo(2);
+
+        // Tour 1 đổi ảnh: tour 2 vẫn dùng nên chưa bị xóa
+        cloudinaryService.release(first);
+        assertThat(mediaAssetService.collectGarbage()).isZero();
+        assertThat(assetRepository.findByUrl(first).orElseThrow().getRefCount()).isEqualTo(1);
+        cloudinaryService.release(first, thumbnail);
+        assertThat(mediaAssetService.collectGarbage()).isEqualTo(2);
+        assertThat(assetRepository.findByUrl(first)).isEmpty();
+        assertThat(bulkCalls).hasSize(1);
+        assertThat(bulkCalls.get(0)).containsExactlyInAnyOrder("tours/1/images/anh-1", "tours/1/thumbnail/anh-2");
+
+        // URL có từ trước registry: trước đây mỗi URL là một lệnh destroy đồng bộ trong request
+        String[] legacy = new String[LEGACY_IMAGES + LEGACY_VIDEOS];
+        for (int i = 0; i < legacy.length; i++) {
+            legacy[i] = i < LEGACY_IMAGES
+                    ? "https://res.cloudinary.com/demo/image/upload/v1/reviews/cu-" + i + ".jpg"
+                    : "https://res.cloudinary.com/demo/video/upload/v1/memories/cu-" + i + ".mp4";
+        }
+        cloudinaryService.release(legacy);
+        assertThat(assetRepository.countByRefCount(0)).isGreaterThanOrEqualTo(legacy.length);
+
+        // Lô đầu lỗi: asset quay lại hàng chờ, lượt sau xóa tiếp
+        failNext.set(1);
+        bulkCalls.clear();
+        int firstPass = mediaAssetService.collectGarbage();
+        int secondPass = mediaAssetService.collectGarbage();
+        assertThat(firstPass + secondPass).isEqualTo(legacy.length);
+        assertThat(mediaAssetService.collectGarbage()).isZero();
+        assertThat(bulkCalls).allMatch(ids -> ids.size() <= CloudinaryMediaStore.BULK_DELETE_LIMIT);
+        assertThat(bulkCalls.stream().mapToInt(List::size).sum()).isEqualTo(legacy.length);
+        assertThat(assetRepository.findAll()).extracting(MediaAsset::getUrl).doesNotContain(legacy);
+        assertThat(meterRegistry.get("media.asset.gc").tag("outcome", "failed").counter().count()).isPositive();
+        assertThat(meterRegistry.get("media.asset.lookup").tag("outcome", "hit").counter().count()).isEqualTo(1);
+        executor.shutdown();
+    }
+
+    private static MockMultipartFile image(byte[] content) {
+        return new MockMultipartFile("images", "anh.jpg", "image/jpeg", content);
+    }
+}
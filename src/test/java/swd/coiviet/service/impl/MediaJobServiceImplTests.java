@@ -0,0 +1,246 @@
+package swd.coiviet.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import swd.coiviet.dto.response.MediaJobResponse;
+import swd.coiviet.enums.MediaJobStatus;
+import swd.coiviet.exception.AppException;
+import swd.coiviet.exception.ErrorCode;
+import swd.coiviet.model.MediaJob;
+import swd.coiviet.model.User;
+import swd.coiviet.model.UserMemory;
+import swd.coiviet.model.Video;
+import swd.coiviet.repository.MediaJobRepository;
+import swd.coiviet.repository.UserMemoryRepository;
+import swd.coiviet.repository.VideoRepository;
+import swd.coiviet.service.CloudinaryService;
+import swd.coiviet.service.UserMessagePublisher;
+import swd.coiviet.support.DataJpaServiceTest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@TestPropertySource(properties = {
+        "app.media.job-dir=target/media-jobs-test",
+        "app.media.job-max-attempts=3",
+        "app.media.job-base-backoff=PT0S"
+})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({MediaJobServiceImpl.class, UserMemoryServiceImpl.class, VideoServiceImpl.class, SchedulerLockServiceImpl.class,
+        SimpleMeterRegistry.class, MediaJobServiceImplTests.RecordingPublisher.class})
+class MediaJobServiceImplTests extends DataJpaServiceTest {
+
+    private static final long UPLOAD_MS = 40;
+
+    @MockitoBean private CloudinaryService cloudinaryService;
+    @Autowired private MediaJobServiceImpl mediaJobService;
+    @Autowired private RecordingPublisher publisher;
+    @Autowired private SimpleMeterRegistry meterRegistry;
+    @Autowired private MediaJobRepository jobRepository;
+    @Autowired private UserMemoryRepository memoryRepository;
+    @Autowired private VideoRepository videoRepository;
+
+    @Test
+    void requestOnlySpoolsFilesAndWorkerPatchesMemory() throws Exception {
+        AtomicInteger uploads = new AtomicInteger();
+        when(cloudinaryService.uploadImage(any(Path.class), anyString(), anyString())).thenAnswer(invocation -> {
+            assertThat((Path) invocation.getArgument(0)).exists();
+            Thread.sleep(UPLOAD_MS);
+            return "https://res.cloudinary.com/demo/image/upload/memories/img-" + uploads.incrementAndGet() + ".jpg";
+        });
+        when(cloudinaryService.uploadAudio(any(Path.class), anyString())).thenAnswer(invocation -> {
+            Thread.sleep(UPLOAD_MS);
+            return "https://res.cloudinary.com/demo/video/upload/memories/audio.mp3";
+        });
+        when(cloudinaryService.uploadVideo(any(Path.class), anyString())).thenAnswer(invocation -> {
+            Thread.sleep(UPLOAD_MS * 3);
+            return "https://res.cloudinary.com/demo/video/upload/memories/video.mp4";
+        });
+
+        User owner = saveUser("kyuc");
+        UserMemory memory = memoryRepository.save(UserMemory.builder().user(owner).title("Tết quê").build());
+        MockMultipartFile[] images = {image("a.jpg"), image("b.jpg"), image("c.jpg")};
+
+        MediaJob job = mediaJobService.submitMemoryMedia(owner.getId(), memory.getId(), images,
+                new MockMultipartFile("audio", "giong.mp3", "audio/mpeg", new byte[64 * 1024]),
+                new MockMultipartFile("video", "le-hoi.mp4", "video/mp4", new byte[512 * 1024]));
+        assertThat(job.getStatus()).isEqualTo(MediaJobStatus.PENDING);
+        assertThat(memoryRepository.findById(memory.getId()).orElseThrow().getImages()).isNull();
+        List<Path> spooled;
+        try (var files = Files.list(Path.of("target/media-jobs-test"))) {
+            spooled = files.toList();
+        }
+        assertThat(spooled).hasSizeGreaterThanOrEqualTo(5);
+
+        List<MediaJob> claimed = mediaJobService.claimDueJobs(10);
+        assertThat(claimed).extracting(MediaJob::getId).contains(job.getId());
+        MediaJob done = null;
+        for (MediaJob claimedJob : claimed) {
+            MediaJob result = mediaJobService.process(claimedJob);
+            if (result.getId().equals(job.getId())) {
+                done = result;
+            }
+        }
+
+        assertThat(done.getStatus()).isEqualTo(MediaJobStatus.SUCCEEDED);
+        assertThat(done.getAttempts()).isEqualTo(1);
+        assertThat(done.getQueueMillis()).isNotNull().isNotNegative();
+        assertThat(done.getProcessMillis()).isGreaterThanOrEqualTo(UPLOAD_MS * 6);
+        UserMemory patched = memoryRepository.findById(memory.getId()).orElseThrow();
+        assertThat(patched.getImages().split(",")).hasSize(3);
+        assertThat(patched.getAudioUrl()).endsWith("audio.mp3");
+        assertThat(patched.getVideoUrl()).endsWith("video.mp4");
+        assertThat(spooled).noneMatch(Files::exists);
+        assertThat(publisher.sent).anyMatch(p -> p.userId.equals(owner.getId())
+                && p.job.getId().equals(job.getId()) && p.job.getStatus() == MediaJobStatus.SUCCEEDED);
+        assertThat(meterRegistry.get("media.job.process").tag("outcome", "SUCCEEDED").timer().count()).isPositive();
+    }
+
+    @Test
+    void failedUploadsRetryThenDeadLetter() throws Exception {
+        String oldThumbnail = "https://res.cloudinary.com/demo/image/upload/videos/old.jpg";
+        Video video = videoRepository.save(Video.builder().title("Múa rối nước").videoUrl("https://youtu.be/x")
+                .thumbnailUrl(oldThumbnail).build());
+        AtomicInteger calls = new AtomicInteger();
+        when(cloudinaryService.uploadImage(any(Path.class), eq("videos/" + video.getId() + "/thumbnail"), anyString()))
+                .thenAnswer(invocation -> {
+                    if (calls.incrementAndGet() == 1) {
+                        throw new AppException(ErrorCode.INTERNAL_SERVER_ERROR, "Cloudinary timeout");
+                    }
+                    return "https://res.cloudinary.com/demo/image/upload/videos/new.jpg";
+                });
+
+        // Lần đầu lỗi: job quay lại PENDING, thumbnail cũ vẫn giữ nguyên
+        MediaJob job = mediaJobService.submitVideoThumbnail(null, video.getId(), image("thumb.jpg"));
+        MediaJob first = processOwn(job);
+        assertThat(first.getStatus()).isEqualTo(MediaJobStatus.PENDING);
+        assertThat(first.getAttempts()).isEqualTo(1);
+        assertThat(first.getLastError()).contains("Cloudinary timeout");
+        assertThat(videoRepository.findById(video.getId()).orElseThrow().getThumbnailUrl()).isEqualTo(oldThumbnail);
+
+        MediaJob second = processOwn(job);
+        assertThat(second.getStatus()).isEqualTo(MediaJobStatus.SUCCEEDED);
+        assertThat(second.getAttempts()).isEqualTo(2);
+        assertThat(videoRepository.findById(video.getId()).orElseThrow().getThumbnailUrl()).endsWith("new.jpg");
+        verify(cloudinaryService).release(oldThumbnail);
+
+        // Lỗi mãi: hết số lần thử thì vào trạng thái FAILED, file gốc bị dọn
+        Video broken = videoRepository.save(Video.builder().title("Hát xoan").videoUrl("https://youtu.be/y").build());
+        when(cloudinaryService.uploadImage(any(Path.class), eq("videos/" + broken.getId() + "/thumbnail"), anyString()))
+                .thenThrow(new AppException(ErrorCode.INTERNAL_SERVER_ERROR, "Cloudinary down"));
+        MediaJob dead = mediaJobService.submitVideoThumbnail(null, broken.getId(), image("thumb2.jpg"));
+        MediaJob last = null;
+        for (int i = 0; i < 3; i++) {
+            last = processOwn(dead);
+        }
+        assertThat(last.getStatus()).isEqualTo(MediaJobStatus.FAILED);
+        assertThat(last.getAttempts()).isEqualTo(3);
+        assertThat(last.getFinishedAt()).isNotNull();
+        assertThat(mediaJobService.claimDueJobs(10)).extracting(MediaJob::getId).doesNotContain(dead.getId());
+        assertThat(meterRegistry.get("media.job.dead").counter().count()).isPositive();
+
+        // Entity đích đã bị xóa: không thử lại
+        Video deleted = videoRepository.save(Video.builder().title("Xóa").videoUrl("https://youtu.be/z").build());
+        when(cloudinaryService.uploadImage(any(Path.class), eq("videos/" + deleted.getId() + "/thumbnail"), anyString()))
+                .thenReturn("https://res.cloudinary.com/demo/image/upload/videos/orphan.jpg");
+        MediaJob orphan = mediaJobService.submitVideoThumbnail(null, deleted.getId(), image("thumb3.jpg"));
+        videoRepository.deleteById(deleted.getId());
+        assertThat(processOwn(orphan).getStatus()).isEqualTo(MediaJobStatus.FAILED);
+        assertThat(jobRepository.findById(orphan.getId()).orElseThrow().getAttempts()).isEqualTo(1);
+    }
+
+    @Test
+    void jobsForTheSameTargetRunInSubmissionOrder() {
+        when(cloudinaryService.uploadImage(any(Path.class), anyString(), anyString()))
+                .thenReturn("https://res.cloudinary.com/demo/image/upload/memories/first.jpg");
+        when(cloudinaryService.uploadAudio(any(Path.class), anyString()))
+                .thenReturn("https://res.cloudinary.com/demo/video/upload/memories/second.mp3");
+        User owner = saveUser("thutu");
+        UserMemory memory = memoryRepository.save(UserMemory.builder().user(owner).title("Chợ phiên").build());
+
+        MediaJob first = mediaJobService.submitMemoryMedia(owner.getId(), memory.getId(),
+                new MockMultipartFile[]{image("a.jpg")}, null, null);
+        MediaJob second = mediaJobService.submitMemoryMedia(owner.getId(), memory.getId(), null,
+                new MockMultipartFile("audio", "b.mp3", "audio/mpeg", new byte[1024]), null);
+
+        // Job sau chờ job trước của cùng ký ức xong mới được nhận, dù hai worker chạy song song
+        List<MediaJob> claimed = mediaJobService.claimDueJobs(100);
+        assertThat(claimed).extracting(MediaJob::getId).contains(first.getId()).doesNotContain(second.getId());
+        mediaJobService.process(claimed.stream().filter(j -> j.getId().equals(first.getId())).findFirst().orElseThrow());
+        assertThat(processOwn(second).getStatus()).isEqualTo(MediaJobStatus.SUCCEEDED);
+
+        UserMemory patched = memoryRepository.findById(memory.getId()).orElseThrow();
+        assertThat(patched.getImages()).endsWith("first.jpg");
+        assertThat(patched.getAudioUrl()).endsWith("second.mp3");
+    }
+
+    @Test
+    void reclaimedJobReusesUploadsAndKeepsTheFinishedResult() {
+        Video video = videoRepository.save(Video.builder().title("Ca trù").videoUrl("https://youtu.be/c").build());
+        AtomicInteger uploads = new AtomicInteger();
+        when(cloudinaryService.uploadImage(any(Path.class), eq("videos/" + video.getId() + "/thumbnail"), anyString()))
+                .thenAnswer(invocation -> "https://res.cloudinary.com/demo/image/upload/videos/ca-tru-"
+                        + uploads.incrementAndGet() + ".jpg");
+        MediaJob job = mediaJobService.submitVideoThumbnail(null, video.getId(), image("ca-tru.jpg"));
+        MediaJob firstRun = claimOwn(job);
+
+        // Lease hết hạn khi lần chạy đầu còn đang upload: job được nhận lại với danh sách file chưa có URL
+        MediaJob leased = jobRepository.findById(job.getId()).orElseThrow();
+        leased.setNextAttemptAt(leased.getNextAttemptAt().minusHours(1));
+        jobRepository.save(leased);
+        MediaJob secondRun = claimOwn(job);
+
+        assertThat(mediaJobService.process(firstRun).getStatus()).isEqualTo(MediaJobStatus.SUCCEEDED);
+        MediaJob late = mediaJobService.process(secondRun);
+
+        assertThat(late.getStatus()).isEqualTo(MediaJobStatus.SUCCEEDED);
+        assertThat(uploads.get()).isEqualTo(1);
+        assertThat(videoRepository.findById(video.getId()).orElseThrow().getThumbnailUrl()).endsWith("ca-tru-1.jpg");
+        verify(cloudinaryService, never()).release("https://res.cloudinary.com/demo/image/upload/videos/ca-tru-1.jpg");
+    }
+
+    private MediaJob processOwn(MediaJob job) {
+        return mediaJobService.process(claimOwn(job));
+    }
+
+    private MediaJob claimOwn(MediaJob job) {
+        return mediaJobService.claimDueJobs(100).stream()
+                .filter(j -> j.getId().equals(job.getId()))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static MockMultipartFile image(String name) {
+        return new MockMultipartFile("images", name, "image/jpeg", new byte[128 * 1024]);
+    }
+
+    static class RecordingPublisher implements UserMessagePublisher {
+        final List<Pushed> sent = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void sendToUser(Long userId, String destination, Object payload) {
+            sent.add(new Pushed(userId, (MediaJobResponse) payload));
+        }
+    }
+
+    record Pushed(Long userId, MediaJobResponse job) {
+    }
+}
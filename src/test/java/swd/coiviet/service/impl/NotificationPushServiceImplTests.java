@@ -0,0 +1,108 @@
+package swd.coiviet.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import swd.coiviet.dto.response.NotificationPushMessage;
+import swd.coiviet.enums.OutboxEventType;
+import swd.coiviet.model.Notification;
+import swd.coiviet.model.OutboxEvent;
+import swd.coiviet.model.User;
+import swd.coiviet.repository.NotificationRepository;
+import swd.coiviet.repository.OutboxEventRepository;
+import swd.coiviet.service.UserMessagePublisher;
+import swd.coiviet.support.DataJpaServiceTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({NotificationServiceImpl.class, NotificationPushServiceImpl.class, OutboxServiceImpl.class,
+        NotificationPushServiceImplTests.RecordingPublisher.class})
+class NotificationPushServiceImplTests extends DataJpaServiceTest {
+
+    private static final int USERS = 300;
+    private static final int PER_USER = 3;
+
+    @Autowired private NotificationServiceImpl notificationService;
+    @Autowired private NotificationPushServiceImpl pushService;
+    @Autowired private OutboxServiceImpl outboxService;
+    @Autowired private RecordingPublisher publisher;
+    @Autowired private NotificationRepository notificationRepository;
+    @Autowired private OutboxEventRepository outboxRepository;
+
+    @Test
+    void pushesAfterCommitAndKeepsUnreadCountersInStepWithDatabase() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(user("u" + i).build());
+        }
+        users = userRepository.saveAll(users);
+        // Một phần user đã mở ứng dụng (đã có bộ đếm), phần còn lại chưa
+        for (int i = 0; i < USERS / 3; i++) {
+            assertThat(notificationService.countUnreadByUserId(users.get(i).getId())).isZero();
+        }
+
+        for (int round = 0; round < PER_USER; round++) {
+            for (User user : users) {
+                notificationService.createBookingConfirmationNotification(user.getId(), (long) round, "BK" + round);
+            }
+        }
+        List<OutboxEvent> events = outboxRepository.findAll().stream()
+                .filter(e -> e.getType() == OutboxEventType.NOTIFICATION).toList();
+        for (int from = 0; from < events.size(); from += 200) {
+            outboxService.deliverNotifications(events.subList(from, Math.min(from + 200, events.size())));
+        }
+
+        assertThat(publisher.sent).hasSize(USERS * PER_USER)
+                .allMatch(p -> p.destination.equals(NotificationPushServiceImpl.DESTINATION) && p.message.getNotification().getId() != null);
+        Map<Long, Long> lastPushed = new HashMap<>();
+        publisher.sent.forEach(p -> lastPushed.put(p.userId, p.message.getUnreadCount()));
+        assertThat(lastPushed).hasSize(USERS).allSatisfy((userId, unread) -> assertThat(unread).isEqualTo(PER_USER));
+        for (User user : users) {
+            assertThat(notificationService.countUnreadByUserId(user.getId()))
+                    .isEqualTo(notificationRepository.countByUserIdAndIsReadFalse(user.getId()))
+                    .isEqualTo(PER_USER);
+        }
+
+        // Đọc một, đọc lại lần nữa, xóa một thông báo chưa đọc, rồi đọc tất cả
+        User reader = users.get(0);
+        List<Notification> own = notificationRepository.findByUserIdAndIsReadFalse(reader.getId());
+        notificationService.markAsRead(own.get(0).getId());
+        notificationService.markAsRead(own.get(0).getId());
+        assertThat(notificationService.countUnreadByUserId(reader.getId())).isEqualTo(PER_USER - 1);
+        notificationService.deleteById(own.get(1).getId());
+        assertThat(notificationService.countUnreadByUserId(reader.getId())).isEqualTo(PER_USER - 2);
+        notificationService.markAllAsRead(reader.getId());
+        assertThat(notificationService.countUnreadByUserId(reader.getId())).isZero();
+
+        // Ghi thẳng vào DB (như instance khác) làm lệch bộ đếm, đối soát sửa lại
+        User drifted = users.get(1);
+        notificationRepository.save(Notification.builder().user(drifted).type("X").title("X").message("X")
+                .isRead(false).createdAt(LocalDateTime.now()).build());
+        assertThat(notificationService.countUnreadByUserId(drifted.getId())).isEqualTo(PER_USER);
+        assertThat(pushService.reconcile()).isEqualTo(1);
+        assertThat(notificationService.countUnreadByUserId(drifted.getId())).isEqualTo(PER_USER + 1);
+        assertThat(pushService.reconcile()).isZero();
+    }
+
+    static class RecordingPublisher implements UserMessagePublisher {
+        final List<Pushed> sent = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void sendToUser(Long userId, String destination, Object payload) {
+            sent.add(new Pushed(userId, destination, (NotificationPushMessage) payload));
+        }
+    }
+
+    record Pushed(Long userId, String destination, NotificationPushMessage message) {
+    }
+}
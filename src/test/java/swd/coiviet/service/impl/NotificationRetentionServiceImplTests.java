@@ -0,0 +1,82 @@
+package swd.coiviet.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import swd.coiviet.model.Notification;
+import swd.coiviet.model.User;
+import swd.coiviet.repository.NotificationRepository;
+import swd.coiviet.support.DataJpaServiceTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({NotificationServiceImpl.class, NotificationPushServiceImpl.class, NotificationRetentionServiceImpl.class,
+        OutboxServiceImpl.class, NotificationPushServiceImplTests.RecordingPublisher.class})
+class NotificationRetentionServiceImplTests extends DataJpaServiceTest {
+
+    private static final int PER_USER = 5000;
+
+    @Autowired private NotificationServiceImpl notificationService;
+    @Autowired private NotificationRetentionServiceImpl retentionService;
+    @Autowired private NotificationRepository notificationRepository;
+    @Autowired private NotificationPushServiceImpl pushService;
+
+    @Test
+    void bulkWritesAndRetentionKeepTableBounded() {
+        User legacyUser = saveUser("legacy");
+        User bulkUser = saveUser("bulk");
+        long before = notificationRepository.count();
+
+        // Mỗi user một nửa thông báo quá hạn giữ (8 tháng trước), một nửa mới
+        LocalDateTime now = LocalDateTime.now();
+        for (User user : List.of(legacyUser, bulkUser)) {
+            List<Notification> batch = new ArrayList<>();
+            for (int i = 0; i < PER_USER; i++) {
+                batch.add(Notification.builder().user(user).type("TEST").title("T").message("M" + i).isRead(false)
+                        .createdAt(i % 2 == 0 ? now.minusMonths(8) : now).build());
+            }
+            assertThat(notificationService.createAll(batch)).isEqualTo(PER_USER);
+            assertThat(batch).allMatch(n -> n.getId() != null);
+        }
+        assertThat(notificationRepository.count()).isEqualTo(before + 2L * PER_USER);
+        assertThat(notificationService.countUnreadByUserId(bulkUser.getId())).isEqualTo(PER_USER);
+
+        notificationService.markAllAsRead(bulkUser.getId());
+        assertThat(notificationRepository.countByUserIdAndIsReadFalse(bulkUser.getId())).isZero();
+        assertThat(notificationService.countUnreadByUserId(bulkUser.getId())).isZero();
+
+        // H2 không có partition: tạo partition bỏ qua, lưu trữ rơi về xóa theo lô
+        assertThat(retentionService.ensurePartitions()).isZero();
+        assertThat(retentionService.archiveExpired()).isEqualTo(PER_USER);
+        assertThat(notificationRepository.count()).isEqualTo(before + PER_USER);
+        assertThat(notificationRepository.findByUserId(bulkUser.getId()))
+                .hasSize(PER_USER / 2)
+                .allMatch(n -> n.getCreatedAt().isAfter(now.minusMonths(6)));
+        assertThat(retentionService.archiveExpired()).isZero();
+    }
+
+    @Test
+    void retentionKeepsUnreadCountersInStep() {
+        User user = saveUser("retention");
+        LocalDateTime now = LocalDateTime.now();
+        List<Notification> batch = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            batch.add(Notification.builder().user(user).type("TEST").title("T").message("M" + i).isRead(false)
+                    .createdAt(i < 7 ? now.minusMonths(8) : now).build());
+        }
+        notificationService.createAll(batch);
+        assertThat(pushService.unreadCount(user.getId())).isEqualTo(10);
+
+        retentionService.archiveExpired();
+
+        // Thông báo chưa đọc bị xóa theo hạn giữ không còn tính vào bộ đếm trong bộ nhớ
+        assertThat(pushService.unreadCount(user.getId())).isEqualTo(3);
+    }
+}
@@ -0,0 +1,62 @@
+package swd.coiviet.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SchedulerLockServiceImplTests {
+
+    @TempDir Path tempDir;
+
+    @Test
+    void generatedInstanceIdSurvivesRestarts() throws Exception {
+        String idFile = tempDir.resolve("state/instance-id").toString();
+        String first = newService("", idFile).getInstanceId();
+        // Khởi động lại với cùng thư mục: job và upload session cũ vẫn thuộc về instance này
+        String afterRestart = newService("", idFile).getInstanceId();
+
+        assertThat(first).startsWith(InetAddress.getLocalHost().getHostName() + "-");
+        assertThat(afterRestart).isEqualTo(first);
+        assertThat(Files.readString(Path.of(idFile))).isEqualTo(first);
+        assertThat(newService("node-a", idFile).getInstanceId()).isEqualTo("node-a");
+    }
+
+    @Test
+    void processesOnOneHostGetTheirOwnDefaultIdFile() throws Exception {
+        Path tmp = Path.of(System.getProperty("java.io.tmpdir"));
+        try {
+            String first = newService("", "", 18081).getInstanceId();
+            String second = newService("", "", 18082).getInstanceId();
+
+            // Hai process cùng máy, cùng java.io.tmpdir nhưng khác cổng không nhận job của nhau
+            assertThat(first).isNotEqualTo(second);
+            assertThat(newService("", "", 18081).getInstanceId()).isEqualTo(first);
+            assertThat(Files.readString(tmp.resolve("coiviet-instance-id-18082"))).isEqualTo(second);
+        } finally {
+            Files.deleteIfExists(tmp.resolve("coiviet-instance-id-18081"));
+            Files.deleteIfExists(tmp.resolve("coiviet-instance-id-18082"));
+        }
+    }
+
+    @Test
+    void fallsBackToHostnameAndPortWhenIdCannotBePersisted() throws Exception {
+        Path notADirectory = Files.writeString(tempDir.resolve("file"), "x");
+        String id = newService("", notADirectory.resolve("instance-id").toString(), 8081).getInstanceId();
+
+        assertThat(id).isEqualTo(InetAddress.getLocalHost().getHostName() + "-8081");
+    }
+
+    private static SchedulerLockServiceImpl newService(String instanceId, String instanceIdFile) {
+        return newService(instanceId, instanceIdFile, 8080);
+    }
+
+    private static SchedulerLockServiceImpl newService(String instanceId, String instanceIdFile, int serverPort) {
+        return new SchedulerLockServiceImpl(null, Duration.ofMinutes(30), Duration.ZERO, instanceId, instanceIdFile, serverPort);
+    }
+}
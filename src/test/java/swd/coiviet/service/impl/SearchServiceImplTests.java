@@ -0,0 +1,120 @@
+package swd.coiviet.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import swd.coiviet.dto.response.SearchHitResponse;
+import swd.coiviet.dto.response.SearchResponse;
+import swd.coiviet.enums.PublicationStatus;
+import swd.coiviet.enums.SearchDocumentType;
+import swd.coiviet.enums.Status;
+import swd.coiviet.event.CatalogChangedEvent;
+import swd.coiviet.model.BlogPost;
+import swd.coiviet.model.Province;
+import swd.coiviet.model.Tour;
+import swd.coiviet.repository.BlogPostRepository;
+import swd.coiviet.repository.ProvinceRepository;
+import swd.coiviet.repository.TourRepository;
+import swd.coiviet.support.DataJpaServiceTest;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import({SearchServiceImpl.class, SimpleMeterRegistry.class})
+class SearchServiceImplTests extends DataJpaServiceTest {
+
+    private static final String[] WORDS = {
+            "làng", "nghề", "gốm", "bát", "tràng", "lụa", "vạn", "phúc", "chợ", "nổi", "cái", "răng",
+            "phố", "cổ", "hội", "an", "cố", "đô", "huế", "ruộng", "bậc", "thang", "mù", "cang", "chải",
+            "đờn", "ca", "tài", "tử", "múa", "rối", "nước", "cồng", "chiêng", "tây", "nguyên", "thổ", "cẩm",
+            "trà", "tân", "cương", "bánh", "chưng", "tết", "đình", "chùa", "lễ", "hội", "đua", "thuyền"
+    };
+
+    @Autowired private SearchServiceImpl searchService;
+    @Autowired private ApplicationEventPublisher eventPublisher;
+    @Autowired private ProvinceRepository provinceRepo;
+    @Autowired private TourRepository tourRepo;
+    @Autowired private BlogPostRepository blogPostRepo;
+
+    @Test
+    void matchesWithoutDiacriticsAndFollowsCatalogChanges() {
+        Province hue = provinceRepo.save(Province.builder().name("Thừa Thiên Huế").slug("thua-thien-hue-search").region("Miền Trung").build());
+        Tour titleMatch = saveTour(Tour.builder().title("Khám phá Cố đô Huế").slug("kham-pha-co-do-hue")
+                .description("Đại Nội, lăng tẩm và ca Huế trên sông Hương").province(hue).status(Status.ACTIVE).build());
+        Tour draft = saveTour(Tour.builder().title("Huế về đêm").slug("hue-ve-dem")
+                .description("Chưa mở bán").province(hue).status(Status.INACTIVE).build());
+        BlogPost bodyMatch = blogPostRepo.save(BlogPost.builder().title("Ẩm thực miền Trung").slug("am-thuc-mien-trung")
+                .content("Bún bò, cơm hến và bánh khoái xứ Huế").status(PublicationStatus.PUBLISHED)
+                .createdAt(LocalDateTime.now()).build());
+        eventPublisher.publishEvent(new CatalogChangedEvent(BlogPost.class, bodyMatch.getId()));
+
+        SearchResponse response = searchService.search("hue", null, null);
+        assertThat(response.getHits()).extracting(SearchHitResponse::getId)
+                .containsExactly(titleMatch.getId(), bodyMatch.getId());
+        assertThat(response.getHits().get(0).getType()).isEqualTo(SearchDocumentType.TOUR);
+        assertThat(searchService.search("cố đô", null, null).getHits())
+                .extracting(SearchHitResponse::getId).containsExactly(titleMatch.getId());
+        assertThat(searchService.search("hue", EnumSet.of(SearchDocumentType.BLOG_POST), null).getHits())
+                .extracting(SearchHitResponse::getId).containsExactly(bodyMatch.getId());
+
+        draft.setStatus(Status.ACTIVE);
+        saveTour(draft);
+        titleMatch.setStatus(Status.INACTIVE);
+        saveTour(titleMatch);
+        blogPostRepo.deleteById(bodyMatch.getId());
+        eventPublisher.publishEvent(new CatalogChangedEvent(BlogPost.class, bodyMatch.getId()));
+        assertThat(searchService.search("Huế", null, null).getHits())
+                .extracting(SearchHitResponse::getId).containsExactly(draft.getId());
+
+        // Dựng lại từ DB cho kết quả giống chỉ mục được cập nhật dần
+        searchService.reindex();
+        assertThat(searchService.isLoaded()).isTrue();
+        assertThat(searchService.search("Huế", null, null).getHits())
+                .extracting(SearchHitResponse::getId).containsExactly(draft.getId());
+    }
+
+    @Test
+    void searchesHundredThousandDocumentsAfterReindexing() {
+        int documents = 100_000;
+        Random random = new Random(42);
+        SearchIndex index = new SearchIndex();
+        SearchDocumentType[] types = SearchDocumentType.values();
+        for (int i = 0; i < documents; i++) {
+            index.upsert(types[i % types.length], i, sentence(random, 6), sentence(random, 80), "Tỉnh " + (i % 63));
+        }
+        assertThat(index.size()).isEqualTo(documents);
+
+        // Cập nhật lại 30% document để chạy qua nhánh dọn posting
+        for (int i = 0; i < documents * 3 / 10; i++) {
+            index.upsert(types[i % types.length], i, sentence(random, 6), sentence(random, 80));
+        }
+        assertThat(index.size()).isEqualTo(documents);
+
+        Set<SearchDocumentType> all = EnumSet.allOf(SearchDocumentType.class);
+        for (int i = 0; i < 200; i++) {
+            assertThat(index.search(sentence(random, 1 + i % 3), all, 20)).hasSizeLessThanOrEqualTo(20);
+        }
+        assertThat(index.search("lang nghe gom bat trang", all, 20)).hasSize(20);
+    }
+
+    private Tour saveTour(Tour tour) {
+        Tour saved = tourRepo.save(tour);
+        eventPublisher.publishEvent(new CatalogChangedEvent(Tour.class, saved.getId()));
+        return saved;
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) out.append(' ');
+            out.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return out.toString();
+    }
+}
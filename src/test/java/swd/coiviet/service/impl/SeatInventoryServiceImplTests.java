@@ -0,0 +1,92 @@
+package swd.coiviet.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import swd.coiviet.enums.TourScheduleStatus;
+import swd.coiviet.model.TourSchedule;
+import swd.coiviet.repository.TourScheduleRepository;
+import swd.coiviet.support.DataJpaServiceTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(SeatInventoryServiceImpl.class)
+class SeatInventoryServiceImplTests extends DataJpaServiceTest {
+
+    private static final int THREADS = 8;
+    private static final int ATTEMPTS_PER_THREAD = 150;
+
+    @Autowired
+    private SeatInventoryServiceImpl seatInventoryService;
+
+    @Autowired
+    private TourScheduleRepository tourScheduleRepo;
+
+    @Test
+    void concurrentReservationsNeverOversellHotSchedule() throws Exception {
+        int maxSlots = 500;
+        TourSchedule schedule = tourScheduleRepo.save(TourSchedule.builder()
+                .tourDate(LocalDate.now().plusDays(5))
+                .maxSlots(maxSlots)
+                .bookedSlots(0)
+                .status(TourScheduleStatus.SCHEDULED)
+                .build());
+        Long scheduleId = schedule.getId();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                int granted = 0;
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    if (seatInventoryService.reserveSeats(scheduleId, 1 + (i % 3))) {
+                        granted += 1 + (i % 3);
+                    }
+                }
+                return granted;
+            }));
+        }
+
+        start.countDown();
+        int grantedSeats = 0;
+        for (Future<Integer> result : results) {
+            grantedSeats += result.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        TourSchedule reloaded = tourScheduleRepo.findById(scheduleId).orElseThrow();
+        assertThat(reloaded.getBookedSlots()).isEqualTo(grantedSeats);
+        assertThat(reloaded.getBookedSlots()).isLessThanOrEqualTo(maxSlots);
+        assertThat(reloaded.getStatus()).isEqualTo(TourScheduleStatus.FULL);
+    }
+
+    @Test
+    void releaseReopensFullSchedule() {
+        TourSchedule schedule = tourScheduleRepo.save(TourSchedule.builder()
+                .tourDate(LocalDate.now().plusDays(5))
+                .maxSlots(2)
+                .bookedSlots(0)
+                .status(TourScheduleStatus.SCHEDULED)
+                .build());
+
+        assertThat(seatInventoryService.reserveSeats(schedule.getId(), 2)).isTrue();
+        assertThat(seatInventoryService.reserveSeats(schedule.getId(), 1)).isFalse();
+
+        seatInventoryService.releaseSeats(schedule.getId(), 1);
+
+        TourSchedule reloaded = tourScheduleRepo.findById(schedule.getId()).orElseThrow();
+        assertThat(reloaded.getBookedSlots()).isEqualTo(1);
+        assertThat(reloaded.getStatus()).isEqualTo(TourScheduleStatus.SCHEDULED);
+    }
+}
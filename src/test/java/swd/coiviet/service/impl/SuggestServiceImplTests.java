@@ -0,0 +1,119 @@
+package swd.coiviet.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import swd.coiviet.dto.response.SuggestionResponse;
+import swd.coiviet.enums.CultureCategory;
+import swd.coiviet.enums.PublicationStatus;
+import swd.coiviet.enums.Status;
+import swd.coiviet.enums.SuggestionType;
+import swd.coiviet.event.CatalogChangedEvent;
+import swd.coiviet.model.Artisan;
+import swd.coiviet.model.CultureItem;
+import swd.coiviet.model.Province;
+import swd.coiviet.model.Tour;
+import swd.coiviet.repository.ArtisanRepository;
+import swd.coiviet.repository.CultureItemRepository;
+import swd.coiviet.repository.ProvinceRepository;
+import swd.coiviet.repository.TourRepository;
+import swd.coiviet.support.DataJpaServiceTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import({SuggestServiceImpl.class, SimpleMeterRegistry.class})
+class SuggestServiceImplTests extends DataJpaServiceTest {
+
+    private static final String[] WORDS = {
+            "làng", "nghề", "gốm", "bát", "tràng", "lụa", "vạn", "phúc", "chợ", "nổi", "cái", "răng",
+            "phố", "cổ", "hội", "an", "cố", "đô", "huế", "ruộng", "bậc", "thang", "mù", "cang", "chải",
+            "đờn", "ca", "tài", "tử", "múa", "rối", "nước", "cồng", "chiêng", "tây", "nguyên", "thổ", "cẩm"
+    };
+
+    @Autowired private SuggestServiceImpl suggestService;
+    @Autowired private ApplicationEventPublisher eventPublisher;
+    @Autowired private ProvinceRepository provinceRepo;
+    @Autowired private TourRepository tourRepo;
+    @Autowired private ArtisanRepository artisanRepo;
+    @Autowired private CultureItemRepository cultureItemRepo;
+
+    @Test
+    void suggestsByFoldedPrefixWithPopularOnesFirst() {
+        Province daNang = provinceRepo.save(Province.builder().name("Đà Nẵng").slug("da-nang-suggest").region("Miền Trung").build());
+        Province daLat = provinceRepo.save(Province.builder().name("Đà Lạt").slug("da-lat-suggest").region("Tây Nguyên").build());
+        Artisan artisan = artisanRepo.save(Artisan.builder().fullName("Đặng Văn Hòa").specialization("Gốm")
+                .province(daNang).averageRating(BigDecimal.valueOf(40, 1)).isActive(true).build());
+        Tour quiet = tourRepo.save(Tour.builder().title("Đạp xe quanh hồ Xuân Hương").slug("dap-xe-ho-xuan-huong")
+                .province(daLat).artisan(artisan).totalBookings(2).averageRating(BigDecimal.valueOf(40, 1))
+                .status(Status.ACTIVE).build());
+        Tour popular = tourRepo.save(Tour.builder().title("Đà Nẵng về đêm").slug("da-nang-ve-dem")
+                .province(daNang).artisan(artisan).totalBookings(900).averageRating(BigDecimal.valueOf(47, 1))
+                .status(Status.ACTIVE).build());
+        tourRepo.save(Tour.builder().title("Đà Nẵng chưa mở bán").slug("da-nang-nhap").province(daNang)
+                .totalBookings(5000).status(Status.INACTIVE).build());
+        CultureItem item = cultureItemRepo.save(CultureItem.builder().title("Nhã nhạc cung đình Huế")
+                .category(CultureCategory.values()[0]).status(PublicationStatus.PUBLISHED).createdAt(LocalDateTime.now()).build());
+
+        suggestService.rebuild();
+        assertThat(suggestService.isLoaded()).isTrue();
+
+        // Tour bị ẩn không được gợi ý; lượt đặt và đánh giá quyết định thứ tự
+        assertThat(suggestService.suggest("da", null)).extracting(SuggestionResponse::getLabel)
+                .containsExactly("Đà Nẵng", "Đà Nẵng về đêm", "Đặng Văn Hòa", "Đà Lạt", "Đạp xe quanh hồ Xuân Hương");
+        assertThat(suggestService.suggest("đà n", 1)).extracting(SuggestionResponse::getId).containsExactly(daNang.getId());
+        assertThat(suggestService.suggest("DAP XE", null)).extracting(SuggestionResponse::getId).containsExactly(quiet.getId());
+        assertThat(suggestService.suggest("da ", null)).extracting(SuggestionResponse::getType)
+                .containsExactly(SuggestionType.PROVINCE, SuggestionType.TOUR, SuggestionType.PROVINCE);
+        // Khớp âm tiết giữa tên
+        assertThat(suggestService.suggest("hue", null)).extracting(SuggestionResponse::getId).containsExactly(item.getId());
+        assertThat(suggestService.suggest("   ", null)).isEmpty();
+
+        // Đổi tên chỉ bật cờ, lần kiểm tra nền sau mới thay cây
+        popular.setTitle("Hội An đèn lồng");
+        tourRepo.save(popular);
+        eventPublisher.publishEvent(new CatalogChangedEvent(Tour.class, popular.getId()));
+        assertThat(suggestService.suggest("hoi", null)).isEmpty();
+        suggestService.rebuildIfStale();
+        assertThat(suggestService.suggest("hoi", null)).extracting(SuggestionResponse::getId).containsExactly(popular.getId());
+    }
+
+    @Test
+    void ranksTopSuggestionsAcrossHundredThousandEntries() {
+        int tours = 100_000;
+        Random random = new Random(7);
+        List<SuggestIndex.Entry> entries = new ArrayList<>(tours);
+        for (int i = 0; i < tours; i++) {
+            entries.add(new SuggestIndex.Entry(SuggestionType.TOUR, i, sentence(random, 3 + i % 5), random.nextFloat() * 10));
+        }
+        SuggestIndex index = SuggestIndex.build(entries, 10);
+        assertThat(index.size()).isEqualTo(tours);
+
+        for (int i = 0; i < 200; i++) {
+            String words = sentence(random, 1 + i % 2);
+            String prefix = words.substring(0, Math.max(1, words.length() - random.nextInt(3)));
+            assertThat(index.suggest(prefix, 10)).hasSizeLessThanOrEqualTo(10);
+        }
+        List<SuggestIndex.Entry> top = index.suggest("lang", 10);
+        assertThat(top).hasSize(10);
+        for (int i = 1; i < top.size(); i++) {
+            assertThat(top.get(i - 1).weight()).isGreaterThanOrEqualTo(top.get(i).weight() - 1);
+        }
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) out.append(' ');
+            out.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return out.toString();
+    }
+}
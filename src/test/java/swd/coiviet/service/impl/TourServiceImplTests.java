@@ -0,0 +1,218 @@
+package swd.coiviet.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import swd.coiviet.configuration.StatsReconciliationTask;
+import swd.coiviet.dto.response.CursorPageResponse;
+import swd.coiviet.dto.response.TourSummaryResponse;
+import swd.coiviet.enums.BookingStatus;
+import swd.coiviet.enums.ReviewStatus;
+import swd.coiviet.enums.Status;
+import swd.coiviet.model.Booking;
+import swd.coiviet.model.Province;
+import swd.coiviet.model.Review;
+import swd.coiviet.model.Tour;
+import swd.coiviet.repository.BookingRepository;
+import swd.coiviet.repository.KeysetQuery;
+import swd.coiviet.repository.ProvinceRepository;
+import swd.coiviet.repository.ReviewRepository;
+import swd.coiviet.repository.TourRepository;
+import swd.coiviet.support.DataJpaServiceTest;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(properties = "app.scheduler.lock-at-least=PT0S")
+@Import({TourServiceImpl.class, ReviewServiceImpl.class, ArtisanStatsServiceImpl.class,
+        StatsReconciliationTask.class, SchedulerLockServiceImpl.class})
+class TourServiceImplTests extends DataJpaServiceTest {
+
+    @Autowired private TourServiceImpl tourService;
+    @Autowired private ReviewServiceImpl reviewService;
+    @Autowired private TourRepository tourRepository;
+    @Autowired private ReviewRepository reviewRepository;
+    @Autowired private BookingRepository bookingRepository;
+    @Autowired private ProvinceRepository provinceRepository;
+    @Autowired private StatsReconciliationTask reconciliationTask;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void incrementalRatingMatchesReconciliation() {
+        Tour small = tourRepository.save(Tour.builder().title("Tour nhỏ").slug("tour-nho").build());
+        Tour large = tourRepository.save(Tour.builder().title("Tour lớn").slug("tour-lon").build());
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Review> seeded = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            seeded.add(Review.builder().tour(large).rating(1 + i % 5).status(ReviewStatus.VISIBLE).createdAt(now).build());
+        }
+        reviewRepository.saveAll(seeded);
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            bookings.add(Booking.builder().bookingCode("BK" + i).tour(large)
+                    .status(i % 3 == 0 ? BookingStatus.CANCELLED : BookingStatus.COMPLETED).createdAt(now).build());
+        }
+        bookingRepository.saveAll(bookings);
+        tourService.reconcileAggregates(List.of(small.getId(), large.getId()));
+
+        // Ghi review qua service: tổng hợp cập nhật bằng delta
+        List<Review> written = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            written.add(reviewService.save(Review.builder().tour(i % 2 == 0 ? small : large).rating(1 + i % 5)
+                    .status(ReviewStatus.VISIBLE).createdAt(now).build()));
+        }
+        Review hidden = written.get(0);
+        hidden.setStatus(ReviewStatus.HIDDEN);
+        reviewService.save(hidden);
+        Review rerated = written.get(1);
+        rerated.setRating(5);
+        reviewService.save(rerated);
+        reviewService.deleteById(written.get(2).getId());
+
+        Tour smallIncremental = tourRepository.findById(small.getId()).orElseThrow();
+        Tour largeIncremental = tourRepository.findById(large.getId()).orElseThrow();
+        List<Review> smallVisible = reviewRepository.findByTourIdAndStatus(small.getId(), ReviewStatus.VISIBLE);
+        assertThat(smallIncremental.getRatingCount()).isEqualTo(smallVisible.size());
+        assertThat(smallIncremental.getAverageRating()).isEqualByComparingTo(
+                BigDecimal.valueOf(smallVisible.stream().mapToInt(Review::getRating).average().orElse(0))
+                        .setScale(2, RoundingMode.HALF_UP));
+
+        tourService.reconcileAggregates(List.of(small.getId(), large.getId()));
+        for (Tour incremental : List.of(smallIncremental, largeIncremental)) {
+            Tour reconciled = tourRepository.findById(incremental.getId()).orElseThrow();
+            assertThat(incremental).usingRecursiveComparison().ignoringFields("averageRating").isEqualTo(reconciled);
+            assertThat(incremental.getAverageRating()).isEqualByComparingTo(reconciled.getAverageRating());
+        }
+        // totalBookings là số booking chưa hủy, không còn bị ghi đè bằng số review
+        assertThat(largeIncremental.getTotalBookings()).isEqualTo(20);
+    }
+
+    @Test
+    void savingAStaleTourKeepsConcurrentRatingDeltas() {
+        Tour tour = tourRepository.save(Tour.builder().title("Tour sửa").slug("tour-sua-rating").build());
+        Tour loadedByAdmin = tourRepository.findById(tour.getId()).orElseThrow();
+
+        // Review được cộng delta giữa lúc admin tải tour và lúc lưu bản sửa
+        reviewService.save(Review.builder().tour(tour).rating(5).status(ReviewStatus.VISIBLE).createdAt(LocalDateTime.now()).build());
+        loadedByAdmin.setTitle("Tour sửa tên");
+        tourService.save(loadedByAdmin);
+
+        Tour saved = tourRepository.findById(tour.getId()).orElseThrow();
+        assertThat(saved.getTitle()).isEqualTo("Tour sửa tên");
+        assertThat(saved.getRatingCount()).isEqualTo(1);
+        assertThat(saved.getFiveStarCount()).isEqualTo(1);
+        assertThat(saved.getAverageRating()).isEqualByComparingTo("5.00");
+    }
+
+    @Test
+    void legacyToursSkipDeltasUntilBackfilled() {
+        Tour fresh = tourRepository.save(Tour.builder().title("Tour mới").slug("tour-moi-backfill").build());
+        assertThat(fresh.getRatingCount()).isZero();
+
+        // Tour có từ trước khi thêm cột: tổng hợp còn NULL, review cũ chưa được đếm
+        Tour legacy = tourRepository.save(Tour.builder().title("Tour cũ").slug("tour-cu-backfill").build());
+        jdbcTemplate.update("UPDATE tours SET rating_count = NULL, rating_sum = NULL, one_star_count = NULL, " +
+                "two_star_count = NULL, three_star_count = NULL, four_star_count = NULL, five_star_count = NULL, " +
+                "average_rating = 4.00 WHERE id = ?", legacy.getId());
+        LocalDateTime now = LocalDateTime.now();
+        reviewRepository.saveAll(List.of(
+                Review.builder().tour(legacy).rating(4).status(ReviewStatus.VISIBLE).createdAt(now).build(),
+                Review.builder().tour(legacy).rating(4).status(ReviewStatus.VISIBLE).createdAt(now).build()));
+
+        // Delta bị bỏ qua: không ra tổng hợp chỉ gồm review mới, không xóa trung bình cũ
+        reviewService.save(Review.builder().tour(legacy).rating(1).status(ReviewStatus.VISIBLE).createdAt(now).build());
+        reviewService.save(Review.builder().tour(fresh).rating(5).status(ReviewStatus.VISIBLE).createdAt(now).build());
+        Tour pending = tourRepository.findById(legacy.getId()).orElseThrow();
+        assertThat(pending.getRatingCount()).isNull();
+        assertThat(pending.getAverageRating()).isEqualByComparingTo("4.00");
+        assertThat(tourService.findIdsWithoutRatingAggregates(10)).containsExactly(legacy.getId());
+
+        reconciliationTask.backfillTourAggregates();
+        Tour backfilled = tourRepository.findById(legacy.getId()).orElseThrow();
+        assertThat(backfilled.getRatingCount()).isEqualTo(3);
+        assertThat(backfilled.getRatingSum()).isEqualTo(9);
+        assertThat(backfilled.getFourStarCount()).isEqualTo(2);
+        assertThat(backfilled.getAverageRating()).isEqualByComparingTo("3.00");
+        assertThat(tourRepository.findById(fresh.getId()).orElseThrow().getRatingCount()).isEqualTo(1);
+        assertThat(tourService.findIdsWithoutRatingAggregates(10)).isEmpty();
+
+        // Sau backfill delta được cộng tiếp
+        reviewService.save(Review.builder().tour(legacy).rating(5).status(ReviewStatus.VISIBLE).createdAt(now).build());
+        Tour updated = tourRepository.findById(legacy.getId()).orElseThrow();
+        assertThat(updated.getRatingCount()).isEqualTo(4);
+        assertThat(updated.getAverageRating()).isEqualByComparingTo("3.50");
+    }
+
+    @Test
+    void cursorPagesWalkEveryTourOnceAndClampTheSize() {
+        Province north = provinceRepository.save(Province.builder().name("Lào Cai").slug("lao-cai-page").region("Miền Bắc").build());
+        Province south = provinceRepository.save(Province.builder().name("Cần Thơ").slug("can-tho-page").region("Miền Nam").build());
+        List<Tour> tours = new ArrayList<>();
+        for (int i = 0; i < 130; i++) {
+            tours.add(Tour.builder().title("Tour trang " + i).slug("tour-trang-" + i).province(i < 123 ? north : south)
+                    .status(i % 3 == 0 ? Status.INACTIVE : Status.ACTIVE).build());
+        }
+        tourRepository.saveAll(tours);
+        List<Long> activeNorth = tours.stream()
+                .filter(t -> t.getProvince() == north && t.getStatus() == Status.ACTIVE)
+                .map(Tour::getId).sorted(Comparator.reverseOrder()).toList();
+
+        // Đi hết các trang theo nextCursor: id giảm dần, không trùng, không sót
+        List<Long> walked = new ArrayList<>();
+        Long cursor = null;
+        int pages = 0;
+        CursorPageResponse<TourSummaryResponse> page;
+        do {
+            page = tourService.findPage(cursor, 10, north.getId(), null, Status.ACTIVE);
+            page.getItems().forEach(item -> walked.add(item.getId()));
+            assertThat(page.getSize()).isEqualTo(page.getItems().size()).isLessThanOrEqualTo(10);
+            cursor = page.getNextCursor();
+            pages++;
+        } while (page.isHasMore());
+        assertThat(walked).isEqualTo(activeNorth);
+        assertThat(pages).isEqualTo((activeNorth.size() + 9) / 10);
+        assertThat(cursor).isNull();
+
+        // Đúng size phần tử: lấy dư một dòng nên biết là trang cuối, không trả trang rỗng phía sau
+        CursorPageResponse<TourSummaryResponse> exact = tourService.findPage(null, 7, south.getId(), null, null);
+        assertThat(exact.getItems()).hasSize(7);
+        assertThat(exact.isHasMore()).isFalse();
+        assertThat(exact.getNextCursor()).isNull();
+        CursorPageResponse<TourSummaryResponse> split = tourService.findPage(null, 6, south.getId(), null, null);
+        assertThat(split.isHasMore()).isTrue();
+        assertThat(split.getNextCursor()).isEqualTo(split.getItems().get(5).getId());
+        assertThat(tourService.findPage(split.getNextCursor(), 6, south.getId(), null, null).getItems())
+                .singleElement().extracting(TourSummaryResponse::getId).isEqualTo(exact.getItems().get(6).getId());
+
+        // Size vượt MAX_SIZE bị kẹp, size không hợp lệ dùng mặc định
+        CursorPageResponse<TourSummaryResponse> clamped = tourService.findPage(null, 1000, north.getId(), null, null);
+        assertThat(clamped.getItems()).hasSize(CursorPageResponse.MAX_SIZE);
+        assertThat(clamped.isHasMore()).isTrue();
+        assertThat(tourService.findPage(null, null, north.getId(), null, null).getItems()).hasSize(CursorPageResponse.DEFAULT_SIZE);
+        assertThat(tourService.findPage(null, 0, north.getId(), null, null).getItems()).hasSize(CursorPageResponse.DEFAULT_SIZE);
+    }
+
+    @Test
+    void keysetQueryOnlyContainsPresentPredicates() {
+        KeysetQuery<Long> firstPage = KeysetQuery.select(Long.class, "SELECT t.id FROM Tour t", "t.id")
+                .whereIfPresent("t.status = :status", "status", null)
+                .after(null);
+        assertThat(firstPage.toJpql()).isEqualTo("SELECT t.id FROM Tour t ORDER BY t.id DESC");
+        assertThat(firstPage.getParameters()).isEmpty();
+
+        KeysetQuery<Long> nextPage = KeysetQuery.select(Long.class, "SELECT t.id FROM Tour t", "t.id")
+                .whereIfPresent("t.status = :status", "status", Status.ACTIVE)
+                .after(42L);
+        assertThat(nextPage.toJpql()).isEqualTo("SELECT t.id FROM Tour t WHERE t.status = :status AND t.id < :cursor ORDER BY t.id DESC");
+        assertThat(nextPage.getParameters()).containsEntry("status", Status.ACTIVE).containsEntry("cursor", 42L);
+    }
+}
@@ -0,0 +1,274 @@
+package swd.coiviet.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import swd.coiviet.dto.request.CreateUploadSessionRequest;
+import swd.coiviet.dto.response.UploadSessionResponse;
+import swd.coiviet.enums.MediaField;
+import swd.coiviet.enums.MediaJobStatus;
+import swd.coiviet.enums.UploadSessionStatus;
+import swd.coiviet.exception.AppException;
+import swd.coiviet.exception.ErrorCode;
+import swd.coiviet.model.MediaJob;
+import swd.coiviet.model.UploadSession;
+import swd.coiviet.model.User;
+import swd.coiviet.model.UserMemory;
+import swd.coiviet.repository.SchedulerLockRepository;
+import swd.coiviet.repository.UploadSessionRepository;
+import swd.coiviet.repository.UserMemoryRepository;
+import swd.coiviet.service.CloudinaryService;
+import swd.coiviet.service.UserMessagePublisher;
+import swd.coiviet.support.DataJpaServiceTest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@TestPropertySource(properties = {
+        "app.media.job-dir=target/media-jobs-test",
+        "app.media.upload-dir=target/upload-sessions-test",
+        "app.media.upload-chunk-size=4MB",
+        "app.scheduler.instance-id-file=target/upload-sessions-test/instance-id"
+})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({UploadSessionServiceImpl.class, MediaJobServiceImpl.class, UserMemoryServiceImpl.class, VideoServiceImpl.class,
+        SchedulerLockServiceImpl.class, SimpleMeterRegistry.class})
+class UploadSessionServiceImplTests extends DataJpaServiceTest {
+
+    private static final int MB = 1024 * 1024;
+    private static final int CHUNK = 4 * MB;
+    private static final long VIDEO_SIZE = 13L * MB + 12345;
+
+    @MockitoBean private CloudinaryService cloudinaryService;
+    @MockitoBean private UserMessagePublisher userMessagePublisher;
+    @Autowired private UploadSessionServiceImpl uploadService;
+    @Autowired private MediaJobServiceImpl mediaJobService;
+    @Autowired private UploadSessionRepository sessionRepository;
+    @Autowired private UserMemoryRepository memoryRepository;
+    @Autowired private UserMemoryServiceImpl userMemoryService;
+    @Autowired private SchedulerLockRepository lockRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private MeterRegistry meterRegistry;
+    @Autowired private AutowireCapableBeanFactory beanFactory;
+
+    @Test
+    void interruptedUploadResumesFromServerOffsetAndHandsFileToJob() throws Exception {
+        User owner = saveUser("maidao");
+        UserMemory memory = memoryRepository.save(UserMemory.builder().user(owner).title("Chợ nổi Cái Răng").build());
+        when(cloudinaryService.uploadVideo(any(Path.class), anyString()))
+                .thenReturn("https://res.cloudinary.com/demo/video/upload/memories/cho-noi.mp4");
+
+        UploadSession session = uploadService.create(owner.getId(), memory.getId(), request(MediaField.VIDEO, "video/mp4", VIDEO_SIZE));
+        Path file = Paths.get(session.getPath());
+        assertThat(file).exists();
+        assertThat(session.getReceivedBytes()).isZero();
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long maxAllocated = 0;
+        int disconnects = 0;
+        long offset = 0;
+        while (offset < VIDEO_SIZE) {
+            long length = Math.min(CHUNK, VIDEO_SIZE - offset);
+            // Chunk thứ 3 mất mạng sau 1.5MB: server giữ phần đã nhận
+            long failAfter = disconnects == 0 && offset == 2L * CHUNK ? 3 * MB / 2 : -1;
+            long allocated = threads.getCurrentThreadAllocatedBytes();
+            session = uploadService.appendChunk(owner.getId(), session.getId(), offset,
+                    new PatternStream(offset, length, failAfter), failAfter < 0 ? length : -1);
+            maxAllocated = Math.max(maxAllocated, threads.getCurrentThreadAllocatedBytes() - allocated);
+            if (failAfter >= 0) {
+                disconnects++;
+                assertThat(session.getReceivedBytes()).isEqualTo(offset + failAfter);
+                // Client gửi lại nguyên chunk: 409 kèm offset thật để gửi tiếp từ đó
+                long retry = offset;
+                Long sessionId = session.getId();
+                assertThatThrownBy(() -> uploadService.appendChunk(owner.getId(), sessionId, retry,
+                        new PatternStream(retry, CHUNK, -1), CHUNK))
+                        .isInstanceOfSatisfying(AppException.class, e -> {
+                            assertThat(e.getErrorCode()).isEqualTo(ErrorCode.UPLOAD_OFFSET_MISMATCH);
+                            assertThat(((UploadSessionResponse) e.getData()).getOffset()).isEqualTo(retry + failAfter);
+                        });
+            }
+            offset = uploadService.get(owner.getId(), session.getId()).getReceivedBytes();
+        }
+        assertThat(disconnects).isEqualTo(1);
+        assertThat(Files.size(file)).isEqualTo(VIDEO_SIZE);
+        assertThat(crc(file)).isEqualTo(expectedCrc(VIDEO_SIZE));
+        // Mỗi request chỉ giữ buffer nhỏ, không giữ nguyên chunk 4MB trong heap
+        assertThat(maxAllocated).isLessThan(CHUNK / 4);
+
+        MediaJob job = uploadService.complete(owner.getId(), session.getId());
+        assertThat(job.getStatus()).isEqualTo(MediaJobStatus.PENDING);
+        assertThat(job.getParts()).contains(file.toString());
+        UploadSession completed = sessionRepository.findById(session.getId()).orElseThrow();
+        assertThat(completed.getStatus()).isEqualTo(UploadSessionStatus.COMPLETED);
+        assertThat(completed.getJobId()).isEqualTo(job.getId());
+        assertThatThrownBy(() -> uploadService.complete(owner.getId(), completed.getId()))
+                .isInstanceOfSatisfying(AppException.class, e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.UPLOAD_OFFSET_MISMATCH));
+
+        MediaJob claimed = mediaJobService.claimDueJobs(100).stream()
+                .filter(j -> j.getId().equals(job.getId())).findFirst().orElseThrow();
+        assertThat(mediaJobService.process(claimed).getStatus()).isEqualTo(MediaJobStatus.SUCCEEDED);
+        assertThat(memoryRepository.findById(memory.getId()).orElseThrow().getVideoUrl()).endsWith("cho-noi.mp4");
+        assertThat(file).doesNotExist();
+    }
+
+    @Test
+    void sessionsAreValidatedAbortedAndExpired() throws Exception {
+        User owner = saveUser("hoa");
+        User other = saveUser("lan");
+        UserMemory memory = memoryRepository.save(UserMemory.builder().user(owner).title("Hội Lim").build());
+
+        assertError(() -> uploadService.create(other.getId(), memory.getId(), request(MediaField.AUDIO, "audio/mpeg", MB)), ErrorCode.FORBIDDEN);
+        assertError(() -> uploadService.create(owner.getId(), memory.getId(), request(MediaField.AUDIO, "video/mp4", MB)), ErrorCode.INVALID_REQUEST);
+        assertError(() -> uploadService.create(owner.getId(), memory.getId(), request(MediaField.AUDIO, "audio/mpeg", 51L * MB)), ErrorCode.INVALID_REQUEST);
+        assertError(() -> uploadService.create(owner.getId(), memory.getId(), request(MediaField.IMAGES, "image/jpeg", MB)), ErrorCode.INVALID_REQUEST);
+
+        UploadSession audio = uploadService.create(owner.getId(), memory.getId(), request(MediaField.AUDIO, "audio/mpeg", MB));
+        assertError(() -> uploadService.appendChunk(other.getId(), audio.getId(), 0, new PatternStream(0, MB, -1), MB), ErrorCode.FORBIDDEN);
+        assertError(() -> uploadService.appendChunk(owner.getId(), audio.getId(), 0, new PatternStream(0, 2L * CHUNK, -1), 2L * CHUNK),
+                ErrorCode.INVALID_REQUEST);
+        // Body không khai báo độ dài nhưng dài hơn file: bỏ cả chunk
+        assertError(() -> uploadService.appendChunk(owner.getId(), audio.getId(), 0, new PatternStream(0, MB + 1, -1), -1),
+                ErrorCode.INVALID_REQUEST);
+        assertThat(uploadService.get(owner.getId(), audio.getId()).getReceivedBytes()).isZero();
+        assertThat(Files.size(Paths.get(audio.getPath()))).isZero();
+        uploadService.appendChunk(owner.getId(), audio.getId(), 0, new PatternStream(0, MB / 2, -1), MB / 2);
+        assertError(() -> uploadService.complete(owner.getId(), audio.getId()), ErrorCode.UPLOAD_OFFSET_MISMATCH);
+
+        uploadService.abort(owner.getId(), audio.getId());
+        assertThat(sessionRepository.findById(audio.getId())).isEmpty();
+        assertThat(Paths.get(audio.getPath())).doesNotExist();
+
+        // Phiên bỏ dở quá hạn: file tạm và phiên bị xóa
+        UploadSession stale = uploadService.create(owner.getId(), memory.getId(), request(MediaField.VIDEO, "video/mp4", 10L * MB));
+        uploadService.appendChunk(owner.getId(), stale.getId(), 0, new PatternStream(0, MB, -1), MB);
+        UploadSession active = uploadService.create(owner.getId(), memory.getId(), request(MediaField.VIDEO, "video/mp4", 10L * MB));
+        stale.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        sessionRepository.save(stale);
+        assertThat(uploadService.expireBefore(LocalDateTime.now())).isEqualTo(1);
+        assertThat(sessionRepository.findById(stale.getId())).isEmpty();
+        assertThat(Paths.get(stale.getPath())).doesNotExist();
+        assertThat(Paths.get(active.getPath())).exists();
+        uploadService.abort(owner.getId(), active.getId());
+    }
+
+    @Test
+    void uploadResumesOnTheSameInstanceAfterRestart() throws Exception {
+        User owner = saveUser("thuha");
+        UserMemory memory = memoryRepository.save(UserMemory.builder().user(owner).title("Hát xoan Phú Thọ").build());
+        UploadSession session = uploadService.create(owner.getId(), memory.getId(), request(MediaField.AUDIO, "audio/mpeg", 2L * MB));
+        uploadService.appendChunk(owner.getId(), session.getId(), 0, new PatternStream(0, MB, -1), MB);
+
+        // Khởi động lại không cấu hình instance id: id đọc lại từ file nên phiên cũ vẫn thuộc instance này
+        SchedulerLockServiceImpl restartedLock = new SchedulerLockServiceImpl(lockRepository, Duration.ofMinutes(30),
+                Duration.ZERO, "", "target/upload-sessions-test/instance-id", 8080);
+        UploadSessionServiceImpl restarted = new UploadSessionServiceImpl(sessionRepository, userMemoryService,
+                mediaJobService, transactionManager, meterRegistry, restartedLock, "target/upload-sessions-test");
+        beanFactory.autowireBean(restarted);
+        assertThat(restartedLock.getInstanceId()).isEqualTo(session.getInstanceId());
+
+        UploadSession resumed = restarted.appendChunk(owner.getId(), session.getId(), MB, new PatternStream(MB, MB, -1), MB);
+        assertThat(resumed.getReceivedBytes()).isEqualTo(2L * MB);
+        assertThat(crc(Paths.get(session.getPath()))).isEqualTo(expectedCrc(2L * MB));
+        restarted.abort(owner.getId(), session.getId());
+    }
+
+    private static CreateUploadSessionRequest request(MediaField field, String contentType, long size) {
+        CreateUploadSessionRequest request = new CreateUploadSessionRequest();
+        request.setField(field);
+        request.setFileName(field == MediaField.AUDIO ? "giong-noi.mp3" : "cho-noi.mp4");
+        request.setContentType(contentType);
+        request.setSize(size);
+        return request;
+    }
+
+    private static void assertError(org.assertj.core.api.ThrowableAssert.ThrowingCallable call, ErrorCode code) {
+        assertThatThrownBy(call).isInstanceOfSatisfying(AppException.class, e -> assertThat(e.getErrorCode()).isEqualTo(code));
+    }
+
+    private static byte patternAt(long position) {
+        return (byte) (position * 31 + (position >>> 11));
+    }
+
+    private static long crc(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            for (int n; (n = in.read(buffer)) > 0; ) {
+                crc.update(buffer, 0, n);
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static long expectedCrc(long size) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream in = new PatternStream(0, size, -1)) {
+            byte[] buffer = new byte[64 * 1024];
+            for (int n; (n = in.read(buffer)) > 0; ) {
+                crc.update(buffer, 0, n);
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Body của chunk sinh theo vị trí byte trong file (không cấp phát), có thể giả lập mất mạng sau failAfter byte
+     */
+    static class PatternStream extends InputStream {
+        private final long start;
+        private final long length;
+        private final long failAfter;
+        private long read;
+
+        PatternStream(long start, long length, long failAfter) {
+            this.start = start;
+            this.length = length;
+            this.failAfter = failAfter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (failAfter >= 0 && read >= failAfter) {
+                throw new IOException("Connection reset by peer");
+            }
+            long limit = failAfter >= 0 ? failAfter : length;
+            if (read >= limit) {
+                return -1;
+            }
+            int n = (int) Math.min(len, limit - read);
+            for (int i = 0; i < n; i++) {
+                b[off + i] = patternAt(start + read + i);
+            }
+            read += n;
+            return n;
+        }
+    }
+}
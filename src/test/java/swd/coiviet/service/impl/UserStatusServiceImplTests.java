@@ -0,0 +1,45 @@
+package swd.coiviet.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import swd.coiviet.enums.Status;
+import swd.coiviet.model.User;
+import swd.coiviet.support.DataJpaServiceTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(UserStatusServiceImpl.class)
+class UserStatusServiceImplTests extends DataJpaServiceTest {
+
+    @Autowired private UserStatusServiceImpl userStatusService;
+
+    @Test
+    void indexTracksStatusChangesWithoutDatabaseLookups() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Status status = i % 50 == 0 ? Status.BANNED : i % 70 == 0 ? Status.INACTIVE : Status.ACTIVE;
+            users.add(user("u" + i).status(status).build());
+        }
+        users = userRepository.saveAll(users);
+        userStatusService.reload();
+
+        assertThat(userStatusService.isLoaded()).isTrue();
+        for (User user : users) {
+            Status expected = user.getStatus() == Status.ACTIVE ? null : user.getStatus();
+            assertThat(userStatusService.getRestriction(user.getId())).isEqualTo(expected);
+        }
+
+        User active = users.get(1);
+        active.setStatus(Status.BANNED);
+        userRepository.save(active);
+        userStatusService.statusChanged(active.getId(), Status.BANNED);
+        assertThat(userStatusService.getRestriction(active.getId())).isEqualTo(Status.BANNED);
+        userStatusService.statusChanged(active.getId(), Status.ACTIVE);
+        assertThat(userStatusService.getRestriction(active.getId())).isNull();
+        assertThat(userStatusService.getRestriction(Long.MAX_VALUE)).isNull();
+    }
+}
@@ -0,0 +1,31 @@
+package swd.coiviet.support;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import swd.coiviet.model.User;
+import swd.coiviet.repository.UserRepository;
+
+/**
+ * Nền chung cho test service trên H2: cấu hình trong application-test.properties,
+ * test không bọc trong transaction để service tự commit như khi chạy thật.
+ * Thuộc tính riêng của từng test khai báo bằng @TestPropertySource
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public abstract class DataJpaServiceTest {
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    protected User saveUser(String username) {
+        return userRepository.save(user(username).build());
+    }
+
+    protected static User.UserBuilder user(String username) {
+        return User.builder().username(username).email(username + "@example.com").passwordHash("x");
+    }
+}